@@ -33,6 +33,9 @@ public interface ServerAPI {
     /** Value - {@value}, Webapp is an UI that is over Grapes server server REST API.*/
     public static final String WEBAPP_RESOURCE = "webapp";
 
+    /** Value - {@value}, Job is a Grapes server resource that reports the progress of the asynchronous module posts.*/
+    public static final String JOB_RESOURCE = "job";
+
     //METHODS
     /** Value - {@value}, GET methods that returns the deliveries of a product. Usually used as /product/{name}/<GET_DELIVERIES>.*/
     public static final String GET_DELIVERIES = "/deliveries";
@@ -97,6 +100,9 @@ public interface ServerAPI {
     /** Value - {@value}, GET methods that retrieve all the elements of a resource type. Usually used as /<RESOURCE><GET_ALL>.*/
     public static final String GET_ALL = "/all";
 
+    /** Value - {@value}, POST methods that store a list of elements in a single request and return a BatchResult for each element. Usually used as /<RESOURCE><POST_BATCH>.*/
+    public static final String POST_BATCH = "/batch";
+
     //QUERY PARAMETERS
     /** Value - {@value}, boolean query parameter that is used to get the result of the request going till the end of the dependency depth. Override depth parameter if exist.*/
     public static final String RECURSIVE_PARAM = "fullRecursive";
@@ -104,6 +110,12 @@ public interface ServerAPI {
     /** Value - {@value}, integer query parameter that is used to set a depth into the dependency result.*/
     public static final String DEPTH_PARAM = "depth";
 
+    /** Value - {@value}, boolean query parameter that is used to walk the dependencies level by level, resolving each level with batched requests.*/
+    public static final String BREADTH_FIRST_PARAM = "breadthFirst";
+
+    /** Value - {@value}, boolean query parameter that is used to resolve the dependencies of each level in parallel.*/
+    public static final String PARALLEL_PARAM = "parallel";
+
     /** Value - {@value}, boolean query parameter used for licenses.*/
     public static final String APPROVED_PARAM = "approved";
 
@@ -220,4 +232,22 @@ public interface ServerAPI {
 
     /** Value - {@value}, String query parameter used to filter artifacts.*/
     public static final String PROVIDER_PARAM = "provider";
-}
\ No newline at end of file
+
+    /** Value - {@value}, integer query parameter that sets the number of elements to skip in a list. Default value: 0.*/
+    public static final String OFFSET_PARAM = "offset";
+
+    /** Value - {@value}, integer query parameter that sets the maximum number of elements of a list. Default value: 0, no limit.*/
+    public static final String LIMIT_PARAM = "limit";
+
+    /** Value - {@value}, String query parameter that starts a list after the page the cursor has been returned with (see NEXT_CURSOR_HEADER).*/
+    public static final String CURSOR_PARAM = "cursor";
+
+    /** Value - {@value}, boolean query parameter that is used to get the number of elements of a list instead of the elements. Default value: false.*/
+    public static final String COUNT_PARAM = "count";
+
+    /** Value - {@value}, response header that holds the cursor of the next page when a list has been limited and may have more elements.*/
+    public static final String NEXT_CURSOR_HEADER = "X-Grapes-Next-Cursor";
+
+    /** Value - {@value}, boolean query parameter that queues a module post instead of storing it during the request. Default value: false.*/
+    public static final String ASYNC_PARAM = "async";
+}
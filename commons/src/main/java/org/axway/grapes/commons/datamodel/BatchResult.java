@@ -0,0 +1,59 @@
+package org.axway.grapes.commons.datamodel;
+
+/**
+ * Batch Result Model Class
+ *
+ * <P> Model Objects are used in the communication with the Grapes server.
+ * These objects are serialized/un-serialized in JSON objects to be exchanged via http REST calls.
+ * A batch result is the outcome of the storage of one element of a batch post: the http status the element would
+ * have got if it had been posted on its own and the error message if any.
+ */
+public class BatchResult {
+
+    private String id;
+
+    private int status;
+
+    private String message;
+
+    protected BatchResult() {
+        // Should only be instantiated via the DataModelObjectFactory
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(final int status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(id);
+        sb.append(": ");
+        sb.append(status);
+        if(message != null){
+            sb.append(" - ");
+            sb.append(message);
+        }
+        return sb.toString();
+    }
+}
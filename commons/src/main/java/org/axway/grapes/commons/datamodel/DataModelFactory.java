@@ -140,4 +140,21 @@ public final class DataModelFactory {
         }
 	}
 
+    /**
+     * Generates the result of the storage of an element of a batch.
+     *
+     * @param id String the identifier of the element
+     * @param status int the http status of the storage
+     * @param message String the error message, null if the element has been stored
+     * @return BatchResult
+     */
+    public static BatchResult createBatchResult(final String id, final int status, final String message){
+        final BatchResult result = new BatchResult();
+        result.setId(id);
+        result.setStatus(status);
+        result.setMessage(message);
+
+        return result;
+    }
+
 }
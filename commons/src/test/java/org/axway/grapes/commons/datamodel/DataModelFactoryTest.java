@@ -68,4 +68,13 @@ public class DataModelFactoryTest {
 
     }
 
+    @Test
+    public void checkBatchResultGeneration(){
+        BatchResult result = DataModelFactory.createBatchResult("module:1.0.0", 400, "Module name should not be null!");
+
+        assertNotNull(result);
+        assertEquals("module:1.0.0", result.getId());
+        assertEquals(400, result.getStatus());
+        assertEquals("Module name should not be null!", result.getMessage());
+    }
 }
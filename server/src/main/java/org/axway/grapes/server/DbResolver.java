@@ -1,10 +1,15 @@
 package org.axway.grapes.server;
 
 import org.axway.grapes.server.config.DataBaseConfig;
+import org.axway.grapes.server.db.CachingRepositoryHandler;
 import org.axway.grapes.server.db.DBException;
 import org.axway.grapes.server.db.RepositoryHandler;
+import org.axway.grapes.server.db.embedded.EmbeddedHandler;
+import org.axway.grapes.server.db.embedded.EmbeddedStore;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
 import org.axway.grapes.server.db.mongo.MongodbHandler;
 
+import java.io.File;
 import java.net.UnknownHostException;
 
 /**
@@ -17,16 +22,48 @@ import java.net.UnknownHostException;
 public final class DbResolver {
 
     private static final String MONGO = "mongodb";
+    private static final String EMBEDDED = "embedded";
     
     private DbResolver(){
         // Utility class should never be instanciate
     }
     
-    public static RepositoryHandler getNewRepoHandler(final DataBaseConfig config) throws DBException, UnknownHostException{
+    public static RepositoryHandler getNewRepoHandler(final DataBaseConfig config, final MongodbConnection connection, final EmbeddedStore embeddedStore) throws DBException, UnknownHostException{
         if(MONGO.equalsIgnoreCase(config.getDbsystem())){
-            return new MongodbHandler(config);
+            return withCache(config, new MongodbHandler(connection));
+        }
+        if(EMBEDDED.equalsIgnoreCase(config.getDbsystem())){
+            return withCache(config, new EmbeddedHandler(embeddedStore));
         }
         
         throw new DBException("Cannot find any matching database system currently implemented.");
     }
+
+    /**
+     * Checks if the database system runs inside Grapes server, in which case there is no database connection
+     *
+     * @param config DataBaseConfig
+     * @return boolean
+     */
+    public static boolean isEmbedded(final DataBaseConfig config) {
+        return EMBEDDED.equalsIgnoreCase(config.getDbsystem());
+    }
+
+    /**
+     * Creates the store of an embedded database, its datastore is the directory of the database files
+     *
+     * @param config DataBaseConfig
+     * @return EmbeddedStore
+     */
+    public static EmbeddedStore getNewEmbeddedStore(final DataBaseConfig config) {
+        return new EmbeddedStore(new File(config.getDatastore()));
+    }
+
+    private static RepositoryHandler withCache(final DataBaseConfig config, final RepositoryHandler repoHandler) {
+        if(config.isCacheEnabled()){
+            return new CachingRepositoryHandler(repoHandler, config.getCacheSize(), config.getCacheExpiration());
+        }
+
+        return repoHandler;
+    }
 }
@@ -1,5 +1,6 @@
 package org.axway.grapes.server;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yammer.dropwizard.Service;
 import com.yammer.dropwizard.assets.AssetsBundle;
 import com.yammer.dropwizard.auth.basic.BasicAuthProvider;
@@ -7,15 +8,22 @@ import com.yammer.dropwizard.config.Bootstrap;
 import com.yammer.dropwizard.config.Environment;
 import com.yammer.dropwizard.views.ViewBundle;
 import org.axway.grapes.server.config.GrapesServerConfig;
+import org.axway.grapes.server.core.ingestion.ModuleIngestionQueue;
 import org.axway.grapes.server.db.DBException;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbCredential;
+import org.axway.grapes.server.db.embedded.EmbeddedStore;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
 import org.axway.grapes.server.webapp.auth.GrapesAuthenticator;
 import org.axway.grapes.server.webapp.healthcheck.DataBaseCheck;
+import org.axway.grapes.server.webapp.healthcheck.DataBaseIndexesCheck;
+import org.axway.grapes.server.webapp.healthcheck.DataBasePingCheck;
 import org.axway.grapes.server.webapp.healthcheck.DataModelVersionCheck;
 import org.axway.grapes.server.webapp.resources.*;
 import org.axway.grapes.server.webapp.tasks.*;
 import org.axway.grapes.server.webapp.tasks.migrate.MigrationTask;
+import org.axway.grapes.server.webapp.tasks.snapshot.ExportSnapshotTask;
+import org.axway.grapes.server.webapp.tasks.snapshot.ImportSnapshotTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,8 +78,28 @@ public class GrapesServer extends Service<GrapesServerConfig> {
 	@Override
 	public void run(final GrapesServerConfig config, final Environment env) throws DBException, UnknownHostException {
 
+        // init the database connection pool shared by all the components, none with an embedded database
+        MongodbConnection dbConnection = null;
+        EmbeddedStore embeddedStore = null;
+        if(!DbResolver.isEmbedded(config.getDataBaseConfig())){
+            dbConnection = new MongodbConnection(config.getDataBaseConfig());
+            env.manage(dbConnection);
+        }
+        else{
+            // the log of the embedded database is closed at shutdown
+            embeddedStore = DbResolver.getNewEmbeddedStore(config.getDataBaseConfig());
+            env.manage(embeddedStore);
+        }
+
         // init the repoHandler
-        final RepositoryHandler repoHandler = getRepositoryHandler(config);
+        final RepositoryHandler repoHandler = getRepositoryHandler(config, dbConnection, embeddedStore);
+
+        // init the asynchronous ingestion, managed after the database connection so it is drained before it is closed
+        ModuleIngestionQueue ingestionQueue = null;
+        if(config.getIngestionConfig().isAsyncEnabled()){
+            ingestionQueue = new ModuleIngestionQueue(repoHandler, config.getIngestionConfig());
+            env.manage(ingestionQueue);
+        }
 
         // Add credential management
         final GrapesAuthenticator grapesAuthenticator = new GrapesAuthenticator(repoHandler);
@@ -83,27 +111,38 @@ public class GrapesServer extends Service<GrapesServerConfig> {
         env.addTask(new AddRoleTask(repoHandler));
         env.addTask(new RemoveRoleTask(repoHandler));
         env.addTask(new MaintenanceModeTask(config));
+        env.addTask(new RebuildLatestVersionsTask(repoHandler));
+        env.addTask(new RebuildModuleClosuresTask(repoHandler));
         env.addTask(new KillTask());
-        env.addTask(new MigrationTask(config.getDataBaseConfig()));
 
-        // Health checks
-        env.addHealthCheck(new DataBaseCheck(config.getDataBaseConfig()));
-        env.addHealthCheck(new DataModelVersionCheck(config.getDataBaseConfig()));
+        if(dbConnection != null){
+            env.addTask(new MigrationTask(dbConnection));
+            env.addTask(new ExportSnapshotTask(dbConnection));
+            env.addTask(new ImportSnapshotTask(dbConnection, repoHandler));
+
+            // Health checks
+            env.addHealthCheck(new DataBaseCheck(dbConnection));
+            env.addHealthCheck(new DataBasePingCheck(dbConnection));
+            env.addHealthCheck(new DataModelVersionCheck(dbConnection));
+            env.addHealthCheck(new DataBaseIndexesCheck(dbConnection));
+        }
 
-        // Resources
+        // Resources, the streamed lists are serialized with the object mapper configured by Dropwizard
+        final ObjectMapper objectMapper = env.getObjectMapperFactory().build();
         env.addResource(new OrganizationResource(repoHandler, config));
         env.addResource(new ProductResource(repoHandler, config));
-        env.addResource(new ModuleResource(repoHandler, config));
-        env.addResource(new ArtifactResource(repoHandler, config));
+        env.addResource(new ModuleResource(repoHandler, config, ingestionQueue, objectMapper));
+        env.addResource(new ArtifactResource(repoHandler, config, objectMapper));
         env.addResource(new LicenseResource(repoHandler, config));
+        env.addResource(new JobResource(repoHandler, config, ingestionQueue));
         env.addResource(new Sequoia(repoHandler, config));
         env.addResource(new WebAppResource(repoHandler, config));
         env.addResource(new RootResource(repoHandler, config));
 
 	}
 
-    public RepositoryHandler getRepositoryHandler(final GrapesServerConfig config) throws DBException, UnknownHostException {
-        return DbResolver.getNewRepoHandler(config.getDataBaseConfig());
+    public RepositoryHandler getRepositoryHandler(final GrapesServerConfig config, final MongodbConnection dbConnection, final EmbeddedStore embeddedStore) throws DBException, UnknownHostException {
+        return DbResolver.getNewRepoHandler(config.getDataBaseConfig(), dbConnection, embeddedStore);
     }
 
 }
\ No newline at end of file
@@ -35,16 +35,58 @@ public class DataBaseConfig  extends Configuration{
     @JsonProperty
     private String pwd;
 	
+    /** Name of the mongodb database or directory of the embedded database files. */
 	@Valid
     @NotNull
     @JsonProperty
     private String datastore;
-	
+
+    /** Database system: mongodb or embedded. */
 	@Valid
     @NotNull
     @JsonProperty
     private String dbsystem;
 
+    /** Maximum number of connections of the pool. Default value: 100. */
+    @Valid
+    @JsonProperty
+    private int poolSize = 100;
+
+    /** Maximum number of threads that may wait for a connection of the pool. Default value: 500. */
+    @Valid
+    @JsonProperty
+    private int waitQueueSize = 500;
+
+    /** Connection timeout in milliseconds, 0 means no timeout. Default value: 10000. */
+    @Valid
+    @JsonProperty
+    private int connectTimeout = 10000;
+
+    /** Socket timeout in milliseconds, 0 means no timeout. Default value: 0. */
+    @Valid
+    @JsonProperty
+    private int socketTimeout = 0;
+
+    /** Read preference: primary, primaryPreferred, secondary, secondaryPreferred or nearest. Default value: primary. */
+    @Valid
+    @JsonProperty
+    private String readPreference = "primary";
+
+    /** Enables the in-memory cache of modules, artifacts, licenses and organizations. Default value: false. */
+    @Valid
+    @JsonProperty
+    private boolean cacheEnabled = false;
+
+    /** Maximum number of entries of each cache. Default value: 10000. */
+    @Valid
+    @JsonProperty
+    private int cacheSize = 10000;
+
+    /** Time to live of the cache entries in seconds, the writes performed by other servers are seen after it. Default value: 600. */
+    @Valid
+    @JsonProperty
+    private int cacheExpiration = 600;
+
 	public String getHost() {
 		return host;
 	}
@@ -67,5 +109,37 @@ public class DataBaseConfig  extends Configuration{
 
     public String getDbsystem() {
         return dbsystem;
-    }    
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getWaitQueueSize() {
+        return waitQueueSize;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public String getReadPreference() {
+        return readPreference;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public int getCacheExpiration() {
+        return cacheExpiration;
+    }
 }
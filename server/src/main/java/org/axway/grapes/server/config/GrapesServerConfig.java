@@ -29,6 +29,10 @@ public class GrapesServerConfig extends Configuration{
     @NotNull
     @JsonProperty
     private final DataBaseConfig database = new DataBaseConfig();
+
+    @Valid
+    @JsonProperty
+    private final IngestionConfig ingestion = new IngestionConfig();
 	
 	@Valid
     @JsonProperty
@@ -70,4 +74,8 @@ public class GrapesServerConfig extends Configuration{
     public CommunityConfig getCommunityConfiguration() {
         return community;
     }
+
+    public IngestionConfig getIngestionConfig() {
+        return ingestion;
+    }
 }
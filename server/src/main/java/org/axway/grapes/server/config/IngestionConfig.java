@@ -0,0 +1,106 @@
+package org.axway.grapes.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.yammer.dropwizard.config.Configuration;
+
+import javax.validation.Valid;
+
+/**
+ * Ingestion configuration
+ *
+ * <p>Optional configuration of the asynchronous module posts. When it is enabled, the module posts with the async
+ * query parameter are queued and stored by background workers.</p>
+ */
+public class IngestionConfig extends Configuration{
+
+    /** Enables the queue of the asynchronous module posts. Default value: false. */
+    @Valid
+    @JsonProperty
+    private boolean asyncEnabled = false;
+
+    /** Maximum number of modules waiting to be stored. Default value: 1000. */
+    @Valid
+    @JsonProperty
+    private int queueSize = 1000;
+
+    /** Number of threads that store the queued modules. Default value: 2. */
+    @Valid
+    @JsonProperty
+    private int workers = 2;
+
+    /** Maximum number of modules taken from the queue at once by a worker. Default value: 50. */
+    @Valid
+    @JsonProperty
+    private int batchSize = 50;
+
+    /** Delay in seconds sent to the clients when the queue is full. Default value: 30. */
+    @Valid
+    @JsonProperty
+    private int retryAfter = 30;
+
+    /** Number of jobs which status is kept. Default value: 10000. */
+    @Valid
+    @JsonProperty
+    private int jobHistorySize = 10000;
+
+    /** Time in seconds given to the workers to store the queued modules when the server stops. Default value: 60. */
+    @Valid
+    @JsonProperty
+    private int shutdownTimeout = 60;
+
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    public void setAsyncEnabled(final boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(final int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(final int workers) {
+        this.workers = workers;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(final int retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public int getJobHistorySize() {
+        return jobHistorySize;
+    }
+
+    public void setJobHistorySize(final int jobHistorySize) {
+        this.jobHistorySize = jobHistorySize;
+    }
+
+    public int getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(final int shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+}
@@ -2,8 +2,10 @@ package org.axway.grapes.server.core;
 
 
 import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.db.DbCursor;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbLatestVersions;
 import org.axway.grapes.server.db.datamodel.DbLicense;
 import org.axway.grapes.server.db.datamodel.DbModule;
 import org.axway.grapes.server.db.datamodel.DbOrganization;
@@ -13,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -53,6 +56,15 @@ public class ArtifactHandler {
         }
     }
 
+    /**
+     * Adds the artifacts that do not exist to the database in a single request. Nothing for the existing ones.
+     *
+     * @param dbArtifacts Collection<DbArtifact>
+     */
+    public void storeIfNew(final Collection<DbArtifact> dbArtifacts) {
+        repositoryHandler.storeIfNew(dbArtifacts);
+    }
+
     /**
      * Adds a license to an artifact if the license exist into the database
      *
@@ -101,6 +113,16 @@ public class ArtifactHandler {
         return repositoryHandler.getGroupIds(filters);
     }
 
+    /**
+     * Counts the available groupIds regarding the filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getArtifactGroupIdsCount(final FiltersHolder filters) {
+        return repositoryHandler.getGroupIdsCount(filters);
+    }
+
     /**
      * Returns a the list of available version of an artifact
      *
@@ -119,7 +141,13 @@ public class ArtifactHandler {
      * @return String
      */
     public String getArtifactLastVersion(final String gavc) {
-        final List<String> versions = getArtifactVersions(gavc);
+        final DbArtifact artifact = getArtifact(gavc);
+        final DbLatestVersions latestVersions = repositoryHandler.getLatestVersions(artifact);
+        if(latestVersions != null){
+            return latestVersions.getLastVersion();
+        }
+
+        final List<String> versions = repositoryHandler.getArtifactVersions(artifact);
 
         try{
             final VersionsHandler versionHandler = new VersionsHandler(repositoryHandler);
@@ -308,4 +336,24 @@ public class ArtifactHandler {
     public List<DbArtifact> getArtifacts(final FiltersHolder filters) {
         return repositoryHandler.getArtifacts(filters);
     }
+
+    /**
+     * Returns a cursor over the artifacts regarding the filters, the artifacts are read while iterating
+     *
+     * @param filters FiltersHolder
+     * @return DbCursor<DbArtifact>
+     */
+    public DbCursor<DbArtifact> getArtifactsCursor(final FiltersHolder filters) {
+        return repositoryHandler.getArtifactsCursor(filters);
+    }
+
+    /**
+     * Counts the artifacts (and so the gavcs) regarding the filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getArtifactsCount(final FiltersHolder filters) {
+        return repositoryHandler.getArtifactsCount(filters);
+    }
 }
@@ -6,18 +6,21 @@ import org.axway.grapes.server.core.options.FiltersHolder;
 import org.axway.grapes.server.core.options.filters.CorporateFilter;
 import org.axway.grapes.server.core.reports.DependencyReport;
 import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.DependencyGraphIndex;
 import org.axway.grapes.server.db.ModelMapper;
+import org.axway.grapes.server.db.ModuleClosures;
+import org.axway.grapes.server.db.OrganizationMatcher;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
 import org.axway.grapes.server.db.datamodel.DbDependency;
+import org.axway.grapes.server.db.datamodel.DbLatestVersions;
 import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbModuleClosure;
 import org.axway.grapes.server.db.datamodel.DbOrganization;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 /**
  * Dependency Handler
@@ -34,9 +37,11 @@ public class DependencyHandler {
     private final RepositoryHandler repositoryHandler;
     private final ModelMapper modelMapper;
     private final ModuleHandler moduleHandler;
+    private final DependencyGraphIndex graphIndex;
 
     public DependencyHandler(final RepositoryHandler repositoryHandler) {
         this.repositoryHandler = repositoryHandler;
+        this.graphIndex = DependencyGraphIndex.of(repositoryHandler);
         this.modelMapper = new ModelMapper(repositoryHandler);
         this.moduleHandler = new ModuleHandler(repositoryHandler);
     }
@@ -51,18 +56,93 @@ public class DependencyHandler {
     public List<Dependency> getModuleDependencies(final String moduleId, final FiltersHolder filters){
         final DbModule module = moduleHandler.getModule(moduleId);
         final DbOrganization organization = moduleHandler.getOrganization(module);
-        filters.setCorporateFilter(new CorporateFilter(organization));
+        filters.setCorporateFilter(new CorporateFilter(organization, OrganizationMatcher.of(repositoryHandler)));
 
-        return getModuleDependencies(module, filters, 1, new ArrayList<String>());
+        if(filters.getDepthHandler() != null && filters.getDepthHandler().getFullRecursive()){
+            final DbModuleClosure closure = repositoryHandler.getModuleClosure(moduleId);
+            final List<Dependency> dependencies = closure == null ? null : getModuleDependencies(closure, filters);
+            if(dependencies != null){
+                return dependencies;
+            }
+        }
+
+        return getModuleDependencies(module, filters, 1, new HashSet<String>());
     }
 
-    private List<Dependency> getModuleDependencies(final DbModule module, final FiltersHolder filters, final int depth, final List<String> doneModuleIds){
+    /**
+     * Walks the materialized closure of a module like the modules are walked at full depth, then reads the targets
+     * of the dependencies at once. The reachable modules are read at once too, it returns null if the stamps of
+     * their dependencies do not match the closure anymore.
+     *
+     * @param closure DbModuleClosure
+     * @param filters FiltersHolder
+     * @return List<Dependency>
+     */
+    private List<Dependency> getModuleDependencies(final DbModuleClosure closure, final FiltersHolder filters){
+        if(closure.getStamps().size() != closure.getModules().size()){
+            return null;
+        }
+
+        final Map<String, DbModule> indexedModules = graphIndex.getModules(closure.getModules());
+        final List<DbModule> modules = new ArrayList<DbModule>(closure.getModules().size());
+        for(int i = 0; i < closure.getModules().size(); i++){
+            final DbModule module = indexedModules.get(closure.getModules().get(i));
+            if(module == null ||
+                    ModuleClosures.getStamp(module) != closure.getStamps().get(i) ||
+                    DataUtils.getAllDbDependencies(module).size() != closure.getTargets().get(i).size()){
+                return null;
+            }
+            modules.add(module);
+        }
+
+        final List<DbDependency> dbDependencies = new ArrayList<DbDependency>();
+        final List<DbModule> sources = new ArrayList<DbModule>();
+        addClosureDependencies(closure, modules, 0, filters, new BitSet(), dbDependencies, sources);
+
+        final Set<String> gavcs = new HashSet<String>();
+        for(DbDependency dbDependency: dbDependencies){
+            gavcs.add(dbDependency.getTarget());
+        }
+        final Map<String, DbArtifact> artifacts = new HashMap<String, DbArtifact>();
+        for(DbArtifact artifact: repositoryHandler.getArtifactsByGavc(gavcs)){
+            artifacts.put(artifact.getGavc(), artifact);
+        }
+
+        final List<Dependency> dependencies = new ArrayList<Dependency>(dbDependencies.size());
+        for(int i = 0; i < dbDependencies.size(); i++){
+            final DbDependency dbDependency = dbDependencies.get(i);
+            dependencies.add(modelMapper.getDependency(dbDependency, artifacts.get(dbDependency.getTarget()),
+                    sources.get(i).getName(), sources.get(i).getVersion()));
+        }
+
+        return dependencies;
+    }
+
+    private void addClosureDependencies(final DbModuleClosure closure, final List<DbModule> modules, final int moduleIndex,
+                                        final FiltersHolder filters, final BitSet done, final List<DbDependency> dbDependencies,
+                                        final List<DbModule> sources){
         // Checks if the module has already been done
-        if(module == null || doneModuleIds.contains(module.getId())){
-            return Collections.<Dependency>emptyList();
+        if(moduleIndex < 0 || done.get(moduleIndex)){
+            return;
         }
-        else {
-            doneModuleIds.add(module.getId());
+        done.set(moduleIndex);
+
+        final DbModule module = modules.get(moduleIndex);
+        final List<DbDependency> moduleDependencies = DataUtils.getAllDbDependencies(module);
+        for(int i = 0; i < moduleDependencies.size(); i++){
+            final DbDependency dbDependency = moduleDependencies.get(i);
+            if(filters.shouldBeInReport(dbDependency)){
+                dbDependencies.add(dbDependency);
+                sources.add(module);
+                addClosureDependencies(closure, modules, closure.getTargets().get(moduleIndex).get(i), filters, done, dbDependencies, sources);
+            }
+        }
+    }
+
+    private List<Dependency> getModuleDependencies(final DbModule module, final FiltersHolder filters, final int depth, final Set<String> doneModuleIds){
+        // Checks if the module has already been done
+        if(module == null || !doneModuleIds.add(module.getId())){
+            return Collections.<Dependency>emptyList();
         }
 
         final List<Dependency> dependencies = new ArrayList<Dependency>();
@@ -72,7 +152,7 @@ public class DependencyHandler {
                 dependencies.add(dependency);
 
                 if(filters.getDepthHandler().shouldGoDeeper(depth)){
-                    final DbModule dependencyModule = repositoryHandler.getRootModuleOf(dbDependency.getTarget());
+                    final DbModule dependencyModule = graphIndex.getRootModuleOf(dbDependency.getTarget());
                     dependencies.addAll(getModuleDependencies(dependencyModule, filters, depth + 1, doneModuleIds));
                 }
             }
@@ -91,30 +171,34 @@ public class DependencyHandler {
     public DependencyReport getDependencyReport(final String moduleId, final FiltersHolder filters) {
         final DbModule module = moduleHandler.getModule(moduleId);
         final DbOrganization organization = moduleHandler.getOrganization(module);
-        filters.setCorporateFilter(new CorporateFilter(organization));
+        filters.setCorporateFilter(new CorporateFilter(organization, OrganizationMatcher.of(repositoryHandler)));
 
         final DependencyReport report = new DependencyReport(moduleId);
-        final List<String> done = new ArrayList<String>();
+        final Set<String> done = new HashSet<String>();
         for(DbModule submodule: DataUtils.getAllSubmodules(module)){
             done.add(submodule.getId());
         }
 
-        addModuleToReport(report, module, filters, done, 1);
+        if(filters.getDepthHandler().getParallel() || filters.getDepthHandler().getBreadthFirst()){
+            addModuleToReportByLevel(report, module, filters, done);
+        }
+        else{
+            addModuleToReport(report, module, filters, done, 1);
+        }
 
         return report;
     }
 
-    private void addModuleToReport(final DependencyReport report, final DbModule module, final FiltersHolder filters, final List<String> done, final int depth) {
-        if(module == null || done.contains(module.getId())){
+    private void addModuleToReport(final DependencyReport report, final DbModule module, final FiltersHolder filters, final Set<String> done, final int depth) {
+        if(module == null || !done.add(module.getId())){
             return;
         }
-        done.add(module.getId());
         for(DbDependency dependency: DataUtils.getAllDbDependencies(module)){
             addDependenciesToReport(report, dependency, filters, done, depth);
         }
     }
 
-    private void  addDependenciesToReport(final DependencyReport report, final DbDependency dbDependency, final FiltersHolder filters, final List<String> done, final int depth) {
+    private void  addDependenciesToReport(final DependencyReport report, final DbDependency dbDependency, final FiltersHolder filters, final Set<String> done, final int depth) {
         final DbArtifact artifact = repositoryHandler.getArtifact(dbDependency.getTarget());
 
         if(artifact == null){
@@ -122,29 +206,206 @@ public class DependencyHandler {
         }
 
         if(filters.shouldBeInReport(dbDependency)){
+            addDependencyToReport(report, dbDependency, artifact, getLastRelease(artifact));
+        }
+
+        if(filters.getDepthHandler().shouldGoDeeper(depth)){
+            final DbModule module = graphIndex.getRootModuleOf(dbDependency.getTarget());
+            addModuleToReport(report, module, filters, done, depth + 1);
+        }
+    }
+
+    /**
+     * Walks the module dependencies level by level.
+     * All the targets of a level are resolved at once: one request for the artifacts and one for the modules,
+     * so the database is requested once per depth instead of once per dependency. With the parallel option, these
+     * batch requests are split in parts sent in parallel and the missing last releases are requested in parallel.
+     *
+     * @param report DependencyReport
+     * @param module DbModule
+     * @param filters FiltersHolder
+     * @param done Set<String>
+     */
+    private void addModuleToReportByLevel(final DependencyReport report, final DbModule module, final FiltersHolder filters, final Set<String> done) {
+        final boolean parallel = filters.getDepthHandler().getParallel();
+        final Map<String, String> lastReleases = new HashMap<String, String>();
+        List<DbDependency> level = new ArrayList<DbDependency>();
+        int depth = 1;
+
+        if(done.add(module.getId())){
+            level.addAll(DataUtils.getAllDbDependencies(module));
+        }
+
+        while(!level.isEmpty()){
+            final Set<String> targets = new HashSet<String>();
+            for(DbDependency dbDependency: level){
+                targets.add(dbDependency.getTarget());
+            }
+
+            final Map<String, DbArtifact> artifacts = new HashMap<String, DbArtifact>();
+            for(DbArtifact artifact: getArtifactsByGavc(targets, parallel)){
+                artifacts.put(artifact.getGavc(), artifact);
+            }
+
+            final Map<String, DbArtifact> missingReleases = new LinkedHashMap<String, DbArtifact>();
+            for(DbDependency dbDependency: level){
+                final DbArtifact artifact = artifacts.get(dbDependency.getTarget());
+                if(artifact != null && filters.shouldBeInReport(dbDependency)){
+                    final String versionKey = getVersionKey(artifact);
+                    if(!lastReleases.containsKey(versionKey) && !missingReleases.containsKey(versionKey)){
+                        missingReleases.put(versionKey, artifact);
+                    }
+                }
+            }
+            addLastReleases(lastReleases, missingReleases, parallel);
+
+            final boolean goDeeper = filters.getDepthHandler().shouldGoDeeper(depth);
+            final Map<String, DbModule> modules = goDeeper ? getRootModulesOf(targets, parallel) : Collections.<String, DbModule>emptyMap();
+            final List<DbDependency> nextLevel = new ArrayList<DbDependency>();
+
+            for(DbDependency dbDependency: level){
+                final DbArtifact artifact = artifacts.get(dbDependency.getTarget());
+                if(artifact == null){
+                    continue;
+                }
 
-            if(artifact.getDoNotUse()){
-                report.addShouldNotUse(artifact.getGavc());
+                if(filters.shouldBeInReport(dbDependency)){
+                    addDependencyToReport(report, dbDependency, artifact, lastReleases.get(getVersionKey(artifact)));
+                }
+
+                final DbModule dependencyModule = modules.get(dbDependency.getTarget());
+                if(dependencyModule != null && done.add(dependencyModule.getId())){
+                    nextLevel.addAll(DataUtils.getAllDbDependencies(dependencyModule));
+                }
             }
 
-            final VersionsHandler versionHandler = new VersionsHandler(repositoryHandler);
-            String lastRelease = null;
+            level = nextLevel;
+            depth++;
+        }
+    }
+
+    /**
+     * Resolves the artifacts of a set of gavcs with a single request, or with one request per part of the set sent
+     * in parallel
+     *
+     * @param gavcs Set<String>
+     * @param parallel boolean
+     * @return List<DbArtifact>
+     */
+    private List<DbArtifact> getArtifactsByGavc(final Set<String> gavcs, final boolean parallel) {
+        if(!parallel){
+            return repositoryHandler.getArtifactsByGavc(gavcs);
+        }
 
-            try{
-                lastRelease = versionHandler.getLastRelease(repositoryHandler.getArtifactVersions(artifact));
-            }catch (Exception e){
-                LOG.info("Failed to find the latest artifact release version: " + artifact.getVersion());
+        return ParallelResolver.resolveBatch(gavcs, new ParallelResolver.Resolution<List<String>, List<DbArtifact>>() {
+            @Override
+            public List<DbArtifact> resolve(final List<String> part) {
+                return repositoryHandler.getArtifactsByGavc(part);
             }
+        });
+    }
 
-            final Dependency dependency = DataModelFactory.createDependency(modelMapper.getArtifact(artifact), dbDependency.getScope());
-            dependency.setSourceName(DataUtils.getModuleName(dbDependency.getSource()));
-            dependency.setSourceVersion(DataUtils.getModuleVersion(dbDependency.getSource()));
-            report.addDependency(dependency, lastRelease);
+    /**
+     * Resolves the last releases that are not known yet, in parallel if requested
+     *
+     * @param lastReleases Map<String, String> the last releases per version key
+     * @param missingReleases Map<String, DbArtifact> an artifact per missing version key
+     * @param parallel boolean
+     */
+    private void addLastReleases(final Map<String, String> lastReleases, final Map<String, DbArtifact> missingReleases, final boolean parallel) {
+        final List<String> versionKeys = new ArrayList<String>(missingReleases.keySet());
+        final List<DbArtifact> artifacts = new ArrayList<DbArtifact>(missingReleases.values());
+
+        if(!parallel){
+            for(int i = 0; i < versionKeys.size(); i++){
+                lastReleases.put(versionKeys.get(i), getLastRelease(artifacts.get(i)));
+            }
+            return;
         }
 
-        if(filters.getDepthHandler().shouldGoDeeper(depth)){
-            final DbModule module = repositoryHandler.getRootModuleOf(dbDependency.getTarget());
-            addModuleToReport(report, module, filters, done, depth + 1);
+        final List<String> releases = ParallelResolver.resolve(artifacts, new ParallelResolver.Resolution<DbArtifact, String>() {
+            @Override
+            public String resolve(final DbArtifact artifact) {
+                return getLastRelease(artifact);
+            }
+        });
+        for(int i = 0; i < versionKeys.size(); i++){
+            lastReleases.put(versionKeys.get(i), releases.get(i));
         }
     }
+
+    private String getVersionKey(final DbArtifact artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getClassifier() + ":" + artifact.getExtension();
+    }
+
+    /**
+     * Resolves the root modules of a set of gavcs with a single request, or with one request per part of the set
+     * sent in parallel. If the dependency graph index is loaded, the database is not requested at all.
+     *
+     * @param gavcs Set<String>
+     * @param parallel boolean
+     * @return Map<String, DbModule> the root modules per gavc
+     */
+    private Map<String, DbModule> getRootModulesOf(final Set<String> gavcs, final boolean parallel) {
+        final Map<String, DbModule> modules = new HashMap<String, DbModule>();
+
+        if(graphIndex.isLoaded()){
+            for(String gavc: gavcs){
+                final DbModule module = graphIndex.getRootModuleOf(gavc);
+                if(module != null){
+                    modules.put(gavc, module);
+                }
+            }
+            return modules;
+        }
+
+        final List<DbModule> rootModules = !parallel ? repositoryHandler.getRootModulesOf(gavcs) :
+                ParallelResolver.resolveBatch(gavcs, new ParallelResolver.Resolution<List<String>, List<DbModule>>() {
+                    @Override
+                    public List<DbModule> resolve(final List<String> part) {
+                        return repositoryHandler.getRootModulesOf(part);
+                    }
+                });
+
+        for(DbModule module: rootModules){
+            for(String gavc: module.getArtifacts()){
+                modules.put(gavc, module);
+            }
+            for(DbModule submodule: DataUtils.getAllSubmodules(module)){
+                for(String gavc: submodule.getArtifacts()){
+                    modules.put(gavc, module);
+                }
+            }
+        }
+
+        return modules;
+    }
+
+    private void addDependencyToReport(final DependencyReport report, final DbDependency dbDependency, final DbArtifact artifact, final String lastRelease) {
+        if(artifact.getDoNotUse()){
+            report.addShouldNotUse(artifact.getGavc());
+        }
+
+        final Dependency dependency = DataModelFactory.createDependency(modelMapper.getArtifact(artifact), dbDependency.getScope());
+        dependency.setSourceName(DataUtils.getModuleName(dbDependency.getSource()));
+        dependency.setSourceVersion(DataUtils.getModuleVersion(dbDependency.getSource()));
+        report.addDependency(dependency, lastRelease);
+    }
+
+    private String getLastRelease(final DbArtifact artifact) {
+        final DbLatestVersions latestVersions = repositoryHandler.getLatestVersions(artifact);
+        if(latestVersions != null){
+            return latestVersions.getLastRelease();
+        }
+
+        final VersionsHandler versionHandler = new VersionsHandler(repositoryHandler);
+
+        try{
+            return versionHandler.getLastRelease(repositoryHandler.getArtifactVersions(artifact));
+        }catch (Exception e){
+            LOG.info("Failed to find the latest artifact release version: " + artifact.getVersion());
+        }
+
+        return null;
+    }
 }
@@ -7,7 +7,9 @@ import org.axway.grapes.server.core.graphs.TreeNode;
 import org.axway.grapes.server.core.options.FiltersHolder;
 import org.axway.grapes.server.core.options.filters.CorporateFilter;
 import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.DependencyGraphIndex;
 import org.axway.grapes.server.db.ModelMapper;
+import org.axway.grapes.server.db.OrganizationMatcher;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
 import org.axway.grapes.server.db.datamodel.DbDependency;
@@ -16,6 +18,8 @@ import org.axway.grapes.server.db.datamodel.DbOrganization;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.*;
+
 /**
  * Graphs Handler
  *
@@ -29,10 +33,12 @@ public class GraphsHandler {
 
     private final RepositoryHandler repoHandler;
     private final FiltersHolder filters;
+    private final DependencyGraphIndex graphIndex;
 
     public GraphsHandler(final RepositoryHandler repoHandler, final FiltersHolder filters) {
         this.repoHandler = repoHandler;
         this.filters = filters;
+        this.graphIndex = DependencyGraphIndex.of(repoHandler);
     }
 
 
@@ -47,14 +53,160 @@ public class GraphsHandler {
         final DbModule module = moduleHandler.getModule(moduleId);
         final DbOrganization organization = moduleHandler.getOrganization(module);
 
-        filters.setCorporateFilter(new CorporateFilter(organization));
+        filters.setCorporateFilter(new CorporateFilter(organization, OrganizationMatcher.of(repoHandler)));
 
         final AbstractGraph graph = new ModuleGraph();
-        addModuleToGraph(module, graph, 0);
+        if(filters.getDepthHandler().getParallel() || filters.getDepthHandler().getBreadthFirst()){
+            addModuleToGraphByLevel(module, graph);
+        }
+        else{
+            addModuleToGraph(module, graph, 0);
+        }
 
         return graph;
     }
 
+    /**
+     * Walks the module dependencies level by level to build the graph.
+     * All the targets of a level are resolved at once: one request for the modules and one for the artifacts,
+     * so the database is requested once per depth instead of once per dependency. With the parallel option, these
+     * batch requests are split in parts sent in parallel.
+     *
+     * @param rootModule DbModule
+     * @param graph AbstractGraph
+     */
+    private void addModuleToGraphByLevel(final DbModule rootModule, final AbstractGraph graph) {
+        final boolean parallel = filters.getDepthHandler().getParallel();
+        List<DbModule> level = new ArrayList<DbModule>();
+        int depth = 0;
+
+        graph.addElement(graph.getId(rootModule), rootModule.getVersion(), true);
+        level.add(rootModule);
+
+        while(!level.isEmpty() && filters.getDepthHandler().shouldGoDeeper(depth)){
+            final Set<String> corporateTargets = new HashSet<String>();
+            final Set<String> thirdPartyTargets = new HashSet<String>();
+            for(DbModule module: level){
+                for (DbDependency dep : DataUtils.getAllDbDependencies(module)) {
+                    if(!filters.shouldBeInReport(dep)){
+                        continue;
+                    }
+                    if(filters.getCorporateFilter().filter(dep)){
+                        corporateTargets.add(dep.getTarget());
+                    }
+                    else{
+                        thirdPartyTargets.add(dep.getTarget());
+                    }
+                }
+            }
+
+            final Map<String, DbModule> targetModules = getModulesOf(corporateTargets, parallel);
+            final Map<String, DbArtifact> targetArtifacts = new HashMap<String, DbArtifact>();
+            for(DbArtifact artifact: getArtifactsByGavc(thirdPartyTargets, parallel)){
+                targetArtifacts.put(artifact.getGavc(), artifact);
+            }
+
+            final List<DbModule> nextLevel = new ArrayList<DbModule>();
+            for(DbModule module: level){
+                final String parentId = graph.getId(module);
+
+                for (DbDependency dep : DataUtils.getAllDbDependencies(module)) {
+                    if(!filters.shouldBeInReport(dep)){
+                        continue;
+                    }
+
+                    if(filters.getCorporateFilter().filter(dep)){
+                        final DbModule dbTarget = targetModules.get(dep.getTarget());
+                        if(dbTarget == null){
+                            addMissingReferenceToGraph(dep, graph, parentId);
+                            continue;
+                        }
+
+                        final String targetElementId = graph.getId(dbTarget);
+                        if(!graph.isTreated(targetElementId)){
+                            graph.addElement(targetElementId, dbTarget.getVersion(), false);
+                            nextLevel.add(dbTarget);
+                        }
+                        graph.addDependency(parentId, targetElementId, dep.getScope());
+                    }
+                    else{
+                        final DbArtifact dbTarget = targetArtifacts.get(dep.getTarget());
+                        if(dbTarget == null){
+                            LOG.error("Got missing artifact: " + dep.getTarget());
+                            continue;
+                        }
+
+                        addThirdPartyToGraph(dbTarget, dep, graph, parentId);
+                    }
+                }
+            }
+
+            level = nextLevel;
+            depth += 2;
+        }
+    }
+
+    /**
+     * Resolves the artifacts of a set of gavcs with a single request, or with one request per part of the set sent
+     * in parallel
+     *
+     * @param gavcs Set<String>
+     * @param parallel boolean
+     * @return List<DbArtifact>
+     */
+    private List<DbArtifact> getArtifactsByGavc(final Set<String> gavcs, final boolean parallel) {
+        if(!parallel){
+            return repoHandler.getArtifactsByGavc(gavcs);
+        }
+
+        return ParallelResolver.resolveBatch(gavcs, new ParallelResolver.Resolution<List<String>, List<DbArtifact>>() {
+            @Override
+            public List<DbArtifact> resolve(final List<String> part) {
+                return repoHandler.getArtifactsByGavc(part);
+            }
+        });
+    }
+
+    /**
+     * Resolves the modules or submodules that produce a set of gavcs with a single request, or with one request per
+     * part of the set sent in parallel. If the dependency graph index is loaded, the database is not requested at all.
+     *
+     * @param gavcs Set<String>
+     * @param parallel boolean
+     * @return Map<String, DbModule> the modules per gavc
+     */
+    private Map<String, DbModule> getModulesOf(final Set<String> gavcs, final boolean parallel) {
+        final Map<String, DbModule> modules = new HashMap<String, DbModule>();
+
+        if(graphIndex.isLoaded()){
+            for(String gavc: gavcs){
+                final DbModule module = graphIndex.getModuleOf(gavc);
+                if(module != null){
+                    modules.put(gavc, module);
+                }
+            }
+            return modules;
+        }
+
+        final List<DbModule> rootModules = !parallel ? repoHandler.getRootModulesOf(gavcs) :
+                ParallelResolver.resolveBatch(gavcs, new ParallelResolver.Resolution<List<String>, List<DbModule>>() {
+                    @Override
+                    public List<DbModule> resolve(final List<String> part) {
+                        return repoHandler.getRootModulesOf(part);
+                    }
+                });
+
+        for(DbModule rootModule: rootModules){
+            for(String gavc: gavcs){
+                if(!modules.containsKey(gavc) && rootModule.getHas().contains(gavc)){
+                    modules.put(gavc, DataUtils.getModuleOf(rootModule, gavc));
+                }
+            }
+        }
+
+        return modules;
+    }
+
     /**
      * Manage the artifact add to the Module AbstractGraph
      *
@@ -89,15 +241,11 @@ public class GraphsHandler {
     private void addDependencyToGraph(final DbDependency dependency, final AbstractGraph graph, final int depth, final String parentId) {
         // In that case of Axway artifact we will add a module to the graph
         if (filters.getCorporateFilter().filter(dependency)) {
-            final DbModule dbTarget = repoHandler.getModuleOf(dependency.getTarget());
+            final DbModule dbTarget = graphIndex.getModuleOf(dependency.getTarget());
 
             // if there is no module, add the artifact to the graph
             if(dbTarget == null){
-                LOG.error("Got missing reference: " + dependency.getTarget());
-                final DbArtifact dbArtifact = DataUtils.createDbArtifact(dependency.getTarget());
-                final String targetElementId = graph.getId(dbArtifact);
-                graph.addElement(targetElementId, dbArtifact.getVersion(), false);
-                graph.addDependency(parentId, targetElementId, dependency.getScope());
+                addMissingReferenceToGraph(dependency, graph, parentId);
                 return;
             }
 
@@ -116,13 +264,25 @@ public class GraphsHandler {
                 return;
             }
 
-            if(!graph.isTreated(graph.getId(dbTarget))){
-                final ModelMapper modelMapper = new ModelMapper(repoHandler);
-                final Artifact target = modelMapper.getArtifact(dbTarget);
-                final String targetElementId = graph.getId(target);
-                graph.addElement(targetElementId, target.getVersion(), false);
-                graph.addDependency(parentId, targetElementId, dependency.getScope());
-            }
+            addThirdPartyToGraph(dbTarget, dependency, graph, parentId);
+        }
+    }
+
+    private void addMissingReferenceToGraph(final DbDependency dependency, final AbstractGraph graph, final String parentId) {
+        LOG.error("Got missing reference: " + dependency.getTarget());
+        final DbArtifact dbArtifact = DataUtils.createDbArtifact(dependency.getTarget());
+        final String targetElementId = graph.getId(dbArtifact);
+        graph.addElement(targetElementId, dbArtifact.getVersion(), false);
+        graph.addDependency(parentId, targetElementId, dependency.getScope());
+    }
+
+    private void addThirdPartyToGraph(final DbArtifact dbTarget, final DbDependency dependency, final AbstractGraph graph, final String parentId) {
+        if(!graph.isTreated(graph.getId(dbTarget))){
+            final ModelMapper modelMapper = new ModelMapper(repoHandler);
+            final Artifact target = modelMapper.getArtifact(dbTarget);
+            final String targetElementId = graph.getId(target);
+            graph.addElement(targetElementId, target.getVersion(), false);
+            graph.addDependency(parentId, targetElementId, dependency.getScope());
         }
     }
 
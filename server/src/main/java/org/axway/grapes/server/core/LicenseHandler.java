@@ -3,57 +3,31 @@ package org.axway.grapes.server.core;
 import org.axway.grapes.commons.datamodel.License;
 import org.axway.grapes.server.core.options.FiltersHolder;
 import org.axway.grapes.server.core.options.filters.LicenseIdFilter;
+import org.axway.grapes.server.db.LicenseResolver;
 import org.axway.grapes.server.db.ModelMapper;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
 import org.axway.grapes.server.db.datamodel.DbLicense;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.PatternSyntaxException;
 
 /**
  * License Handler
  *
- * <p>Handles the license resolution. It stores the licenses names and the regexp to avoid db access. It must be updated at license addition / deletion.</p>
+ * <p>Handles the license resolution. The resolution relies on the license resolver shared by the repository handler
+ * to avoid db access, it is updated at license addition / deletion.</p>
  *
  * @author jdcoffre
  */
 public class LicenseHandler {
 
-    private static final Logger LOG = LoggerFactory.getLogger(LicenseHandler.class);
-
-    private final Map<String, DbLicense> licensesRegexp = new HashMap<String, DbLicense>();
     private final RepositoryHandler repoHandler;
 
     public LicenseHandler(final RepositoryHandler repoHandler) {
         this.repoHandler = repoHandler;
-        init(repoHandler.getAllLicenses());
-    }
-
-    /**
-     * Init the licenses cache
-     *
-     * @param licenses
-     */
-    private void init(final List<DbLicense> licenses){
-        licensesRegexp.clear();
-
-        for(DbLicense license: licenses){
-            if(license.getRegexp() == null ||
-                    license.getRegexp().isEmpty()){
-                licensesRegexp.put(license.getName(), license);
-            }
-            else{
-                licensesRegexp.put(license.getRegexp(), license);
-            }
-        }
     }
 
     /**
@@ -75,6 +49,16 @@ public class LicenseHandler {
         return repoHandler.getLicenseNames(filters);
     }
 
+    /**
+     * Return the number of license names regarding the filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getLicensesNamesCount(final FiltersHolder filters) {
+        return repoHandler.getLicenseNamesCount(filters);
+    }
+
     /**
      * Return a html view that contains the targeted license
      *
@@ -132,22 +116,7 @@ public class LicenseHandler {
      * @return DbLicense
      */
     public DbLicense resolve(final String licenseId){
-
-        for(String regexp : licensesRegexp.keySet()){
-            try{
-                if(licenseId.matches(regexp)){
-                    return licensesRegexp.get(regexp);
-                }
-            }
-            catch (PatternSyntaxException e){
-                LOG.error("Wrong pattern for the following license " + licensesRegexp.get(regexp).getName());
-                continue;
-            }
-        }
-
-        LOG.warn("No matching pattern for license " + licenseId);
-        return null;
-
+        return LicenseResolver.of(repoHandler).resolve(licenseId);
     }
 
 
@@ -159,7 +128,7 @@ public class LicenseHandler {
     public List<License> getLicenses(){
         final ModelMapper modelMapper = new ModelMapper(repoHandler);
         final List<License> licenses = new ArrayList<License>();
-        for(DbLicense dbLicense: licensesRegexp.values()){
+        for(DbLicense dbLicense: LicenseResolver.of(repoHandler).getLicenses()){
             licenses.add(modelMapper.getLicense(dbLicense));
         }
 
@@ -1,20 +1,26 @@
 package org.axway.grapes.server.core;
 
+import org.axway.grapes.commons.datamodel.Artifact;
 import org.axway.grapes.commons.datamodel.DataModelFactory;
 import org.axway.grapes.commons.datamodel.Dependency;
+import org.axway.grapes.commons.datamodel.Module;
 import org.axway.grapes.server.core.options.FiltersHolder;
 import org.axway.grapes.server.core.options.filters.CorporateFilter;
+import org.axway.grapes.server.core.options.filters.ModuleNameFilter;
 import org.axway.grapes.server.core.options.filters.PromotedFilter;
 import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.DbCursor;
+import org.axway.grapes.server.db.DependencyGraphIndex;
 import org.axway.grapes.server.db.ModelMapper;
+import org.axway.grapes.server.db.OrganizationMatcher;
+import org.axway.grapes.server.db.PromotionStatusCache;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.*;
 import org.axway.grapes.server.webapp.views.PromotionReportView;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Module Handler
@@ -40,6 +46,39 @@ public class ModuleHandler {
         repositoryHandler.store(dbModule);
     }
 
+    /**
+     * Add/update a valid module with its artifacts and its dependencies in the database
+     *
+     * @param module Module
+     */
+    public void storeModule(final Module module) {
+        final ModelMapper modelMapper = new ModelMapper(repositoryHandler);
+
+        // turn it into DbModel
+        final DbModule dbModule = modelMapper.getDbModule(module);
+        final DbOrganization organization = new OrganizationHandler(repositoryHandler).getMatchingOrganization(dbModule);
+        if(organization != null){
+            dbModule.setOrganization(organization.getName());
+        }
+
+        // Save the module
+        store(dbModule);
+
+        final ArtifactHandler artifactHandler = new ArtifactHandler(repositoryHandler);
+
+        // Add the artifacts
+        for(final Artifact artifact: DataUtils.getAllArtifacts(module)){
+            artifactHandler.store(modelMapper.getDbArtifact(artifact));
+        }
+
+        // Add dependencies that does not already exist
+        final List<DbArtifact> dbDependencies = new ArrayList<DbArtifact>();
+        for(final Dependency dep: DataUtils.getAllDependencies(module)){
+            dbDependencies.add(modelMapper.getDbArtifact(dep.getTarget()));
+        }
+        artifactHandler.storeIfNew(dbDependencies);
+    }
+
     /**
      * Returns the available module names regarding the filters
      *
@@ -50,6 +89,16 @@ public class ModuleHandler {
         return repositoryHandler.getModuleNames(filters);
     }
 
+    /**
+     * Returns the number of available module names regarding the filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getModuleNamesCount(final FiltersHolder filters) {
+        return repositoryHandler.getModuleNamesCount(filters);
+    }
+
     /**
      * Returns the available module names regarding the filters
      *
@@ -60,12 +109,32 @@ public class ModuleHandler {
     public List<String> getModuleVersions(final String name, final FiltersHolder filters) {
         final List<String> versions = repositoryHandler.getModuleVersions(name, filters);
 
+        // a page after the last version is empty even if the module exists
         if(versions.isEmpty()){
+            getModuleVersionsCount(name, filters);
+        }
+
+        return versions;
+    }
+
+    /**
+     * Returns the number of available versions of a module regarding the filters
+     *
+     * @param name String
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getModuleVersionsCount(final String name, final FiltersHolder filters) {
+        // the id of a module is made of its name and its version
+        filters.addFilter(new ModuleNameFilter(name));
+        final long count = repositoryHandler.getModulesCount(filters);
+
+        if(count == 0){
             throw new WebApplicationException(Response.status(Response.Status.NOT_FOUND)
                     .entity("Module " + name + " does not exist.").build());
         }
 
-        return versions;
+        return count;
     }
 
     /**
@@ -136,6 +205,34 @@ public class ModuleHandler {
         repositoryHandler.promoteModule(module);
     }
 
+    /**
+     * Checks if a module can be promoted.
+     * The result is cached until a module or an artifact it has been computed from is updated.
+     *
+     * @param moduleId String
+     * @return boolean
+     */
+    public boolean canBePromoted(final String moduleId) {
+        final PromotionStatusCache cache = PromotionStatusCache.of(repositoryHandler);
+        final Boolean status = cache.get(moduleId);
+
+        if(status != null){
+            return status;
+        }
+
+        final long start = cache.begin();
+        try {
+            final PromotionContext context = new PromotionContext();
+            final boolean canBePromoted = getPromotionReport(moduleId, context).canBePromoted();
+            cache.put(moduleId, canBePromoted, context.reports.keySet(), context.gavcs, start);
+
+            return canBePromoted;
+        }
+        finally {
+            cache.end(start);
+        }
+    }
+
     /**
      * Provide a report about the promotion feasibility
      *
@@ -143,28 +240,48 @@ public class ModuleHandler {
      * @return PromotionReportView
      */
     public PromotionReportView getPromotionReport(final String moduleId) {
-        final DependencyHandler depHandler = new DependencyHandler(repositoryHandler);
-        final ModelMapper modelMapper = new ModelMapper(repositoryHandler);
+        return getPromotionReport(moduleId, new PromotionContext());
+    }
+
+    /**
+     * Provide a report about the promotion feasibility, the reports of the dependency modules are computed once
+     * per request whatever the number of paths that lead to them.
+     *
+     * @param moduleId String
+     * @param context PromotionContext
+     * @return PromotionReportView
+     */
+    private PromotionReportView getPromotionReport(final String moduleId, final PromotionContext context) {
+        final PromotionReportView existingReport = context.reports.get(moduleId);
+        if(existingReport != null){
+            return existingReport;
+        }
+
         final DbModule module = getModule(moduleId);
         final DbOrganization organization = getOrganization(module);
 
-
         final PromotionReportView report = new PromotionReportView();
         report.setRootModule(DataModelFactory.createModule(module.getName(), module.getVersion()));
+        // registered before the dependencies are checked so that a cycle can not loop forever
+        context.reports.put(moduleId, report);
+
+        for (DbDependency dependency : DataUtils.getAllDbDependencies(module)) {
+            context.gavcs.add(dependency.getTarget());
+        }
 
         if(!report.isSnapshot()) {
             // filters initialization
             final FiltersHolder filters = new FiltersHolder();
             filters.addFilter(new PromotedFilter(false));
-            filters.addFilter(new CorporateFilter(organization));
+            filters.addFilter(new CorporateFilter(organization, OrganizationMatcher.of(repositoryHandler)));
 
             // Checks if each dependency module has been promoted
-            for (Dependency dependency : depHandler.getModuleDependencies(moduleId, filters)) {
-                final DbModule depModule = repositoryHandler.getRootModuleOf(dependency.getTarget().getGavc());
+            for (Dependency dependency : context.depHandler.getModuleDependencies(moduleId, filters)) {
+                final DbModule depModule = context.graphIndex.getRootModuleOf(dependency.getTarget().getGavc());
                 if (depModule != null && !depModule.getId().equals(moduleId)) {
                     if (!depModule.isPromoted()) {
                         report.addUnPromotedDependency(depModule.getId());
-                        report.addDependencyPromotionReport(depModule.getId(), getPromotionReport(depModule.getId()));
+                        report.addDependencyPromotionReport(depModule.getId(), getPromotionReport(depModule.getId(), context));
                     }
                 }
             }
@@ -179,7 +296,7 @@ public class ModuleHandler {
                     continue;
                 }
                 if (artifactDep.getDoNotUse() && !treatedArtifacts.contains(artifactDep.getGavc())) {
-                    report.addDoNotUseArtifact(modelMapper.getArtifact(artifactDep));
+                    report.addDoNotUseArtifact(context.modelMapper.getArtifact(artifactDep));
                     treatedArtifacts.add(artifactDep.getGavc());
                 }
             }
@@ -202,6 +319,26 @@ public class ModuleHandler {
         return handler.getOrganization(module.getOrganization());
     }
 
+    /**
+     * Provides the modules that use at least one of the artifacts of a module (or of its submodules).
+     * The ancestors are retrieved with a single request, the module itself is not part of the result.
+     *
+     * @param module DbModule
+     * @param filters FiltersHolder
+     * @return List<DbModule>
+     */
+    public List<DbModule> getAncestors(final DbModule module, final FiltersHolder filters) {
+        final List<DbModule> ancestors = new ArrayList<DbModule>();
+
+        for(DbModule ancestor: repositoryHandler.getAncestors(DataUtils.getAllArtifacts(module), filters)){
+            if(!ancestor.getId().equals(module.getId())){
+                ancestors.add(ancestor);
+            }
+        }
+
+        return ancestors;
+    }
+
     /**
      * Provides a list of module regarding the filters
      *
@@ -212,4 +349,36 @@ public class ModuleHandler {
         return repositoryHandler.getModules(filters);
     }
 
+    /**
+     * Provides a cursor over the modules regarding the filters, the modules are read while iterating
+     *
+     * @param filters FiltersHolder
+     * @return DbCursor<DbModule>
+     */
+    public DbCursor<DbModule> getModulesCursor(final FiltersHolder filters) {
+        return repositoryHandler.getModulesCursor(filters);
+    }
+
+    /**
+     * Provides the number of modules regarding the filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getModulesCount(final FiltersHolder filters) {
+        return repositoryHandler.getModulesCount(filters);
+    }
+
+    /**
+     * State shared by the computation of the promotion reports of a request
+     */
+    private final class PromotionContext {
+        private final DependencyHandler depHandler = new DependencyHandler(repositoryHandler);
+        private final DependencyGraphIndex graphIndex = DependencyGraphIndex.of(repositoryHandler);
+        private final ModelMapper modelMapper = new ModelMapper(repositoryHandler);
+        // module id -> promotion report
+        private final Map<String, PromotionReportView> reports = new HashMap<String, PromotionReportView>();
+        // gavcs of the dependencies of the reported modules
+        private final Set<String> gavcs = new HashSet<String>();
+    }
 }
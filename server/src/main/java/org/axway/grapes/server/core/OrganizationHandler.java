@@ -1,6 +1,6 @@
 package org.axway.grapes.server.core;
 
-import org.axway.grapes.server.core.options.filters.CorporateFilter;
+import org.axway.grapes.server.db.OrganizationMatcher;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbModule;
 import org.axway.grapes.server.db.datamodel.DbOrganization;
@@ -116,6 +116,15 @@ public class OrganizationHandler {
     }
 
 
+    /**
+     * Returns the matcher of the corporate groupId prefixes of all the organizations
+     *
+     * @return OrganizationMatcher
+     */
+    public OrganizationMatcher getOrganizationMatcher() {
+        return OrganizationMatcher.of(repositoryHandler);
+    }
+
     /**
      * Returns an Organization that suits the Module or null if there is none
      *
@@ -128,13 +137,6 @@ public class OrganizationHandler {
             return getOrganization(dbModule.getOrganization());
         }
 
-        for(DbOrganization organization: repositoryHandler.getAllOrganizations()){
-            final CorporateFilter corporateFilter = new CorporateFilter(organization);
-            if(corporateFilter.matches(dbModule)){
-                return organization;
-            }
-        }
-
-        return null;
+        return getOrganizationMatcher().getOrganization(dbModule);
     }
 }
@@ -0,0 +1,116 @@
+package org.axway.grapes.server.core;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Parallel Resolver
+ *
+ * <p>Resolves a list of elements on a bounded pool of threads shared by all the requests, so that the database
+ * requests of a dependency level are sent in parallel. A batch request of a level can be split in parts sent in
+ * parallel too. The tasks never wait for other tasks: only the calling thread waits for the results, which are
+ * returned in the order of the elements.</p>
+ */
+public final class ParallelResolver {
+
+    // maximum number of elements resolved at the same time, all requests included
+    public static final int THREADS = 16;
+
+    // a batch is not split in parts smaller than this
+    public static final int MIN_PART_SIZE = 50;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS,
+            new ThreadFactoryBuilder().setNameFormat("dependency-resolution-%d").setDaemon(true).build());
+
+    private ParallelResolver(){
+        // Hide utility class constructor
+    }
+
+    /**
+     * Resolution of an element
+     *
+     * @param <S> type of the elements
+     * @param <T> type of the results
+     */
+    public interface Resolution<S, T> {
+        /**
+         * Resolves an element, it is called concurrently
+         *
+         * @param element S
+         * @return T
+         */
+        T resolve(S element);
+    }
+
+    /**
+     * Splits a batch of keys in at most THREADS parts of at least MIN_PART_SIZE keys, resolves the parts in parallel
+     * (one batch request per part) and returns all the results in the order of the parts.
+     *
+     * @param keys Collection<K>
+     * @param resolution Resolution<List<K>, List<T>> the batch request of a part
+     * @return List<T>
+     */
+    public static <K, T> List<T> resolveBatch(final Collection<K> keys, final Resolution<List<K>, List<T>> resolution) {
+        final int parts = Math.min(THREADS, Math.max(1, keys.size() / MIN_PART_SIZE));
+        final int partSize = Math.max(1, (keys.size() + parts - 1) / parts);
+
+        final List<T> results = new ArrayList<T>();
+        for(List<T> partResults: resolve(Lists.partition(new ArrayList<K>(keys), partSize), resolution)){
+            results.addAll(partResults);
+        }
+
+        return results;
+    }
+
+    /**
+     * Resolves the elements in parallel and returns the results in the order of the elements.
+     * The runtime exceptions thrown by the resolution are thrown back to the caller.
+     *
+     * @param elements List<S>
+     * @param resolution Resolution<S, T>
+     * @return List<T>
+     */
+    public static <S, T> List<T> resolve(final List<S> elements, final Resolution<S, T> resolution) {
+        final List<T> results = new ArrayList<T>(elements.size());
+
+        if(elements.size() < 2){
+            for(S element: elements){
+                results.add(resolution.resolve(element));
+            }
+            return results;
+        }
+
+        final List<Callable<T>> tasks = new ArrayList<Callable<T>>(elements.size());
+        for(final S element: elements){
+            tasks.add(new Callable<T>() {
+                @Override
+                public T call() {
+                    return resolution.resolve(element);
+                }
+            });
+        }
+
+        try {
+            for(Future<T> future: EXECUTOR.invokeAll(tasks)){
+                results.add(future.get());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resolving the dependencies.", e);
+        }
+        catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to resolve the dependencies.", e.getCause());
+        }
+
+        return results;
+    }
+}
@@ -5,8 +5,10 @@ import org.axway.grapes.server.core.version.NotHandledVersionException;
 import org.axway.grapes.server.core.version.Version;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbLatestVersions;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -32,8 +34,15 @@ public class VersionsHandler {
      * @return boolean
      */
     public boolean isUpToDate(final DbArtifact artifact) {
-        final List<String> versions = repoHandler.getArtifactVersions(artifact);
         final String currentVersion = artifact.getVersion();
+        final DbLatestVersions latestVersions = repoHandler.getLatestVersions(artifact);
+        if(latestVersions != null && latestVersions.isComparable()){
+            return currentVersion.equals(latestVersions.getLastVersion()) ||
+                    currentVersion.equals(latestVersions.getLastRelease());
+        }
+
+        final List<String> versions = latestVersions != null ?
+                latestVersions.getVersions() : repoHandler.getArtifactVersions(artifact);
 
         try{
             final String lastDevVersion = getLastVersion(versions);
@@ -62,27 +71,7 @@ public class VersionsHandler {
      * @throws IncomparableException
      */
     public String getLastRelease(final Collection<String> versions) throws NotHandledVersionException, IncomparableException {
-        Version lastRelease = null;
-
-        for(String version: versions){
-            final Version testedVersion = new Version(version);
-
-            if(testedVersion.isRelease()){
-                if(lastRelease == null){
-                    lastRelease = testedVersion;
-                }
-                else if(lastRelease.compare(testedVersion) < 0){
-                    lastRelease = testedVersion;
-                }
-            }
-
-        }
-
-        if(lastRelease == null){
-            return null;
-        }
-
-        return lastRelease.toString();
+        return toString(getLast(versions, true));
     }
 
     /**
@@ -94,24 +83,62 @@ public class VersionsHandler {
      * @throws IncomparableException
      */
     public String getLastVersion(final Collection<String> versions) throws NotHandledVersionException, IncomparableException {
-        Version lastVersion = null;
+        return toString(getLast(versions, false));
+    }
 
-        for(String version: versions){
-            final Version testedVersion = new Version(version);
+    /**
+     * Computes the last release and the last version of latest versions from their versions, with their sort keys
+     * if the versions can be compared
+     *
+     * @param latestVersions DbLatestVersions
+     */
+    public static void updateLastVersions(final DbLatestVersions latestVersions) {
+        latestVersions.setComparable(true);
 
-            if(lastVersion == null){
-                lastVersion = testedVersion;
-            }
-            else if(lastVersion.compare(testedVersion) < 0){
-                lastVersion = testedVersion;
-            }
+        try {
+            final Version lastRelease = getLast(latestVersions.getVersions(), true);
+            latestVersions.setLastRelease(toString(lastRelease));
+            latestVersions.setLastReleaseKey(lastRelease == null ? null : lastRelease.getSortKey());
+        }
+        catch (Exception e) {
+            // These versions cannot be compared, there is no last release
+            latestVersions.setComparable(false);
+            latestVersions.setLastRelease(null);
+        }
+
+        try {
+            final Version lastVersion = getLast(latestVersions.getVersions(), false);
+            latestVersions.setLastVersion(toString(lastVersion));
+            latestVersions.setLastVersionKey(lastVersion == null ? null : lastVersion.getSortKey());
+        }
+        catch (Exception e) {
+            // These versions cannot be compared, let's use the greatest string
+            latestVersions.setComparable(false);
+            latestVersions.setLastVersion(latestVersions.getVersions().isEmpty() ? null : Collections.max(latestVersions.getVersions()));
+        }
 
+        if(!latestVersions.isComparable()){
+            latestVersions.setLastReleaseKey(null);
+            latestVersions.setLastVersionKey(null);
         }
+    }
+
+    private static Version getLast(final Collection<String> versions, final boolean releaseOnly) throws NotHandledVersionException, IncomparableException {
+        Version last = null;
+
+        for(String version: versions){
+            final Version testedVersion = Version.of(version);
 
-        if(lastVersion == null){
-            return null;
+            if((!releaseOnly || testedVersion.isRelease()) &&
+                    (last == null || last.compare(testedVersion) < 0)){
+                last = testedVersion;
+            }
         }
 
-        return lastVersion.toString();
+        return last;
+    }
+
+    private static String toString(final Version version) {
+        return version == null ? null : version.toString();
     }
 }
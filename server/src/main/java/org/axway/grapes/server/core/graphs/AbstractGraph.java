@@ -1,42 +1,96 @@
 package org.axway.grapes.server.core.graphs;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.axway.grapes.commons.datamodel.Artifact;
 import org.axway.grapes.commons.datamodel.Scope;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
 import org.axway.grapes.server.db.datamodel.DbModule;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
+/**
+ * Abstract Graph
+ *
+ * <p>The element ids are interned to ints: the treated elements are kept in a bitset and the dependencies are stored
+ * as deduplicated (source, target, scope) int triples. The graph elements and dependencies are only created when
+ * they are requested, the JSON is streamed by the GraphSerializer.</p>
+ */
+@JsonSerialize(using=GraphSerializer.class)
 public abstract class AbstractGraph {
-	private final List<String> treatedElements = new ArrayList<String>();
-	private List<GraphElement> elements = new ArrayList<GraphElement>();
-	private List<GraphDependency> dependencies = new ArrayList<GraphDependency>();
-	
+	// Scope ordinals are stored on 3 bits in the dependency keys
+	private static final int SCOPE_BITS = 3;
+	private static final Scope[] SCOPES = Scope.values();
+
+	// element id -> int id, and int id -> element id/version
+	private final Map<String, Integer> ids = new HashMap<String, Integer>();
+	private final List<String> values = new ArrayList<String>();
+	private final List<String> versions = new ArrayList<String>();
+	private final BitSet roots = new BitSet();
+	private final BitSet treatedElements = new BitSet();
+	private final BitSet addedElements = new BitSet();
+
+	// int ids of the elements in insertion order
+	private int[] elements = new int[16];
+	private int nbElements = 0;
+
+	// source, target and scope ordinal of each dependency
+	private int[] dependencies = new int[48];
+	private int nbDependencies = 0;
+	private final Set<Long> dependencyKeys = new HashSet<Long>();
+
 	public List<GraphElement> getElements() {
-		return elements;
+		final List<GraphElement> graphElements = new ArrayList<GraphElement>(nbElements);
+		for(int i = 0; i < nbElements; i++){
+			final int id = elements[i];
+			final GraphElement element = new GraphElement();
+			element.setValue(values.get(id));
+			element.setVersion(versions.get(id));
+			element.setRoot(roots.get(id));
+			graphElements.add(element);
+		}
+		return graphElements;
 	}
 	public void setElements(final List<GraphElement> elements) {
-		this.elements = elements;
+		addedElements.clear();
+		nbElements = 0;
+		for(GraphElement element: elements){
+			addElement(element.getValue(), element.getVersion(), element.isRoot());
+		}
 	}
 	public List<GraphDependency> getDependencies() {
-		return dependencies;
+		final List<GraphDependency> graphDependencies = new ArrayList<GraphDependency>(nbDependencies);
+		for(int i = 0; i < nbDependencies; i++){
+			final GraphDependency dependency = new GraphDependency();
+			dependency.setSource(getDependencySource(i));
+			dependency.setTarget(getDependencyTarget(i));
+			dependency.setType(getDependencyType(i));
+			graphDependencies.add(dependency);
+		}
+		return graphDependencies;
 	}
 	public void setDependencies(final List<GraphDependency> dependencies) {
-		this.dependencies = dependencies;
+		dependencyKeys.clear();
+		nbDependencies = 0;
+		for(GraphDependency dependency: dependencies){
+			addDependency(dependency.getSource(), dependency.getTarget(), Scope.valueOf(dependency.getType()));
+		}
 	}
-	
+
 	public void addElement(final String id, final String version, final boolean root){
-		final GraphElement element = new GraphElement();
-		element.setValue(id);
-		element.setVersion(version);
-		element.setRoot(root);
-		
-		if(!elements.contains(element)){
-			elements.add(element);
+		final int elementId = intern(id);
+
+		if(!addedElements.get(elementId)){
+			addedElements.set(elementId);
+			versions.set(elementId, version);
+			roots.set(elementId, root);
+
+			if(nbElements == elements.length){
+				elements = Arrays.copyOf(elements, nbElements * 2);
+			}
+			elements[nbElements++] = elementId;
 		}
-		
-		treated(id);
+
+		treatedElements.set(elementId);
 	}
 
 	public void addDependency(final String sourceId, final String targetId, final Scope scope){
@@ -44,26 +98,81 @@ public abstract class AbstractGraph {
             return;
         }
 
-		final GraphDependency jsonDep = new GraphDependency();
-		jsonDep.setSource(sourceId);
-		jsonDep.setTarget(targetId);
-		jsonDep.setType(scope.toString());
+		final int source = intern(sourceId);
+		final int target = intern(targetId);
+		final long key = ((long) source << 32) | ((long) target << SCOPE_BITS) | scope.ordinal();
+
+		if(!dependencyKeys.add(key)){
+			return;
+		}
 
-		dependencies.add(jsonDep);
+		if(nbDependencies * 3 == dependencies.length){
+			dependencies = Arrays.copyOf(dependencies, dependencies.length * 2);
+		}
+		dependencies[nbDependencies * 3] = source;
+		dependencies[nbDependencies * 3 + 1] = target;
+		dependencies[nbDependencies * 3 + 2] = scope.ordinal();
+		nbDependencies++;
 	}
-	
+
 	public boolean isTreated(final String elementId){
-		return treatedElements.contains(elementId);
+		final Integer id = ids.get(elementId);
+		return id != null && treatedElements.get(id);
 	}
-	
+
 	public void treated(final String id){
-		treatedElements.add(id);
+		treatedElements.set(intern(id));
+	}
+
+	int getElementCount() {
+		return nbElements;
+	}
+
+	String getElementValue(final int index) {
+		return values.get(elements[index]);
+	}
+
+	String getElementVersion(final int index) {
+		return versions.get(elements[index]);
+	}
+
+	boolean isElementRoot(final int index) {
+		return roots.get(elements[index]);
+	}
+
+	int getDependencyCount() {
+		return nbDependencies;
+	}
+
+	String getDependencySource(final int index) {
+		return values.get(dependencies[index * 3]);
+	}
+
+	String getDependencyTarget(final int index) {
+		return values.get(dependencies[index * 3 + 1]);
+	}
+
+	String getDependencyType(final int index) {
+		return SCOPES[dependencies[index * 3 + 2]].toString();
+	}
+
+	private int intern(final String elementId) {
+		Integer id = ids.get(elementId);
+
+		if(id == null){
+			id = values.size();
+			ids.put(elementId, id);
+			values.add(elementId);
+			versions.add(null);
+		}
+
+		return id;
 	}
 
 	public abstract String getId(final DbModule module);
-	
+
 	public abstract String getId(final DbArtifact artifact);
-	
+
 	public abstract String getId(final Artifact artifact);
-	
+
 }
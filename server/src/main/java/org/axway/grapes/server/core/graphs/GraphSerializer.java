@@ -0,0 +1,43 @@
+package org.axway.grapes.server.core.graphs;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Handle the serialization of the graphs without creating their elements and dependencies
+ */
+public class GraphSerializer extends JsonSerializer<AbstractGraph> {
+
+    @Override
+    public void serialize(final AbstractGraph graph, final JsonGenerator json, final SerializerProvider serializer) throws IOException {
+        json.writeStartObject();
+
+        json.writeFieldName("elements");
+        json.writeStartArray();
+        for(int i = 0; i < graph.getElementCount(); i++){
+            json.writeStartObject();
+            json.writeStringField("value", graph.getElementValue(i));
+            json.writeStringField("version", graph.getElementVersion(i));
+            json.writeBooleanField("root", graph.isElementRoot(i));
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+
+        json.writeFieldName("dependencies");
+        json.writeStartArray();
+        for(int i = 0; i < graph.getDependencyCount(); i++){
+            json.writeStartObject();
+            json.writeStringField("source", graph.getDependencySource(i));
+            json.writeStringField("target", graph.getDependencyTarget(i));
+            json.writeStringField("type", graph.getDependencyType(i));
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+
+        json.writeEndObject();
+        json.flush();
+    }
+}
@@ -0,0 +1,77 @@
+package org.axway.grapes.server.core.ingestion;
+
+import java.util.UUID;
+
+/**
+ * Ingestion Job
+ *
+ * <p>Progress of an asynchronous module post. The job is created when the module is queued and updated by the
+ * worker that stores it. It is serialized in JSON by the job resource.</p>
+ */
+public class IngestionJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String moduleId;
+    private final long submissionDate = System.currentTimeMillis();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String message;
+    private volatile long completionDate;
+
+    public IngestionJob(final String moduleId) {
+        this.moduleId = moduleId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getModuleId() {
+        return moduleId;
+    }
+
+    public long getSubmissionDate() {
+        return submissionDate;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the error message of a failed job
+     *
+     * @return String
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the time the job ended at, 0 while it is not done
+     *
+     * @return long
+     */
+    public long getCompletionDate() {
+        return completionDate;
+    }
+
+    public void start() {
+        status = Status.RUNNING;
+    }
+
+    public void done() {
+        completionDate = System.currentTimeMillis();
+        status = Status.DONE;
+    }
+
+    public void fail(final String error) {
+        message = error;
+        completionDate = System.currentTimeMillis();
+        status = Status.FAILED;
+    }
+}
@@ -0,0 +1,292 @@
+package org.axway.grapes.server.core.ingestion;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.yammer.dropwizard.lifecycle.Managed;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Gauge;
+import org.axway.grapes.commons.datamodel.Module;
+import org.axway.grapes.server.config.IngestionConfig;
+import org.axway.grapes.server.core.ModuleHandler;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Module Ingestion Queue
+ *
+ * <p>Bounded queue of the asynchronous module posts. The modules are stored by worker threads that take them by
+ * batches. A module that is posted again while it is still waiting replaces the queued one: the module is stored
+ * once and all its jobs get the result. A module posted again while it is being stored stays queued until the
+ * storage ends, so the posts of a module are stored one after the other and the latest post wins. When the server
+ * stops, the queue rejects the new posts and the workers store the queued modules before the database connection
+ * is closed.</p>
+ *
+ * <p>WARNING: The queue is kept in memory: the modules that are queued when the server crashes are lost and their
+ * jobs are unknown after the restart. The clients that need the guarantee should post the modules synchronously or
+ * post them again when their job is unknown.</p>
+ */
+public class ModuleIngestionQueue implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ModuleIngestionQueue.class);
+
+    private final ModuleHandler moduleHandler;
+    private final IngestionConfig config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    // queued modules by id in submission order
+    private final LinkedHashMap<String, QueuedModule> queue = new LinkedHashMap<String, QueuedModule>();
+    // ids of the modules that are being stored, their new posts are not taken until the storage ends
+    private final Set<String> inFlight = new HashSet<String>();
+    private boolean running = false;
+
+    private final Cache<String, IngestionJob> jobs;
+    private ExecutorService workers;
+
+    public ModuleIngestionQueue(final RepositoryHandler repoHandler, final IngestionConfig config) {
+        this.moduleHandler = new ModuleHandler(repoHandler);
+        this.config = config;
+        this.jobs = CacheBuilder.newBuilder()
+                .maximumSize(config.getJobHistorySize())
+                .build();
+
+        Metrics.newGauge(ModuleIngestionQueue.class, "queued-modules", new Gauge<Integer>() {
+            @Override
+            public Integer value() {
+                return size();
+            }
+        });
+    }
+
+    /**
+     * Queues a valid module
+     *
+     * @param module Module
+     * @return IngestionJob the job that tracks the storage of the module, null if the queue is full or stopped
+     */
+    public IngestionJob offer(final Module module) {
+        final String moduleId = DbModule.generateID(module.getName(), module.getVersion());
+        final IngestionJob job = new IngestionJob(moduleId);
+
+        lock.lock();
+        try {
+            if(!running){
+                return null;
+            }
+
+            final QueuedModule queued = queue.get(moduleId);
+
+            if(queued != null){
+                // the latest post wins, the module is stored only once
+                queued.module = module;
+                queued.jobs.add(job);
+            }
+            else if(queue.size() >= config.getQueueSize()){
+                return null;
+            }
+            else{
+                queue.put(moduleId, new QueuedModule(moduleId, module, job));
+                notEmpty.signal();
+            }
+
+            jobs.put(job.getId(), job);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        return job;
+    }
+
+    /**
+     * Returns a job that is queued, running or that has recently ended
+     *
+     * @param jobId String
+     * @return IngestionJob null if the job is unknown
+     */
+    public IngestionJob getJob(final String jobId) {
+        return jobs.getIfPresent(jobId);
+    }
+
+    /**
+     * Returns the number of modules waiting to be stored
+     *
+     * @return int
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRetryAfter() {
+        return config.getRetryAfter();
+    }
+
+    @Override
+    public void start() throws Exception {
+        lock.lock();
+        try {
+            running = true;
+        }
+        finally {
+            lock.unlock();
+        }
+
+        workers = Executors.newFixedThreadPool(config.getWorkers(),
+                new ThreadFactoryBuilder().setNameFormat("module-ingestion-%d").build());
+        for(int i = 0; i < config.getWorkers(); i++){
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+
+        workers.shutdown();
+        if(!workers.awaitTermination(config.getShutdownTimeout(), TimeUnit.SECONDS)){
+            LOG.error(size() + " queued modules have not been stored before the server stopped.");
+        }
+    }
+
+    /**
+     * Stores the queued modules until the queue is stopped and empty
+     */
+    private void drain() {
+        List<QueuedModule> batch = takeBatch();
+
+        while(!batch.isEmpty()){
+            for(QueuedModule queued: batch){
+                try {
+                    store(queued);
+                }
+                finally {
+                    release(queued.moduleId);
+                }
+            }
+            batch = takeBatch();
+        }
+    }
+
+    /**
+     * Ends the storage of a module, its new post can be taken
+     *
+     * @param moduleId String
+     */
+    private void release(final String moduleId) {
+        lock.lock();
+        try {
+            inFlight.remove(moduleId);
+            if(queue.containsKey(moduleId)){
+                notEmpty.signal();
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void store(final QueuedModule queued) {
+        for(IngestionJob job: queued.jobs){
+            job.start();
+        }
+
+        try {
+            moduleHandler.storeModule(queued.module);
+
+            for(IngestionJob job: queued.jobs){
+                job.done();
+            }
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to store the queued module " + queued.moduleId, e);
+
+            for(IngestionJob job: queued.jobs){
+                job.fail(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Waits for queued modules that are not being stored and takes at most a batch of them.
+     * The modules taken are marked as being stored until they are released.
+     *
+     * @return List<QueuedModule> empty when the queue is stopped and empty
+     */
+    private List<QueuedModule> takeBatch() {
+        final List<QueuedModule> batch = new ArrayList<QueuedModule>();
+
+        lock.lock();
+        try {
+            while(!queue.isEmpty() || running){
+                final Iterator<QueuedModule> iterator = queue.values().iterator();
+                while(iterator.hasNext() && batch.size() < config.getBatchSize()){
+                    final QueuedModule queued = iterator.next();
+                    if(inFlight.add(queued.moduleId)){
+                        batch.add(queued);
+                        iterator.remove();
+                    }
+                }
+
+                if(!batch.isEmpty()){
+                    break;
+                }
+                // the queued modules, if any, are being stored by other workers
+                notEmpty.await();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            lock.unlock();
+        }
+
+        return batch;
+    }
+
+    private static class QueuedModule {
+        private final String moduleId;
+        private Module module;
+        private final List<IngestionJob> jobs = new ArrayList<IngestionJob>();
+
+        QueuedModule(final String moduleId, final Module module, final IngestionJob job) {
+            this.moduleId = moduleId;
+            this.module = module;
+            jobs.add(job);
+        }
+    }
+}
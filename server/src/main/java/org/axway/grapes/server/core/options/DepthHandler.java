@@ -21,6 +21,14 @@ public class DepthHandler {
      * Default value: 1. */
     private Integer depth = 1;
 
+    /** Value - {@value}, boolean query parameter that is used to walk the dependencies level by level.
+     * Default value: false. */
+    private Boolean breadthFirst = false;
+
+    /** Value - {@value}, boolean query parameter that is used to resolve the dependencies of each level in parallel.
+     * Default value: false. */
+    private Boolean parallel = false;
+
     public Boolean getFullRecursive() {
         return fullRecursive;
     }
@@ -54,9 +62,43 @@ public class DepthHandler {
     }
 
 
+    public Boolean getBreadthFirst() {
+        return breadthFirst;
+    }
+
+    public void setBreadthFirst(final Boolean breadthFirst) {
+        if(breadthFirst != null){
+            this.breadthFirst = breadthFirst;
+        }
+    }
+
+    private void setBreadthFirst(final String breadthFirst) {
+        if(breadthFirst != null){
+            setBreadthFirst(Boolean.valueOf(breadthFirst));
+        }
+    }
+
+    public Boolean getParallel() {
+        return parallel;
+    }
+
+    public void setParallel(final Boolean parallel) {
+        if(parallel != null){
+            this.parallel = parallel;
+        }
+    }
+
+    private void setParallel(final String parallel) {
+        if(parallel != null){
+            setParallel(Boolean.valueOf(parallel));
+        }
+    }
+
     public void init(final MultivaluedMap<String, String> queryParameters) {
         setFullRecursive(queryParameters.getFirst(ServerAPI.RECURSIVE_PARAM));
         setDepth(queryParameters.getFirst(ServerAPI.DEPTH_PARAM));
+        setBreadthFirst(queryParameters.getFirst(ServerAPI.BREADTH_FIRST_PARAM));
+        setParallel(queryParameters.getFirst(ServerAPI.PARALLEL_PARAM));
     }
 
 
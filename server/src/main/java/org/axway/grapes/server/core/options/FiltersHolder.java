@@ -9,8 +9,10 @@ import org.axway.grapes.server.db.datamodel.DbLicense;
 import javax.ws.rs.core.MultivaluedMap;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -25,6 +27,7 @@ public class FiltersHolder {
     private final ScopeHandler scopeHandler = new ScopeHandler();
     private final Decorator decorator = new Decorator();
     private final DepthHandler depthHandler = new DepthHandler();
+    private final Pagination pagination = new Pagination();
     private CorporateFilter corporateFilter;
 
     public ScopeHandler getScopeHandler(){
@@ -39,6 +42,10 @@ public class FiltersHolder {
         return depthHandler;
     }
 
+    public Pagination getPagination() {
+        return pagination;
+    }
+
     public CorporateFilter getCorporateFilter() {
         return corporateFilter;
     }
@@ -67,6 +74,7 @@ public class FiltersHolder {
         scopeHandler.init(queryParameters);
         decorator.init(queryParameters);
         depthHandler.init(queryParameters);
+        pagination.init(queryParameters);
 
         final String approved = queryParameters.getFirst(ServerAPI.APPROVED_PARAM);
         if(approved != null){
@@ -144,6 +152,50 @@ public class FiltersHolder {
         }
 	}
 
+    /**
+     * Checks if all the filters can be expressed as a single query on the licenses.
+     * It is not the case when two filters constrain the same field: their conditions can not be merged.
+     *
+     * @return boolean
+     */
+    public boolean isLicenseQuery() {
+        final Set<String> fields = new HashSet<String>();
+
+        for(Filter filter: filters){
+            final Map<String, Object> filterFields = filter.licenseFilterFields();
+            if(filterFields == null){
+                return false;
+            }
+            for(String field: filterFields.keySet()){
+                if(!fields.add(field)){
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Generates a Map of query parameters for License regarding the filters that can be expressed as a query.
+     * When two filters constrain the same field, only one of the conditions is kept: the licenses have to be
+     * checked against all the filters (see isLicenseQuery).
+     *
+     * @return Map<String, Object>
+     */
+    public Map<String, Object> getLicenseFieldsFilters() {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        for(Filter filter: filters){
+            final Map<String, Object> fields = filter.licenseFilterFields();
+            if(fields != null){
+                params.putAll(fields);
+            }
+        }
+
+        return params;
+    }
+
     public boolean shouldBeInReport(final DbLicense license) {
         for(Filter filter: filters){
             if(!filter.filter(license)){
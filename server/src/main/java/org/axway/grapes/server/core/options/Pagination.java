@@ -0,0 +1,196 @@
+package org.axway.grapes.server.core.options;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.BaseEncoding;
+import org.axway.grapes.commons.api.ServerAPI;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pagination
+ *
+ * <p>Handles the page of a list request: the elements are sorted by their id, the cursor (the id of the last element
+ * of the previous page) and the offset are used to find the first element and the limit bounds the number of
+ * elements. The count-only mode returns the number of elements instead of the elements.</p>
+ *
+ * <author>jdcoffre</author>
+ */
+public class Pagination {
+
+    /** Number of elements to skip. Default value: 0. */
+    private int offset = 0;
+
+    /** Maximum number of elements. Default value: 0, no limit. */
+    private int limit = 0;
+
+    /** Id of the last element of the previous page. Default value: null, the list starts at its first element. */
+    private String cursor;
+
+    /** Returns only the number of elements. Default value: false. */
+    private boolean countOnly = false;
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(final int offset) {
+        this.offset = checkPositive(offset, ServerAPI.OFFSET_PARAM);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(final int limit) {
+        this.limit = checkPositive(limit, ServerAPI.LIMIT_PARAM);
+    }
+
+    /**
+     * Returns the decoded cursor: the id after which the page starts or null
+     *
+     * @return String
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(final String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isCountOnly() {
+        return countOnly;
+    }
+
+    public void setCountOnly(final boolean countOnly) {
+        this.countOnly = countOnly;
+    }
+
+    /**
+     * Checks if the list has to be paginated
+     *
+     * @return boolean
+     */
+    public boolean isPaginated() {
+        return offset > 0 || limit > 0 || cursor != null;
+    }
+
+    public void init(final MultivaluedMap<String, String> queryParameters) {
+        final String offsetParam = queryParameters.getFirst(ServerAPI.OFFSET_PARAM);
+        if(offsetParam != null){
+            setOffset(parseInt(offsetParam, ServerAPI.OFFSET_PARAM));
+        }
+
+        final String limitParam = queryParameters.getFirst(ServerAPI.LIMIT_PARAM);
+        if(limitParam != null){
+            setLimit(parseInt(limitParam, ServerAPI.LIMIT_PARAM));
+        }
+
+        final String cursorParam = queryParameters.getFirst(ServerAPI.CURSOR_PARAM);
+        if(cursorParam != null){
+            setCursor(decodeCursor(cursorParam));
+        }
+
+        final String countParam = queryParameters.getFirst(ServerAPI.COUNT_PARAM);
+        if(countParam != null){
+            setCountOnly(Boolean.valueOf(countParam));
+        }
+    }
+
+    /**
+     * Returns the cursor to send back to get the page that follows the provided one,
+     * null if the page is not limited or if it is the last one
+     *
+     * @param lastId String the id of the last element of the page
+     * @param pageSize int the number of elements of the page
+     * @return String
+     */
+    public String getNextCursor(final String lastId, final int pageSize) {
+        if(limit == 0 || pageSize < limit || lastId == null){
+            return null;
+        }
+
+        return encodeCursor(lastId);
+    }
+
+    /**
+     * Returns the cursor to send back to get the page that follows the provided one
+     *
+     * @param page List<String> the ids of the page
+     * @return String
+     */
+    public String getNextCursor(final List<String> page) {
+        if(page.isEmpty()){
+            return null;
+        }
+
+        return getNextCursor(page.get(page.size() - 1), page.size());
+    }
+
+    /**
+     * Applies the pagination to a sorted list of ids.
+     * To use only when the database cannot paginate the request itself.
+     *
+     * @param sortedIds List<String>
+     * @return List<String>
+     */
+    public List<String> apply(final List<String> sortedIds) {
+        final List<String> page = new ArrayList<String>();
+        int skipped = 0;
+
+        for(String id: sortedIds){
+            if(cursor != null && id.compareTo(cursor) <= 0){
+                continue;
+            }
+            if(skipped < offset){
+                skipped++;
+                continue;
+            }
+            if(limit > 0 && page.size() == limit){
+                break;
+            }
+            page.add(id);
+        }
+
+        return page;
+    }
+
+    public static String encodeCursor(final String id) {
+        return BaseEncoding.base64Url().encode(id.getBytes(Charsets.UTF_8));
+    }
+
+    public static String decodeCursor(final String cursor) {
+        try {
+            return new String(BaseEncoding.base64Url().decode(cursor), Charsets.UTF_8);
+        }
+        catch (IllegalArgumentException e) {
+            throw badRequest("Invalid " + ServerAPI.CURSOR_PARAM + ": " + cursor);
+        }
+    }
+
+    private static int parseInt(final String value, final String param) {
+        try {
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            throw badRequest("Invalid " + param + ": " + value);
+        }
+    }
+
+    private static int checkPositive(final int value, final String param) {
+        if(value < 0){
+            throw badRequest("Invalid " + param + ": " + value);
+        }
+        return value;
+    }
+
+    private static WebApplicationException badRequest(final String message) {
+        return new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                .entity(message)
+                .build());
+    }
+}
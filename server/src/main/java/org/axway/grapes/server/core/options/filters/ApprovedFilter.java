@@ -3,6 +3,7 @@ package org.axway.grapes.server.core.options.filters;
 import org.axway.grapes.server.db.datamodel.DbLicense;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 public class ApprovedFilter implements Filter {
@@ -36,4 +37,11 @@ public class ApprovedFilter implements Filter {
     public Map<String, Object> artifactFilterFields() {
         return Collections.emptyMap();
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        final Map<String, Object> fields = new HashMap<String, Object>();
+        fields.put(DbLicense.APPROVED_DB_FIELD, approved);
+        return fields;
+    }
 }
@@ -39,4 +39,10 @@ public class ArtifactIdFilter implements Filter {
         queryParams.put(DbArtifact.ARTIFACTID_DB_FIELD, artifactId);
         return queryParams;
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
@@ -39,4 +39,10 @@ public class ClassifierFilter implements Filter {
         queryParams.put(DbArtifact.CLASSIFIER_DB_FIELD, classifier);
         return queryParams;
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
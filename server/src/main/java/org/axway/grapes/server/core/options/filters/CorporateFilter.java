@@ -1,23 +1,30 @@
 package org.axway.grapes.server.core.options.filters;
 
 import org.axway.grapes.server.db.DBRegExp;
-import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.OrganizationMatcher;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
 import org.axway.grapes.server.db.datamodel.DbDependency;
 import org.axway.grapes.server.db.datamodel.DbModule;
 import org.axway.grapes.server.db.datamodel.DbOrganization;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 public class CorporateFilter implements Filter {
 
     private DbOrganization organization;
-
-    public CorporateFilter(final DbOrganization organization) {
+    private OrganizationMatcher matcher;
+
+    /**
+     * Creates a filter on the corporate entities of an organization: an entity is corporate if the matcher
+     * classifies it in the organization, so the groupIds claimed by several organizations go to the one with the
+     * longest corporate groupId prefix.
+     *
+     * @param organization DbOrganization
+     * @param matcher OrganizationMatcher the matcher of all the organizations
+     */
+    public CorporateFilter(final DbOrganization organization, final OrganizationMatcher matcher) {
         this.organization = organization;
+        this.matcher = matcher;
     }
 
     @Override
@@ -36,13 +43,7 @@ public class CorporateFilter implements Filter {
     }
 
     public boolean matches(final DbModule module) {
-        final List<String> artifacts = DataUtils.getAllArtifacts(module);
-
-        if(artifacts.isEmpty()){
-            return evaluate(module.getId());
-        }
-
-        return evaluate(artifacts.get(0));
+        return isOwner(matcher.getOrganization(module));
     }
 
     public boolean matches(final DbArtifact artifact) {
@@ -74,12 +75,11 @@ public class CorporateFilter implements Filter {
     }
 
     private boolean evaluate(final String id){
-        for(String corporateGroupId: organization.getCorporateGroupIdPrefixes()){
-            if(id.startsWith(corporateGroupId)){
-                return true;
-            }
-        }
-        return false;
+        return isOwner(matcher.getOrganization(id));
+    }
+
+    private boolean isOwner(final DbOrganization owner){
+        return owner != null && owner.getName().equals(organization.getName());
     }
 
     public DBRegExp getMongoRegExp() {
@@ -110,4 +110,10 @@ public class CorporateFilter implements Filter {
 
         return new DBRegExp(sb.toString());
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
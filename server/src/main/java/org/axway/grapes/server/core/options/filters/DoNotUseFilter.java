@@ -40,4 +40,10 @@ public class DoNotUseFilter implements Filter {
 
         return filters;
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
@@ -39,4 +39,10 @@ public class ExtensionFilter implements Filter {
         fields.put(DbArtifact.EXTENSION_DB_FIELD, extension);
         return fields;
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
@@ -17,4 +17,12 @@ public interface Filter {
 
     public Map<String, Object> artifactFilterFields();
 
+    /**
+     * Returns the query fields that select the licenses matching the filter,
+     * null if the filter cannot be expressed as a license query
+     *
+     * @return Map<String, Object>
+     */
+    public Map<String, Object> licenseFilterFields();
+
 }
@@ -40,4 +40,10 @@ public class GavcFilter implements Filter {
         fields.put(DbCollections.DEFAULT_ID, gavc);
         return fields;
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
@@ -39,4 +39,10 @@ public class GroupIdFilter implements Filter {
         queryParams.put(DbArtifact.GROUPID_DB_FIELD, groupId);
         return queryParams;
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
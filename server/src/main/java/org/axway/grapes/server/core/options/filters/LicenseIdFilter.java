@@ -1,6 +1,7 @@
 package org.axway.grapes.server.core.options.filters;
 
 import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbCollections;
 import org.axway.grapes.server.db.datamodel.DbLicense;
 
 import java.util.Collections;
@@ -45,4 +46,11 @@ public class LicenseIdFilter implements Filter {
 
         return queryParams;
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        final Map<String, Object> fields = new HashMap<String, Object>();
+        fields.put(DbCollections.DEFAULT_ID, licenseId);
+        return fields;
+    }
 }
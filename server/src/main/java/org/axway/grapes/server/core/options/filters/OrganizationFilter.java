@@ -39,4 +39,10 @@ public class OrganizationFilter implements Filter {
     public Map<String, Object> artifactFilterFields() {
         return Collections.emptyMap();
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
@@ -43,4 +43,10 @@ public class PromotedFilter implements Filter {
     public Map<String, Object> artifactFilterFields() {
         return Collections.emptyMap();
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
@@ -3,6 +3,7 @@ package org.axway.grapes.server.core.options.filters;
 import org.axway.grapes.server.db.datamodel.DbLicense;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 public class ToBeValidatedFilter implements Filter {
@@ -42,4 +43,19 @@ public class ToBeValidatedFilter implements Filter {
     public Map<String, Object> artifactFilterFields() {
         return Collections.emptyMap();
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        final Map<String, Object> fields = new HashMap<String, Object>();
+
+        // a license to be validated has no approval status
+        if(toBeValidated){
+            fields.put(DbLicense.APPROVED_DB_FIELD, null);
+        }
+        else{
+            fields.put(DbLicense.APPROVED_DB_FIELD, Collections.singletonMap("$ne", null));
+        }
+
+        return fields;
+    }
 }
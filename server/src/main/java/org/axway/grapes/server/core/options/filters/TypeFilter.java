@@ -39,4 +39,10 @@ public class TypeFilter implements Filter {
         queryParams.put(DbArtifact.TYPE_DB_FIELD, type);
         return queryParams;
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
@@ -44,4 +44,10 @@ public class VersionFilter implements Filter {
         fields.put(DbArtifact.VERSION_DB_FIELD, version);
         return fields;
     }
+
+    @Override
+    public Map<String, Object> licenseFilterFields() {
+        // not a license field, the licenses are checked with filter()
+        return null;
+    }
 }
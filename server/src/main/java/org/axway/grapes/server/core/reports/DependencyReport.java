@@ -14,14 +14,30 @@ import java.util.*;
  *
  * <p>This class has been design to provide a quick feedback about module dependencies.</p>
  *
+ * <p>The dependencies are indexed by target gavc, then by target version, while they are added. The targets and
+ * the sources of each version are sorted once, the first time the report is read after an addition.</p>
+ *
  * @author jdcoffre
  */
 @JsonSerialize(using=DependencyReportSerializer.class)
 public class DependencyReport extends View {
 
+    private static final Comparator<Dependency> SOURCE_NAME_ORDER = new Comparator<Dependency>() {
+        @Override
+        public int compare(final Dependency dep1, final Dependency dep2) {
+            return dep1.getSourceName().compareTo(dep2.getSourceName());
+        }
+    };
+
     private String title;
     private List<Dependency> dependencies = new ArrayList<Dependency>();
-    private List<String> shouldNotBeUsed = new ArrayList<String>();
+    private Set<Dependency> addedDependencies = new HashSet<Dependency>();
+    private Set<String> shouldNotBeUsed = new HashSet<String>();
+
+    // target gavc -> versions -> sources
+    private Map<String, Target> targets = new LinkedHashMap<String, Target>();
+    // null when the report has changed since the last sort
+    private List<Artifact> sortedTargets;
 
     public List<Dependency> getDependencies() {
         return dependencies;
@@ -41,8 +57,16 @@ public class DependencyReport extends View {
     public void addDependency(final Dependency dependency, final String lastRelease) {
         final String depId = DbArtifact.generateGAVC(dependency.getTarget());
 
-        if(!dependencies.contains(dependency)){
+        if(addedDependencies.add(dependency)){
             dependencies.add(dependency);
+
+            Target target = targets.get(depId);
+            if(target == null){
+                target = new Target(dependency.getTarget());
+                targets.put(depId, target);
+            }
+            target.add(dependency);
+            sortedTargets = null;
         }
 
         if(!lastVersion.containsKey(depId)){
@@ -52,34 +76,18 @@ public class DependencyReport extends View {
     }
 
     public List<Artifact> getDependencyTargets(){
-        final List<Artifact> targets = new ArrayList<Artifact>();
-        final List<String> gavcs = new ArrayList<String>();
-
-        for(Dependency dependency: dependencies){
-            final String depGavc = DbArtifact.generateGAVC(dependency.getTarget());
-            if(!gavcs.contains(depGavc)){
-                targets.add(dependency.getTarget());
-                gavcs.add(depGavc);
-            }
-        }
-
-        DataUtils.sort(targets);
-
-        return targets;
+        sort();
+        return sortedTargets;
     }
 
     public List<String> getVersions(final Artifact target){
-        final List<String> versions = new ArrayList<String>();
+        final Target indexedTarget = targets.get(DbArtifact.generateGAVC(target));
 
-        for(Dependency dependency: dependencies){
-            final String depGavc = DbArtifact.generateGAVC(dependency.getTarget());
-            if(depGavc.equals(DbArtifact.generateGAVC(target))
-                    && !versions.contains(dependency.getTarget().getVersion())){
-                versions.add(dependency.getTarget().getVersion());
-            }
+        if(indexedTarget == null){
+            return Collections.emptyList();
         }
 
-        return versions;
+        return Collections.unmodifiableList(indexedTarget.versions);
     }
 
     public String getLastVersion(final Artifact artifact){
@@ -94,43 +102,24 @@ public class DependencyReport extends View {
 
 
     public int getNbEntry(final Artifact artifact){
-        int nbEntries = 0;
-
-        final List<String> versions = getVersions(artifact);
+        final Target indexedTarget = targets.get(artifact.getGavc());
 
-        for(String version: versions){
-			nbEntries += getDependencies(artifact, version).size();
+        if(indexedTarget == null){
+            return 0;
         }
 
-
-        return nbEntries;
+        return indexedTarget.nbEntries;
     }
 
     public List<Dependency> getDependencies(final Artifact target, final String version) {
-        final List<Dependency> sources = new ArrayList<Dependency>();
-
-        for(Dependency dependency: dependencies){
-            if(target.getGavc().equals(dependency.getTarget().getGavc()) &&
-                    version.equals(dependency.getTarget().getVersion())){
-                sources.add(dependency);
-            }
-        }
-
-        int n = sources.size();
-        while(n != 0){
-            int newn = 0;
-
-            for(int i = 1 ; i <= n-1 ; i++){
-                if (sources.get(i-1).getSourceName().compareTo(sources.get(i).getSourceName()) > 0){
-                    Collections.swap(sources,i-1,i);
-                    newn = i;
-                }
-            }
+        final Target indexedTarget = targets.get(target.getGavc());
 
-            n = newn;
+        if(indexedTarget == null || !indexedTarget.sources.containsKey(version)){
+            return Collections.emptyList();
         }
 
-        return sources;
+        sort();
+        return Collections.unmodifiableList(indexedTarget.sources.get(version));
     }
 
     public void addShouldNotUse(final String gavc){
@@ -151,4 +140,50 @@ public class DependencyReport extends View {
         return 0;
     }
 
+    /**
+     * Sorts the targets and the sources of their versions if dependencies have been added since the last sort
+     */
+    private void sort() {
+        if(sortedTargets != null){
+            return;
+        }
+
+        final List<Artifact> artifacts = new ArrayList<Artifact>(targets.size());
+        for(Target target: targets.values()){
+            artifacts.add(target.artifact);
+            for(List<Dependency> sources: target.sources.values()){
+                Collections.sort(sources, SOURCE_NAME_ORDER);
+            }
+        }
+        DataUtils.sort(artifacts);
+
+        sortedTargets = Collections.unmodifiableList(artifacts);
+    }
+
+    /**
+     * Dependencies of the report that share a target gavc
+     */
+    private static final class Target {
+        private final Artifact artifact;
+        private final List<String> versions = new ArrayList<String>();
+        private final Map<String, List<Dependency>> sources = new HashMap<String, List<Dependency>>();
+        private int nbEntries = 0;
+
+        private Target(final Artifact artifact) {
+            this.artifact = artifact;
+        }
+
+        private void add(final Dependency dependency) {
+            final String version = dependency.getTarget().getVersion();
+
+            List<Dependency> versionSources = sources.get(version);
+            if(versionSources == null){
+                versionSources = new ArrayList<Dependency>();
+                sources.put(version, versionSources);
+                versions.add(version);
+            }
+            versionSources.add(dependency);
+            nbEntries++;
+        }
+    }
 }
@@ -1,17 +1,40 @@
 package org.axway.grapes.server.core.version;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
-
-
+import java.util.Arrays;
 
 /**
  * Version Model Class
+ *
+ * <p>The version is parsed once at creation: its digits, branch id, release id and snapshot flag are kept so the
+ * comparisons do not split the version or allocate anything. {@link #of(String)} provides shared instances of the
+ * parsed versions.</p>
+ *
+ * <p>The natural ordering is the one of {@link #compare(Version)} except that the versions that cannot be compared
+ * are ordered too: branch versions after the others. It is not consistent with equals.</p>
  * 
  * @author jdcoffre
  */
-public class Version {
+public final class Version implements Comparable<Version> {
+
+	// maximum number of parsed versions kept by of()
+	private static final int MAX_CACHED_VERSIONS = 10000;
+
+	private static final Cache<String, Version> VERSIONS = CacheBuilder.newBuilder()
+			.maximumSize(MAX_CACHED_VERSIONS)
+			.build();
+
+	// Id used when the branch id of a snapshot is not a number
+	private static final int NO_ID = Integer.MIN_VALUE;
 
 	private final String stringVersion;
+	private final int[] digits;
+	private final boolean snapshot;
+	private final boolean branch;
+	private final int branchId;
+	private final int releaseId;
 
 	public Version(final String version) throws NotHandledVersionException {
 		this.stringVersion = version;
@@ -23,16 +46,24 @@ public class Version {
 		}
 		
 		try {
-			for(String digit: getDigits().split("\\.")){
-				Integer.parseInt(digit);
+			final String[] digitParts = versionsParts[0].split("\\.");
+			digits = new int[digitParts.length];
+			for(int i = 0; i < digitParts.length; i++){
+				digits[i] = Integer.parseInt(digitParts[i]);
 			}
-			
-			if (versionsParts.length > 1 && !versionsParts[1].contains("SNAPSHOT")) {
-				Integer.parseInt(versionsParts[1]);
+
+			snapshot = stringVersion.contains("SNAPSHOT");
+			branch = versionsParts.length == 3;
+			branchId = branch ? parseId(versionsParts[1]) : NO_ID;
+
+			if(branch){
+				releaseId = parseId(versionsParts[2]);
 			}
-			
-			if (versionsParts.length > 2 && !versionsParts[2].contains("SNAPSHOT")) {
-				Integer.parseInt(versionsParts[2]);
+			else if(versionsParts.length == 2){
+				releaseId = parseId(versionsParts[1]);
+			}
+			else{
+				releaseId = 0;
 			}
 			
 		} catch (NumberFormatException e) {
@@ -42,85 +73,61 @@ public class Version {
 	}
 
 	/**
-	 * Check if a version is a snapshot
-	 * 
-	 * @return true if the version is a snapshot
-	 */
-	public Boolean isSnapshot() {
-		return stringVersion.contains("SNAPSHOT");
-	}
-
-	/**
-	 * Check if a version is a release version
-	 * 
-	 * @return true if the version is a release  
+	 * Returns the parsed version of a string, the versions that have already been parsed are shared
+	 *
+	 * @param version String
+	 * @return Version
+	 * @throws NotHandledVersionException if the version does not match the expectations
 	 */
-	public Boolean isRelease() {
-		return !isSnapshot();
-	}
+	public static Version of(final String version) throws NotHandledVersionException {
+		Version parsedVersion = VERSIONS.getIfPresent(version);
 
-	/**
-	 * Check if a version is a branch version
-	 * 
-	 * @return true if the version is a branch version
-	 */
-	public Boolean isBranch() {
-		return stringVersion.split("-").length == 3;
-	}
+		if(parsedVersion == null){
+			parsedVersion = new Version(version);
+			VERSIONS.put(version, parsedVersion);
+		}
 
-	/**
-	 * Return the digits of a version
-	 * 
-	 * @return digits
-	 */
-	private String getDigits() {
-		return stringVersion.split("-")[0];
+		return parsedVersion;
 	}
 
 	/**
-	 * Return the number of digit of the version
-	 * 
-	 * @return number of digit
+	 * Parses a branch or a release id, a snapshot id is not a number
+	 *
+	 * @param id String
+	 * @return int
 	 */
-	private Integer getDigitsSize() {
-		return getDigits().split("\\.").length;
+	private static int parseId(final String id) {
+		if(id.contains("SNAPSHOT")){
+			return NO_ID;
+		}
+		return Integer.parseInt(id);
 	}
 
 	/**
-	 * Return the ieme digit of the version 
+	 * Check if a version is a snapshot
 	 * 
-	 * @param i digit number
-	 * @return digit
+	 * @return true if the version is a snapshot
 	 */
-	private Integer getDigit(final int i) {
-		return Integer.valueOf(getDigits().split("\\.")[i]);
+	public Boolean isSnapshot() {
+		return snapshot;
 	}
 
 	/**
-	 * Return the releaseId
+	 * Check if a version is a release version
 	 * 
-	 * @return releaseId
+	 * @return true if the version is a release  
 	 */
-	private Integer getReleaseId() {
-		final String[] versionParts = stringVersion.split("-");
-		
-		if(isBranch() && versionParts.length >= 3){
-			return Integer.valueOf(versionParts[2]);
-		}
-		else if(versionParts.length >= 2){
-			return Integer.valueOf(versionParts[1]);
-		}
-
-		return 0;
+	public Boolean isRelease() {
+		return !snapshot;
 	}
 
 	/**
-	 * Return the branchId
+	 * Check if a version is a branch version
 	 * 
-	 * @return branchId
+	 * @return true if the version is a branch version
 	 */
-	private Integer getBranchId() {
-		return Integer.valueOf(stringVersion.split("-")[1]);
+	public Boolean isBranch() {
+		return branch;
 	}
 
 	/**
@@ -132,45 +139,111 @@ public class Version {
 	 */
 	public int compare(final Version other) throws IncomparableException{
 		// Cannot compare branch versions and others 
-		if(!isBranch().equals(other.isBranch())){
+		if(branch != other.branch){
+			throw new IncomparableException();
+		}
+
+		// Cannot compare the branches of snapshots that do not have a branch id
+		if(branch && (branchId == NO_ID || other.branchId == NO_ID) && sameDigits(other)){
 			throw new IncomparableException();
 		}
 		
+		return compareParsed(other);
+	}
+
+	@Override
+	public int compareTo(final Version other) {
+		if(branch != other.branch){
+			return branch ? 1 : -1;
+		}
+
+		return compareParsed(other);
+	}
+
+	/**
+	 * Compares two versions that are both branch versions or not
+	 *
+	 * @param other Version
+	 * @return int
+	 */
+	private int compareParsed(final Version other) {
 		// Compare digits
-		final int minDigitSize = getDigitsSize() < other.getDigitsSize()? getDigitsSize(): other.getDigitsSize();
+		final int minDigitSize = Math.min(digits.length, other.digits.length);
 		
 		for(int i = 0; i < minDigitSize ; i++){
-			if(!getDigit(i).equals(other.getDigit(i))){
-				return getDigit(i).compareTo(other.getDigit(i));
+			if(digits[i] != other.digits[i]){
+				return digits[i] < other.digits[i] ? -1 : 1;
 			}
 		}
 		
 		// If not the same number of digits and the first digits are equals, the longest is the newer
-		if(!getDigitsSize().equals(other.getDigitsSize())){
-			return getDigitsSize() > other.getDigitsSize()? 1: -1;
+		if(digits.length != other.digits.length){
+			return digits.length > other.digits.length ? 1: -1;
 		}
 		
-		if(isBranch() && !getBranchId().equals(other.getBranchId())){
-			return getBranchId().compareTo(other.getBranchId());
+		if(branch && branchId != other.branchId){
+			return branchId < other.branchId ? -1 : 1;
 		}
 		
 		// if the digits are the same, a snapshot is newer than a release
-		if(isSnapshot() && other.isRelease()){
+		if(snapshot && !other.snapshot){
 			return 1;
 		}
 		
-		if(isRelease() && other.isSnapshot()){
+		if(!snapshot && other.snapshot){
 			return -1;
 		}
 		
 		// if both versions are releases, compare the releaseID
-		if(isRelease() && other.isRelease()){
-			return getReleaseId().compareTo(other.getReleaseId());
+		if(!snapshot && releaseId != other.releaseId){
+			return releaseId < other.releaseId ? -1 : 1;
 		}
 		
 		return 0;
 	}
 
+	/**
+	 * Returns a key whose lexicographic order is the natural ordering of the versions, so the versions can be
+	 * compared by a database: equal versions have the same key and the branch keys start with 1, the others with 0.
+	 *
+	 * @return String
+	 */
+	public String getSortKey() {
+		final StringBuilder key = new StringBuilder(branch ? "1" : "0");
+
+		for(int i = 0; i < digits.length; i++){
+			if(i > 0){
+				key.append('.');
+			}
+			appendId(key, digits[i]);
+		}
+		// ends the digits below the separator so that a version with less digits comes first
+		key.append('!');
+
+		if(branch){
+			appendId(key, branchId);
+		}
+
+		key.append(snapshot ? '1' : '0');
+		if(!snapshot){
+			appendId(key, releaseId);
+		}
+
+		return key.toString();
+	}
+
+	private static void appendId(final StringBuilder key, final int id) {
+		final String value = String.valueOf((long) id - Integer.MIN_VALUE);
+		for(int i = value.length(); i < 10; i++){
+			key.append('0');
+		}
+		key.append(value);
+	}
+
+	private boolean sameDigits(final Version other) {
+		return Arrays.equals(digits, other.digits);
+	}
+
 	@Override
 	public String toString(){
 		return stringVersion;
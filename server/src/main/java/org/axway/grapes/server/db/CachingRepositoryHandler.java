@@ -0,0 +1,859 @@
+package org.axway.grapes.server.db;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.*;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Gauge;
+import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.db.datamodel.*;
+import org.axway.grapes.server.db.datamodel.DbCredential.AvailableRoles;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Caching Repository Handler
+ *
+ * <p>Decorates a repository handler with bounded read-through caches of the modules, the artifacts, the licenses,
+ * the organizations and the root modules of the gavcs. The absence of an entity is cached as well.</p>
+ *
+ * <p>Each write performed through this handler invalidates the entries it affects. A read that started before an
+ * invalidation of its key does not cache its result, so a value read before a write is not kept after it. The
+ * writes performed directly into the database are not seen until the entries expire or are evicted. The hits,
+ * misses and evictions of each cache are exposed as metrics, in a scope of their own for each instance.</p>
+ *
+ * <p>The entities are returned as copies of the cached ones, so the callers can modify them like the entities read
+ * from the database. Only the collections and the nested entities are copied, the other values are immutable.</p>
+ */
+public class CachingRepositoryHandler implements RepositoryHandler {
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger(0);
+
+    /** Default time to live of the entries, in seconds */
+    public static final int DEFAULT_EXPIRATION = 600;
+
+    // number of generation counters of each cache, the keys sharing a counter only cost extra reads
+    private static final int GENERATIONS = 1024;
+
+    private final RepositoryHandler repoHandler;
+    private final String metricsScope;
+
+    private final GuardedCache<DbModule> modules;
+    private final GuardedCache<DbArtifact> artifacts;
+    private final GuardedCache<DbLicense> licenses;
+    private final GuardedCache<DbOrganization> organizations;
+    private final GuardedCache<DbModule> rootModules;
+
+    // gavcs of the root module entries per module id
+    private final SetMultimap<String, String> rootModuleGavcs = Multimaps.synchronizedSetMultimap(HashMultimap.<String, String>create());
+
+    public CachingRepositoryHandler(final RepositoryHandler repoHandler, final int maxSize) {
+        this(repoHandler, maxSize, DEFAULT_EXPIRATION);
+    }
+
+    public CachingRepositoryHandler(final RepositoryHandler repoHandler, final int maxSize, final int expiration) {
+        this(repoHandler, maxSize, expiration, Ticker.systemTicker());
+    }
+
+    CachingRepositoryHandler(final RepositoryHandler repoHandler, final int maxSize, final int expiration, final Ticker ticker) {
+        this.repoHandler = repoHandler;
+        this.metricsScope = "handler-" + INSTANCES.incrementAndGet();
+
+        modules = createCache(maxSize, expiration, ticker, "module", null);
+        artifacts = createCache(maxSize, expiration, ticker, "artifact", null);
+        licenses = createCache(maxSize, expiration, ticker, "license", null);
+        organizations = createCache(maxSize, expiration, ticker, "organization", null);
+        rootModules = createCache(maxSize, expiration, ticker, "root-module", new RemovalListener<String, Optional<DbModule>>() {
+            @Override
+            public void onRemoval(final RemovalNotification<String, Optional<DbModule>> notification) {
+                // a replaced entry stays in the index: it only costs an extra invalidation
+                if(notification.getCause() != RemovalCause.REPLACED && notification.getValue() != null
+                        && notification.getValue().isPresent()){
+                    rootModuleGavcs.remove(notification.getValue().get().getId(), notification.getKey());
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates a cache and registers its metrics
+     *
+     * @param maxSize int the maximum number of entries
+     * @param expiration int the time to live of the entries, in seconds
+     * @param ticker Ticker the time source of the expiration
+     * @param name String the name of the cached entity
+     * @param removalListener RemovalListener notified of the removed entries, null if none
+     * @return GuardedCache
+     */
+    private <T> GuardedCache<T> createCache(final int maxSize, final int expiration, final Ticker ticker, final String name,
+                                            final RemovalListener<String, Optional<T>> removalListener) {
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expiration, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .recordStats();
+        final Cache<String, Optional<T>> cache = removalListener == null ? builder.<String, Optional<T>>build() :
+                builder.removalListener(removalListener).<String, Optional<T>>build();
+
+        Metrics.newGauge(CachingRepositoryHandler.class, name + "-cache-hits", metricsScope, new Gauge<Long>() {
+            @Override
+            public Long value() {
+                return cache.stats().hitCount();
+            }
+        });
+        Metrics.newGauge(CachingRepositoryHandler.class, name + "-cache-misses", metricsScope, new Gauge<Long>() {
+            @Override
+            public Long value() {
+                return cache.stats().missCount();
+            }
+        });
+        Metrics.newGauge(CachingRepositoryHandler.class, name + "-cache-evictions", metricsScope, new Gauge<Long>() {
+            @Override
+            public Long value() {
+                return cache.stats().evictionCount();
+            }
+        });
+
+        return new GuardedCache<T>(cache);
+    }
+
+    /**
+     * Returns a copy of the cached value of the key, the loader is called if the key is not in the cache yet
+     */
+    private <T> T get(final GuardedCache<T> cache, final String key, final Callable<T> loader) {
+        final Optional<T> cached = cache.cache.getIfPresent(key);
+        if(cached != null){
+            return copy(cached.orNull());
+        }
+
+        final long generation = cache.generation(key);
+        final T entity;
+        try {
+            entity = loader.call();
+        }
+        catch (Exception e) {
+            throw Throwables.propagate(e);
+        }
+
+        cache.put(key, generation, Optional.fromNullable(copy(entity)));
+        return entity;
+    }
+
+    /**
+     * Copies a cached entity: the cached entities must not be modified by the callers.
+     *
+     * @param entity T
+     * @return T null if the entity is null
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(final T entity) {
+        if(entity instanceof DbModule){
+            return (T) copy((DbModule) entity);
+        }
+        if(entity instanceof DbArtifact){
+            return (T) copy((DbArtifact) entity);
+        }
+        if(entity instanceof DbLicense){
+            return (T) copy((DbLicense) entity);
+        }
+        if(entity instanceof DbOrganization){
+            return (T) copy((DbOrganization) entity);
+        }
+        return entity;
+    }
+
+    private static DbModule copy(final DbModule module) {
+        final DbModule copy = new DbModule();
+        copy.setDataModelVersion(module.getDataModelVersion());
+        copy.setName(module.getName());
+        copy.setVersion(module.getVersion());
+        copy.setPromoted(module.isPromoted());
+        copy.setSubmodule(module.isSubmodule());
+        copy.setOrganization(module.getOrganization());
+        copy.setArtifacts(new ArrayList<String>(module.getArtifacts()));
+        copy.setBuildInfo(new HashMap<String, String>(module.getBuildInfo()));
+        copy.getHas().addAll(module.getHas());
+        copy.getUses().addAll(module.getUses());
+
+        final List<DbModule> submodules = new ArrayList<DbModule>(module.getSubmodules().size());
+        for(DbModule submodule: module.getSubmodules()){
+            submodules.add(copy(submodule));
+        }
+        copy.setSubmodules(submodules);
+
+        final List<DbDependency> dependencies = new ArrayList<DbDependency>(module.getDependencies().size());
+        for(DbDependency dependency: module.getDependencies()){
+            final DbDependency dependencyCopy = new DbDependency(dependency.getSource(), dependency.getTarget(), dependency.getScope());
+            dependencyCopy.setDataModelVersion(dependency.getDataModelVersion());
+            dependencies.add(dependencyCopy);
+        }
+        copy.setDependencies(dependencies);
+
+        return copy;
+    }
+
+    private static DbArtifact copy(final DbArtifact artifact) {
+        final DbArtifact copy = new DbArtifact();
+        copy.setDataModelVersion(artifact.getDataModelVersion());
+        copy.setGroupId(artifact.getGroupId());
+        copy.setArtifactId(artifact.getArtifactId());
+        copy.setVersion(artifact.getVersion());
+        copy.setClassifier(artifact.getClassifier());
+        copy.setType(artifact.getType());
+        copy.setExtension(artifact.getExtension());
+        copy.setPromoted(artifact.isPromoted());
+        copy.setLicenses(new ArrayList<String>(artifact.getLicenses()));
+        copy.setDownloadUrl(artifact.getDownloadUrl());
+        copy.setSize(artifact.getSize());
+        copy.setDoNotUse(artifact.getDoNotUse());
+        copy.setProvider(artifact.getProvider());
+        return copy;
+    }
+
+    private static DbLicense copy(final DbLicense license) {
+        final DbLicense copy = new DbLicense();
+        copy.setDataModelVersion(license.getDataModelVersion());
+        copy.setName(license.getName());
+        copy.setLongName(license.getLongName());
+        copy.setUrl(license.getUrl());
+        copy.setComments(license.getComments());
+        copy.setRegexp(license.getRegexp());
+        copy.setApproved(license.isApproved());
+        return copy;
+    }
+
+    private static DbOrganization copy(final DbOrganization organization) {
+        final DbOrganization copy = new DbOrganization();
+        copy.setDatamodelVersion(organization.getDatamodelVersion());
+        copy.setName(organization.getName());
+        copy.setCorporateGroupIdPrefixes(new ArrayList<String>(organization.getCorporateGroupIdPrefixes()));
+        return copy;
+    }
+
+    /**
+     * Returns the scope of the metrics of the caches
+     *
+     * @return String
+     */
+    public String getMetricsScope() {
+        return metricsScope;
+    }
+
+    /**
+     * Returns the cache of the modules
+     *
+     * @return Cache
+     */
+    public Cache<String, Optional<DbModule>> getModuleCache() {
+        return modules.cache;
+    }
+
+    /**
+     * Returns the cache of the artifacts
+     *
+     * @return Cache
+     */
+    public Cache<String, Optional<DbArtifact>> getArtifactCache() {
+        return artifacts.cache;
+    }
+
+    /**
+     * Returns the cache of the licenses
+     *
+     * @return Cache
+     */
+    public Cache<String, Optional<DbLicense>> getLicenseCache() {
+        return licenses.cache;
+    }
+
+    /**
+     * Returns the cache of the organizations
+     *
+     * @return Cache
+     */
+    public Cache<String, Optional<DbOrganization>> getOrganizationCache() {
+        return organizations.cache;
+    }
+
+    /**
+     * Returns the cache of the root modules
+     *
+     * @return Cache
+     */
+    public Cache<String, Optional<DbModule>> getRootModuleCache() {
+        return rootModules.cache;
+    }
+
+    @Override
+    public void store(final DbCredential credential) {
+        repoHandler.store(credential);
+    }
+
+    @Override
+    public DbCredential getCredential(final String userId) {
+        return repoHandler.getCredential(userId);
+    }
+
+    @Override
+    public void addUserRole(final String user, final AvailableRoles role) {
+        repoHandler.addUserRole(user, role);
+    }
+
+    @Override
+    public void removeUserRole(final String user, final AvailableRoles role) {
+        repoHandler.removeUserRole(user, role);
+    }
+
+    @Override
+    public void store(final DbLicense license) {
+        repoHandler.store(license);
+        licenses.invalidate(license.getName());
+    }
+
+    @Override
+    public List<String> getLicenseNames(final FiltersHolder filters) {
+        return repoHandler.getLicenseNames(filters);
+    }
+
+    @Override
+    public long getLicenseNamesCount(final FiltersHolder filters) {
+        return repoHandler.getLicenseNamesCount(filters);
+    }
+
+    @Override
+    public DbLicense getLicense(final String name) {
+        return get(licenses, name, new Callable<DbLicense>() {
+            @Override
+            public DbLicense call() {
+                return repoHandler.getLicense(name);
+            }
+        });
+    }
+
+    @Override
+    public List<DbLicense> getAllLicenses() {
+        return repoHandler.getAllLicenses();
+    }
+
+    @Override
+    public void deleteLicense(final String name) {
+        repoHandler.deleteLicense(name);
+        licenses.invalidate(name);
+    }
+
+    @Override
+    public List<DbArtifact> getArtifacts(final FiltersHolder filters) {
+        return repoHandler.getArtifacts(filters);
+    }
+
+    @Override
+    public DbCursor<DbArtifact> getArtifactsCursor(final FiltersHolder filters) {
+        return repoHandler.getArtifactsCursor(filters);
+    }
+
+    @Override
+    public long getArtifactsCount(final FiltersHolder filters) {
+        return repoHandler.getArtifactsCount(filters);
+    }
+
+    @Override
+    public void addLicenseToArtifact(final DbArtifact artifact, final String licenseId) {
+        repoHandler.addLicenseToArtifact(artifact, licenseId);
+        artifacts.invalidate(artifact.getGavc());
+    }
+
+    @Override
+    public void removeLicenseFromArtifact(final DbArtifact artifact, final String name) {
+        repoHandler.removeLicenseFromArtifact(artifact, name);
+        artifacts.invalidate(artifact.getGavc());
+    }
+
+    @Override
+    public void approveLicense(final DbLicense license, final Boolean approved) {
+        repoHandler.approveLicense(license, approved);
+        licenses.invalidate(license.getName());
+    }
+
+    @Override
+    public void store(final DbArtifact dbArtifact) {
+        repoHandler.store(dbArtifact);
+        artifacts.invalidate(dbArtifact.getGavc());
+    }
+
+    @Override
+    public void storeIfNew(final Collection<DbArtifact> dbArtifacts) {
+        repoHandler.storeIfNew(dbArtifacts);
+
+        // the artifacts may have been cached as missing
+        for(DbArtifact dbArtifact: dbArtifacts){
+            artifacts.invalidate(dbArtifact.getGavc());
+        }
+    }
+
+    @Override
+    public List<String> getGavcs(final FiltersHolder filters) {
+        return repoHandler.getGavcs(filters);
+    }
+
+    @Override
+    public List<String> getGroupIds(final FiltersHolder filters) {
+        return repoHandler.getGroupIds(filters);
+    }
+
+    @Override
+    public long getGroupIdsCount(final FiltersHolder filters) {
+        return repoHandler.getGroupIdsCount(filters);
+    }
+
+    @Override
+    public List<String> getArtifactVersions(final DbArtifact artifact) {
+        return repoHandler.getArtifactVersions(artifact);
+    }
+
+    @Override
+    public DbLatestVersions getLatestVersions(final DbArtifact artifact) {
+        return repoHandler.getLatestVersions(artifact);
+    }
+
+    @Override
+    public void rebuildLatestVersions() {
+        repoHandler.rebuildLatestVersions();
+    }
+
+    @Override
+    public DbArtifact getArtifact(final String gavc) {
+        return get(artifacts, gavc, new Callable<DbArtifact>() {
+            @Override
+            public DbArtifact call() {
+                return repoHandler.getArtifact(gavc);
+            }
+        });
+    }
+
+    @Override
+    public List<DbArtifact> getArtifactsByGavc(final Collection<String> gavcs) {
+        final List<DbArtifact> result = new ArrayList<DbArtifact>();
+        final Map<String, Long> missing = new HashMap<String, Long>();
+
+        for(String gavc: gavcs){
+            final Optional<DbArtifact> cached = artifacts.cache.getIfPresent(gavc);
+            if(cached == null){
+                missing.put(gavc, artifacts.generation(gavc));
+            }
+            else if(cached.isPresent()){
+                result.add(copy(cached.get()));
+            }
+        }
+
+        if(!missing.isEmpty()){
+            for(DbArtifact artifact: repoHandler.getArtifactsByGavc(missing.keySet())){
+                final Long generation = missing.get(artifact.getGavc());
+                if(generation != null){
+                    artifacts.put(artifact.getGavc(), generation, Optional.of(copy(artifact)));
+                }
+                result.add(artifact);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void deleteArtifact(final String gavc) {
+        repoHandler.deleteArtifact(gavc);
+        artifacts.invalidate(gavc);
+    }
+
+    @Override
+    public void updateDoNotUse(final DbArtifact artifact, final Boolean doNotUse) {
+        repoHandler.updateDoNotUse(artifact, doNotUse);
+        artifacts.invalidate(artifact.getGavc());
+    }
+
+    @Override
+    public void updateDownloadUrl(final DbArtifact artifact, final String downLoadUrl) {
+        repoHandler.updateDownloadUrl(artifact, downLoadUrl);
+        artifacts.invalidate(artifact.getGavc());
+    }
+
+    @Override
+    public void updateProvider(final DbArtifact artifact, final String provider) {
+        repoHandler.updateProvider(artifact, provider);
+        artifacts.invalidate(artifact.getGavc());
+    }
+
+    @Override
+    public List<DbModule> getAncestors(final DbArtifact artifact, final FiltersHolder filters) {
+        return repoHandler.getAncestors(artifact, filters);
+    }
+
+    @Override
+    public List<DbModule> getAncestors(final Collection<String> gavcs, final FiltersHolder filters) {
+        return repoHandler.getAncestors(gavcs, filters);
+    }
+
+    @Override
+    public void store(final DbModule dbModule) {
+        repoHandler.store(dbModule);
+
+        // the artifacts of the module may have been produced by no module or by another one before
+        rootModules.invalidateAll(DataUtils.getAllArtifacts(dbModule));
+        invalidateModule(dbModule.getId());
+    }
+
+    @Override
+    public List<String> getModuleNames(final FiltersHolder filters) {
+        return repoHandler.getModuleNames(filters);
+    }
+
+    @Override
+    public long getModuleNamesCount(final FiltersHolder filters) {
+        return repoHandler.getModuleNamesCount(filters);
+    }
+
+    @Override
+    public List<String> getModuleVersions(final String name, final FiltersHolder filters) {
+        return repoHandler.getModuleVersions(name, filters);
+    }
+
+    @Override
+    public DbModule getModule(final String moduleId) {
+        return get(modules, moduleId, new Callable<DbModule>() {
+            @Override
+            public DbModule call() {
+                return repoHandler.getModule(moduleId);
+            }
+        });
+    }
+
+    @Override
+    public List<DbModule> getModulesById(final Collection<String> moduleIds) {
+        final List<DbModule> result = new ArrayList<DbModule>();
+        final Map<String, Long> missing = new HashMap<String, Long>();
+
+        for(String moduleId: moduleIds){
+            final Optional<DbModule> cached = modules.cache.getIfPresent(moduleId);
+            if(cached == null){
+                missing.put(moduleId, modules.generation(moduleId));
+            }
+            else if(cached.isPresent()){
+                result.add(copy(cached.get()));
+            }
+        }
+
+        if(!missing.isEmpty()){
+            for(DbModule module: repoHandler.getModulesById(missing.keySet())){
+                final Long generation = missing.get(module.getId());
+                if(generation != null){
+                    modules.put(module.getId(), generation, Optional.of(copy(module)));
+                }
+                result.add(module);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<DbModule> getModules(final FiltersHolder filters) {
+        return repoHandler.getModules(filters);
+    }
+
+    @Override
+    public DbCursor<DbModule> getModulesCursor(final FiltersHolder filters) {
+        return repoHandler.getModulesCursor(filters);
+    }
+
+    @Override
+    public long getModulesCount(final FiltersHolder filters) {
+        return repoHandler.getModulesCount(filters);
+    }
+
+    @Override
+    public void deleteModule(final String moduleId) {
+        repoHandler.deleteModule(moduleId);
+        invalidateModule(moduleId);
+    }
+
+    @Override
+    public void promoteModule(final DbModule module) {
+        repoHandler.promoteModule(module);
+        invalidateModule(module.getId());
+    }
+
+    @Override
+    public DbModuleClosure getModuleClosure(final String moduleId) {
+        return repoHandler.getModuleClosure(moduleId);
+    }
+
+    @Override
+    public void rebuildModuleClosures() {
+        repoHandler.rebuildModuleClosures();
+    }
+
+    @Override
+    public DbModule getRootModuleOf(final String gavc) {
+        return get(rootModules, gavc, new Callable<DbModule>() {
+            @Override
+            public DbModule call() {
+                final DbModule rootModule = repoHandler.getRootModuleOf(gavc);
+                if(rootModule != null){
+                    // indexed before the entry is cached so that an invalidation of the module does not miss it
+                    rootModuleGavcs.put(rootModule.getId(), gavc);
+                }
+                return rootModule;
+            }
+        });
+    }
+
+    @Override
+    public List<DbModule> getRootModulesOf(final Collection<String> gavcs) {
+        return repoHandler.getRootModulesOf(gavcs);
+    }
+
+    @Override
+    public DbModule getModuleOf(final String gavc) {
+        return repoHandler.getModuleOf(gavc);
+    }
+
+    @Override
+    public DependencyGraphIndex getGraphIndex() {
+        return repoHandler.getGraphIndex();
+    }
+
+    @Override
+    public OrganizationMatcher getOrganizationMatcher() {
+        return repoHandler.getOrganizationMatcher();
+    }
+
+    @Override
+    public LicenseResolver getLicenseResolver() {
+        return repoHandler.getLicenseResolver();
+    }
+
+    @Override
+    public PromotionStatusCache getPromotionStatusCache() {
+        return repoHandler.getPromotionStatusCache();
+    }
+
+    @Override
+    public void clearCaches() {
+        modules.invalidateAll();
+        artifacts.invalidateAll();
+        licenses.invalidateAll();
+        organizations.invalidateAll();
+        rootModules.invalidateAll();
+        repoHandler.clearCaches();
+    }
+
+    @Override
+    public List<String> getOrganizationNames() {
+        return repoHandler.getOrganizationNames();
+    }
+
+    @Override
+    public DbOrganization getOrganization(final String name) {
+        return get(organizations, name, new Callable<DbOrganization>() {
+            @Override
+            public DbOrganization call() {
+                return repoHandler.getOrganization(name);
+            }
+        });
+    }
+
+    @Override
+    public void deleteOrganization(final String organizationId) {
+        repoHandler.deleteOrganization(organizationId);
+        organizations.invalidate(organizationId);
+    }
+
+    @Override
+    public void store(final DbOrganization organization) {
+        repoHandler.store(organization);
+        organizations.invalidate(organization.getName());
+    }
+
+    @Override
+    public void addModulesOrganization(final String corporateGroupId, final DbOrganization dbOrganization) {
+        repoHandler.addModulesOrganization(corporateGroupId, dbOrganization);
+        invalidateCorporateModules(corporateGroupId);
+    }
+
+    @Override
+    public void removeModulesOrganization(final String corporateGroupId, final DbOrganization dbOrganization) {
+        repoHandler.removeModulesOrganization(corporateGroupId, dbOrganization);
+        invalidateCorporateModules(corporateGroupId);
+    }
+
+    @Override
+    public void removeModulesOrganization(final DbOrganization dbOrganization) {
+        repoHandler.removeModulesOrganization(dbOrganization);
+        invalidateOrganizationModules(dbOrganization.getName());
+    }
+
+    @Override
+    public List<DbOrganization> getAllOrganizations() {
+        return repoHandler.getAllOrganizations();
+    }
+
+    @Override
+    public void store(final DbProduct dbProduct) {
+        repoHandler.store(dbProduct);
+    }
+
+    @Override
+    public DbProduct getProduct(final String name) {
+        return repoHandler.getProduct(name);
+    }
+
+    @Override
+    public List<String> getProductNames() {
+        return repoHandler.getProductNames();
+    }
+
+    @Override
+    public void deleteProduct(final String name) {
+        repoHandler.deleteProduct(name);
+    }
+
+    /**
+     * Invalidates a module and the root module entries that point to it
+     *
+     * @param moduleId String
+     */
+    private void invalidateModule(final String moduleId) {
+        modules.invalidate(moduleId);
+
+        final List<String> gavcs;
+        synchronized (rootModuleGavcs) {
+            // copied: the removal listener updates the index while the entries are invalidated
+            gavcs = new ArrayList<String>(rootModuleGavcs.get(moduleId));
+        }
+        rootModules.invalidateAll(gavcs);
+    }
+
+    /**
+     * Invalidates the cached modules that produce artifacts starting with the corporate groupId
+     *
+     * @param corporateGroupId String
+     */
+    private void invalidateCorporateModules(final String corporateGroupId) {
+        final Predicate<DbModule> isCorporate = new Predicate<DbModule>() {
+            @Override
+            public boolean apply(final DbModule module) {
+                return hasCorporateArtifact(module, corporateGroupId);
+            }
+        };
+        invalidateModules(modules, isCorporate);
+        invalidateModules(rootModules, isCorporate);
+    }
+
+    private static void invalidateModules(final GuardedCache<DbModule> cache, final Predicate<DbModule> predicate) {
+        // the modules being read are not known yet: none of them is cached
+        cache.invalidateGenerations();
+
+        for(Map.Entry<String, Optional<DbModule>> entry: cache.cache.asMap().entrySet()){
+            if(entry.getValue().isPresent() && predicate.apply(entry.getValue().get())){
+                cache.invalidate(entry.getKey());
+            }
+        }
+    }
+
+    private static boolean hasCorporateArtifact(final DbModule module, final String corporateGroupId) {
+        for(String gavc: DataUtils.getAllArtifacts(module)){
+            if(gavc.startsWith(corporateGroupId)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invalidates the cached modules of an organization
+     *
+     * @param organization String the organization name
+     */
+    private void invalidateOrganizationModules(final String organization) {
+        final Predicate<DbModule> isInOrganization = new Predicate<DbModule>() {
+            @Override
+            public boolean apply(final DbModule module) {
+                return organization.equals(module.getOrganization());
+            }
+        };
+        invalidateModules(modules, isInOrganization);
+        invalidateModules(rootModules, isInOrganization);
+    }
+
+    /**
+     * Cache whose entries are only stored if their key has not been invalidated since they were read
+     */
+    private static final class GuardedCache<T> {
+
+        private final Cache<String, Optional<T>> cache;
+        private final AtomicLongArray generations = new AtomicLongArray(GENERATIONS);
+
+        private GuardedCache(final Cache<String, Optional<T>> cache) {
+            this.cache = cache;
+        }
+
+        /**
+         * Returns the generation of a key, to read before its value is read from the database
+         */
+        private long generation(final String key) {
+            return generations.get(index(key));
+        }
+
+        /**
+         * Caches a value read when the key was at the given generation, unless the key has been invalidated since
+         */
+        private void put(final String key, final long generation, final Optional<T> value) {
+            if(generation(key) != generation){
+                return;
+            }
+            cache.put(key, value);
+
+            // the key may have been invalidated between the check and the put
+            if(generation(key) != generation){
+                cache.invalidate(key);
+            }
+        }
+
+        private void invalidate(final String key) {
+            generations.incrementAndGet(index(key));
+            cache.invalidate(key);
+        }
+
+        private void invalidateAll(final Iterable<String> keys) {
+            for(String key: keys){
+                invalidate(key);
+            }
+        }
+
+        private void invalidateAll() {
+            invalidateGenerations();
+            cache.invalidateAll();
+        }
+
+        /**
+         * Prevents the values being read from being cached, without removing the cached ones
+         */
+        private void invalidateGenerations() {
+            for(int i = 0; i < GENERATIONS; i++){
+                generations.incrementAndGet(i);
+            }
+        }
+
+        private static int index(final String key) {
+            return (key.hashCode() & Integer.MAX_VALUE) % GENERATIONS;
+        }
+    }
+}
@@ -19,6 +19,13 @@ import java.util.*;
  */
 public final class DataUtils {
 
+    private static final Comparator<Artifact> ARTIFACT_ORDER = new Comparator<Artifact>() {
+        @Override
+        public int compare(final Artifact artifact1, final Artifact artifact2) {
+            return artifact1.toString().compareTo(artifact2.toString());
+        }
+    };
+
     private DataUtils(){
         // Hide utility class constructor
     }
@@ -30,7 +37,7 @@ public final class DataUtils {
      * @return List<String>
      */
     public static List<String> getAllArtifacts(final DbModule module) {
-        final List<String> gavcs = module.getArtifacts();
+        final List<String> gavcs = new ArrayList<String>(module.getArtifacts());
 
         for(DbModule submodule: module.getSubmodules()){
             gavcs.addAll(getAllArtifacts(submodule));
@@ -217,23 +224,32 @@ public final class DataUtils {
     }
 
     /**
-     * Bubble sort
+     * Returns the module or the submodule of the root module that produces the gavc.
+     * If none of the submodules produces it, the root module is returned.
      *
-     * @param targets
+     * @param rootModule DbModule
+     * @param gavc String
+     * @return DbModule
      */
-    public static void sort(final List<Artifact> targets) {
-        int n = targets.size();
-        while(n != 0){
-            int newn = 0;
-
-            for(int i = 1 ; i <= n-1 ; i++){
-                if (targets.get(i-1).toString().compareTo(targets.get(i).toString()) > 0){
-                    Collections.swap(targets, i - 1, i);
-                    newn = i;
+    public static DbModule getModuleOf(final DbModule rootModule, final String gavc) {
+        // It may be a submodule...
+        if(!rootModule.getArtifacts().contains(gavc)){
+            for(DbModule submodule: getAllSubmodules(rootModule)){
+                if(submodule.getArtifacts().contains(gavc)){
+                    return submodule;
                 }
             }
-
-            n = newn;
         }
+
+        return rootModule;
+    }
+
+    /**
+     * Sorts artifacts regarding their string representation
+     *
+     * @param targets
+     */
+    public static void sort(final List<Artifact> targets) {
+        Collections.sort(targets, ARTIFACT_ORDER);
     }
 }
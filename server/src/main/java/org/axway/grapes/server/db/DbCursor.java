@@ -0,0 +1,67 @@
+package org.axway.grapes.server.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Db Cursor
+ *
+ * <p>Iterates over the entities read from the repository. The resources of the query, like the cursor opened on
+ * the database, are released when it is closed, so it has to be closed even if it has not been read until the
+ * end.</p>
+ */
+public class DbCursor<T> implements Iterator<T>, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DbCursor.class);
+
+    private final Iterator<T> elements;
+    private final Closeable resource;
+
+    public DbCursor(final Iterator<T> elements, final Closeable resource) {
+        this.elements = elements;
+        this.resource = resource;
+    }
+
+    /**
+     * Creates a cursor on entities that are already in memory
+     *
+     * @param elements Iterable<T>
+     * @return DbCursor<T>
+     */
+    public static <T> DbCursor<T> of(final Iterable<T> elements) {
+        return new DbCursor<T>(elements.iterator(), null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return elements.hasNext();
+    }
+
+    @Override
+    public T next() {
+        return elements.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("The entities can not be removed through a cursor.");
+    }
+
+    @Override
+    public void close() {
+        if(resource == null){
+            return;
+        }
+
+        try {
+            resource.close();
+        }
+        catch (IOException e) {
+            LOG.warn("Failed to close a cursor.", e);
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package org.axway.grapes.server.db;
+
+import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dependency Graph Index
+ *
+ * <p>In-memory index of the dependency graph: it maps each artifact gavc to the module (and the root module) that
+ * produces it, each module to its dependencies and each gavc to the modules that use it.</p>
+ *
+ * <p>Once loaded, the index answers the traversals without any database access and it has to be kept up-to-date
+ * at module storage/deletion. Until it is loaded, it acts as a read-through cache over the repository handler: the
+ * updates are applied in every state so that the entries read through are not left stale, for instance after a
+ * failed load.</p>
+ *
+ * <p>WARNING: The modules returned by the index only hold their name, version, organization, promotion flag and
+ * the flatten list of their dependencies (submodules included). They must not be stored back into the database.</p>
+ *
+ * <p>WARNING: The index shared by a repository handler only sees the writes of its server: it assumes that a single
+ * Grapes instance writes into the database. The modules written by another instance are only seen once the index
+ * has been cleared and loaded again.</p>
+ */
+public class DependencyGraphIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DependencyGraphIndex.class);
+
+    private final RepositoryHandler repoHandler;
+
+    // module or submodule id -> indexed module
+    private final Map<String, DbModule> modules = new ConcurrentHashMap<String, DbModule>();
+    // root module id -> ids of its submodules
+    private final Map<String, List<String>> submodules = new ConcurrentHashMap<String, List<String>>();
+    // gavc -> id of the root module that produces the artifact
+    private final Map<String, String> rootModules = new ConcurrentHashMap<String, String>();
+    // root module id -> gavcs of the artifacts it produces (submodules included)
+    private final Map<String, List<String>> artifacts = new ConcurrentHashMap<String, List<String>>();
+    // gavc -> id of the module or submodule that produces the artifact
+    private final Map<String, String> owners = new ConcurrentHashMap<String, String>();
+    // gavc -> ids of the root modules that use the artifact
+    private final Map<String, Set<String>> ancestors = new ConcurrentHashMap<String, Set<String>>();
+    // root module id -> gavcs of the artifacts it uses (submodules included)
+    private final Map<String, List<String>> uses = new ConcurrentHashMap<String, List<String>>();
+    // gavcs that are known to be produced by no module (read-through mode only)
+    private final Set<String> orphans = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private volatile boolean loaded = false;
+
+    // serializes the loads
+    private final Object loadLock = new Object();
+    private final AtomicBoolean loadingInBackground = new AtomicBoolean(false);
+    // incremented when the index is cleared, a load in progress is then abandoned
+    private long epoch = 0;
+    // ids of the modules updated while the index is loaded: the load must not index them again
+    private Set<String> updatedWhileLoading = null;
+    private Set<String> promotedWhileLoading = null;
+
+    public DependencyGraphIndex(final RepositoryHandler repoHandler) {
+        this.repoHandler = repoHandler;
+    }
+
+    /**
+     * Returns the index shared by the repository handler or, if the repository handler does not maintain any,
+     * a new read-through one that should only live the time of a request.
+     *
+     * @param repoHandler RepositoryHandler
+     * @return DependencyGraphIndex
+     */
+    public static DependencyGraphIndex of(final RepositoryHandler repoHandler) {
+        final DependencyGraphIndex index = repoHandler.getGraphIndex();
+
+        if(index == null){
+            return new DependencyGraphIndex(repoHandler);
+        }
+
+        return index;
+    }
+
+    /**
+     * Checks if the whole database has been indexed
+     *
+     * @return boolean
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Index all the modules of the database, it waits for a load in progress.
+     * After the load, the index does not access the database anymore.
+     */
+    public void load() {
+        synchronized (loadLock){
+            final long loadEpoch;
+            synchronized (this){
+                if(loaded){
+                    return;
+                }
+                loadEpoch = epoch;
+                updatedWhileLoading = new HashSet<String>();
+                promotedWhileLoading = new HashSet<String>();
+            }
+
+            try {
+                // the modules are added one by one so the writes are not blocked during the load
+                final DbCursor<DbModule> modules = repoHandler.getModulesCursor(new FiltersHolder());
+                try {
+                    while(modules.hasNext()){
+                        final DbModule module = modules.next();
+                        synchronized (this){
+                            if(epoch != loadEpoch){
+                                return;
+                            }
+                            if(!updatedWhileLoading.contains(module.getId())){
+                                add(module);
+                            }
+                        }
+                    }
+                }
+                finally {
+                    modules.close();
+                }
+
+                synchronized (this){
+                    if(epoch != loadEpoch){
+                        return;
+                    }
+                    for(String moduleId: promotedWhileLoading){
+                        promote(moduleId);
+                    }
+                    orphans.clear();
+                    loaded = true;
+                }
+            }
+            finally {
+                synchronized (this){
+                    updatedWhileLoading = null;
+                    promotedWhileLoading = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the load of the index in a background thread if it is not loaded or being loaded
+     */
+    public void loadInBackground() {
+        if(loaded || !loadingInBackground.compareAndSet(false, true)){
+            return;
+        }
+
+        final Thread load = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final long start = System.currentTimeMillis();
+                    load();
+                    LOG.info("Dependency graph index loaded in " + (System.currentTimeMillis() - start) + " ms.");
+                }
+                catch (Exception e) {
+                    LOG.error("Failed to load the dependency graph index.", e);
+                }
+                finally {
+                    loadingInBackground.set(false);
+                }
+            }
+        }, "dependency-graph-index-load");
+        load.setDaemon(true);
+        load.start();
+    }
+
+    /**
+     * Drop the whole index, it will have to be loaded again. A load in progress is abandoned.
+     */
+    public synchronized void clear() {
+        epoch++;
+        loaded = false;
+        modules.clear();
+        submodules.clear();
+        artifacts.clear();
+        uses.clear();
+        rootModules.clear();
+        owners.clear();
+        ancestors.clear();
+        orphans.clear();
+    }
+
+    /**
+     * Add or update a module into the index
+     *
+     * @param module DbModule the root module
+     */
+    public synchronized void add(final DbModule module) {
+        unindex(module.getId());
+
+        final List<String> submoduleIds = new ArrayList<String>();
+        for(DbModule submodule: DataUtils.getAllSubmodules(module)){
+            submoduleIds.add(submodule.getId());
+            indexModule(submodule, module.getId());
+        }
+        submodules.put(module.getId(), submoduleIds);
+        artifacts.put(module.getId(), new ArrayList<String>(module.getHas()));
+        uses.put(module.getId(), new ArrayList<String>(module.getUses()));
+        indexModule(module, module.getId());
+
+        for(String gavc: module.getHas()){
+            rootModules.put(gavc, module.getId());
+            orphans.remove(gavc);
+        }
+
+        for(String gavc: module.getUses()){
+            addAncestor(gavc, module.getId());
+        }
+    }
+
+    /**
+     * Add or update a stored module into the index.
+     * A load in progress, that may have read the previous version of the module, does not index it again.
+     *
+     * @param module DbModule the root module
+     */
+    public synchronized void update(final DbModule module) {
+        if(updatedWhileLoading != null){
+            updatedWhileLoading.add(module.getId());
+        }
+        add(module);
+    }
+
+    /**
+     * Remove a module and its submodules from the index.
+     * A load in progress, that may have read the module, does not index it again.
+     *
+     * @param moduleId String the id of the root module
+     */
+    public synchronized void remove(final String moduleId) {
+        if(updatedWhileLoading != null){
+            updatedWhileLoading.add(moduleId);
+        }
+        unindex(moduleId);
+    }
+
+    /**
+     * Update the promotion flag of an indexed module
+     *
+     * @param moduleId String
+     */
+    public synchronized void promote(final String moduleId) {
+        if(promotedWhileLoading != null){
+            promotedWhileLoading.add(moduleId);
+        }
+
+        final DbModule indexed = modules.get(moduleId);
+        if(indexed != null){
+            indexed.setPromoted(true);
+        }
+    }
+
+    /**
+     * Returns the indexed module regarding its id or null if it does not exist
+     *
+     * @param moduleId String
+     * @return DbModule
+     */
+    public DbModule getModule(final String moduleId) {
+        final DbModule indexed = modules.get(moduleId);
+
+        if(indexed != null || loaded){
+            return indexed;
+        }
+
+        final DbModule module = repoHandler.getModule(moduleId);
+        if(module == null){
+            return null;
+        }
+
+        add(module);
+        return modules.get(moduleId);
+    }
+
+    /**
+     * Returns the indexed modules regarding their ids, the modules that are not indexed yet are read at once
+     *
+     * @param moduleIds Collection<String>
+     * @return Map<String, DbModule> module id -> indexed module, the modules that do not exist are missing
+     */
+    public Map<String, DbModule> getModules(final Collection<String> moduleIds) {
+        final Map<String, DbModule> indexed = new HashMap<String, DbModule>();
+        final List<String> missing = new ArrayList<String>();
+
+        for(String moduleId: moduleIds){
+            final DbModule module = modules.get(moduleId);
+            if(module != null){
+                indexed.put(moduleId, module);
+            }
+            else if(!loaded){
+                missing.add(moduleId);
+            }
+        }
+
+        if(!missing.isEmpty()){
+            for(DbModule module: repoHandler.getModulesById(missing)){
+                add(module);
+                indexed.put(module.getId(), modules.get(module.getId()));
+            }
+        }
+
+        return indexed;
+    }
+
+    /**
+     * Returns the root module that produces the gavc or null if there is none
+     *
+     * @param gavc String
+     * @return DbModule
+     */
+    public DbModule getRootModuleOf(final String gavc) {
+        final String moduleId = rootModules.get(gavc);
+
+        if(moduleId != null){
+            return modules.get(moduleId);
+        }
+        if(loaded || orphans.contains(gavc)){
+            return null;
+        }
+
+        final DbModule module = repoHandler.getRootModuleOf(gavc);
+        if(module == null){
+            orphans.add(gavc);
+            return null;
+        }
+
+        add(module);
+        rootModules.put(gavc, module.getId());
+        return modules.get(module.getId());
+    }
+
+    /**
+     * Returns the module or the submodule that produces the gavc or null if there is none
+     *
+     * @param gavc String
+     * @return DbModule
+     */
+    public DbModule getModuleOf(final String gavc) {
+        final String moduleId = owners.get(gavc);
+
+        if(moduleId != null){
+            return modules.get(moduleId);
+        }
+        if(loaded){
+            return null;
+        }
+
+        // the whole root module is indexed so that its submodules are unindexed with it
+        if(getRootModuleOf(gavc) == null){
+            return null;
+        }
+
+        final String ownerId = owners.get(gavc);
+        return ownerId == null ? null : modules.get(ownerId);
+    }
+
+    /**
+     * Returns the ids of the root modules that use the gavc
+     *
+     * @param gavc String
+     * @return Set<String>
+     */
+    public Set<String> getAncestorIds(final String gavc) {
+        if(!loaded){
+            final Set<String> ancestorIds = new HashSet<String>();
+            for(DbModule ancestor: repoHandler.getAncestors(DataUtils.createDbArtifact(gavc), new FiltersHolder())){
+                ancestorIds.add(ancestor.getId());
+            }
+            return ancestorIds;
+        }
+
+        final Set<String> ancestorIds = ancestors.get(gavc);
+        if(ancestorIds == null){
+            return Collections.emptySet();
+        }
+
+        return Collections.unmodifiableSet(ancestorIds);
+    }
+
+    /**
+     * Returns the gavcs of the artifacts produced by a root module and its submodules
+     *
+     * @param moduleId String the id of the root module
+     * @return List<String>
+     */
+    public List<String> getArtifactIds(final String moduleId) {
+        List<String> gavcs = artifacts.get(moduleId);
+
+        if(gavcs == null && !loaded && getModule(moduleId) != null){
+            gavcs = artifacts.get(moduleId);
+        }
+        if(gavcs == null){
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(gavcs);
+    }
+
+    /**
+     * Returns the ids of the indexed root modules, all the root modules of the database once the index is loaded
+     *
+     * @return List<String>
+     */
+    public List<String> getRootModuleIds() {
+        return new ArrayList<String>(submodules.keySet());
+    }
+
+    /**
+     * Index a module or a submodule
+     *
+     * @param module DbModule
+     * @param rootId String the id of the root module
+     */
+    private void indexModule(final DbModule module, final String rootId) {
+        final DbModule indexed = new DbModule();
+        indexed.setName(module.getName());
+        indexed.setVersion(module.getVersion());
+        indexed.setPromoted(module.isPromoted());
+        indexed.setSubmodule(module.isSubmodule());
+        indexed.setOrganization(module.getOrganization());
+        indexed.setDependencies(DataUtils.getAllDbDependencies(module));
+
+        modules.put(indexed.getId(), indexed);
+
+        for(String gavc: module.getArtifacts()){
+            owners.put(gavc, indexed.getId());
+            rootModules.put(gavc, rootId);
+        }
+    }
+
+    /**
+     * Remove a root module, its submodules and their artifacts from the index. Only the entries of its own artifacts
+     * and of the artifacts it uses are updated.
+     *
+     * @param moduleId String the id of the root module
+     */
+    private void unindex(final String moduleId) {
+        final DbModule indexed = modules.remove(moduleId);
+        final List<String> submoduleIds = submodules.remove(moduleId);
+        final List<String> gavcs = artifacts.remove(moduleId);
+        final List<String> usedGavcs = uses.remove(moduleId);
+
+        if(submoduleIds != null){
+            for(String submoduleId: submoduleIds){
+                modules.remove(submoduleId);
+            }
+        }
+
+        if(indexed == null){
+            return;
+        }
+
+        if(gavcs != null){
+            for(String gavc: gavcs){
+                if(moduleId.equals(rootModules.get(gavc))){
+                    rootModules.remove(gavc);
+                }
+                final String owner = owners.get(gavc);
+                if(moduleId.equals(owner) || submoduleIds != null && submoduleIds.contains(owner)){
+                    owners.remove(gavc);
+                }
+            }
+        }
+
+        if(usedGavcs != null){
+            for(String gavc: usedGavcs){
+                final Set<String> moduleIds = ancestors.get(gavc);
+                if(moduleIds != null){
+                    moduleIds.remove(moduleId);
+                    if(moduleIds.isEmpty()){
+                        ancestors.remove(gavc);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addAncestor(final String gavc, final String moduleId) {
+        Set<String> moduleIds = ancestors.get(gavc);
+
+        if(moduleIds == null){
+            moduleIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            ancestors.put(gavc, moduleIds);
+        }
+
+        moduleIds.add(moduleId);
+    }
+}
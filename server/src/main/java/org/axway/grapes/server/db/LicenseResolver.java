@@ -0,0 +1,128 @@
+package org.axway.grapes.server.db;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.util.RatioGauge;
+import org.axway.grapes.server.db.datamodel.DbLicense;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * License Resolver
+ *
+ * <p>Resolves the license ids sent by the clients against the licenses of the database. The regexp of each license
+ * (or its name if it has no regexp) is compiled once and the result of the resolution of each license id is kept.</p>
+ *
+ * <p>The resolver is immutable regarding the licenses: the repository handlers share one until a license is stored,
+ * approved or deleted, then create a new one.</p>
+ */
+public final class LicenseResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LicenseResolver.class);
+
+    // maximum number of license ids whose resolution is kept
+    private static final int MAX_RESOLUTIONS = 10000;
+
+    private static final Counter HITS = Metrics.newCounter(LicenseResolver.class, "resolution-hits");
+    private static final Counter MISSES = Metrics.newCounter(LicenseResolver.class, "resolution-misses");
+
+    static {
+        Metrics.newGauge(LicenseResolver.class, "resolution-hit-ratio", new RatioGauge() {
+            @Override
+            protected double getNumerator() {
+                return HITS.count();
+            }
+
+            @Override
+            protected double getDenominator() {
+                return HITS.count() + MISSES.count();
+            }
+        });
+    }
+
+    private final List<DbLicense> licenses;
+    private final Map<Pattern, DbLicense> patterns = new LinkedHashMap<Pattern, DbLicense>();
+    private final Cache<String, Optional<DbLicense>> resolutions = CacheBuilder.newBuilder()
+            .maximumSize(MAX_RESOLUTIONS)
+            .build();
+
+    public LicenseResolver(final List<DbLicense> licenses) {
+        this.licenses = Collections.unmodifiableList(new ArrayList<DbLicense>(licenses));
+
+        for(DbLicense license: licenses){
+            final String regexp = license.getRegexp() == null || license.getRegexp().isEmpty() ?
+                    license.getName() : license.getRegexp();
+            try{
+                patterns.put(Pattern.compile(regexp), license);
+            }
+            catch (PatternSyntaxException e){
+                LOG.error("Wrong pattern for the following license " + license.getName());
+            }
+        }
+    }
+
+    /**
+     * Returns the resolver shared by the repository handler or, if the repository handler does not maintain any,
+     * a new one created from all the licenses of the database.
+     *
+     * @param repoHandler RepositoryHandler
+     * @return LicenseResolver
+     */
+    public static LicenseResolver of(final RepositoryHandler repoHandler) {
+        final LicenseResolver resolver = repoHandler.getLicenseResolver();
+
+        if(resolver == null){
+            return new LicenseResolver(repoHandler.getAllLicenses());
+        }
+
+        return resolver;
+    }
+
+    /**
+     * Resolve the targeted license thanks to the license ID
+     * Return null if no license is matching the licenseId
+     *
+     * @param licenseId String
+     * @return DbLicense
+     */
+    public DbLicense resolve(final String licenseId) {
+        Optional<DbLicense> resolution = resolutions.getIfPresent(licenseId);
+
+        if(resolution != null){
+            HITS.inc();
+            return resolution.orNull();
+        }
+
+        MISSES.inc();
+        resolution = Optional.absent();
+        for(Map.Entry<Pattern, DbLicense> pattern: patterns.entrySet()){
+            if(pattern.getKey().matcher(licenseId).matches()){
+                resolution = Optional.of(pattern.getValue());
+                break;
+            }
+        }
+
+        if(!resolution.isPresent()){
+            LOG.warn("No matching pattern for license " + licenseId);
+        }
+
+        resolutions.put(licenseId, resolution);
+        return resolution.orNull();
+    }
+
+    /**
+     * Returns all the licenses of the database
+     *
+     * @return List<DbLicense>
+     */
+    public List<DbLicense> getLicenses() {
+        return licenses;
+    }
+}
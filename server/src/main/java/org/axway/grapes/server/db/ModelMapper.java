@@ -1,8 +1,12 @@
 package org.axway.grapes.server.db;
 
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
 import org.axway.grapes.commons.datamodel.*;
 import org.axway.grapes.server.db.datamodel.*;
 
+import java.util.*;
+
 /**
  * Model Mapper
  *
@@ -12,6 +16,11 @@ import org.axway.grapes.server.db.datamodel.*;
  */
 public class ModelMapper {
 
+    // maximum number of gavcs per artifact request while mapping modules
+    private static final int HYDRATION_BATCH_SIZE = 1000;
+    // number of modules mapped at once while streaming modules
+    private static final int STREAMING_BATCH_SIZE = 100;
+
     private final RepositoryHandler repositoryHandler;
 
     public ModelMapper(final RepositoryHandler repoHandler) {
@@ -180,26 +189,86 @@ public class ModelMapper {
     }
 
     /**
-     * Transform a module from database model to client/server model
+     * Transform a module from database model to client/server model.
+     * All the artifacts referenced by the module tree are retrieved at once.
      *
      * @param dbModule DbModule
      * @return Module
      */
     public Module getModule(final DbModule dbModule) {
+        return getModules(Collections.singletonList(dbModule)).get(0);
+    }
+
+    /**
+     * Transform a list of modules from database model to client/server model.
+     * All the artifacts referenced by the modules are retrieved with batched requests.
+     *
+     * @param dbModules List<DbModule>
+     * @return List<Module>
+     */
+    public List<Module> getModules(final List<DbModule> dbModules) {
+        final Set<String> gavcs = new HashSet<String>();
+        for(DbModule dbModule: dbModules){
+            collectGavcs(dbModule, gavcs);
+        }
+
+        final Map<String, DbArtifact> artifacts = getArtifacts(gavcs);
+
+        final List<Module> modules = new ArrayList<Module>(dbModules.size());
+        for(DbModule dbModule: dbModules){
+            modules.add(getModule(dbModule, artifacts));
+        }
+
+        return modules;
+    }
+
+    /**
+     * Transform lazily the modules from database model to client/server model.
+     * The modules are mapped by batches of STREAMING_BATCH_SIZE while iterating.
+     *
+     * @param dbModules Iterator<DbModule>
+     * @return Iterator<Module>
+     */
+    public Iterator<Module> getModules(final Iterator<DbModule> dbModules) {
+        return Iterators.concat(Iterators.transform(Iterators.partition(dbModules, STREAMING_BATCH_SIZE),
+                new Function<List<DbModule>, Iterator<Module>>() {
+                    @Override
+                    public Iterator<Module> apply(final List<DbModule> batch) {
+                        return getModules(batch).iterator();
+                    }
+                }));
+    }
+
+    /**
+     * Transform lazily the artifacts from database model to client/server model
+     *
+     * @param dbArtifacts Iterator<DbArtifact>
+     * @return Iterator<Artifact>
+     */
+    public Iterator<Artifact> getArtifacts(final Iterator<DbArtifact> dbArtifacts) {
+        return Iterators.transform(dbArtifacts, new Function<DbArtifact, Artifact>() {
+            @Override
+            public Artifact apply(final DbArtifact dbArtifact) {
+                return getArtifact(dbArtifact);
+            }
+        });
+    }
+
+    private Module getModule(final DbModule dbModule, final Map<String, DbArtifact> artifacts) {
         final Module module =DataModelFactory.createModule(dbModule.getName(), dbModule.getVersion());
         module.setPromoted(dbModule.isPromoted());
         module.setSubmodule(dbModule.isSubmodule());
 
         //Artifacts
         for(String gavc: dbModule.getArtifacts()){
-            final DbArtifact dbArtifact = repositoryHandler.getArtifact(gavc);
+            final DbArtifact dbArtifact = getArtifact(gavc, artifacts);
             final Artifact artifact = getArtifact(dbArtifact);
             module.addArtifact(artifact);
         }
 
         //Dependencies
         for(DbDependency dbDependency: dbModule.getDependencies()){
-            final Dependency dependency = getDependency(dbDependency, module.getName(), module.getVersion());
+            final Dependency dependency = getDependency(dbDependency, getArtifact(dbDependency.getTarget(), artifacts));
             dependency.setSourceName(module.getName());
             dependency.setSourceVersion(module.getVersion());
             module.addDependency(dependency);
@@ -207,12 +276,77 @@ public class ModelMapper {
 
         //Submodules
         for(DbModule dbSubmodule: dbModule.getSubmodules()){
-            module.addSubmodule(getModule(dbSubmodule));
+            module.addSubmodule(getModule(dbSubmodule, artifacts));
         }
 
         return module;
     }
 
+    /**
+     * Collects the gavcs of the artifacts and of the dependency targets of a module and its submodules
+     *
+     * @param dbModule DbModule
+     * @param gavcs Set<String>
+     */
+    private void collectGavcs(final DbModule dbModule, final Set<String> gavcs) {
+        gavcs.addAll(dbModule.getArtifacts());
+
+        for(DbDependency dbDependency: dbModule.getDependencies()){
+            gavcs.add(dbDependency.getTarget());
+        }
+
+        for(DbModule dbSubmodule: dbModule.getSubmodules()){
+            collectGavcs(dbSubmodule, gavcs);
+        }
+    }
+
+    /**
+     * Retrieves the artifacts by batches of HYDRATION_BATCH_SIZE gavcs
+     *
+     * @param gavcs Set<String>
+     * @return Map<String, DbArtifact>
+     */
+    private Map<String, DbArtifact> getArtifacts(final Set<String> gavcs) {
+        final Map<String, DbArtifact> artifacts = new HashMap<String, DbArtifact>();
+        final List<String> batch = new ArrayList<String>(HYDRATION_BATCH_SIZE);
+
+        for(String gavc: gavcs){
+            batch.add(gavc);
+            if(batch.size() == HYDRATION_BATCH_SIZE){
+                addArtifacts(batch, artifacts);
+                batch.clear();
+            }
+        }
+        addArtifacts(batch, artifacts);
+
+        return artifacts;
+    }
+
+    private void addArtifacts(final List<String> gavcs, final Map<String, DbArtifact> artifacts) {
+        if(gavcs.isEmpty()){
+            return;
+        }
+
+        for(DbArtifact dbArtifact: repositoryHandler.getArtifactsByGavc(gavcs)){
+            artifacts.put(dbArtifact.getGavc(), dbArtifact);
+        }
+    }
+
+    /**
+     * Returns the artifact from the pre-fetched ones, falls back on a single request if it has not been pre-fetched
+     *
+     * @param gavc String
+     * @param artifacts Map<String, DbArtifact>
+     * @return DbArtifact
+     */
+    private DbArtifact getArtifact(final String gavc, final Map<String, DbArtifact> artifacts) {
+        if(!artifacts.containsKey(gavc)){
+            artifacts.put(gavc, repositoryHandler.getArtifact(gavc));
+        }
+
+        return artifacts.get(gavc);
+    }
+
 
     /**
      * Transform a dependency from database model to client/server model
@@ -222,6 +356,27 @@ public class ModelMapper {
      */
     public Dependency getDependency(final DbDependency dbDependency, final String sourceName, final String sourceVersion) {
         final DbArtifact dbArtifact = repositoryHandler.getArtifact(dbDependency.getTarget());
+        return getDependency(dbDependency, dbArtifact, sourceName, sourceVersion);
+    }
+
+    /**
+     * Transform a dependency from database model to client/server model, its target being already read
+     *
+     * @param dbDependency DbDependency
+     * @param dbArtifact DbArtifact the target of the dependency or null if it is not in the database
+     * @param sourceName String
+     * @param sourceVersion String
+     * @return Dependency
+     */
+    public Dependency getDependency(final DbDependency dbDependency, final DbArtifact dbArtifact, final String sourceName, final String sourceVersion) {
+        final Dependency dependency = getDependency(dbDependency, dbArtifact);
+        dependency.setSourceName(sourceName);
+        dependency.setSourceVersion(sourceVersion);
+
+        return dependency;
+    }
+
+    private Dependency getDependency(final DbDependency dbDependency, final DbArtifact dbArtifact) {
         final Artifact artifact;
 
         if(dbArtifact == null){
@@ -230,10 +385,6 @@ public class ModelMapper {
             artifact = getArtifact(dbArtifact);
         }
 
-        final Dependency dependency = DataModelFactory.createDependency(artifact, dbDependency.getScope());
-        dependency.setSourceName(sourceName);
-        dependency.setSourceVersion(sourceVersion);
-
-        return dependency;
+        return DataModelFactory.createDependency(artifact, dbDependency.getScope());
     }
 }
@@ -0,0 +1,177 @@
+package org.axway.grapes.server.db;
+
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbModuleClosure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Module Closure Updater
+ *
+ * <p>Maintains the module closures of a repository handler out of the request path: the closures affected by the
+ * storage or the deletion of a module are computed again by a single background thread, one update after the
+ * other, so a module storage does not wait for its ancestors to be updated.</p>
+ *
+ * <p>The closures are not served while an update is pending: the dependency requests walk the modules instead.
+ * The closures are only served once they have been rebuilt since the start of the server, the updates queued
+ * before a crash or the writes of another instance may have left them stale. If an update fails, the closures
+ * are not served anymore until they are rebuilt.</p>
+ */
+public class ModuleClosureUpdater {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ModuleClosureUpdater.class);
+
+    /**
+     * Storage of the closures
+     */
+    public interface ClosureStore {
+        /**
+         * Stores or replaces the closure of a module
+         *
+         * @param closure DbModuleClosure
+         */
+        void store(DbModuleClosure closure);
+
+        /**
+         * Stores new closures at once
+         *
+         * @param closures List<DbModuleClosure>
+         */
+        void insert(List<DbModuleClosure> closures);
+
+        /**
+         * Removes the closure of a module
+         *
+         * @param moduleId String
+         */
+        void remove(String moduleId);
+
+        /**
+         * Removes all the closures
+         */
+        void clear();
+    }
+
+    private final RepositoryHandler repoHandler;
+    private final ClosureStore closureStore;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicInteger pendingUpdates = new AtomicInteger(0);
+    // set once the closures have been rebuilt since the start of the server
+    private volatile boolean consistent = false;
+
+    public ModuleClosureUpdater(final RepositoryHandler repoHandler, final ClosureStore closureStore) {
+        this.repoHandler = repoHandler;
+        this.closureStore = closureStore;
+        this.executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("module-closures-%d").setDaemon(true).build());
+        // the thread is released when no module is updated
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Checks if the closures have been rebuilt since the start and reflect all the module updates, they should not
+     * be served otherwise
+     *
+     * @return boolean
+     */
+    public boolean isUpToDate() {
+        return consistent && pendingUpdates.get() == 0;
+    }
+
+    /**
+     * Queues the update of the closures affected by the storage or the deletion of a module.
+     * The graph index of the repository handler must already be up-to-date.
+     *
+     * @param previous DbModule the module before the update, null if it did not exist
+     * @param module DbModule the module after the update, null if it has been deleted
+     */
+    public void update(final DbModule previous, final DbModule module) {
+        pendingUpdates.incrementAndGet();
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        final Map<String, DbModuleClosure> closures = ModuleClosures.update(previous, module,
+                                DependencyGraphIndex.of(repoHandler));
+
+                        for(Map.Entry<String, DbModuleClosure> closure: closures.entrySet()){
+                            if(closure.getValue() == null){
+                                closureStore.remove(closure.getKey());
+                            }
+                            else{
+                                closureStore.store(closure.getValue());
+                            }
+                        }
+                    }
+                    catch (Exception e) {
+                        consistent = false;
+                        LOG.error("Failed to update the module closures, they will not be used until they are rebuilt.", e);
+                    }
+                    finally {
+                        pendingUpdates.decrementAndGet();
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            pendingUpdates.decrementAndGet();
+            consistent = false;
+            LOG.error("Failed to queue the update of the module closures, they will not be used until they are rebuilt.", e);
+        }
+    }
+
+    /**
+     * Computes again the closures of all the root modules once the pending updates are done.
+     * It waits for the end of the rebuild.
+     *
+     * @param batchSize int the number of closures stored at once
+     */
+    public void rebuild(final int batchSize) {
+        final Future<?> rebuild = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final DependencyGraphIndex index = DependencyGraphIndex.of(repoHandler);
+                // all the root modules have to be known
+                index.load();
+                closureStore.clear();
+
+                for(List<String> batch: Iterables.partition(index.getRootModuleIds(), batchSize)){
+                    final List<DbModuleClosure> closures = new ArrayList<DbModuleClosure>(batch.size());
+                    for(String moduleId: batch){
+                        final DbModuleClosure closure = ModuleClosures.compute(moduleId, index);
+                        if(closure != null){
+                            closures.add(closure);
+                        }
+                    }
+                    if(!closures.isEmpty()){
+                        closureStore.insert(closures);
+                    }
+                }
+
+                consistent = true;
+            }
+        });
+
+        try {
+            rebuild.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The rebuild of the module closures has been interrupted.", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to rebuild the module closures.", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.axway.grapes.server.db;
+
+import org.axway.grapes.server.db.datamodel.DbDependency;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbModuleClosure;
+
+import java.util.*;
+
+/**
+ * Module Closures
+ *
+ * <p>Computes the transitive dependency closures of the root modules from the dependency graph index. When a module
+ * is stored or deleted, only the closure of the module and the closures of the modules that reach it through the
+ * "uses" reverse edges are computed again.</p>
+ */
+public final class ModuleClosures {
+
+    private ModuleClosures(){
+        // Hide utility class constructor
+    }
+
+    /**
+     * Computes the closure of a root module, it returns null if the module does not exist
+     *
+     * @param moduleId String
+     * @param index DependencyGraphIndex
+     * @return DbModuleClosure
+     */
+    public static DbModuleClosure compute(final String moduleId, final DependencyGraphIndex index) {
+        final DbModule root = index.getModule(moduleId);
+        if(root == null){
+            return null;
+        }
+
+        final List<DbModule> modules = new ArrayList<DbModule>();
+        final Map<String, Integer> indexes = new HashMap<String, Integer>();
+        final DbModuleClosure closure = new DbModuleClosure();
+        closure.setModuleId(moduleId);
+
+        addModule(closure, root, modules, indexes);
+
+        // the modules are walked level by level, the reachable modules are added at the end of the list
+        for(int i = 0; i < modules.size(); i++){
+            final List<Integer> targets = closure.getTargets().get(i);
+
+            for(DbDependency dependency: DataUtils.getAllDbDependencies(modules.get(i))){
+                int targetIndex = -1;
+
+                final DbModule targetModule = dependency.getTarget() == null ? null : index.getRootModuleOf(dependency.getTarget());
+                if(targetModule != null){
+                    final Integer reachedIndex = indexes.get(targetModule.getId());
+                    targetIndex = reachedIndex == null ? addModule(closure, targetModule, modules, indexes) : reachedIndex;
+                }
+
+                targets.add(targetIndex);
+            }
+        }
+
+        return closure;
+    }
+
+    /**
+     * Computes the closures affected by the storage or the deletion of a module: the closure of the module and the
+     * closures of all the modules that use, directly or transitively, the artifacts it produced or produces.
+     * The index must already be up-to-date. The closures of the modules that do not exist anymore are null.
+     *
+     * @param previous DbModule the module before the update, null if it did not exist
+     * @param module DbModule the module after the update, null if it has been deleted
+     * @param index DependencyGraphIndex
+     * @return Map<String, DbModuleClosure> root module id -> closure
+     */
+    public static Map<String, DbModuleClosure> update(final DbModule previous, final DbModule module, final DependencyGraphIndex index) {
+        final Set<String> gavcs = new HashSet<String>();
+        if(previous != null){
+            gavcs.addAll(previous.getHas());
+        }
+        if(module != null){
+            gavcs.addAll(module.getHas());
+        }
+
+        final Set<String> moduleIds = new LinkedHashSet<String>();
+        moduleIds.add(module != null ? module.getId() : previous.getId());
+        moduleIds.addAll(getAncestorIds(gavcs, index));
+
+        final Map<String, DbModuleClosure> closures = new LinkedHashMap<String, DbModuleClosure>();
+        for(String moduleId: moduleIds){
+            closures.put(moduleId, compute(moduleId, index));
+        }
+
+        return closures;
+    }
+
+    /**
+     * Returns the ids of the root modules that use, directly or transitively, the artifacts
+     *
+     * @param gavcs Collection<String>
+     * @param index DependencyGraphIndex
+     * @return Set<String>
+     */
+    public static Set<String> getAncestorIds(final Collection<String> gavcs, final DependencyGraphIndex index) {
+        final Set<String> ancestorIds = new LinkedHashSet<String>();
+        final Set<String> treatedGavcs = new HashSet<String>(gavcs);
+        final Deque<String> toTreat = new ArrayDeque<String>(gavcs);
+
+        while(!toTreat.isEmpty()){
+            for(String ancestorId: index.getAncestorIds(toTreat.poll())){
+                if(ancestorIds.add(ancestorId)){
+                    for(String gavc: index.getArtifactIds(ancestorId)){
+                        if(treatedGavcs.add(gavc)){
+                            toTreat.add(gavc);
+                        }
+                    }
+                }
+            }
+        }
+
+        return ancestorIds;
+    }
+
+    /**
+     * Computes the stamp of the dependencies of a module (submodules included): it changes when a dependency is
+     * added, removed, retargeted or when its scope changes
+     *
+     * @param module DbModule
+     * @return int
+     */
+    public static int getStamp(final DbModule module) {
+        int stamp = 1;
+        for(DbDependency dependency: DataUtils.getAllDbDependencies(module)){
+            stamp = 31 * stamp + (dependency.getTarget() == null ? 0 : dependency.getTarget().hashCode());
+            stamp = 31 * stamp + (dependency.getScope() == null ? 0 : dependency.getScope().name().hashCode());
+        }
+        return stamp;
+    }
+
+    private static int addModule(final DbModuleClosure closure, final DbModule module, final List<DbModule> modules, final Map<String, Integer> indexes) {
+        final int moduleIndex = modules.size();
+        indexes.put(module.getId(), moduleIndex);
+        modules.add(module);
+        closure.getModules().add(module.getId());
+        closure.getTargets().add(new ArrayList<Integer>());
+        closure.getStamps().add(getStamp(module));
+
+        return moduleIndex;
+    }
+}
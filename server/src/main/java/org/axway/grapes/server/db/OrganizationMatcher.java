@@ -0,0 +1,117 @@
+package org.axway.grapes.server.db;
+
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbOrganization;
+
+import java.util.*;
+
+/**
+ * Organization Matcher
+ *
+ * <p>Compiles the corporate groupId prefixes of organizations into a single prefix trie: the organization of a gavc
+ * and its corporate/third-party classification are resolved walking the gavc once, whatever the number of
+ * organizations and prefixes.</p>
+ *
+ * <p>The matcher is immutable: the repository handlers share one until an organization is stored or deleted, then
+ * compile a new one.</p>
+ */
+public final class OrganizationMatcher {
+
+    private final Node root = new Node();
+    private final Map<String, DbOrganization> organizations = new LinkedHashMap<String, DbOrganization>();
+
+    public OrganizationMatcher(final Collection<DbOrganization> organizations) {
+        for(DbOrganization organization: organizations){
+            if(organization == null || organization.getName() == null){
+                continue;
+            }
+            this.organizations.put(organization.getName(), organization);
+
+            for(String prefix: organization.getCorporateGroupIdPrefixes()){
+                add(prefix, organization.getName());
+            }
+        }
+    }
+
+    /**
+     * Returns the matcher shared by the repository handler or, if the repository handler does not maintain any,
+     * a new one compiled from all the organizations of the database.
+     *
+     * @param repoHandler RepositoryHandler
+     * @return OrganizationMatcher
+     */
+    public static OrganizationMatcher of(final RepositoryHandler repoHandler) {
+        final OrganizationMatcher matcher = repoHandler.getOrganizationMatcher();
+
+        if(matcher == null){
+            return new OrganizationMatcher(repoHandler.getAllOrganizations());
+        }
+
+        return matcher;
+    }
+
+    private void add(final String prefix, final String organizationName) {
+        Node node = root;
+        for(int i = 0; i < prefix.length(); i++){
+            final Character character = prefix.charAt(i);
+            Node child = node.children.get(character);
+            if(child == null){
+                child = new Node();
+                node.children.put(character, child);
+            }
+            node = child;
+        }
+
+        if(!node.organizations.contains(organizationName)){
+            node.organizations.add(organizationName);
+        }
+    }
+
+    /**
+     * Returns the organization that owns the gavc or null if there is none.
+     * When several corporate groupId prefixes match, the longest one wins.
+     *
+     * @param gavc String
+     * @return DbOrganization
+     */
+    public DbOrganization getOrganization(final String gavc) {
+        String organizationName = null;
+
+        Node node = root;
+        for(int i = 0; node != null; i++){
+            if(!node.organizations.isEmpty()){
+                organizationName = node.organizations.get(0);
+            }
+            node = i < gavc.length() ? node.children.get(gavc.charAt(i)) : null;
+        }
+
+        return organizationName == null ? null : organizations.get(organizationName);
+    }
+
+    /**
+     * Returns the organization of a module, regarding its first artifact (or its id if it has no artifact),
+     * or null if there is none.
+     *
+     * @param module DbModule
+     * @return DbOrganization
+     */
+    public DbOrganization getOrganization(final DbModule module) {
+        return getOrganization(getKey(module));
+    }
+
+    private String getKey(final DbModule module) {
+        final List<String> artifacts = DataUtils.getAllArtifacts(module);
+
+        if(artifacts.isEmpty()){
+            return module.getId();
+        }
+
+        return artifacts.get(0);
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<Character, Node>();
+        // the names of the organizations that have a corporate groupId prefix ending at this node
+        private final List<String> organizations = new ArrayList<String>(1);
+    }
+}
@@ -0,0 +1,217 @@
+package org.axway.grapes.server.db;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Promotion Status Cache
+ *
+ * <p>Keeps the promotion feasibility of the modules together with the closure it has been computed from: the ids of
+ * the modules and the gavcs of the artifacts that have been read to compute it. A status is dropped as soon as one
+ * of the modules or artifacts of its closure is stored, promoted, flagged or deleted.</p>
+ *
+ * <p>A status is not kept if one of the modules or artifacts of its own closure has been invalidated during its
+ * computation, so a concurrent update can not be hidden by a status computed from the previous state of the
+ * database. The invalidations of the other modules and artifacts do not prevent it from being cached.</p>
+ */
+public class PromotionStatusCache {
+
+    private static final String MODULE_KEY = "module:";
+    private static final String ARTIFACT_KEY = "artifact:";
+
+    // module id -> promotion feasibility
+    private final Map<String, Boolean> statuses = new ConcurrentHashMap<String, Boolean>();
+    // module or artifact key -> ids of the modules whose status has been computed from it
+    private final Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+    // module id -> keys of the closure of its status
+    private final Map<String, Set<String>> closures = new HashMap<String, Set<String>>();
+
+    // incremented at each invalidation
+    private long clock = 0;
+    // value of the clock at the last clear
+    private long clearedAt = 0;
+    // module or artifact key -> value of the clock at its last invalidation, only kept while a computation that
+    // started before it is in progress
+    private final Map<String, Long> invalidations = new HashMap<String, Long>();
+    // value of the clock at the start of the computations in progress -> number of computations
+    private final TreeMap<Long, Integer> computations = new TreeMap<Long, Integer>();
+
+    /**
+     * Returns the cache shared by the repository handler or, if the repository handler does not maintain any,
+     * a new one that should only live the time of a request.
+     *
+     * @param repoHandler RepositoryHandler
+     * @return PromotionStatusCache
+     */
+    public static PromotionStatusCache of(final RepositoryHandler repoHandler) {
+        final PromotionStatusCache cache = repoHandler.getPromotionStatusCache();
+
+        if(cache == null){
+            return new PromotionStatusCache();
+        }
+
+        return cache;
+    }
+
+    /**
+     * Returns the promotion feasibility of a module or null if it is not in the cache
+     *
+     * @param moduleId String
+     * @return Boolean
+     */
+    public Boolean get(final String moduleId) {
+        return statuses.get(moduleId);
+    }
+
+    /**
+     * Starts the computation of a status that will be put in the cache, end(long) has to be called once it is over
+     *
+     * @return long the start of the computation, to provide to put and end
+     */
+    public synchronized long begin() {
+        final Integer count = computations.get(clock);
+        computations.put(clock, count == null ? 1 : count + 1);
+        return clock;
+    }
+
+    /**
+     * Ends the computation of a status, whether it has been put in the cache or not
+     *
+     * @param start long the value returned by begin()
+     */
+    public synchronized void end(final long start) {
+        final Integer count = computations.get(start);
+        if(count == null){
+            return;
+        }
+        if(count > 1){
+            computations.put(start, count - 1);
+        }
+        else{
+            computations.remove(start);
+        }
+
+        // the invalidations older than all the computations in progress are not needed anymore
+        if(computations.isEmpty()){
+            invalidations.clear();
+            return;
+        }
+        final long oldestStart = computations.firstKey();
+        final Iterator<Long> versions = invalidations.values().iterator();
+        while(versions.hasNext()){
+            if(versions.next() <= oldestStart){
+                versions.remove();
+            }
+        }
+    }
+
+    /**
+     * Caches the promotion feasibility of a module unless a module or an artifact of its closure has been
+     * invalidated since the start of its computation
+     *
+     * @param moduleId String
+     * @param canBePromoted boolean
+     * @param moduleIds Collection<String> ids of the modules read to compute the status
+     * @param gavcs Collection<String> gavcs of the artifacts read to compute the status
+     * @param start long the value returned by begin() before the computation
+     */
+    public synchronized void put(final String moduleId, final boolean canBePromoted, final Collection<String> moduleIds,
+                                 final Collection<String> gavcs, final long start) {
+        if(clearedAt > start){
+            return;
+        }
+
+        final Set<String> closure = new HashSet<String>();
+        closure.add(MODULE_KEY + moduleId);
+        for(String id: moduleIds){
+            closure.add(MODULE_KEY + id);
+        }
+        for(String gavc: gavcs){
+            closure.add(ARTIFACT_KEY + gavc);
+        }
+
+        for(String key: closure){
+            final Long invalidation = invalidations.get(key);
+            if(invalidation != null && invalidation > start){
+                return;
+            }
+        }
+        remove(moduleId);
+
+        for(String key: closure){
+            Set<String> keyDependents = dependents.get(key);
+            if(keyDependents == null){
+                keyDependents = new HashSet<String>();
+                dependents.put(key, keyDependents);
+            }
+            keyDependents.add(moduleId);
+        }
+        closures.put(moduleId, closure);
+        statuses.put(moduleId, canBePromoted);
+    }
+
+    /**
+     * Drops the statuses that have been computed from a module
+     *
+     * @param moduleId String
+     */
+    public void invalidateModule(final String moduleId) {
+        invalidate(MODULE_KEY + moduleId);
+    }
+
+    /**
+     * Drops the statuses that have been computed from an artifact
+     *
+     * @param gavc String
+     */
+    public void invalidateArtifact(final String gavc) {
+        invalidate(ARTIFACT_KEY + gavc);
+    }
+
+    /**
+     * Drops all the statuses
+     */
+    public synchronized void clear() {
+        clock++;
+        clearedAt = clock;
+        invalidations.clear();
+        statuses.clear();
+        dependents.clear();
+        closures.clear();
+    }
+
+    private synchronized void invalidate(final String key) {
+        clock++;
+        if(!computations.isEmpty()){
+            invalidations.put(key, clock);
+        }
+
+        final Set<String> keyDependents = dependents.get(key);
+        if(keyDependents == null){
+            return;
+        }
+
+        for(String moduleId: new ArrayList<String>(keyDependents)){
+            remove(moduleId);
+        }
+    }
+
+    private void remove(final String moduleId) {
+        statuses.remove(moduleId);
+
+        final Set<String> closure = closures.remove(moduleId);
+        if(closure == null){
+            return;
+        }
+
+        for(String key: closure){
+            final Set<String> keyDependents = dependents.get(key);
+            if(keyDependents != null){
+                keyDependents.remove(moduleId);
+                if(keyDependents.isEmpty()){
+                    dependents.remove(key);
+                }
+            }
+        }
+    }
+}
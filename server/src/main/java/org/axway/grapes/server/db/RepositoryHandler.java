@@ -4,6 +4,8 @@ import org.axway.grapes.server.core.options.FiltersHolder;
 import org.axway.grapes.server.db.datamodel.*;
 import org.axway.grapes.server.db.datamodel.DbCredential.AvailableRoles;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -11,6 +13,9 @@ import java.util.List;
  * 
  * <p>This interface has to be implemented by all the classes that handles the interaction between the application and the database.</p>
  * 
+ * <p>When the pagination of the filters is set, the list methods that take filters return the requested page of the
+ * elements sorted by id (gavcs, module ids or names), the count methods ignore the pagination.</p>
+ * 
  * @author jdcoffre
  */
 public interface RepositoryHandler {
@@ -61,6 +66,14 @@ public interface RepositoryHandler {
      */
     public List<String> getLicenseNames(final FiltersHolder filters);
 
+    /**
+     * Return the number of licenses regarding the provided filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getLicenseNamesCount(final FiltersHolder filters);
+
     /**
      * Retrieve the targeted license from the database
      *
@@ -91,6 +104,23 @@ public interface RepositoryHandler {
      */
     public List<DbArtifact> getArtifacts(final FiltersHolder filters);
 
+    /**
+     * Return a cursor over the artifacts that match the filters.
+     * The artifacts are read from the database while iterating, the cursor has to be closed once read.
+     *
+     * @param filters FiltersHolder
+     * @return DbCursor<DbArtifact>
+     */
+    public DbCursor<DbArtifact> getArtifactsCursor(final FiltersHolder filters);
+
+    /**
+     * Return the number of artifacts that match the filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getArtifactsCount(final FiltersHolder filters);
+
     /**
      * Add a license to an existing artifact
      *
@@ -122,6 +152,13 @@ public interface RepositoryHandler {
      */
     public void store(final DbArtifact dbArtifact);
 
+    /**
+     * Create the artifacts that do not exist yet in a single request, the existing ones are left unchanged
+     *
+     * @param dbArtifacts Collection<DbArtifact>
+     */
+    public void storeIfNew(final Collection<DbArtifact> dbArtifacts);
+
     /**
      * Return the list of all the artifacts gavcs that match the provided filters
      *
@@ -138,6 +175,14 @@ public interface RepositoryHandler {
      */
     public List<String> getGroupIds(final FiltersHolder filters);
 
+    /**
+     * Return the number of artifacts groupIds that match the provided filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getGroupIdsCount(final FiltersHolder filters);
+
     /**
      * Return the list of all the available versions of the targeted artifacts
      *
@@ -146,6 +191,21 @@ public interface RepositoryHandler {
      */
     public List<String> getArtifactVersions(final DbArtifact artifact);
 
+    /**
+     * Return the versions, the last release and the last version of the artifacts that share the groupId, the
+     * artifactId, the classifier and the extension of the targeted artifact.
+     * It returns null if they have not been materialized yet.
+     *
+     * @param artifact DbArtifact
+     * @return DbLatestVersions
+     */
+    public DbLatestVersions getLatestVersions(final DbArtifact artifact);
+
+    /**
+     * Materializes again the latest versions of all the artifacts of the database
+     */
+    public void rebuildLatestVersions();
+
     /**
      * Return the targeted artifact
      *
@@ -154,6 +214,15 @@ public interface RepositoryHandler {
      */
     public DbArtifact getArtifact(final String gavc);
 
+    /**
+     * Return the artifacts that match the gavcs in a single request.
+     * The gavcs that do not match any artifact are ignored.
+     *
+     * @param gavcs Collection<String>
+     * @return List<DbArtifact>
+     */
+    public List<DbArtifact> getArtifactsByGavc(final Collection<String> gavcs);
+
     /**
      * Delete the targeted artifact
      *
@@ -194,6 +263,15 @@ public interface RepositoryHandler {
      */
     public List<DbModule> getAncestors(final DbArtifact artifact, final FiltersHolder filters);
 
+    /**
+     * Retrieve in a single request the list of the modules that use at least one of the targeted artifacts
+     *
+     * @param gavcs Collection<String>
+     * @param filters FiltersHolder
+     * @return List<DbModule>
+     */
+    public List<DbModule> getAncestors(final Collection<String> gavcs, final FiltersHolder filters);
+
     /**
      * Create a new module or update an existing one into the database
      *
@@ -209,6 +287,14 @@ public interface RepositoryHandler {
      */
     public List<String> getModuleNames(final FiltersHolder filters);
 
+    /**
+     * Return the number of module names that match the provided filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getModuleNamesCount(final FiltersHolder filters);
+
     /**
      * Retrieve the list of all the available versions of a module
      *
@@ -226,6 +312,15 @@ public interface RepositoryHandler {
      */
     public DbModule getModule(final String moduleId);
 
+    /**
+     * Return the modules that match the ids in a single request.
+     * The ids that do not match any module are ignored.
+     *
+     * @param moduleIds Collection<String>
+     * @return List<DbModule>
+     */
+    public List<DbModule> getModulesById(final Collection<String> moduleIds);
+
 
     /**
      * Return  a list od module regarding the filters
@@ -235,6 +330,23 @@ public interface RepositoryHandler {
      */
     public List<DbModule> getModules(final FiltersHolder filters);
 
+    /**
+     * Return a cursor over the modules that match the filters.
+     * The modules are read from the database while iterating, the cursor has to be closed once read.
+     *
+     * @param filters FiltersHolder
+     * @return DbCursor<DbModule>
+     */
+    public DbCursor<DbModule> getModulesCursor(final FiltersHolder filters);
+
+    /**
+     * Return the number of modules that match the filters
+     *
+     * @param filters FiltersHolder
+     * @return long
+     */
+    public long getModulesCount(final FiltersHolder filters);
+
     /**
      * Delete the targeted module
      *
@@ -249,6 +361,20 @@ public interface RepositoryHandler {
      */
     public void promoteModule(final DbModule module);
 
+    /**
+     * Return the transitive dependency closure of a root module.
+     * It returns null if it has not been materialized yet or if the closures are being updated.
+     *
+     * @param moduleId String
+     * @return DbModuleClosure
+     */
+    public DbModuleClosure getModuleClosure(final String moduleId);
+
+    /**
+     * Materializes again the transitive dependency closures of all the root modules of the database
+     */
+    public void rebuildModuleClosures();
+
     /**
      * Return the module that contains the gavc.
      * It returns null if no module matches.
@@ -258,6 +384,15 @@ public interface RepositoryHandler {
      */
     public DbModule getRootModuleOf(final String gavc);
 
+    /**
+     * Return the modules that contain at least one of the gavcs in a single request.
+     * The gavcs that are not contained by any module are ignored.
+     *
+     * @param gavcs Collection<String>
+     * @return List<DbModule>
+     */
+    public List<DbModule> getRootModulesOf(final Collection<String> gavcs);
+
     /**
      * Return the module or the submodule that contains the gavc.
      * It returns null if no module matches.
@@ -267,6 +402,45 @@ public interface RepositoryHandler {
      */
     public DbModule getModuleOf(final String gavc);
 
+    /**
+     * Returns the in-memory index of the module dependency graph maintained by the repository handler.
+     * It returns null if the repository handler does not maintain any or if it is still being loaded.
+     *
+     * @return DependencyGraphIndex
+     */
+    public DependencyGraphIndex getGraphIndex();
+
+    /**
+     * Returns the matcher of the organization corporate groupId prefixes maintained by the repository handler.
+     * It returns null if the repository handler does not maintain any.
+     *
+     * @return OrganizationMatcher
+     */
+    public OrganizationMatcher getOrganizationMatcher();
+
+    /**
+     * Returns the license resolver maintained by the repository handler.
+     * It returns null if the repository handler does not maintain any.
+     *
+     * @return LicenseResolver
+     */
+    public LicenseResolver getLicenseResolver();
+
+    /**
+     * Returns the cache of the module promotion statuses maintained by the repository handler.
+     * It returns null if the repository handler does not maintain any.
+     *
+     * @return PromotionStatusCache
+     */
+    public PromotionStatusCache getPromotionStatusCache();
+
+    /**
+     * Drops all the data that the repository handler keeps in memory so it is read again from the database.
+     * It has to be called once the database has been modified without the repository handler, by a snapshot
+     * import for example.
+     */
+    public void clearCaches();
+
     /**
      * Returns all the organization names
      *
@@ -18,6 +18,8 @@ public interface DbCollections {
     public static final String DB_LICENSES = DbLicense.class.getSimpleName();
     public static final String DB_CREDENTIALS = DbCredential.class.getSimpleName();
     public static final String DB_GRAPES_INFO = DbGrapesInfo.class.getSimpleName();
+    public static final String DB_LATEST_VERSIONS = DbLatestVersions.class.getSimpleName();
+    public static final String DB_MODULE_CLOSURES = DbModuleClosure.class.getSimpleName();
 
     public static final String DEFAULT_ID = "_id";
 
@@ -0,0 +1,133 @@
+package org.axway.grapes.server.db.datamodel;
+
+import org.jongo.marshall.jackson.oid.Id;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Database Latest Versions
+ *
+ * <p>Class that holds the versions stored in the database for the artifacts that share a groupId, an artifactId,
+ * a classifier and an extension, with the last release and the last version among them. It is maintained at
+ * artifact storage/deletion so the last versions of an artifact are read without going through all its versions.</p>
+ *
+ * <p>The sort keys of the last release and of the last version let the database compare a stored version with
+ * them, so that a new last version is written with a single conditional update.</p>
+ */
+public class DbLatestVersions {
+
+    public static final String DATA_MODEL_VERSION = "datamodelVersion";
+    private String datamodelVersion = DbCollections.datamodelVersion;
+
+    @Id
+    private String coordinates;
+
+    public static final String VERSIONS_DB_FIELD = "versions";
+    private List<String> versions = new ArrayList<String>();
+
+    public static final String LAST_RELEASE_DB_FIELD = "lastRelease";
+    private String lastRelease;
+
+    public static final String LAST_VERSION_DB_FIELD = "lastVersion";
+    private String lastVersion;
+
+    public static final String LAST_RELEASE_KEY_DB_FIELD = "lastReleaseKey";
+    private String lastReleaseKey;
+
+    public static final String LAST_VERSION_KEY_DB_FIELD = "lastVersionKey";
+    private String lastVersionKey;
+
+    public static final String COMPARABLE_DB_FIELD = "comparable";
+    private boolean comparable = true;
+
+    public void setDataModelVersion(final String newVersion){
+        this.datamodelVersion = newVersion;
+    }
+
+    public String getDataModelVersion(){
+        return datamodelVersion;
+    }
+
+    /**
+     * Generates the coordinates of an artifact: groupId:artifactId:classifier:extension
+     *
+     * @param artifact DbArtifact
+     * @return String
+     */
+    public static String generateID(final DbArtifact artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getClassifier() + ":" + artifact.getExtension();
+    }
+
+    public String getCoordinates() {
+        return coordinates;
+    }
+
+    public void setCoordinates(final String coordinates) {
+        this.coordinates = coordinates;
+    }
+
+    public List<String> getVersions() {
+        return versions;
+    }
+
+    public void setVersions(final List<String> versions) {
+        this.versions = versions;
+    }
+
+    public String getLastRelease() {
+        return lastRelease;
+    }
+
+    public void setLastRelease(final String lastRelease) {
+        this.lastRelease = lastRelease;
+    }
+
+    public String getLastVersion() {
+        return lastVersion;
+    }
+
+    public void setLastVersion(final String lastVersion) {
+        this.lastVersion = lastVersion;
+    }
+
+    /**
+     * Returns the sort key of the last release, null if there is no last release or the versions cannot be compared
+     *
+     * @return String
+     */
+    public String getLastReleaseKey() {
+        return lastReleaseKey;
+    }
+
+    public void setLastReleaseKey(final String lastReleaseKey) {
+        this.lastReleaseKey = lastReleaseKey;
+    }
+
+    /**
+     * Returns the sort key of the last version, null if the versions cannot be compared
+     *
+     * @return String
+     */
+    public String getLastVersionKey() {
+        return lastVersionKey;
+    }
+
+    public void setLastVersionKey(final String lastVersionKey) {
+        this.lastVersionKey = lastVersionKey;
+    }
+
+    /**
+     * Checks if both the last release and the last version have been found comparing the versions.
+     * If not, the last version is the greatest version string and the last release is null if it is not found.
+     *
+     * @return boolean
+     */
+    public boolean isComparable() {
+        return comparable;
+    }
+
+    public void setComparable(final boolean comparable) {
+        this.comparable = comparable;
+    }
+}
@@ -201,6 +201,17 @@ public class DbModule {
 		return sb.toString();
 	}
 
+    /**
+     * Checks if a build info key can be stored as a field name: it should not be empty, contain a dot or start
+     * with a dollar.
+     *
+     * @param key String
+     * @return boolean
+     */
+    public static boolean isValidBuildInfoKey(final String key) {
+        return key != null && !key.isEmpty() && !key.contains(".") && !key.startsWith("$");
+    }
+
     /**
      * Here is a workaround because of this mongodb open issue:
      * https://jira.mongodb.org/browse/SERVER-267
@@ -0,0 +1,95 @@
+package org.axway.grapes.server.db.datamodel;
+
+import org.jongo.marshall.jackson.oid.Id;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Database Module Closure
+ *
+ * <p>Class that holds the transitive dependency closure of a root module: the ids of the root modules that are
+ * reachable through its dependencies, in traversal order. It is maintained after module storage/deletion so a full
+ * depth dependency request reads the reachable modules at once instead of walking the dependencies module by
+ * module.</p>
+ *
+ * <p>The closure does not copy the modules: for each reachable module, it only holds the index of the module that
+ * produces the target of each of its dependencies (submodules included, in the order of
+ * DataUtils.getAllDbDependencies), -1 if there is none. The modules themselves are read from the module
+ * collection.</p>
+ *
+ * <p>For each reachable module, the closure also holds a stamp of the dependencies it has been computed from. A
+ * closure whose stamps do not match the modules anymore, updated by another instance for example, is not used.</p>
+ */
+public class DbModuleClosure {
+
+    public static final String DATA_MODEL_VERSION = "datamodelVersion";
+    private String datamodelVersion = DbCollections.datamodelVersion;
+
+    @Id
+    private String moduleId;
+
+    public static final String MODULES_DB_FIELD = "modules";
+    private List<String> modules = new ArrayList<String>();
+
+    public static final String TARGETS_DB_FIELD = "targets";
+    private List<List<Integer>> targets = new ArrayList<List<Integer>>();
+
+    public static final String STAMPS_DB_FIELD = "stamps";
+    private List<Integer> stamps = new ArrayList<Integer>();
+
+    public void setDataModelVersion(final String newVersion){
+        this.datamodelVersion = newVersion;
+    }
+
+    public String getDataModelVersion(){
+        return datamodelVersion;
+    }
+
+    public String getModuleId() {
+        return moduleId;
+    }
+
+    public void setModuleId(final String moduleId) {
+        this.moduleId = moduleId;
+    }
+
+    /**
+     * Returns the ids of the reachable modules in traversal order, the first one being the root module of the closure
+     *
+     * @return List<String>
+     */
+    public List<String> getModules() {
+        return modules;
+    }
+
+    public void setModules(final List<String> modules) {
+        this.modules = modules;
+    }
+
+    /**
+     * Returns, for each reachable module, the indexes of the modules that produce the targets of its dependencies
+     *
+     * @return List<List<Integer>>
+     */
+    public List<List<Integer>> getTargets() {
+        return targets;
+    }
+
+    public void setTargets(final List<List<Integer>> targets) {
+        this.targets = targets;
+    }
+
+    /**
+     * Returns, for each reachable module, the stamp of the dependencies the closure has been computed from
+     *
+     * @return List<Integer>
+     */
+    public List<Integer> getStamps() {
+        return stamps;
+    }
+
+    public void setStamps(final List<Integer> stamps) {
+        this.stamps = stamps;
+    }
+}
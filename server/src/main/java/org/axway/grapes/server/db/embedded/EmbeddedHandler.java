@@ -0,0 +1,931 @@
+package org.axway.grapes.server.db.embedded;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.sun.jersey.api.NotFoundException;
+import org.axway.grapes.server.core.VersionsHandler;
+import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.core.options.Pagination;
+import org.axway.grapes.server.db.DBException;
+import org.axway.grapes.server.db.DBRegExp;
+import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.DbCursor;
+import org.axway.grapes.server.db.DependencyGraphIndex;
+import org.axway.grapes.server.db.LicenseResolver;
+import org.axway.grapes.server.db.ModuleClosureUpdater;
+import org.axway.grapes.server.db.OrganizationMatcher;
+import org.axway.grapes.server.db.PromotionStatusCache;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.axway.grapes.server.db.datamodel.*;
+import org.axway.grapes.server.db.datamodel.DbCredential.AvailableRoles;
+import org.jongo.Mapper;
+import org.jongo.bson.Bson;
+import org.jongo.marshall.jackson.JacksonMapper;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded Handler
+ *
+ * <p>Repository Handler that stores the data in an embedded store on the local disk, so Grapes can run without any
+ * database server. The entities are marshalled into the same documents as in mongodb and the filters are evaluated
+ * on these documents. The modules are indexed on has, uses and name, the artifacts on groupId.</p>
+ */
+public class EmbeddedHandler implements RepositoryHandler {
+
+    // number of module closures rebuilt at once
+    private static final int BATCH_SIZE = 1000;
+
+    private final EmbeddedStore store;
+    private final Mapper mapper = new JacksonMapper.Builder().build();
+    // in-memory index of the module dependency graph
+    private final DependencyGraphIndex graphIndex = new DependencyGraphIndex(this);
+    // compiled at the first use, reset when an organization is stored or deleted
+    private volatile OrganizationMatcher organizationMatcher;
+    private final Object organizationMatcherLock = new Object();
+    // created at the first use, reset when a license is stored, approved or deleted
+    private volatile LicenseResolver licenseResolver;
+    private final Object licenseResolverLock = new Object();
+    // promotion statuses of the modules, invalidated when a module or an artifact of their closure is updated
+    private final PromotionStatusCache promotionStatusCache = new PromotionStatusCache();
+
+    // serializes the maintenance of the latest versions
+    private final Object latestVersionsLock = new Object();
+    // serializes the merges of the module build info
+    private final Object modulesLock = new Object();
+    // maintains the module closures in background
+    private final ModuleClosureUpdater moduleClosureUpdater;
+
+    public EmbeddedHandler(final EmbeddedStore store) throws DBException {
+        this.store = store;
+        this.moduleClosureUpdater = new ModuleClosureUpdater(this, new ModuleClosureUpdater.ClosureStore() {
+            @Override
+            public void store(final DbModuleClosure closure) {
+                store.put(DbCollections.DB_MODULE_CLOSURES, closure.getModuleId(), toDBObject(closure));
+            }
+
+            @Override
+            public void insert(final List<DbModuleClosure> closures) {
+                for(DbModuleClosure closure: closures){
+                    store(closure);
+                }
+            }
+
+            @Override
+            public void remove(final String moduleId) {
+                store.remove(DbCollections.DB_MODULE_CLOSURES, moduleId);
+            }
+
+            @Override
+            public void clear() {
+                for(String id: store.getIds(DbCollections.DB_MODULE_CLOSURES)){
+                    store.remove(DbCollections.DB_MODULE_CLOSURES, id);
+                }
+            }
+        });
+
+        store.addIndex(DbCollections.DB_MODULES, DbModule.HAS_DB_FIELD);
+        store.addIndex(DbCollections.DB_MODULES, DbModule.USE_DB_FIELD);
+        store.addIndex(DbCollections.DB_MODULES, DbModule.NAME_DB_FIELD);
+        store.addIndex(DbCollections.DB_ARTIFACTS, DbArtifact.GROUPID_DB_FIELD);
+        store.open();
+    }
+
+    /**
+     * Marshalls an entity into a document
+     *
+     * @param entity Object
+     * @return DBObject
+     */
+    private DBObject toDBObject(final Object entity) {
+        return mapper.getMarshaller().marshall(entity).toDBObject();
+    }
+
+    /**
+     * Unmarshalls a document into an entity
+     *
+     * @param document DBObject
+     * @param type Class<T>
+     * @return T null if the document is null
+     */
+    private <T> T as(final DBObject document, final Class<T> type) {
+        if(document == null){
+            return null;
+        }
+        return mapper.getUnmarshaller().unmarshall(Bson.createDocument(document), type);
+    }
+
+    private <T> List<T> as(final List<DBObject> documents, final Class<T> type) {
+        final List<T> entities = new ArrayList<T>(documents.size());
+        for(DBObject document: documents){
+            entities.add(as(document, type));
+        }
+        return entities;
+    }
+
+    @Override
+    public void store(final DbCredential credential) {
+        store.put(DbCollections.DB_CREDENTIALS, credential.getUser(), toDBObject(credential));
+    }
+
+    @Override
+    public DbCredential getCredential(final String user) {
+        return as(store.get(DbCollections.DB_CREDENTIALS, user), DbCredential.class);
+    }
+
+    @Override
+    public void addUserRole(final String user, final AvailableRoles role) {
+        final DbCredential credential = getCredential(user);
+
+        if(credential == null){
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+
+        if(!credential.getRoles().contains(role)){
+            credential.addRole(role);
+            set(DbCollections.DB_CREDENTIALS, user, DbCredential.ROLES_FIELD, toList(credential.getRoles()));
+        }
+    }
+
+    @Override
+    public void removeUserRole(final String user, final AvailableRoles role) {
+        final DbCredential credential = getCredential(user);
+
+        if(credential == null){
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+
+        if(credential.getRoles().contains(role)){
+            credential.removeRole(role);
+            set(DbCollections.DB_CREDENTIALS, user, DbCredential.ROLES_FIELD, toList(credential.getRoles()));
+        }
+    }
+
+    @Override
+    public void store(final DbLicense license) {
+        store.put(DbCollections.DB_LICENSES, license.getName(), toDBObject(license));
+        resetLicenseResolver();
+    }
+
+    @Override
+    public List<String> getLicenseNames(final FiltersHolder filters) {
+        final List<String> licenseNames = getFilteredLicenseNames(filters);
+
+        if(filters.getPagination().isPaginated()){
+            return filters.getPagination().apply(licenseNames);
+        }
+        return licenseNames;
+    }
+
+    @Override
+    public long getLicenseNamesCount(final FiltersHolder filters) {
+        return getFilteredLicenseNames(filters).size();
+    }
+
+    private List<String> getFilteredLicenseNames(final FiltersHolder filters) {
+        final Map<String, Object> query = filters.getLicenseFieldsFilters();
+        final List<String> licenseNames = new ArrayList<String>();
+
+        for(DBObject document: store.getDocuments(DbCollections.DB_LICENSES, null)){
+            if(matches(document, query) && filters.shouldBeInReport(as(document, DbLicense.class))){
+                licenseNames.add((String) document.get(DbCollections.DEFAULT_ID));
+            }
+        }
+
+        return licenseNames;
+    }
+
+    @Override
+    public DbLicense getLicense(final String name) {
+        return as(store.get(DbCollections.DB_LICENSES, name), DbLicense.class);
+    }
+
+    @Override
+    public List<DbLicense> getAllLicenses() {
+        return as(store.getDocuments(DbCollections.DB_LICENSES, null), DbLicense.class);
+    }
+
+    @Override
+    public void deleteLicense(final String name) {
+        if(!store.remove(DbCollections.DB_LICENSES, name)){
+            throw new NotFoundException("The license does not exist: " + name);
+        }
+        resetLicenseResolver();
+    }
+
+    @Override
+    public List<DbArtifact> getArtifacts(final FiltersHolder filters) {
+        final List<String> gavcs = getGavcs(filters);
+        return as(store.getDocuments(DbCollections.DB_ARTIFACTS, gavcs), DbArtifact.class);
+    }
+
+    @Override
+    public DbCursor<DbArtifact> getArtifactsCursor(final FiltersHolder filters) {
+        return DbCursor.of(getArtifacts(filters));
+    }
+
+    @Override
+    public long getArtifactsCount(final FiltersHolder filters) {
+        return find(DbCollections.DB_ARTIFACTS, filters.getArtifactFieldsFilters(), null).size();
+    }
+
+    @Override
+    public void addLicenseToArtifact(final DbArtifact artifact, final String licenseId) {
+        artifact.addLicense(licenseId);
+        set(DbCollections.DB_ARTIFACTS, artifact.getGavc(), DbArtifact.LICENCES_DB_FIELD, toList(artifact.getLicenses()));
+    }
+
+    @Override
+    public void removeLicenseFromArtifact(final DbArtifact artifact, final String licenseId) {
+        if(artifact.getLicenses().contains(licenseId)){
+            artifact.removeLicense(licenseId);
+            set(DbCollections.DB_ARTIFACTS, artifact.getGavc(), DbArtifact.LICENCES_DB_FIELD, toList(artifact.getLicenses()));
+        }
+    }
+
+    @Override
+    public void approveLicense(final DbLicense license, final Boolean approved) {
+        set(DbCollections.DB_LICENSES, license.getName(), DbLicense.APPROVED_DB_FIELD, approved);
+        resetLicenseResolver();
+    }
+
+    @Override
+    public void store(final DbArtifact artifact) {
+        final DBObject fields = toDBObject(artifact);
+        final DBObject document = getOrCreate(DbCollections.DB_ARTIFACTS, artifact.getGavc());
+
+        // Important: merge existing license and new ones :
+        //    * because an existing license could have been manually enforce by a user
+        //    * because all Grapes clients are not to send license information
+        final Set<Object> licenses = new LinkedHashSet<Object>();
+        if(document.get(DbArtifact.LICENCES_DB_FIELD) != null){
+            licenses.addAll((List<?>) document.get(DbArtifact.LICENCES_DB_FIELD));
+        }
+        licenses.addAll(artifact.getLicenses());
+
+        document.putAll(fields);
+        document.put(DbArtifact.LICENCES_DB_FIELD, toList(licenses));
+        store.put(DbCollections.DB_ARTIFACTS, artifact.getGavc(), document);
+
+        updateLatestVersions(artifact, true);
+        promotionStatusCache.invalidateArtifact(artifact.getGavc());
+    }
+
+    @Override
+    public void storeIfNew(final Collection<DbArtifact> dbArtifacts) {
+        for(DbArtifact dbArtifact: dbArtifacts){
+            if(store.putIfAbsent(DbCollections.DB_ARTIFACTS, dbArtifact.getGavc(), toDBObject(dbArtifact))){
+                updateLatestVersions(dbArtifact, true);
+                promotionStatusCache.invalidateArtifact(dbArtifact.getGavc());
+            }
+        }
+    }
+
+    @Override
+    public List<String> getGavcs(final FiltersHolder filters) {
+        final List<String> gavcs = find(DbCollections.DB_ARTIFACTS, filters.getArtifactFieldsFilters(), null);
+
+        if(filters.getPagination().isPaginated()){
+            return filters.getPagination().apply(gavcs);
+        }
+        return gavcs;
+    }
+
+    @Override
+    public List<String> getGroupIds(final FiltersHolder filters) {
+        return getDistinctValues(DbCollections.DB_ARTIFACTS, DbArtifact.GROUPID_DB_FIELD,
+                filters.getArtifactFieldsFilters(), filters.getPagination());
+    }
+
+    @Override
+    public long getGroupIdsCount(final FiltersHolder filters) {
+        return getDistinctValues(DbCollections.DB_ARTIFACTS, DbArtifact.GROUPID_DB_FIELD,
+                filters.getArtifactFieldsFilters(), new Pagination()).size();
+    }
+
+    @Override
+    public List<String> getArtifactVersions(final DbArtifact artifact) {
+        final Map<String, Object> query = new HashMap<String, Object>();
+        query.put(DbArtifact.GROUPID_DB_FIELD, artifact.getGroupId());
+        query.put(DbArtifact.ARTIFACTID_DB_FIELD, artifact.getArtifactId());
+        query.put(DbArtifact.CLASSIFIER_DB_FIELD, artifact.getClassifier());
+        query.put(DbArtifact.EXTENSION_DB_FIELD, artifact.getExtension());
+
+        return getDistinctValues(DbCollections.DB_ARTIFACTS, DbArtifact.VERSION_DB_FIELD, query, new Pagination());
+    }
+
+    @Override
+    public DbArtifact getArtifact(final String gavc) {
+        return as(store.get(DbCollections.DB_ARTIFACTS, gavc), DbArtifact.class);
+    }
+
+    @Override
+    public List<DbArtifact> getArtifactsByGavc(final Collection<String> gavcs) {
+        return as(store.getDocuments(DbCollections.DB_ARTIFACTS, gavcs), DbArtifact.class);
+    }
+
+    @Override
+    public void deleteArtifact(final String gavc) {
+        final DbArtifact artifact = getArtifact(gavc);
+
+        if(artifact == null || !store.remove(DbCollections.DB_ARTIFACTS, gavc)){
+            throw new NotFoundException("The artifact does not exist: " + gavc);
+        }
+
+        updateLatestVersions(artifact, false);
+        promotionStatusCache.invalidateArtifact(gavc);
+    }
+
+    @Override
+    public DbLatestVersions getLatestVersions(final DbArtifact artifact) {
+        return as(store.get(DbCollections.DB_LATEST_VERSIONS, DbLatestVersions.generateID(artifact)), DbLatestVersions.class);
+    }
+
+    /**
+     * Adds or removes the version of an artifact from its latest versions.
+     * The latest versions that do not exist yet are created from the artifacts.
+     *
+     * @param artifact DbArtifact
+     * @param added boolean
+     */
+    private void updateLatestVersions(final DbArtifact artifact, final boolean added) {
+        synchronized (latestVersionsLock){
+            DbLatestVersions record = getLatestVersions(artifact);
+
+            if(record == null){
+                if(!added){
+                    return;
+                }
+                record = new DbLatestVersions();
+                record.setCoordinates(DbLatestVersions.generateID(artifact));
+                record.setVersions(getArtifactVersions(artifact));
+            }
+            else if(added && !record.getVersions().contains(artifact.getVersion())){
+                record.getVersions().add(artifact.getVersion());
+            }
+            else if(!added){
+                record.getVersions().remove(artifact.getVersion());
+            }
+
+            VersionsHandler.updateLastVersions(record);
+            store.put(DbCollections.DB_LATEST_VERSIONS, record.getCoordinates(), toDBObject(record));
+        }
+    }
+
+    @Override
+    public void rebuildLatestVersions() {
+        synchronized (latestVersionsLock){
+            final Map<String, DbLatestVersions> records = new HashMap<String, DbLatestVersions>();
+            for(DbArtifact artifact: as(store.getDocuments(DbCollections.DB_ARTIFACTS, null), DbArtifact.class)){
+                final String id = DbLatestVersions.generateID(artifact);
+
+                DbLatestVersions record = records.get(id);
+                if(record == null){
+                    record = new DbLatestVersions();
+                    record.setCoordinates(id);
+                    records.put(id, record);
+                }
+                record.getVersions().add(artifact.getVersion());
+            }
+
+            for(String id: store.getIds(DbCollections.DB_LATEST_VERSIONS)){
+                store.remove(DbCollections.DB_LATEST_VERSIONS, id);
+            }
+            for(DbLatestVersions record: records.values()){
+                VersionsHandler.updateLastVersions(record);
+                store.put(DbCollections.DB_LATEST_VERSIONS, record.getCoordinates(), toDBObject(record));
+            }
+        }
+    }
+
+    @Override
+    public void updateDoNotUse(final DbArtifact artifact, final Boolean doNotUse) {
+        set(DbCollections.DB_ARTIFACTS, artifact.getGavc(), DbArtifact.DO_NOT_USE, doNotUse);
+        promotionStatusCache.invalidateArtifact(artifact.getGavc());
+    }
+
+    @Override
+    public void updateDownloadUrl(final DbArtifact artifact, final String downLoadUrl) {
+        set(DbCollections.DB_ARTIFACTS, artifact.getGavc(), DbArtifact.DOWNLOAD_URL_DB_FIELD, downLoadUrl);
+    }
+
+    @Override
+    public void updateProvider(final DbArtifact artifact, final String provider) {
+        set(DbCollections.DB_ARTIFACTS, artifact.getGavc(), DbArtifact.PROVIDER, provider);
+    }
+
+    @Override
+    public List<DbModule> getAncestors(final DbArtifact artifact, final FiltersHolder filters) {
+        final List<String> moduleIds = store.getIds(DbCollections.DB_MODULES, DbModule.USE_DB_FIELD, artifact.getGavc());
+        final List<String> ancestorIds = find(DbCollections.DB_MODULES, filters.getModuleFieldsFilters(), moduleIds);
+
+        return as(store.getDocuments(DbCollections.DB_MODULES, ancestorIds), DbModule.class);
+    }
+
+    @Override
+    public List<DbModule> getAncestors(final Collection<String> gavcs, final FiltersHolder filters) {
+        final Set<String> moduleIds = new TreeSet<String>();
+        for(String gavc: gavcs){
+            moduleIds.addAll(store.getIds(DbCollections.DB_MODULES, DbModule.USE_DB_FIELD, gavc));
+        }
+        final List<String> ancestorIds = find(DbCollections.DB_MODULES, filters.getModuleFieldsFilters(), moduleIds);
+
+        return as(store.getDocuments(DbCollections.DB_MODULES, ancestorIds), DbModule.class);
+    }
+
+    @Override
+    public void store(final DbModule module) {
+        final DbModule previous = getModule(module.getId());
+        module.updateHasAndUse();
+        final DBObject fields = toDBObject(module);
+
+        synchronized (modulesLock){
+            final DBObject document = getOrCreate(DbCollections.DB_MODULES, module.getId());
+
+            // let's keep the old build info and override with new values if any
+            final DBObject buildInfo = document.get(DbModule.BUILD_INFO_DB_FIELD) == null ?
+                    new BasicDBObject() : (DBObject) document.get(DbModule.BUILD_INFO_DB_FIELD);
+            buildInfo.putAll(module.getBuildInfo());
+
+            document.putAll(fields);
+            document.put(DbModule.BUILD_INFO_DB_FIELD, buildInfo);
+            store.put(DbCollections.DB_MODULES, module.getId(), document);
+        }
+
+        graphIndex.update(module);
+        invalidatePromotionStatuses(module);
+        moduleClosureUpdater.update(previous, module);
+    }
+
+    @Override
+    public List<String> getModuleNames(final FiltersHolder filters) {
+        return getDistinctValues(DbCollections.DB_MODULES, DbModule.NAME_DB_FIELD,
+                filters.getModuleFieldsFilters(), filters.getPagination());
+    }
+
+    @Override
+    public long getModuleNamesCount(final FiltersHolder filters) {
+        return getDistinctValues(DbCollections.DB_MODULES, DbModule.NAME_DB_FIELD,
+                filters.getModuleFieldsFilters(), new Pagination()).size();
+    }
+
+    @Override
+    public List<String> getModuleVersions(final String name, final FiltersHolder filters) {
+        final List<String> moduleIds = store.getIds(DbCollections.DB_MODULES, DbModule.NAME_DB_FIELD, name);
+        final Set<String> versions = new TreeSet<String>();
+
+        for(DBObject document: store.getDocuments(DbCollections.DB_MODULES, find(DbCollections.DB_MODULES, filters.getModuleFieldsFilters(), moduleIds))){
+            addValue(versions, document.get(DbModule.VERSION_DB_FIELD));
+        }
+
+        return paginate(versions, filters.getPagination());
+    }
+
+    @Override
+    public DbModule getModule(final String moduleId) {
+        return as(store.get(DbCollections.DB_MODULES, moduleId), DbModule.class);
+    }
+
+    @Override
+    public List<DbModule> getModulesById(final Collection<String> moduleIds) {
+        return as(store.getDocuments(DbCollections.DB_MODULES, moduleIds), DbModule.class);
+    }
+
+    @Override
+    public List<DbModule> getModules(final FiltersHolder filters) {
+        List<String> moduleIds = find(DbCollections.DB_MODULES, filters.getModuleFieldsFilters(), null);
+
+        if(filters.getPagination().isPaginated()){
+            moduleIds = filters.getPagination().apply(moduleIds);
+        }
+        return as(store.getDocuments(DbCollections.DB_MODULES, moduleIds), DbModule.class);
+    }
+
+    @Override
+    public DbCursor<DbModule> getModulesCursor(final FiltersHolder filters) {
+        return DbCursor.of(getModules(filters));
+    }
+
+    @Override
+    public long getModulesCount(final FiltersHolder filters) {
+        return find(DbCollections.DB_MODULES, filters.getModuleFieldsFilters(), null).size();
+    }
+
+    @Override
+    public void deleteModule(final String moduleId) {
+        final DbModule module = getModule(moduleId);
+
+        if(module == null || !store.remove(DbCollections.DB_MODULES, moduleId)){
+            throw new NotFoundException("The module does not exist: " + moduleId);
+        }
+        graphIndex.remove(moduleId);
+        invalidatePromotionStatuses(module);
+        moduleClosureUpdater.update(module, null);
+    }
+
+    @Override
+    public void promoteModule(final DbModule module) {
+        set(DbCollections.DB_MODULES, module.getId(), DbModule.PROMOTION_DB_FIELD, Boolean.TRUE);
+        graphIndex.promote(module.getId());
+        invalidatePromotionStatuses(module);
+    }
+
+    @Override
+    public DbModuleClosure getModuleClosure(final String moduleId) {
+        if(!moduleClosureUpdater.isUpToDate()){
+            return null;
+        }
+
+        return as(store.get(DbCollections.DB_MODULE_CLOSURES, moduleId), DbModuleClosure.class);
+    }
+
+    @Override
+    public void rebuildModuleClosures() {
+        moduleClosureUpdater.rebuild(BATCH_SIZE);
+    }
+
+    @Override
+    public DbModule getRootModuleOf(final String gavc) {
+        final List<String> moduleIds = store.getIds(DbCollections.DB_MODULES, DbModule.HAS_DB_FIELD, gavc);
+
+        if(moduleIds.isEmpty()){
+            return null;
+        }
+        return getModule(moduleIds.get(0));
+    }
+
+    @Override
+    public List<DbModule> getRootModulesOf(final Collection<String> gavcs) {
+        final Set<String> moduleIds = new HashSet<String>();
+        for(String gavc: gavcs){
+            moduleIds.addAll(store.getIds(DbCollections.DB_MODULES, DbModule.HAS_DB_FIELD, gavc));
+        }
+
+        return as(store.getDocuments(DbCollections.DB_MODULES, moduleIds), DbModule.class);
+    }
+
+    @Override
+    public DbModule getModuleOf(final String gavc) {
+        final DbModule module = getRootModuleOf(gavc);
+
+        if(module == null){
+            return null;
+        }
+
+        return DataUtils.getModuleOf(module, gavc);
+    }
+
+    @Override
+    public DependencyGraphIndex getGraphIndex() {
+        if(!graphIndex.isLoaded()){
+            // the requests do not wait for the whole database to be indexed, they read the modules meanwhile
+            graphIndex.loadInBackground();
+            return null;
+        }
+        return graphIndex;
+    }
+
+    @Override
+    public OrganizationMatcher getOrganizationMatcher() {
+        OrganizationMatcher matcher = organizationMatcher;
+        if(matcher == null){
+            synchronized (organizationMatcherLock){
+                matcher = organizationMatcher;
+                if(matcher == null){
+                    matcher = new OrganizationMatcher(getAllOrganizations());
+                    organizationMatcher = matcher;
+                }
+            }
+        }
+        return matcher;
+    }
+
+    /**
+     * Drops the organization matcher once the organizations have been updated. It waits for a matcher that is
+     * being compiled so that a matcher compiled from the old organizations is never kept.
+     */
+    private void resetOrganizationMatcher() {
+        synchronized (organizationMatcherLock){
+            organizationMatcher = null;
+        }
+    }
+
+    @Override
+    public LicenseResolver getLicenseResolver() {
+        LicenseResolver resolver = licenseResolver;
+        if(resolver == null){
+            synchronized (licenseResolverLock){
+                resolver = licenseResolver;
+                if(resolver == null){
+                    resolver = new LicenseResolver(getAllLicenses());
+                    licenseResolver = resolver;
+                }
+            }
+        }
+        return resolver;
+    }
+
+    /**
+     * Drops the license resolver once the licenses have been updated. It waits for a resolver that is being
+     * created so that a resolver created from the old licenses is never kept.
+     */
+    private void resetLicenseResolver() {
+        synchronized (licenseResolverLock){
+            licenseResolver = null;
+        }
+    }
+
+    @Override
+    public PromotionStatusCache getPromotionStatusCache() {
+        return promotionStatusCache;
+    }
+
+    @Override
+    public void clearCaches() {
+        graphIndex.clear();
+        resetOrganizationMatcher();
+        resetLicenseResolver();
+        promotionStatusCache.clear();
+    }
+
+    /**
+     * Drops the promotion statuses computed from a module or from one of its artifacts
+     *
+     * @param module DbModule
+     */
+    private void invalidatePromotionStatuses(final DbModule module) {
+        promotionStatusCache.invalidateModule(module.getId());
+        for(String gavc: DataUtils.getAllArtifacts(module)){
+            promotionStatusCache.invalidateArtifact(gavc);
+        }
+    }
+
+    @Override
+    public List<String> getOrganizationNames() {
+        return store.getIds(DbCollections.DB_ORGANIZATION);
+    }
+
+    @Override
+    public DbOrganization getOrganization(final String name) {
+        return as(store.get(DbCollections.DB_ORGANIZATION, name), DbOrganization.class);
+    }
+
+    @Override
+    public void deleteOrganization(final String organizationId) {
+        store.remove(DbCollections.DB_ORGANIZATION, organizationId);
+        resetOrganizationMatcher();
+        promotionStatusCache.clear();
+    }
+
+    @Override
+    public void store(final DbOrganization organization) {
+        store.put(DbCollections.DB_ORGANIZATION, organization.getName(), toDBObject(organization));
+        resetOrganizationMatcher();
+        promotionStatusCache.clear();
+    }
+
+    @Override
+    public void addModulesOrganization(final String corporateGroupId, final DbOrganization organization) {
+        store.update(DbCollections.DB_MODULES, getModulesWithPrefix(corporateGroupId),
+                new SetField(DbModule.ORGANIZATION_DB_FIELD, organization.getName(), null));
+        graphIndex.clear();
+        promotionStatusCache.clear();
+    }
+
+    @Override
+    public void removeModulesOrganization(final String corporateGroupId, final DbOrganization organization) {
+        store.update(DbCollections.DB_MODULES, getModulesWithPrefix(corporateGroupId),
+                new SetField(DbModule.ORGANIZATION_DB_FIELD, "", organization.getName()));
+        graphIndex.clear();
+        promotionStatusCache.clear();
+    }
+
+    @Override
+    public void removeModulesOrganization(final DbOrganization organization) {
+        store.update(DbCollections.DB_MODULES, store.getIds(DbCollections.DB_MODULES),
+                new SetField(DbModule.ORGANIZATION_DB_FIELD, "", organization.getName()));
+        graphIndex.clear();
+        promotionStatusCache.clear();
+    }
+
+    /**
+     * Returns the ids of the modules that have an artifact starting with the prefix
+     *
+     * @param corporateGroupId String
+     * @return Set<String>
+     */
+    private Set<String> getModulesWithPrefix(final String corporateGroupId) {
+        final Set<String> moduleIds = new HashSet<String>();
+
+        for(Object gavc: store.getIndexedValues(DbCollections.DB_MODULES, DbModule.HAS_DB_FIELD)){
+            if(gavc instanceof String && ((String) gavc).startsWith(corporateGroupId)){
+                moduleIds.addAll(store.getIds(DbCollections.DB_MODULES, DbModule.HAS_DB_FIELD, gavc));
+            }
+        }
+
+        return moduleIds;
+    }
+
+    @Override
+    public List<DbOrganization> getAllOrganizations() {
+        return as(store.getDocuments(DbCollections.DB_ORGANIZATION, null), DbOrganization.class);
+    }
+
+    @Override
+    public void store(final DbProduct dbProduct) {
+        store.put(DbCollections.DB_PRODUCT, dbProduct.getName(), toDBObject(dbProduct));
+    }
+
+    @Override
+    public DbProduct getProduct(final String name) {
+        return as(store.get(DbCollections.DB_PRODUCT, name), DbProduct.class);
+    }
+
+    @Override
+    public List<String> getProductNames() {
+        return store.getIds(DbCollections.DB_PRODUCT);
+    }
+
+    @Override
+    public void deleteProduct(final String name) {
+        store.remove(DbCollections.DB_PRODUCT, name);
+    }
+
+    /**
+     * Returns the document to update, a new document if it does not exist:
+     * the fields that are not part of the entity are kept as with an upsert
+     *
+     * @param collection String
+     * @param id String
+     * @return DBObject
+     */
+    private DBObject getOrCreate(final String collection, final String id) {
+        final DBObject document = store.get(collection, id);
+        return document == null ? new BasicDBObject() : document;
+    }
+
+    /**
+     * Sets a field of an existing document
+     *
+     * @param collection String
+     * @param id String
+     * @param field String
+     * @param value Object
+     */
+    private void set(final String collection, final String id, final String field, final Object value) {
+        store.update(collection, Collections.singleton(id), new SetField(field, value, null));
+    }
+
+    /**
+     * Returns the sorted ids of the documents that match a query
+     *
+     * @param collection String
+     * @param query Map<String, Object> the query parameters, as generated for mongodb
+     * @param ids Collection<String> the candidate documents, all the documents of the collection if null
+     * @return List<String>
+     */
+    private List<String> find(final String collection, final Map<String, Object> query, final Collection<String> ids) {
+        final List<String> results = new ArrayList<String>();
+
+        if(query.isEmpty()){
+            return ids == null ? store.getIds(collection) : new ArrayList<String>(new TreeSet<String>(ids));
+        }
+
+        for(DBObject document: store.getDocuments(collection, ids)){
+            if(matches(document, query)){
+                results.add((String) document.get(DbCollections.DEFAULT_ID));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns the sorted distinct values of a field of the documents that match a query
+     *
+     * @param collection String
+     * @param field String
+     * @param query Map<String, Object>
+     * @param pagination Pagination
+     * @return List<String>
+     */
+    private List<String> getDistinctValues(final String collection, final String field, final Map<String, Object> query, final Pagination pagination) {
+        Collection<String> candidates = null;
+
+        // an equality on an indexed field selects the candidates
+        if(query.get(DbArtifact.GROUPID_DB_FIELD) instanceof String && DbCollections.DB_ARTIFACTS.equals(collection)){
+            candidates = store.getIds(collection, DbArtifact.GROUPID_DB_FIELD, query.get(DbArtifact.GROUPID_DB_FIELD));
+        }
+
+        final Set<String> values = new TreeSet<String>();
+        for(DBObject document: store.getDocuments(collection, find(collection, query, candidates))){
+            addValue(values, document.get(field));
+        }
+
+        return paginate(values, pagination);
+    }
+
+    private static void addValue(final Set<String> values, final Object value) {
+        if(value instanceof String){
+            values.add((String) value);
+        }
+    }
+
+    private static List<String> paginate(final Set<String> sortedValues, final Pagination pagination) {
+        final List<String> values = new ArrayList<String>(sortedValues);
+
+        if(!pagination.isPaginated()){
+            return values;
+        }
+        return pagination.apply(values);
+    }
+
+    /**
+     * Checks if a document matches a query generated for mongodb: each parameter is either a value that has to be
+     * equal to the field or contained by the field when it is a list, a regexp, null for a missing or null field (or a
+     * list that contains null) or a sub-query
+     *
+     * @param document DBObject
+     * @param query Map<String, Object>
+     * @return boolean
+     */
+    @SuppressWarnings("unchecked")
+    static boolean matches(final DBObject document, final Map<String, Object> query) {
+        for(Map.Entry<String, Object> param: query.entrySet()){
+            final Object value = document.get(param.getKey());
+            final Object expected = param.getValue();
+
+            if(expected instanceof Map){
+                for(Map.Entry<String, Object> operator: ((Map<String, Object>) expected).entrySet()){
+                    if(!"$ne".equals(operator.getKey())){
+                        throw new IllegalArgumentException("Unsupported query operator: " + operator.getKey());
+                    }
+                    if(matches(value, operator.getValue())){
+                        return false;
+                    }
+                }
+            }
+            else if(!matches(value, expected)){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean matches(final Object value, final Object expected) {
+        if(value instanceof List){
+            for(Object element: (List<?>) value){
+                if(matches(element, expected)){
+                    return true;
+                }
+            }
+            // like mongodb, an empty list does not match null
+            return false;
+        }
+        if(expected instanceof DBRegExp){
+            return value instanceof String && Pattern.compile(expected.toString()).matcher((String) value).find();
+        }
+        if(expected == null){
+            return value == null;
+        }
+
+        return expected.equals(value);
+    }
+
+    private static BasicDBList toList(final Collection<?> values) {
+        final BasicDBList list = new BasicDBList();
+        for(Object value: values){
+            list.add(value instanceof Enum ? ((Enum<?>) value).name() : value);
+        }
+        return list;
+    }
+
+    /**
+     * Sets a field, optionally only when the field has an expected value
+     */
+    private static final class SetField implements EmbeddedStore.Update {
+        private final String field;
+        private final Object value;
+        private final Object expected;
+
+        private SetField(final String field, final Object value, final Object expected) {
+            this.field = field;
+            this.value = value;
+            this.expected = expected;
+        }
+
+        @Override
+        public boolean apply(final DBObject document) {
+            if(expected != null && !expected.equals(document.get(field))){
+                return false;
+            }
+            document.put(field, value);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,664 @@
+package org.axway.grapes.server.db.embedded;
+
+import com.google.common.base.Charsets;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import com.mongodb.util.JSONParseException;
+import com.yammer.dropwizard.lifecycle.Managed;
+import org.axway.grapes.server.db.DBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Embedded Store
+ *
+ * <p>Document store kept in memory and persisted in an append-only log on the local disk. Each write appends a
+ * record (collection, id and document, or no document for a removal) and the log is replayed when the store is
+ * opened. The documents of a collection are sorted by id and the declared fields are indexed: an index maps each
+ * value of the field, or each element when the field is a list, to the ids of the documents.</p>
+ *
+ * <p>There is no index file: the whole log is parsed again and the indexes are rebuilt in memory each time the store
+ * is opened, so the opening time grows with the log. A log of about 40,000 records (2,000 modules of 10 artifacts)
+ * takes more than a second to open, the store suits the development, test and small sites rather than the ones
+ * that need a fast restart.</p>
+ *
+ * <p>The log is locked while the store is opened so that a single server uses it. It is compacted when it is opened
+ * if most of its records have been overridden: the compacted log replaces the log only once it is fully written.</p>
+ *
+ * <p>The store is opened by its repository handler and closed when the server stops.</p>
+ */
+public class EmbeddedStore implements Managed {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddedStore.class);
+
+    public static final String LOG_FILE = "grapes.log";
+    private static final String COMPACTED_LOG_FILE = LOG_FILE + ".compact";
+    private static final String PREVIOUS_LOG_FILE = LOG_FILE + ".old";
+
+    private static final String COLLECTION_FIELD = "c";
+    private static final String ID_FIELD = "id";
+    private static final String DOCUMENT_FIELD = "doc";
+
+    private final File directory;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // documents by id of each collection
+    private final Map<String, TreeMap<String, DBObject>> collections = new HashMap<String, TreeMap<String, DBObject>>();
+    // ids by value of each indexed field of each collection
+    private final Map<String, Map<String, Map<Object, SortedSet<String>>>> indexes = new HashMap<String, Map<String, Map<Object, SortedSet<String>>>>();
+
+    // opened log, it holds the lock
+    private RandomAccessFile log;
+    private Writer writer;
+    private long records = 0;
+
+    public EmbeddedStore(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Declares an index, to be called before the store is opened
+     *
+     * @param collection String
+     * @param field String
+     */
+    public void addIndex(final String collection, final String field) {
+        Map<String, Map<Object, SortedSet<String>>> collectionIndexes = indexes.get(collection);
+        if(collectionIndexes == null){
+            collectionIndexes = new HashMap<String, Map<Object, SortedSet<String>>>();
+            indexes.put(collection, collectionIndexes);
+        }
+        collectionIndexes.put(field, new HashMap<Object, SortedSet<String>>());
+    }
+
+    /**
+     * Loads the log and opens it for writing
+     *
+     * @throws DBException if the log cannot be read or written
+     */
+    public void open() throws DBException {
+        lock.writeLock().lock();
+        try {
+            if(!directory.isDirectory() && !directory.mkdirs()){
+                throw new DBException("Cannot create the database directory " + directory.getAbsolutePath());
+            }
+
+            final File logFile = getLogFile();
+            final File previousLogFile = new File(directory, PREVIOUS_LOG_FILE);
+            if(!logFile.exists() && previousLogFile.exists() && !previousLogFile.renameTo(logFile)){
+                // the server has been stopped while the log was replaced by its compaction
+                throw new DBException("Cannot restore the database log from " + previousLogFile.getAbsolutePath());
+            }
+
+            log = lockLog(logFile);
+            replay(log.getChannel());
+
+            if(records > 2 * size()){
+                compact(logFile);
+            }
+
+            final FileChannel channel = log.getChannel();
+            final boolean truncated = !endsWithNewLine(channel);
+            channel.position(channel.size());
+            writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), Charsets.UTF_8));
+            if(truncated){
+                // the next record must not be appended to a partially written one
+                writer.write('\n');
+                writer.flush();
+            }
+        }
+        catch (IOException e) {
+            closeLog();
+            throw new DBException("Failed to open the database log " + getLogFile().getAbsolutePath() + ": " + e.getMessage());
+        }
+        catch (DBException e) {
+            closeLog();
+            throw e;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Closes the log and releases its lock
+     */
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if(writer != null){
+                writer.close();
+                writer = null;
+            }
+        }
+        catch (IOException e) {
+            LOG.error("Failed to close the database log.", e);
+        }
+        finally {
+            closeLog();
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void start() throws Exception {
+        // the store is opened by its repository handler, once the indexes are declared
+    }
+
+    @Override
+    public void stop() throws Exception {
+        close();
+    }
+
+    public File getLogFile() {
+        return new File(directory, LOG_FILE);
+    }
+
+    /**
+     * Returns the number of records of the log
+     *
+     * @return long
+     */
+    public long getRecords() {
+        lock.readLock().lock();
+        try {
+            return records;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of documents of the store
+     *
+     * @return int
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int size = 0;
+            for(Map<String, DBObject> documents: collections.values()){
+                size += documents.size();
+            }
+            return size;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of a document
+     *
+     * @param collection String
+     * @param id String
+     * @return DBObject null if the document does not exist
+     */
+    public DBObject get(final String collection, final String id) {
+        lock.readLock().lock();
+        try {
+            final DBObject document = getDocuments(collection).get(id);
+            return document == null ? null : copy(document);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sorted ids of a collection
+     *
+     * @param collection String
+     * @return List<String>
+     */
+    public List<String> getIds(final String collection) {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<String>(getDocuments(collection).keySet());
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sorted ids of the documents that have a value, or a list that contains the value, in an indexed field
+     *
+     * @param collection String
+     * @param field String
+     * @param value Object
+     * @return List<String>
+     */
+    public List<String> getIds(final String collection, final String field, final Object value) {
+        lock.readLock().lock();
+        try {
+            final SortedSet<String> ids = getIndex(collection, field).get(value);
+            return ids == null ? new ArrayList<String>() : new ArrayList<String>(ids);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the distinct values of an indexed field
+     *
+     * @param collection String
+     * @param field String
+     * @return Set<Object>
+     */
+    public Set<Object> getIndexedValues(final String collection, final String field) {
+        lock.readLock().lock();
+        try {
+            return new HashSet<Object>(getIndex(collection, field).keySet());
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the documents of a collection sorted by id
+     *
+     * @param collection String
+     * @param ids Collection<String> the ids of the documents, all the documents if null
+     * @return List<DBObject>
+     */
+    public List<DBObject> getDocuments(final String collection, final Collection<String> ids) {
+        lock.readLock().lock();
+        try {
+            final TreeMap<String, DBObject> documents = getDocuments(collection);
+            final List<DBObject> results = new ArrayList<DBObject>();
+
+            if(ids == null){
+                for(DBObject document: documents.values()){
+                    results.add(copy(document));
+                }
+            }
+            else{
+                for(String id: new TreeSet<String>(ids)){
+                    final DBObject document = documents.get(id);
+                    if(document != null){
+                        results.add(copy(document));
+                    }
+                }
+            }
+
+            return results;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a document
+     *
+     * @param collection String
+     * @param id String
+     * @param document DBObject
+     */
+    public void put(final String collection, final String id, final DBObject document) {
+        lock.writeLock().lock();
+        try {
+            final String json = append(collection, id, document);
+            apply(collection, id, getDocument(json));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a document if there is no document with the same id
+     *
+     * @param collection String
+     * @param id String
+     * @param document DBObject
+     * @return boolean true if the document has been added
+     */
+    public boolean putIfAbsent(final String collection, final String id, final DBObject document) {
+        lock.writeLock().lock();
+        try {
+            if(getDocuments(collection).containsKey(id)){
+                return false;
+            }
+            put(collection, id, document);
+            return true;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document
+     *
+     * @param collection String
+     * @param id String
+     * @return boolean true if the document existed
+     */
+    public boolean remove(final String collection, final String id) {
+        lock.writeLock().lock();
+        try {
+            if(!getDocuments(collection).containsKey(id)){
+                return false;
+            }
+            append(collection, id, null);
+            apply(collection, id, null);
+            return true;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates a set of documents under a single write lock
+     *
+     * @param collection String
+     * @param ids Collection<String>
+     * @param update Update applied on a copy of each document
+     */
+    public void update(final String collection, final Collection<String> ids, final Update update) {
+        lock.writeLock().lock();
+        try {
+            for(String id: ids){
+                final DBObject document = get(collection, id);
+                if(document != null && update.apply(document)){
+                    put(collection, id, document);
+                }
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Modification of a document
+     */
+    public interface Update {
+        /**
+         * Modifies the document
+         *
+         * @param document DBObject
+         * @return boolean true if the document has been modified and has to be written
+         */
+        boolean apply(DBObject document);
+    }
+
+    private String append(final String collection, final String id, final DBObject document) {
+        if(writer == null){
+            throw new IllegalStateException("The embedded database is not opened.");
+        }
+
+        final String json = JSON.serialize(document);
+        try {
+            writer.write(toRecord(collection, id, json));
+            writer.write('\n');
+            writer.flush();
+            records++;
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Failed to write the database log: " + e.getMessage(), e);
+        }
+
+        return json;
+    }
+
+    private static String toRecord(final String collection, final String id, final String json) {
+        final BasicDBObject record = new BasicDBObject(COLLECTION_FIELD, collection).append(ID_FIELD, id);
+        final String header = JSON.serialize(record);
+
+        // the document is already serialized: it is appended to the record instead of being serialized again
+        return header.substring(0, header.lastIndexOf('}')) + ", \"" + DOCUMENT_FIELD + "\" : " + json + "}";
+    }
+
+    /**
+     * Opens a log and locks it
+     *
+     * @param logFile File
+     * @return RandomAccessFile
+     * @throws IOException if the log cannot be opened
+     * @throws DBException if the log is locked
+     */
+    private static RandomAccessFile lockLog(final File logFile) throws IOException, DBException {
+        final RandomAccessFile logAccess = new RandomAccessFile(logFile, "rw");
+        FileLock fileLock = null;
+        try {
+            fileLock = logAccess.getChannel().tryLock();
+        }
+        catch (OverlappingFileLockException e) {
+            // the log is already opened by this server
+            LOG.debug("The database log is locked.", e);
+        }
+        catch (IOException e) {
+            logAccess.close();
+            throw e;
+        }
+
+        if(fileLock == null){
+            logAccess.close();
+            throw new DBException("The database log " + logFile.getAbsolutePath() + " is used by another store.");
+        }
+
+        return logAccess;
+    }
+
+    private void closeLog() {
+        if(log == null){
+            return;
+        }
+        try {
+            // the lock is released with the file
+            log.close();
+        }
+        catch (IOException e) {
+            LOG.error("Failed to release the database log.", e);
+        }
+        log = null;
+    }
+
+    private void replay(final FileChannel channel) throws IOException {
+        // the reader is not closed: it would close the locked log
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), Charsets.UTF_8));
+        String line = reader.readLine();
+        while(line != null){
+            if(!line.isEmpty()){
+                replay(line);
+            }
+            line = reader.readLine();
+        }
+    }
+
+    private void replay(final String line) {
+        final DBObject record;
+        try {
+            record = (DBObject) JSON.parse(line);
+        }
+        catch (JSONParseException e) {
+            // the last record may have been partially written if the server has been killed
+            LOG.warn("Ignoring a corrupted record of the database log: " + line);
+            return;
+        }
+
+        apply((String) record.get(COLLECTION_FIELD), (String) record.get(ID_FIELD), (DBObject) record.get(DOCUMENT_FIELD));
+        records++;
+    }
+
+    /**
+     * Rewrites the log with only the current documents. The log is kept as it is if it cannot be replaced.
+     *
+     * @param logFile File
+     * @throws IOException if the compacted log cannot be opened
+     * @throws DBException if the compacted log is locked
+     */
+    private void compact(final File logFile) throws IOException, DBException {
+        LOG.info("Compacting the database log: " + records + " records for " + size() + " documents.");
+
+        final File compacted = new File(directory, COMPACTED_LOG_FILE);
+        try {
+            writeCompactedLog(compacted);
+            replaceLog(compacted, logFile);
+        }
+        catch (IOException e) {
+            LOG.error("Failed to compact the database log, it will be compacted when it is opened again.", e);
+            if(compacted.exists() && !compacted.delete()){
+                LOG.warn("Cannot delete " + compacted.getAbsolutePath());
+            }
+            return;
+        }
+
+        // the lock of the replaced log does not protect the compacted one
+        closeLog();
+        log = lockLog(logFile);
+        records = size();
+    }
+
+    private void writeCompactedLog(final File compacted) throws IOException {
+        final Writer compactedWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(compacted), Charsets.UTF_8));
+        try {
+            for(Map.Entry<String, TreeMap<String, DBObject>> collection: collections.entrySet()){
+                for(Map.Entry<String, DBObject> document: collection.getValue().entrySet()){
+                    compactedWriter.write(toRecord(collection.getKey(), document.getKey(), JSON.serialize(document.getValue())));
+                    compactedWriter.write('\n');
+                }
+            }
+        }
+        finally {
+            compactedWriter.close();
+        }
+    }
+
+    /**
+     * Replaces the log by its compaction. The log is kept until the compacted log replaces it: if the server stops
+     * in between, the log is restored when the store is opened.
+     *
+     * @param compacted File
+     * @param logFile File
+     * @throws IOException if the log cannot be replaced
+     */
+    private void replaceLog(final File compacted, final File logFile) throws IOException {
+        // atomic on the systems where a file can be renamed over an existing one
+        if(compacted.renameTo(logFile)){
+            return;
+        }
+
+        final File previousLogFile = new File(directory, PREVIOUS_LOG_FILE);
+        if(previousLogFile.exists() && !previousLogFile.delete()){
+            throw new IOException("Cannot delete " + previousLogFile.getAbsolutePath());
+        }
+        if(!logFile.renameTo(previousLogFile)){
+            throw new IOException("Cannot move the database log to " + previousLogFile.getAbsolutePath());
+        }
+        if(!compacted.renameTo(logFile)){
+            if(!previousLogFile.renameTo(logFile)){
+                LOG.error("Cannot restore the database log, it will be restored from " + previousLogFile.getAbsolutePath() + " when it is opened again.");
+            }
+            throw new IOException("Cannot replace the database log by " + compacted.getAbsolutePath());
+        }
+        if(!previousLogFile.delete()){
+            LOG.warn("Cannot delete " + previousLogFile.getAbsolutePath());
+        }
+    }
+
+    private static boolean endsWithNewLine(final FileChannel channel) throws IOException {
+        if(channel.size() == 0){
+            return true;
+        }
+
+        final ByteBuffer lastByte = ByteBuffer.allocate(1);
+        channel.read(lastByte, channel.size() - 1);
+        return lastByte.get(0) == '\n';
+    }
+
+    private void apply(final String collection, final String id, final DBObject document) {
+        TreeMap<String, DBObject> documents = collections.get(collection);
+        if(documents == null){
+            documents = new TreeMap<String, DBObject>();
+            collections.put(collection, documents);
+        }
+        final DBObject previous = document == null ? documents.remove(id) : documents.put(id, document);
+
+        for(Map.Entry<String, Map<Object, SortedSet<String>>> index: getIndexes(collection).entrySet()){
+            if(previous != null){
+                for(Object value: getValues(previous, index.getKey())){
+                    final SortedSet<String> ids = index.getValue().get(value);
+                    ids.remove(id);
+                    if(ids.isEmpty()){
+                        index.getValue().remove(value);
+                    }
+                }
+            }
+            if(document != null){
+                for(Object value: getValues(document, index.getKey())){
+                    SortedSet<String> ids = index.getValue().get(value);
+                    if(ids == null){
+                        ids = new TreeSet<String>();
+                        index.getValue().put(value, ids);
+                    }
+                    ids.add(id);
+                }
+            }
+        }
+    }
+
+    private static Collection<Object> getValues(final DBObject document, final String field) {
+        final Object value = document.get(field);
+
+        if(value == null){
+            return Collections.emptyList();
+        }
+        if(value instanceof List){
+            return new HashSet<Object>((List<?>) value);
+        }
+
+        return Collections.singletonList(value);
+    }
+
+    private TreeMap<String, DBObject> getDocuments(final String collection) {
+        final TreeMap<String, DBObject> documents = collections.get(collection);
+        if(documents == null){
+            // not added to the collections: the readers must not modify the store
+            return new TreeMap<String, DBObject>();
+        }
+        return documents;
+    }
+
+    private Map<String, Map<Object, SortedSet<String>>> getIndexes(final String collection) {
+        final Map<String, Map<Object, SortedSet<String>>> collectionIndexes = indexes.get(collection);
+        if(collectionIndexes == null){
+            return Collections.emptyMap();
+        }
+        return collectionIndexes;
+    }
+
+    private Map<Object, SortedSet<String>> getIndex(final String collection, final String field) {
+        final Map<Object, SortedSet<String>> index = getIndexes(collection).get(field);
+        if(index == null){
+            throw new IllegalArgumentException("There is no index on " + collection + "." + field);
+        }
+        return index;
+    }
+
+    private static DBObject getDocument(final String json) {
+        return (DBObject) JSON.parse(json);
+    }
+
+    private static DBObject copy(final DBObject document) {
+        return (DBObject) ((BasicDBObject) document).copy();
+    }
+}
@@ -59,11 +59,12 @@ public final class JongoUtils {
 	}
 
 	/**
-	 * Handle the serialization of String, Integer and boolean parameters.
+	 * Handle the serialization of String, Integer, boolean, regexp, null and sub-query parameters.
 	 * 
 	 * @param param to serialize
 	 * @return Object
 	 */
+	@SuppressWarnings("unchecked")
 	private static Object getParam(final Object param) {
 		final StringBuilder sb = new StringBuilder();
 		if(param instanceof String){
@@ -82,6 +83,12 @@ public final class JongoUtils {
             sb.append(((DBRegExp) param).toString());
             sb.append('/');
         }
+        else if(param instanceof Map){
+            sb.append(generateQuery((Map<String, Object>) param));
+        }
+        else if(param == null){
+            sb.append("null");
+        }
 		
 		return sb.toString();
 	}
@@ -0,0 +1,139 @@
+package org.axway.grapes.server.db.mongo;
+
+import com.mongodb.DB;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.ReadPreference;
+import com.mongodb.ServerAddress;
+import com.yammer.dropwizard.lifecycle.Managed;
+import org.axway.grapes.server.config.DataBaseConfig;
+import org.jongo.Jongo;
+import org.jongo.Mapper;
+import org.jongo.marshall.jackson.JacksonMapper;
+
+import java.net.UnknownHostException;
+
+/**
+ * Mongodb Connection
+ *
+ * <p>Holds the connection pool to the database. A single instance is created at server startup and shared by the
+ * repository handler, the tasks and the health checks. The pool is closed when the server stops.</p>
+ */
+public class MongodbConnection implements Managed {
+
+    private final DataBaseConfig config;
+    private final MongoClient mongo;
+    private final Mapper mapper = new JacksonMapper.Builder().build();
+    private DB db;
+    private Jongo jongo;
+
+    public MongodbConnection(final DataBaseConfig config) throws UnknownHostException {
+        this.config = config;
+
+        final ServerAddress address = new ServerAddress(config.getHost() , config.getPort());
+        mongo = new MongoClient(address, getOptions(config));
+    }
+
+    /**
+     * Generates the options of the connection pool regarding the configuration.
+     * A value that is not set in the configuration keeps the driver default value.
+     *
+     * @param config DataBaseConfig
+     * @return MongoClientOptions
+     */
+    private static MongoClientOptions getOptions(final DataBaseConfig config) {
+        final MongoClientOptions.Builder options = MongoClientOptions.builder();
+
+        if(config.getPoolSize() > 0){
+            options.connectionsPerHost(config.getPoolSize());
+
+            if(config.getWaitQueueSize() > 0){
+                // The driver sizes the wait queue as a multiple of the pool size
+                options.threadsAllowedToBlockForConnectionMultiplier(
+                        Math.max(1, config.getWaitQueueSize() / config.getPoolSize()));
+            }
+        }
+        if(config.getConnectTimeout() >= 0){
+            options.connectTimeout(config.getConnectTimeout());
+        }
+        if(config.getSocketTimeout() >= 0){
+            options.socketTimeout(config.getSocketTimeout());
+        }
+        if(config.getReadPreference() != null){
+            options.readPreference(ReadPreference.valueOf(config.getReadPreference()));
+        }
+
+        return options.build();
+    }
+
+    /**
+     * Returns the client that holds the connection pool
+     *
+     * @return MongoClient
+     */
+    public MongoClient getMongo() {
+        return mongo;
+    }
+
+    /**
+     * Returns the Grapes database, the authentication is performed at first call
+     *
+     * @return DB
+     */
+    public synchronized DB getDb() {
+        if(db == null){
+            final DB database = mongo.getDB(config.getDatastore());
+
+            if(config.getUser() != null && config.getPwd() != null){
+                database.authenticate(config.getUser(), config.getPwd());
+            }
+
+            db = database;
+        }
+
+        return db;
+    }
+
+    /**
+     * Returns the Jongo instance shared by all the database accesses
+     *
+     * @return Jongo
+     */
+    public synchronized Jongo getJongo() {
+        if(jongo == null){
+            jongo = new Jongo(getDb(), mapper);
+        }
+
+        return jongo;
+    }
+
+    /**
+     * Returns the mapper used by Jongo to marshall and unmarshall the documents
+     *
+     * @return Mapper
+     */
+    public Mapper getMapper() {
+        return mapper;
+    }
+
+    /**
+     * Sends a ping to the database using the connection pool
+     *
+     * @return long the round-trip in milliseconds
+     */
+    public long ping() {
+        final long start = System.currentTimeMillis();
+        getDb().command("ping").throwOnError();
+        return System.currentTimeMillis() - start;
+    }
+
+    @Override
+    public void start() throws Exception {
+        // the connections are created on demand
+    }
+
+    @Override
+    public void stop() throws Exception {
+        mongo.close();
+    }
+}
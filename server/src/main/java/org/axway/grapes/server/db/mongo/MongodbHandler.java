@@ -1,25 +1,46 @@
 package org.axway.grapes.server.db.mongo;
 
+import com.google.common.base.Function;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
-import com.mongodb.DB;
-import com.mongodb.MongoClient;
-import com.mongodb.ServerAddress;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
+import com.mongodb.WriteResult;
 import com.sun.jersey.api.NotFoundException;
-import org.axway.grapes.server.config.DataBaseConfig;
+import org.axway.grapes.server.core.VersionsHandler;
 import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.core.options.Pagination;
+import org.axway.grapes.server.core.version.NotHandledVersionException;
+import org.axway.grapes.server.core.version.Version;
 import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.DbCursor;
+import org.axway.grapes.server.db.DependencyGraphIndex;
+import org.axway.grapes.server.db.LicenseResolver;
+import org.axway.grapes.server.db.ModuleClosureUpdater;
+import org.axway.grapes.server.db.OrganizationMatcher;
+import org.axway.grapes.server.db.PromotionStatusCache;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.*;
 import org.axway.grapes.server.db.datamodel.DbCredential.AvailableRoles;
+import org.jongo.Aggregate;
+import org.jongo.Find;
 import org.jongo.Jongo;
 import org.jongo.MongoCollection;
+import org.jongo.ResultHandler;
+import org.jongo.bson.Bson;
+import org.jongo.marshall.Unmarshaller;
+import org.jongo.query.Query;
+import org.jongo.query.QueryFactory;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
-import java.net.UnknownHostException;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -31,19 +52,73 @@ import java.util.regex.Pattern;
  * @author jdcoffre
  */
 public class MongodbHandler implements RepositoryHandler {
+    // sort order of the paginated requests
+    private static final String ID_ORDER = "{" + DbCollections.DEFAULT_ID + ": 1}";
+
+    // number of documents inserted at once while rebuilding a collection
+    private static final int BATCH_SIZE = 1000;
+
+    // maps a result document to its id
+    private static final ResultHandler<String> ID_MAPPER = new ResultHandler<String>() {
+        @Override
+        public String map(final DBObject result) {
+            return (String) result.get(DbCollections.DEFAULT_ID);
+        }
+    };
+
+    // maps the result of a count aggregation
+    private static final ResultHandler<Long> COUNT_MAPPER = new ResultHandler<Long>() {
+        @Override
+        public Long map(final DBObject result) {
+            return ((Number) result.get("count")).longValue();
+        }
+    };
+
     // cache for credentials
     private LoadingCache<String, DbCredential> credentialCache;
-    // DB connection
-    private final DB db;
+    // shared DB connection
+    private final MongodbConnection connection;
+    // in-memory index of the module dependency graph
+    private final DependencyGraphIndex graphIndex = new DependencyGraphIndex(this);
+    // compiled at the first use, reset when an organization is stored or deleted
+    private volatile OrganizationMatcher organizationMatcher;
+    private final Object organizationMatcherLock = new Object();
+    // created at the first use, reset when a license is stored, approved or deleted
+    private volatile LicenseResolver licenseResolver;
+    private final Object licenseResolverLock = new Object();
+    // promotion statuses of the modules, invalidated when a module or an artifact of their closure is updated
+    private final PromotionStatusCache promotionStatusCache = new PromotionStatusCache();
+    // maintains the module closures in background
+    private final ModuleClosureUpdater moduleClosureUpdater;
+
+    public MongodbHandler(final MongodbConnection connection) {
+        this.connection = connection;
+        this.moduleClosureUpdater = new ModuleClosureUpdater(this, new ModuleClosureUpdater.ClosureStore() {
+            @Override
+            public void store(final DbModuleClosure closure) {
+                getModuleClosures().update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, closure.getModuleId()))
+                        .upsert()
+                        .with(closure);
+            }
 
-    public MongodbHandler(final DataBaseConfig config) throws UnknownHostException {
-        final ServerAddress address = new ServerAddress(config.getHost() , config.getPort());
-        final MongoClient mongo = new MongoClient(address);
-        db = mongo.getDB(config.getDatastore());
+            @Override
+            public void insert(final List<DbModuleClosure> closures) {
+                getModuleClosures().insert(closures.toArray());
+            }
 
-        if(config.getUser() != null && config.getPwd() != null){
-            db.authenticate(config.getUser(), config.getPwd());
-        }
+            @Override
+            public void remove(final String moduleId) {
+                getModuleClosures().remove(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, moduleId));
+            }
+
+            @Override
+            public void clear() {
+                getModuleClosures().remove();
+            }
+        });
+
+        // Make sure that the queries are backed by indexes before serving any request
+        MongodbIndexes.ensure(connection.getDb());
 
         // Init credentials' cache
         credentialCache = CacheBuilder.newBuilder()
@@ -57,29 +132,70 @@ public class MongodbHandler implements RepositoryHandler {
     }
     
     /**
-	 * Initialize a connection with the database using Jongo.
-	 * 
-	 * <p>WARNING: The database connection is closed only when Datastore instance is garbage collected!!!!</p>
+	 * Returns the Jongo instance of the shared database connection.
 	 * 
 	 * @return Jongo instance
 	 */
 	private Jongo getJongoDataStore() {
-		return new Jongo(db);
+		return connection.getJongo();
 	}
 
+    /**
+     * Marshalls an entity into a document, used to build the partial updates
+     *
+     * @param entity Object
+     * @return DBObject
+     */
+    private DBObject toDBObject(final Object entity) {
+        return connection.getMapper().getMarshaller().marshall(entity).toDBObject();
+    }
+
+    /**
+     * Opens a cursor on the documents of a collection that match a query, the documents are unmarshalled while
+     * iterating and the database cursor is released when the returned cursor is closed
+     *
+     * @param collectionName String
+     * @param query String
+     * @param pagination Pagination
+     * @param entityClass Class<T>
+     * @return DbCursor<T>
+     */
+    private <T> DbCursor<T> openCursor(final String collectionName, final String query, final Pagination pagination,
+                                       final Class<T> entityClass) {
+        final QueryFactory queryFactory = connection.getMapper().getQueryFactory();
+        final DBCollection collection = getJongoDataStore().getCollection(collectionName).getDBCollection();
+
+        final DBCursor cursor;
+        if(!pagination.isPaginated()){
+            cursor = collection.find(queryFactory.createQuery(query).toDBObject());
+        }
+        else{
+            final Query pageQuery = pagination.getCursor() == null ?
+                    queryFactory.createQuery(query) :
+                    queryFactory.createQuery(getNextPageQuery(query), pagination.getCursor());
+            cursor = collection.find(pageQuery.toDBObject())
+                    .sort(queryFactory.createQuery(ID_ORDER).toDBObject())
+                    .skip(pagination.getOffset())
+                    .limit(pagination.getLimit());
+        }
+
+        final Unmarshaller unmarshaller = connection.getMapper().getUnmarshaller();
+        return new DbCursor<T>(Iterators.transform(cursor, new Function<DBObject, T>() {
+            @Override
+            public T apply(final DBObject document) {
+                return unmarshaller.unmarshall(Bson.createDocument(document), entityClass);
+            }
+        }), cursor);
+    }
+
     @Override
 	public void store(final DbCredential credential) {
         final Jongo datastore = getJongoDataStore();
         final MongoCollection dbCredentials = datastore.getCollection(DbCollections.DB_CREDENTIALS);
 
-		final DbCredential dbCredential = getCredential(credential.getUser());
-
-        if(dbCredential == null){
-            dbCredentials.save(credential);
-        }
-        else{
-            dbCredentials.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, dbCredential.getUser())).with(credential);
-        }
+        dbCredentials.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, credential.getUser()))
+                .upsert()
+                .with(credential);
 
         credentialCache.invalidate(credential.getUser());
 	}
@@ -136,22 +252,60 @@ public class MongodbHandler implements RepositoryHandler {
     public void store(final DbLicense license) {
         final Jongo datastore = getJongoDataStore();
         final MongoCollection dbLicenses = datastore.getCollection(DbCollections.DB_LICENSES);
-        final DbLicense dbLicense = getLicense(license.getName());
 
-        if(dbLicense == null){
-            dbLicenses.save(license);
+        dbLicenses.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, license.getName()))
+                .upsert()
+                .with(license);
+        resetLicenseResolver();
+    }
+
+    @Override
+    public List<String> getLicenseNames(final FiltersHolder filters) {
+        if(!filters.isLicenseQuery()){
+            final List<String> licenseNames = getFilteredLicenseNames(filters);
+            if(filters.getPagination().isPaginated()){
+                return filters.getPagination().apply(licenseNames);
+            }
+            return licenseNames;
         }
-        else {
-            dbLicenses.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, dbLicense.getName())).with(license);
+
+        final Jongo datastore = getJongoDataStore();
+        final MongoCollection licenses = datastore.getCollection(DbCollections.DB_LICENSES);
+        final String query = JongoUtils.generateQuery(filters.getLicenseFieldsFilters());
+
+        // the name is the id, only the ids are read
+        Find find = find(licenses, query, filters.getPagination());
+        if(!filters.getPagination().isPaginated()){
+            find = find.sort(ID_ORDER);
         }
 
+        return Lists.newArrayList(find.projection("{" + DbCollections.DEFAULT_ID + ": 1}").map(ID_MAPPER));
     }
 
     @Override
-    public List<String> getLicenseNames(final FiltersHolder filters) {
+    public long getLicenseNamesCount(final FiltersHolder filters) {
+        if(!filters.isLicenseQuery()){
+            return getFilteredLicenseNames(filters).size();
+        }
+
+        final Jongo datastore = getJongoDataStore();
+        return datastore.getCollection(DbCollections.DB_LICENSES)
+                .count(JongoUtils.generateQuery(filters.getLicenseFieldsFilters()));
+    }
+
+    /**
+     * Returns the sorted names of the licenses matching filters that cannot all be expressed as a query:
+     * the query selects the licenses and the remaining filters are checked on each license
+     *
+     * @param filters FiltersHolder
+     * @return List<String>
+     */
+    private List<String> getFilteredLicenseNames(final FiltersHolder filters) {
         final Jongo datastore = getJongoDataStore();
         final Iterable<DbLicense> dbLicenses = datastore.getCollection(DbCollections.DB_LICENSES)
-                .find().as(DbLicense.class);
+                .find(JongoUtils.generateQuery(filters.getLicenseFieldsFilters()))
+                .sort(ID_ORDER)
+                .as(DbLicense.class);
 
         final List<String> licenseNames = new ArrayList<String>();
         for(DbLicense dbLicense: dbLicenses){
@@ -191,22 +345,29 @@ public class MongodbHandler implements RepositoryHandler {
             final Jongo datastore = getJongoDataStore();
             datastore.getCollection(DbCollections.DB_LICENSES)
                     .remove(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, name));
+            resetLicenseResolver();
         }
     }
 
     @Override
     public List<DbArtifact> getArtifacts(final FiltersHolder filters) {
         final Jongo datastore = getJongoDataStore();
-        final List<DbArtifact> artifacts = new ArrayList<DbArtifact>();
+        return Lists.newArrayList(find(datastore.getCollection(DbCollections.DB_ARTIFACTS),
+                JongoUtils.generateQuery(filters.getArtifactFieldsFilters()), filters.getPagination())
+                .as(DbArtifact.class));
+    }
 
-        final Iterable<DbArtifact> dbArtifacts = datastore.getCollection(DbCollections.DB_ARTIFACTS)
-                .find(JongoUtils.generateQuery(filters.getArtifactFieldsFilters()))
-                .as(DbArtifact.class);
+    @Override
+    public DbCursor<DbArtifact> getArtifactsCursor(final FiltersHolder filters) {
+        return openCursor(DbCollections.DB_ARTIFACTS, JongoUtils.generateQuery(filters.getArtifactFieldsFilters()),
+                filters.getPagination(), DbArtifact.class);
+    }
 
-        for(DbArtifact dbArtifact: dbArtifacts){
-            artifacts.add(dbArtifact);
-        }
-        return artifacts;
+    @Override
+    public long getArtifactsCount(final FiltersHolder filters) {
+        final Jongo datastore = getJongoDataStore();
+        return datastore.getCollection(DbCollections.DB_ARTIFACTS)
+                .count(JongoUtils.generateQuery(filters.getArtifactFieldsFilters()));
     }
 
     @Override
@@ -239,41 +400,95 @@ public class MongodbHandler implements RepositoryHandler {
 
         licenses.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, license.getName()))
                 .with("{ $set: { \""+ DbLicense.APPROVED_DB_FIELD + "\": #}} " , approved);
+        resetLicenseResolver();
     }
 
     @Override
     public void store(final DbArtifact artifact) {
         final Jongo datastore = getJongoDataStore();
         final MongoCollection dbArtifacts = datastore.getCollection(DbCollections.DB_ARTIFACTS);
-        final DbArtifact dbArtifact = getArtifact(artifact.getGavc());
 
-        if(dbArtifact == null){
-            dbArtifacts.save(artifact);
+        final DBObject fields = toDBObject(artifact);
+        fields.removeField(DbCollections.DEFAULT_ID);
+
+        // Important: merge existing license and new ones :
+        //    * because an existing license could have been manually enforce by a user
+        //    * because all Grapes clients are not to send license information
+        fields.removeField(DbArtifact.LICENCES_DB_FIELD);
+
+        dbArtifacts.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, artifact.getGavc()))
+                .upsert()
+                .with("{$set: #, $addToSet: {" + DbArtifact.LICENCES_DB_FIELD + ": {$each: #}}}",
+                        fields, artifact.getLicenses());
+
+        addLatestVersions(artifact, Collections.singletonList(artifact.getVersion()));
+        promotionStatusCache.invalidateArtifact(artifact.getGavc());
+    }
+
+    @Override
+    public void storeIfNew(final Collection<DbArtifact> dbArtifacts) {
+        if(dbArtifacts.isEmpty()){
+            return;
         }
-        else{
 
-            // Important: merge existing license and new ones :
-            //    * because an existing license could have been manually enforce by a user
-            //    * because all Grapes clients are not to send license information
-            for(String license: dbArtifact.getLicenses()){
-                artifact.addLicense(license);
-            }
+        final List<DBObject> documents = new ArrayList<DBObject>(dbArtifacts.size());
+        for(DbArtifact dbArtifact: dbArtifacts){
+            documents.add(toDBObject(dbArtifact));
+        }
 
-            dbArtifacts.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, dbArtifact.getGavc())).with(artifact);
+        final Jongo datastore = getJongoDataStore();
+        final DBCollection artifacts = datastore.getCollection(DbCollections.DB_ARTIFACTS).getDBCollection();
+
+        try{
+            // the existing artifacts are rejected by the unique id while the new ones are inserted
+            artifacts.insert(documents, WriteConcern.ACKNOWLEDGED.continueOnErrorForInsert(true));
+        }
+        catch (MongoException.DuplicateKey e){
+            // expected when some of the artifacts already exist
+        }
+
+        final Map<String, DbArtifact> coordinates = new HashMap<String, DbArtifact>();
+        final Map<String, List<String>> versions = new HashMap<String, List<String>>();
+        for(DbArtifact dbArtifact: dbArtifacts){
+            final String id = DbLatestVersions.generateID(dbArtifact);
+            if(!coordinates.containsKey(id)){
+                coordinates.put(id, dbArtifact);
+                versions.put(id, new ArrayList<String>());
+            }
+            versions.get(id).add(dbArtifact.getVersion());
+            promotionStatusCache.invalidateArtifact(dbArtifact.getGavc());
+        }
+        for(Map.Entry<String, DbArtifact> entry: coordinates.entrySet()){
+            addLatestVersions(entry.getValue(), versions.get(entry.getKey()));
         }
     }
 
     @Override
     public List<String> getGavcs(final FiltersHolder filters) {
         final Jongo datastore = getJongoDataStore();
-        return datastore.getCollection(DbCollections.DB_ARTIFACTS).distinct(DbCollections.DEFAULT_ID)
-                .query(JongoUtils.generateQuery(filters.getArtifactFieldsFilters())).as(String.class);
+        final MongoCollection artifacts = datastore.getCollection(DbCollections.DB_ARTIFACTS);
+        final String query = JongoUtils.generateQuery(filters.getArtifactFieldsFilters());
+
+        if(!filters.getPagination().isPaginated()){
+            return artifacts.distinct(DbCollections.DEFAULT_ID).query(query).as(String.class);
+        }
+
+        // the gavc is the id, the page is read from the id index
+        return Lists.newArrayList(find(artifacts, query, filters.getPagination())
+                .projection("{" + DbCollections.DEFAULT_ID + ": 1}")
+                .map(ID_MAPPER));
     }
 
     @Override
     public List<String> getGroupIds(final FiltersHolder filters) {
-        final Jongo datastore = getJongoDataStore();
-        return datastore.getCollection(DbCollections.DB_ARTIFACTS).distinct(DbArtifact.GROUPID_DB_FIELD).as(String.class);
+        return getDistinctValues(DbCollections.DB_ARTIFACTS, DbArtifact.GROUPID_DB_FIELD,
+                JongoUtils.generateQuery(filters.getArtifactFieldsFilters()), filters.getPagination());
+    }
+
+    @Override
+    public long getGroupIdsCount(final FiltersHolder filters) {
+        return countDistinctValues(DbCollections.DB_ARTIFACTS, DbArtifact.GROUPID_DB_FIELD,
+                JongoUtils.generateQuery(filters.getArtifactFieldsFilters()));
     }
 
     @Override
@@ -289,6 +504,213 @@ public class MongodbHandler implements RepositoryHandler {
                 query(JongoUtils.generateQuery(params)).as(String.class);
     }
 
+    @Override
+    public DbLatestVersions getLatestVersions(final DbArtifact artifact) {
+        final Jongo datastore = getJongoDataStore();
+        return datastore.getCollection(DbCollections.DB_LATEST_VERSIONS)
+                .findOne("{ " + DbCollections.DEFAULT_ID + ": #}", DbLatestVersions.generateID(artifact))
+                .as(DbLatestVersions.class);
+    }
+
+    /**
+     * Adds versions to the latest versions of an artifact.
+     *
+     * <p>When the greatest added version is a release or a snapshot that is not a branch version and that is
+     * greater than or equal to the last version, its sort key is compared by the database: the versions are added
+     * and the last versions are set by a single conditional upsert that also creates the latest versions of a new
+     * artifact. Otherwise, a conditional update adds the versions with the new last release or without changing the
+     * last versions, and the latest versions that cannot be updated this way (branch versions, versions that are not
+     * handled or cannot be compared) are computed again from all their versions.</p>
+     *
+     * @param artifact DbArtifact
+     * @param versions List<String>
+     */
+    private void addLatestVersions(final DbArtifact artifact, final List<String> versions) {
+        Version lastVersion = null;
+        Version lastRelease = null;
+
+        for(String version: versions){
+            final Version parsed;
+            try {
+                parsed = Version.of(version);
+            }
+            catch (NotHandledVersionException e) {
+                updateLatestVersions(artifact, versions, true);
+                return;
+            }
+
+            if(parsed.isBranch()){
+                updateLatestVersions(artifact, versions, true);
+                return;
+            }
+            if(lastVersion == null || lastVersion.compareTo(parsed) < 0){
+                lastVersion = parsed;
+            }
+            if(parsed.isRelease() && (lastRelease == null || lastRelease.compareTo(parsed) < 0)){
+                lastRelease = parsed;
+            }
+        }
+
+        if(lastVersion == null){
+            return;
+        }
+        final boolean lastIsRelease = lastRelease != null && lastRelease.compareTo(lastVersion) == 0;
+
+        final MongoCollection latestVersions = getJongoDataStore().getCollection(DbCollections.DB_LATEST_VERSIONS);
+        final String id = DbLatestVersions.generateID(artifact);
+        final String addVersions = "$addToSet: { " + DbLatestVersions.VERSIONS_DB_FIELD + ": { $each: #}}";
+        final String lastVersionKey = lastVersion.getSortKey();
+
+        final DBObject lastVersions = new BasicDBObject(DbLatestVersions.COMPARABLE_DB_FIELD, true)
+                .append(DbLatestVersions.LAST_VERSION_DB_FIELD, lastVersion.toString())
+                .append(DbLatestVersions.LAST_VERSION_KEY_DB_FIELD, lastVersionKey);
+        // the last version is greater than or equal to the last release
+        if(lastIsRelease){
+            lastVersions.put(DbLatestVersions.LAST_RELEASE_DB_FIELD, lastRelease.toString());
+            lastVersions.put(DbLatestVersions.LAST_RELEASE_KEY_DB_FIELD, lastRelease.getSortKey());
+        }
+
+        try {
+            latestVersions.update("{ " + DbCollections.DEFAULT_ID + ": #, " +
+                    DbLatestVersions.COMPARABLE_DB_FIELD + ": { $ne: false}, $or: [" +
+                    "{ " + DbLatestVersions.LAST_VERSION_KEY_DB_FIELD + ": { $lte: #}}, " +
+                    "{ " + DbLatestVersions.VERSIONS_DB_FIELD + ": { $size: 0}}]}", id, lastVersionKey)
+                    .upsert()
+                    .with("{ " + addVersions + ", $set: #}", versions, lastVersions);
+            if(lastIsRelease || lastRelease == null){
+                return;
+            }
+        }
+        catch (MongoException.DuplicateKey e){
+            // the latest versions exist and their last version is greater or cannot be compared with the sort key
+        }
+
+        // the latest versions only hold comparable versions that are not branch versions
+        final String comparableQuery = "{ " + DbCollections.DEFAULT_ID + ": #, " +
+                DbLatestVersions.COMPARABLE_DB_FIELD + ": { $ne: false}, " +
+                DbLatestVersions.LAST_VERSION_KEY_DB_FIELD + ": { $gte: #, $lt: \"1\"}";
+
+        if(lastRelease != null){
+            final String lastReleaseKey = lastRelease.getSortKey();
+            final WriteResult result = latestVersions.update(comparableQuery + ", " +
+                    DbLatestVersions.LAST_RELEASE_KEY_DB_FIELD + ": { $not: { $gt: #}}}", id, lastVersionKey, lastReleaseKey)
+                    .with("{ " + addVersions + ", $set: { " + DbLatestVersions.LAST_RELEASE_DB_FIELD + ": #, " +
+                            DbLatestVersions.LAST_RELEASE_KEY_DB_FIELD + ": #}}",
+                            versions, lastRelease.toString(), lastReleaseKey);
+            if(result.getN() > 0){
+                return;
+            }
+        }
+
+        final WriteResult result = lastRelease == null ?
+                latestVersions.update(comparableQuery + "}", id, lastVersionKey)
+                        .with("{ " + addVersions + "}", versions) :
+                latestVersions.update(comparableQuery + ", " +
+                        DbLatestVersions.LAST_RELEASE_KEY_DB_FIELD + ": { $gt: #}}", id, lastVersionKey, lastRelease.getSortKey())
+                        .with("{ " + addVersions + "}", versions);
+        if(result.getN() == 0){
+            updateLatestVersions(artifact, versions, true);
+        }
+    }
+
+    /**
+     * Adds or removes versions from the latest versions of an artifact computing the last versions from all the
+     * versions.
+     * The last versions are only written if the versions have not been modified in the meantime, otherwise the
+     * concurrent update writes them. The latest versions that do not exist yet are created from the artifacts.
+     *
+     * @param artifact DbArtifact
+     * @param versions List<String>
+     * @param added boolean
+     */
+    private void updateLatestVersions(final DbArtifact artifact, final List<String> versions, final boolean added) {
+        final Jongo datastore = getJongoDataStore();
+        final MongoCollection latestVersions = datastore.getCollection(DbCollections.DB_LATEST_VERSIONS);
+        final String id = DbLatestVersions.generateID(artifact);
+
+        final DbLatestVersions record = latestVersions
+                .findAndModify("{ " + DbCollections.DEFAULT_ID + ": #}", id)
+                .with(added ? "{ $addToSet: { " + DbLatestVersions.VERSIONS_DB_FIELD + ": { $each: #}}}" :
+                        "{ $pullAll: { " + DbLatestVersions.VERSIONS_DB_FIELD + ": #}}", versions)
+                .returnNew()
+                .as(DbLatestVersions.class);
+
+        if(record == null){
+            if(added){
+                createLatestVersions(artifact);
+            }
+            return;
+        }
+
+        VersionsHandler.updateLastVersions(record);
+        latestVersions.update("{ " + DbCollections.DEFAULT_ID + ": #, " + DbLatestVersions.VERSIONS_DB_FIELD + ": #}", id, record.getVersions())
+                .with("{ $set: { " + DbLatestVersions.LAST_RELEASE_DB_FIELD + ": #, " +
+                        DbLatestVersions.LAST_VERSION_DB_FIELD + ": #, " +
+                        DbLatestVersions.LAST_RELEASE_KEY_DB_FIELD + ": #, " +
+                        DbLatestVersions.LAST_VERSION_KEY_DB_FIELD + ": #, " +
+                        DbLatestVersions.COMPARABLE_DB_FIELD + ": #}}",
+                        record.getLastRelease(), record.getLastVersion(), record.getLastReleaseKey(),
+                        record.getLastVersionKey(), record.isComparable());
+    }
+
+    private void createLatestVersions(final DbArtifact artifact) {
+        final DbLatestVersions record = new DbLatestVersions();
+        record.setCoordinates(DbLatestVersions.generateID(artifact));
+        record.setVersions(getArtifactVersions(artifact));
+        VersionsHandler.updateLastVersions(record);
+
+        try {
+            getJongoDataStore().getCollection(DbCollections.DB_LATEST_VERSIONS).insert(record);
+        }
+        catch (MongoException.DuplicateKey e){
+            // created in the meantime from the same artifacts, let's make sure the last versions are up-to-date
+            updateLatestVersions(artifact, Collections.singletonList(artifact.getVersion()), true);
+        }
+    }
+
+    /**
+     * Rebuilds the latest versions from the artifacts.
+     * Each record is upserted so that the latest versions created concurrently do not abort the rebuild, then the
+     * records that existed before the rebuild but whose artifacts are gone are removed.
+     */
+    @Override
+    public void rebuildLatestVersions() {
+        final MongoCollection latestVersions = getJongoDataStore().getCollection(DbCollections.DB_LATEST_VERSIONS);
+        final Set<String> staleIds = new HashSet<String>(latestVersions.distinct(DbCollections.DEFAULT_ID).as(String.class));
+        final Map<String, DbLatestVersions> records = new HashMap<String, DbLatestVersions>();
+        final DbCursor<DbArtifact> artifacts = getArtifactsCursor(new FiltersHolder());
+
+        try {
+            while(artifacts.hasNext()){
+                final DbArtifact artifact = artifacts.next();
+                final String id = DbLatestVersions.generateID(artifact);
+
+                DbLatestVersions record = records.get(id);
+                if(record == null){
+                    record = new DbLatestVersions();
+                    record.setCoordinates(id);
+                    records.put(id, record);
+                }
+                record.getVersions().add(artifact.getVersion());
+            }
+        }
+        finally {
+            artifacts.close();
+        }
+
+        for(DbLatestVersions record: records.values()){
+            VersionsHandler.updateLastVersions(record);
+            latestVersions.update("{ " + DbCollections.DEFAULT_ID + ": #}", record.getCoordinates())
+                    .upsert()
+                    .with(record);
+        }
+
+        staleIds.removeAll(records.keySet());
+        if(!staleIds.isEmpty()){
+            latestVersions.remove("{ " + DbCollections.DEFAULT_ID + ": { $in: #}}", staleIds);
+        }
+    }
+
     @Override
     public DbArtifact getArtifact(final String gavc) {
         final Jongo datastore = getJongoDataStore();
@@ -297,6 +719,20 @@ public class MongodbHandler implements RepositoryHandler {
                 .as(DbArtifact.class);
     }
 
+    @Override
+    public List<DbArtifact> getArtifactsByGavc(final Collection<String> gavcs) {
+        if(gavcs.isEmpty()){
+            return Collections.emptyList();
+        }
+
+        final Jongo datastore = getJongoDataStore();
+        final Iterable<DbArtifact> artifacts = datastore.getCollection(DbCollections.DB_ARTIFACTS)
+                .find("{ " + DbCollections.DEFAULT_ID + " : { $in: #}}", new ArrayList<String>(gavcs))
+                .as(DbArtifact.class);
+
+        return Lists.newArrayList(artifacts);
+    }
+
     @Override
     public void deleteArtifact(final String gavc) {
         final DbArtifact artifact = getArtifact(gavc);
@@ -308,6 +744,8 @@ public class MongodbHandler implements RepositoryHandler {
             final Jongo datastore = getJongoDataStore();
             datastore.getCollection(DbCollections.DB_ARTIFACTS)
                     .remove(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, gavc));
+            updateLatestVersions(artifact, Collections.singletonList(artifact.getVersion()), false);
+            promotionStatusCache.invalidateArtifact(gavc);
         }
     }
 
@@ -318,6 +756,7 @@ public class MongodbHandler implements RepositoryHandler {
 
         artifacts.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, artifact.getGavc()))
                 .with("{ $set: { \""+ DbArtifact.DO_NOT_USE + "\": #}} " , doNotUse);
+        promotionStatusCache.invalidateArtifact(artifact.getGavc());
     }
 
     @Override
@@ -356,36 +795,63 @@ public class MongodbHandler implements RepositoryHandler {
         return ancestors;
     }
 
+    @Override
+    public List<DbModule> getAncestors(final Collection<String> gavcs, final FiltersHolder filters) {
+        if(gavcs.isEmpty()){
+            return Collections.emptyList();
+        }
+
+        final Jongo datastore = getJongoDataStore();
+        final String query = JongoUtils.generateQuery(filters.getModuleFieldsFilters());
+        final Iterable<DbModule> results = datastore.getCollection(DbCollections.DB_MODULES)
+                .find("{ $and: [" + query + ", { " + DbModule.USE_DB_FIELD + " : { $in: #}}]}", new ArrayList<String>(gavcs))
+                .as(DbModule.class);
+
+        return Lists.newArrayList(results);
+    }
+
     @Override
     public void store(final DbModule module) {
         final Jongo datastore = getJongoDataStore();
         final MongoCollection dbModules = datastore.getCollection(DbCollections.DB_MODULES);
-        final DbModule dbModule = getModule(module.getId());
 
         // has to be done due to mongo limitation: https://jira.mongodb.org/browse/SERVER-267
         module.updateHasAndUse();
 
-        if(dbModule == null){
-            dbModules.save(module);
-        }
-        else{
-            // let's keep the old build info and override with new values if any
-            final Map<String,String> consolidatedBuildInfo = dbModule.getBuildInfo();
-            consolidatedBuildInfo.putAll(module.getBuildInfo());
-            module.setBuildInfo(consolidatedBuildInfo);
+        final DBObject fields = toDBObject(module);
+        fields.removeField(DbCollections.DEFAULT_ID);
 
-            dbModules.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, dbModule.getId())).with(module);
+        // let's keep the old build info and override with new values if any
+        fields.removeField(DbModule.BUILD_INFO_DB_FIELD);
+        for(Map.Entry<String, String> buildInfo: module.getBuildInfo().entrySet()){
+            if(!DbModule.isValidBuildInfoKey(buildInfo.getKey())){
+                throw new IllegalArgumentException("Invalid build info key: " + buildInfo.getKey());
+            }
+            fields.put(DbModule.BUILD_INFO_DB_FIELD + "." + buildInfo.getKey(), buildInfo.getValue());
         }
 
+        // the previous artifacts of the module are returned by the upsert itself, they tell which closures to update
+        final DbModule previous = dbModules.findAndModify(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, module.getId()))
+                .upsert()
+                .with("{$set: #}", fields)
+                .projection("{" + DbModule.HAS_DB_FIELD + ": 1}")
+                .as(DbModule.class);
+
+        graphIndex.update(module);
+        invalidatePromotionStatuses(module);
+        moduleClosureUpdater.update(previous, module);
     }
 
     @Override
     public List<String> getModuleNames(final FiltersHolder filters) {
-        final Jongo datastore = getJongoDataStore();
-        return datastore.getCollection(DbCollections.DB_MODULES)
-                .distinct(DbModule.NAME_DB_FIELD)
-                .query(JongoUtils.generateQuery(filters.getModuleFieldsFilters()))
-                .as(String.class);
+        return getDistinctValues(DbCollections.DB_MODULES, DbModule.NAME_DB_FIELD,
+                JongoUtils.generateQuery(filters.getModuleFieldsFilters()), filters.getPagination());
+    }
+
+    @Override
+    public long getModuleNamesCount(final FiltersHolder filters) {
+        return countDistinctValues(DbCollections.DB_MODULES, DbModule.NAME_DB_FIELD,
+                JongoUtils.generateQuery(filters.getModuleFieldsFilters()));
     }
 
     @Override
@@ -393,9 +859,8 @@ public class MongodbHandler implements RepositoryHandler {
         final Map<String, Object> params = filters.getModuleFieldsFilters();
         params.put(DbModule.NAME_DB_FIELD, name);
 
-        final Jongo datastore = getJongoDataStore();
-        return datastore.getCollection(DbCollections.DB_MODULES).distinct(DbModule.VERSION_DB_FIELD).
-                    query(JongoUtils.generateQuery(params)).as(String.class);
+        return getDistinctValues(DbCollections.DB_MODULES, DbModule.VERSION_DB_FIELD,
+                JongoUtils.generateQuery(params), filters.getPagination());
     }
 
     @Override
@@ -406,19 +871,39 @@ public class MongodbHandler implements RepositoryHandler {
                 .as(DbModule.class);
     }
 
+    @Override
+    public List<DbModule> getModulesById(final Collection<String> moduleIds) {
+        if(moduleIds.isEmpty()){
+            return Collections.emptyList();
+        }
+
+        final Jongo datastore = getJongoDataStore();
+        final Iterable<DbModule> modules = datastore.getCollection(DbCollections.DB_MODULES)
+                .find("{ " + DbCollections.DEFAULT_ID + " : { $in: #}}", new ArrayList<String>(moduleIds))
+                .as(DbModule.class);
+
+        return Lists.newArrayList(modules);
+    }
+
     @Override
     public List<DbModule> getModules(final FiltersHolder filters) {
         final Jongo datastore = getJongoDataStore();
-        final List<DbModule> modules = new ArrayList<DbModule>();
+        return Lists.newArrayList(find(datastore.getCollection(DbCollections.DB_MODULES),
+                JongoUtils.generateQuery(filters.getModuleFieldsFilters()), filters.getPagination())
+                .as(DbModule.class));
+    }
 
-        final Iterable<DbModule> dbModules = datastore.getCollection(DbCollections.DB_MODULES)
-                .find(JongoUtils.generateQuery(filters.getModuleFieldsFilters()))
-                .as(DbModule.class);
+    @Override
+    public DbCursor<DbModule> getModulesCursor(final FiltersHolder filters) {
+        return openCursor(DbCollections.DB_MODULES, JongoUtils.generateQuery(filters.getModuleFieldsFilters()),
+                filters.getPagination(), DbModule.class);
+    }
 
-        for(DbModule dbModule: dbModules){
-            modules.add(dbModule);
-        }
-        return modules;
+    @Override
+    public long getModulesCount(final FiltersHolder filters) {
+        final Jongo datastore = getJongoDataStore();
+        return datastore.getCollection(DbCollections.DB_MODULES)
+                .count(JongoUtils.generateQuery(filters.getModuleFieldsFilters()));
     }
 
 
@@ -433,6 +918,9 @@ public class MongodbHandler implements RepositoryHandler {
             final Jongo datastore = getJongoDataStore();
             datastore.getCollection(DbCollections.DB_MODULES)
                     .remove(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, moduleId));
+            graphIndex.remove(moduleId);
+            invalidatePromotionStatuses(module);
+            moduleClosureUpdater.update(module, null);
         }
     }
 
@@ -443,6 +931,28 @@ public class MongodbHandler implements RepositoryHandler {
 
         modules.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, module.getId()))
                 .with("{ $set: { \""+ DbModule.PROMOTION_DB_FIELD + "\": #}} " , Boolean.TRUE);
+        graphIndex.promote(module.getId());
+        invalidatePromotionStatuses(module);
+    }
+
+    @Override
+    public DbModuleClosure getModuleClosure(final String moduleId) {
+        if(!moduleClosureUpdater.isUpToDate()){
+            return null;
+        }
+
+        return getModuleClosures()
+                .findOne(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, moduleId))
+                .as(DbModuleClosure.class);
+    }
+
+    @Override
+    public void rebuildModuleClosures() {
+        moduleClosureUpdater.rebuild(BATCH_SIZE);
+    }
+
+    private MongoCollection getModuleClosures() {
+        return getJongoDataStore().getCollection(DbCollections.DB_MODULE_CLOSURES);
     }
 
     @Override
@@ -454,19 +964,113 @@ public class MongodbHandler implements RepositoryHandler {
     }
 
     @Override
-    public DbModule getModuleOf(final String gavc) {
-        final DbModule module = getRootModuleOf(gavc);
+    public List<DbModule> getRootModulesOf(final Collection<String> gavcs) {
+        if(gavcs.isEmpty()){
+            return Collections.emptyList();
+        }
+
+        final Jongo datastore = getJongoDataStore();
+        final Iterable<DbModule> modules = datastore.getCollection(DbCollections.DB_MODULES)
+                .find("{ " + DbModule.HAS_DB_FIELD + " : { $in: #}}", new ArrayList<String>(gavcs))
+                .as(DbModule.class);
+
+        return Lists.newArrayList(modules);
+    }
+
+    @Override
+    public DependencyGraphIndex getGraphIndex() {
+        if(!graphIndex.isLoaded()){
+            // the requests do not wait for the whole database to be indexed, they read the modules meanwhile
+            graphIndex.loadInBackground();
+            return null;
+        }
+        return graphIndex;
+    }
 
-        // It may be a submodule...
-        if(module != null && !module.getArtifacts().contains(gavc)){
-            for(DbModule submodule: DataUtils.getAllSubmodules(module)){
-                if(submodule.getArtifacts().contains(gavc)){
-                    return submodule;
+    @Override
+    public OrganizationMatcher getOrganizationMatcher() {
+        OrganizationMatcher matcher = organizationMatcher;
+        if(matcher == null){
+            synchronized (organizationMatcherLock){
+                matcher = organizationMatcher;
+                if(matcher == null){
+                    matcher = new OrganizationMatcher(getAllOrganizations());
+                    organizationMatcher = matcher;
                 }
             }
         }
+        return matcher;
+    }
 
-        return module;
+    /**
+     * Drops the organization matcher once the organizations have been updated. It waits for a matcher that is
+     * being compiled so that a matcher compiled from the old organizations is never kept.
+     */
+    private void resetOrganizationMatcher() {
+        synchronized (organizationMatcherLock){
+            organizationMatcher = null;
+        }
+    }
+
+    @Override
+    public LicenseResolver getLicenseResolver() {
+        LicenseResolver resolver = licenseResolver;
+        if(resolver == null){
+            synchronized (licenseResolverLock){
+                resolver = licenseResolver;
+                if(resolver == null){
+                    resolver = new LicenseResolver(getAllLicenses());
+                    licenseResolver = resolver;
+                }
+            }
+        }
+        return resolver;
+    }
+
+    /**
+     * Drops the license resolver once the licenses have been updated. It waits for a resolver that is being
+     * created so that a resolver created from the old licenses is never kept.
+     */
+    private void resetLicenseResolver() {
+        synchronized (licenseResolverLock){
+            licenseResolver = null;
+        }
+    }
+
+    @Override
+    public DbModule getModuleOf(final String gavc) {
+        final DbModule module = getRootModuleOf(gavc);
+
+        if(module == null){
+            return null;
+        }
+
+        return DataUtils.getModuleOf(module, gavc);
+    }
+
+    @Override
+    public PromotionStatusCache getPromotionStatusCache() {
+        return promotionStatusCache;
+    }
+
+    @Override
+    public void clearCaches() {
+        graphIndex.clear();
+        resetOrganizationMatcher();
+        resetLicenseResolver();
+        promotionStatusCache.clear();
+    }
+
+    /**
+     * Drops the promotion statuses computed from a module or from one of its artifacts
+     *
+     * @param module DbModule
+     */
+    private void invalidatePromotionStatuses(final DbModule module) {
+        promotionStatusCache.invalidateModule(module.getId());
+        for(String gavc: DataUtils.getAllArtifacts(module)){
+            promotionStatusCache.invalidateArtifact(gavc);
+        }
     }
 
     @Override
@@ -488,6 +1092,8 @@ public class MongodbHandler implements RepositoryHandler {
         final Jongo datastore = getJongoDataStore();
         datastore.getCollection(DbCollections.DB_ORGANIZATION)
                 .remove(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, organizationId));
+        resetOrganizationMatcher();
+        promotionStatusCache.clear();
     }
 
     @Override
@@ -495,12 +1101,11 @@ public class MongodbHandler implements RepositoryHandler {
         final Jongo datastore = getJongoDataStore();
         final MongoCollection dbOrganizations = datastore.getCollection(DbCollections.DB_ORGANIZATION);
 
-        if(getOrganization(organization.getName()) == null){
-            dbOrganizations.save(organization);
-        }
-        else{
-            dbOrganizations.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, organization.getName())).with(organization);
-        }
+        dbOrganizations.update(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, organization.getName()))
+                .upsert()
+                .with(organization);
+        resetOrganizationMatcher();
+        promotionStatusCache.clear();
     }
 
     @Override
@@ -508,9 +1113,11 @@ public class MongodbHandler implements RepositoryHandler {
         final Jongo datastore = getJongoDataStore();
 
         datastore.getCollection(DbCollections.DB_MODULES)
-                .update("{ "+DbModule.HAS_DB_FIELD+" :#}", Pattern.compile(corporateGidPrefix + "*"))
+                .update("{ "+DbModule.HAS_DB_FIELD+" :#}", getPrefixPattern(corporateGidPrefix))
                 .multi()
                 .with("{$set: " + JongoUtils.generateQuery(DbModule.ORGANIZATION_DB_FIELD, organization.getName()) + "}");
+        graphIndex.clear();
+        promotionStatusCache.clear();
     }
 
     @Override
@@ -521,9 +1128,22 @@ public class MongodbHandler implements RepositoryHandler {
                 .update("{ $and: [" +
                         "{ " + DbModule.HAS_DB_FIELD + " :#} ," +
                         JongoUtils.generateQuery(DbModule.ORGANIZATION_DB_FIELD, organization.getName()) + "]}"
-                        , Pattern.compile(corporateGidPrefix + "*"))
+                        , getPrefixPattern(corporateGidPrefix))
                 .multi()
                 .with("{$set: { " + DbModule.ORGANIZATION_DB_FIELD + " : \"\"}}");
+        graphIndex.clear();
+        promotionStatusCache.clear();
+    }
+
+    /**
+     * Generates an anchored pattern that matches the gavcs starting with the prefix, all the characters of the
+     * prefix are matched literally. Being anchored, the pattern can use the index on "has".
+     *
+     * @param corporateGidPrefix String
+     * @return Pattern
+     */
+    static Pattern getPrefixPattern(final String corporateGidPrefix) {
+        return Pattern.compile("^" + Pattern.quote(corporateGidPrefix));
     }
 
     @Override
@@ -532,6 +1152,8 @@ public class MongodbHandler implements RepositoryHandler {
         datastore.getCollection(DbCollections.DB_MODULES)
                 .update(JongoUtils.generateQuery(DbModule.ORGANIZATION_DB_FIELD, organization.getName()))
                 .with("{$set: { "+DbModule.ORGANIZATION_DB_FIELD+" : \"\"}}");
+        graphIndex.clear();
+        promotionStatusCache.clear();
     }
 
     @Override
@@ -576,4 +1198,96 @@ public class MongodbHandler implements RepositoryHandler {
         datastore.getCollection(DbCollections.DB_PRODUCT)
                 .remove(JongoUtils.generateQuery(DbCollections.DEFAULT_ID, name));
     }
+
+    /**
+     * Creates a find request, when the pagination is set the documents are sorted by id and only the page is read
+     *
+     * @param collection MongoCollection
+     * @param query String
+     * @param pagination Pagination
+     * @return Find
+     */
+    private static Find find(final MongoCollection collection, final String query, final Pagination pagination) {
+        if(!pagination.isPaginated()){
+            return collection.find(query);
+        }
+
+        final Find find;
+        if(pagination.getCursor() == null){
+            find = collection.find(query);
+        }
+        else{
+            find = collection.find(getNextPageQuery(query), pagination.getCursor());
+        }
+
+        return find.sort(ID_ORDER)
+                .skip(pagination.getOffset())
+                .limit(pagination.getLimit());
+    }
+
+    /**
+     * Restricts a query to the documents that follow the cursor of the pagination, the cursor is its parameter
+     *
+     * @param query String
+     * @return String
+     */
+    private static String getNextPageQuery(final String query) {
+        return "{$and: [" + query + ", {" + DbCollections.DEFAULT_ID + ": {$gt: #}}]}";
+    }
+
+    /**
+     * Returns the distinct values of a field, when the pagination is set the values are sorted and the page is
+     * computed by the database
+     *
+     * @param collection String
+     * @param field String
+     * @param query String
+     * @param pagination Pagination
+     * @return List<String>
+     */
+    private List<String> getDistinctValues(final String collection, final String field, final String query, final Pagination pagination) {
+        final MongoCollection dbCollection = getJongoDataStore().getCollection(collection);
+
+        if(!pagination.isPaginated()){
+            return dbCollection.distinct(field).query(query).as(String.class);
+        }
+
+        final Aggregate aggregate;
+        if(pagination.getCursor() == null){
+            aggregate = dbCollection.aggregate("{$match: " + query + "}");
+        }
+        else{
+            aggregate = dbCollection.aggregate("{$match: {$and: [" + query + ", {" + field + ": {$gt: #}}]}}",
+                    pagination.getCursor());
+        }
+
+        aggregate.and("{$group: {" + DbCollections.DEFAULT_ID + ": '$" + field + "'}}")
+                .and("{$sort: " + ID_ORDER + "}");
+        if(pagination.getOffset() > 0){
+            aggregate.and("{$skip: #}", pagination.getOffset());
+        }
+        if(pagination.getLimit() > 0){
+            aggregate.and("{$limit: #}", pagination.getLimit());
+        }
+
+        return aggregate.map(ID_MAPPER);
+    }
+
+    /**
+     * Counts the distinct values of a field without reading them
+     *
+     * @param collection String
+     * @param field String
+     * @param query String
+     * @return long
+     */
+    private long countDistinctValues(final String collection, final String field, final String query) {
+        final List<Long> count = getJongoDataStore().getCollection(collection)
+                .aggregate("{$match: " + query + "}")
+                .and("{$group: {" + DbCollections.DEFAULT_ID + ": '$" + field + "'}}")
+                .and("{$group: {" + DbCollections.DEFAULT_ID + ": null, count: {$sum: 1}}}")
+                .map(COUNT_MAPPER);
+
+        return count.isEmpty() ? 0 : count.get(0);
+    }
 }
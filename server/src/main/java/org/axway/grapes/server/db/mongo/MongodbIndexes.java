@@ -0,0 +1,249 @@
+package org.axway.grapes.server.db.mongo;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.CommandResult;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbCollections;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Mongodb Indexes
+ *
+ * <p>Declares the indexes the queries of the MongodbHandler rely on and provisions them into the database.</p>
+ */
+public final class MongodbIndexes {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MongodbIndexes.class);
+
+    private static final String DEFAULT_INDEX_NAME = "_id_";
+
+    private static final Map<String, List<DBObject>> INDEXES = new LinkedHashMap<String, List<DBObject>>();
+
+    // indexes created by this process as "collection name": their access stats start at their creation
+    private static final Set<String> CREATED = Collections.synchronizedSet(new HashSet<String>());
+
+    static {
+        // getRootModuleOf, getRootModulesOf, addModulesOrganization (multikey)
+        declare(DbCollections.DB_MODULES, new BasicDBObject(DbModule.HAS_DB_FIELD, 1));
+        // getAncestors (multikey)
+        declare(DbCollections.DB_MODULES, new BasicDBObject(DbModule.USE_DB_FIELD, 1));
+        // getModuleVersions, getModuleNames
+        declare(DbCollections.DB_MODULES, new BasicDBObject(DbModule.NAME_DB_FIELD, 1)
+                .append(DbModule.VERSION_DB_FIELD, 1));
+        // removeModulesOrganization
+        declare(DbCollections.DB_MODULES, new BasicDBObject(DbModule.ORGANIZATION_DB_FIELD, 1));
+
+        // getArtifactVersions, getGavcs, getGroupIds
+        declare(DbCollections.DB_ARTIFACTS, new BasicDBObject(DbArtifact.GROUPID_DB_FIELD, 1)
+                .append(DbArtifact.ARTIFACTID_DB_FIELD, 1)
+                .append(DbArtifact.CLASSIFIER_DB_FIELD, 1)
+                .append(DbArtifact.EXTENSION_DB_FIELD, 1)
+                .append(DbArtifact.VERSION_DB_FIELD, 1));
+        // license filters (multikey)
+        declare(DbCollections.DB_ARTIFACTS, new BasicDBObject(DbArtifact.LICENCES_DB_FIELD, 1));
+    }
+
+    private MongodbIndexes(){
+        // Utility class should never be instanciate
+    }
+
+    private static void declare(final String collection, final DBObject keys) {
+        List<DBObject> indexes = INDEXES.get(collection);
+
+        if(indexes == null){
+            indexes = new ArrayList<DBObject>();
+            INDEXES.put(collection, indexes);
+        }
+
+        indexes.add(keys);
+    }
+
+    /**
+     * Returns the keys of the indexes declared per collection
+     *
+     * @return Map<String, List<DBObject>>
+     */
+    public static Map<String, List<DBObject>> getDeclaredIndexes() {
+        return Collections.unmodifiableMap(INDEXES);
+    }
+
+    /**
+     * Creates the declared indexes that do not exist yet. The indexes are built in the background so that the
+     * collections stay available while they are built.
+     * A failure is logged but does not prevent the server to start, the missing indexes are reported by the health check.
+     *
+     * @param db DB
+     */
+    public static void ensure(final DB db) {
+        for(Map.Entry<String, List<DBObject>> entry: INDEXES.entrySet()){
+            for(String name: getMissingIndexNames(db, entry.getKey())){
+                CREATED.add(entry.getKey() + " " + name);
+            }
+
+            for(DBObject keys: entry.getValue()){
+                try{
+                    db.getCollection(entry.getKey()).ensureIndex(keys, new BasicDBObject("background", true));
+                }
+                catch (Exception e){
+                    LOG.error("Failed to create index " + keys + " on " + entry.getKey(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the declared indexes of a collection that are not in the database
+     */
+    private static List<String> getMissingIndexNames(final DB db, final String collection) {
+        final List<String> names = new ArrayList<String>();
+
+        try{
+            final List<DBObject> existingKeys = new ArrayList<DBObject>();
+            for(DBObject index: db.getCollection(collection).getIndexInfo()){
+                existingKeys.add((DBObject) index.get("key"));
+            }
+
+            for(DBObject keys: INDEXES.get(collection)){
+                if(!contains(existingKeys, keys)){
+                    names.add(DBCollection.genIndexName(keys));
+                }
+            }
+        }
+        catch (Exception e){
+            LOG.error("Failed to list the indexes of " + collection, e);
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the declared indexes that are not in the database
+     *
+     * @param db DB
+     * @return List<String> the missing indexes as "collection keys"
+     */
+    public static List<String> getMissingIndexes(final DB db) {
+        final List<String> missing = new ArrayList<String>();
+
+        for(Map.Entry<String, List<DBObject>> entry: INDEXES.entrySet()){
+            final List<DBObject> existingKeys = new ArrayList<DBObject>();
+            for(DBObject index: db.getCollection(entry.getKey()).getIndexInfo()){
+                existingKeys.add((DBObject) index.get("key"));
+            }
+
+            for(DBObject keys: entry.getValue()){
+                if(!contains(existingKeys, keys)){
+                    missing.add(entry.getKey() + " " + keys);
+                }
+            }
+        }
+
+        return missing;
+    }
+
+    /**
+     * Returns the indexes of the database that Grapes does not need: the ones that are not declared and the
+     * declared ones that have not been accessed since the database startup (when the database provides the stats).
+     * The indexes created by this process are not reported as never accessed: their stats start at their creation.
+     *
+     * @param db DB
+     * @return List<String> the unused indexes as "collection name"
+     */
+    public static List<String> getUnusedIndexes(final DB db) {
+        final List<String> unused = new ArrayList<String>();
+
+        for(String collection: INDEXES.keySet()){
+            final List<DBObject> declaredKeys = INDEXES.get(collection);
+            for(DBObject index: db.getCollection(collection).getIndexInfo()){
+                final String name = (String) index.get("name");
+                if(!DEFAULT_INDEX_NAME.equals(name) && !contains(declaredKeys, (DBObject) index.get("key"))){
+                    unused.add(collection + " " + name);
+                }
+            }
+
+            for(String name: getNeverAccessedIndexes(db, collection)){
+                final String entry = collection + " " + name;
+                if(!DEFAULT_INDEX_NAME.equals(name) && !unused.contains(entry) && !CREATED.contains(entry)){
+                    unused.add(entry);
+                }
+            }
+        }
+
+        return unused;
+    }
+
+    /**
+     * Checks if the list contains the index keys. The keys are compared in order and the directions regardless of
+     * their numeric type as the indexes created from the shell hold doubles.
+     */
+    private static boolean contains(final List<DBObject> indexes, final DBObject keys) {
+        for(DBObject index: indexes){
+            if(sameKeys(index, keys)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameKeys(final DBObject keys1, final DBObject keys2) {
+        final List<String> fields = new ArrayList<String>(keys1.keySet());
+        if(!fields.equals(new ArrayList<String>(keys2.keySet()))){
+            return false;
+        }
+
+        for(String field: fields){
+            final Object direction1 = keys1.get(field);
+            final Object direction2 = keys2.get(field);
+
+            if(direction1 instanceof Number && direction2 instanceof Number){
+                if(((Number) direction1).doubleValue() != ((Number) direction2).doubleValue()){
+                    return false;
+                }
+            }
+            else if(!direction1.equals(direction2)){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Uses the $indexStats aggregation stage (Mongodb 3.2+) to find the indexes that have never been accessed.
+     * Returns an empty list if the database does not provide the stats.
+     */
+    private static List<String> getNeverAccessedIndexes(final DB db, final String collection) {
+        final List<String> names = new ArrayList<String>();
+
+        final BasicDBObject command = new BasicDBObject("aggregate", collection)
+                .append("pipeline", Collections.singletonList(new BasicDBObject("$indexStats", new BasicDBObject())))
+                .append("cursor", new BasicDBObject());
+        final CommandResult result = db.command(command);
+
+        if(!result.ok() || result.get("cursor") == null){
+            return names;
+        }
+
+        final Object stats = ((DBObject) result.get("cursor")).get("firstBatch");
+        if(!(stats instanceof List)){
+            return names;
+        }
+
+        for(Object stat: (List<?>) stats){
+            final DBObject accesses = (DBObject) ((DBObject) stat).get("accesses");
+            if(accesses != null && accesses.get("ops") instanceof Number &&
+                    ((Number) accesses.get("ops")).longValue() == 0){
+                names.add((String) ((DBObject) stat).get("name"));
+            }
+        }
+
+        return names;
+    }
+}
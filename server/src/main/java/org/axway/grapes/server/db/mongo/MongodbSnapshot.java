@@ -0,0 +1,257 @@
+package org.axway.grapes.server.db.mongo;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBDecoder;
+import com.mongodb.WriteConcern;
+import org.axway.grapes.server.db.datamodel.DbCollections;
+import org.bson.BSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Mongodb Snapshot
+ *
+ * <p>Copies the whole Grapes database into a single file and loads it back. The file is compressed and holds the
+ * BSON documents of each collection, each document being prefixed by its length:</p>
+ * <pre>
+ * magic number, format version
+ * (collection name, (document length, BSON document)*, 0)*
+ * ""
+ * </pre>
+ *
+ * <p>The documents are loaded by batches inserted in parallel into temporary collections that replace the collections
+ * of the database once the whole snapshot has been loaded, the indexes are created at the end of the import.</p>
+ */
+public final class MongodbSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MongodbSnapshot.class);
+
+    private static final int MAGIC_NUMBER = 0x47524150;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BATCH_SIZE = 1000;
+    private static final String TEMPORARY_SUFFIX = ".import";
+
+    public static final List<String> COLLECTIONS = Collections.unmodifiableList(Arrays.asList(
+            DbCollections.DB_GRAPES_INFO,
+            DbCollections.DB_CREDENTIALS,
+            DbCollections.DB_ORGANIZATION,
+            DbCollections.DB_PRODUCT,
+            DbCollections.DB_LICENSES,
+            DbCollections.DB_ARTIFACTS,
+            DbCollections.DB_LATEST_VERSIONS,
+            DbCollections.DB_MODULE_CLOSURES,
+            DbCollections.DB_MODULES));
+
+    private MongodbSnapshot(){
+        // Utility class should never be instanciate
+    }
+
+    /**
+     * Writes all the Grapes collections into a snapshot
+     *
+     * @param db DB
+     * @param output OutputStream closed at the end of the export
+     * @return Map<String, Long> the number of documents exported per collection
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static Map<String, Long> export(final DB db, final OutputStream output) throws IOException {
+        final Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(output, BUFFER_SIZE), BUFFER_SIZE));
+
+        try {
+            out.writeInt(MAGIC_NUMBER);
+            out.writeInt(FORMAT_VERSION);
+
+            for(String collection: COLLECTIONS){
+                out.writeUTF(collection);
+                long count = 0;
+
+                final DBCursor cursor = db.getCollection(collection).find();
+                try {
+                    while(cursor.hasNext()){
+                        final byte[] document = BSON.encode(cursor.next());
+                        out.writeInt(document.length);
+                        out.write(document);
+                        count++;
+                    }
+                }
+                finally {
+                    cursor.close();
+                }
+
+                out.writeInt(0);
+                counts.put(collection, count);
+            }
+
+            out.writeUTF("");
+        }
+        finally {
+            out.close();
+        }
+
+        return counts;
+    }
+
+    /**
+     * Replaces the content of the collections of a snapshot by its documents
+     *
+     * <p>The documents are loaded into temporary collections, the collections of the database are replaced by them
+     * only once the whole snapshot has been read and all the batches have been inserted. If the import fails, the
+     * content of the database is left untouched.</p>
+     *
+     * @param db DB
+     * @param input InputStream closed at the end of the import
+     * @param threads int the number of batches inserted in parallel
+     * @return Map<String, Long> the number of documents imported per collection
+     * @throws IOException if the snapshot cannot be read or if a batch has not been inserted
+     */
+    public static Map<String, Long> restore(final DB db, final InputStream input, final int threads) throws IOException {
+        final Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        final Map<String, DBCollection> temporaryCollections = new LinkedHashMap<String, DBCollection>();
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(input, BUFFER_SIZE), BUFFER_SIZE));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("snapshot-import-%d").build());
+        // bounds the number of batches in memory
+        final Semaphore pendingBatches = new Semaphore(2 * threads);
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        boolean loaded = false;
+
+        try {
+            if(in.readInt() != MAGIC_NUMBER){
+                throw new IOException("The file is not a Grapes snapshot.");
+            }
+            final int version = in.readInt();
+            if(version != FORMAT_VERSION){
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+
+            String collectionName = in.readUTF();
+            while(!collectionName.isEmpty()){
+                if(!COLLECTIONS.contains(collectionName) || temporaryCollections.containsKey(collectionName)){
+                    throw new IOException("Unexpected collection in the snapshot: " + collectionName);
+                }
+
+                final DBCollection collection = db.getCollection(collectionName + TEMPORARY_SUFFIX);
+                // drops the leftovers of a failed import, the temporary collection has no other index than the id one
+                collection.drop();
+                temporaryCollections.put(collectionName, collection);
+
+                long count = 0;
+                List<DBObject> batch = new ArrayList<DBObject>(BATCH_SIZE);
+
+                int length = in.readInt();
+                while(length > 0){
+                    final byte[] document = new byte[length];
+                    in.readFully(document);
+                    batch.add(new DefaultDBDecoder().decode(document, collection));
+                    count++;
+
+                    if(batch.size() == BATCH_SIZE){
+                        insert(executor, pendingBatches, failure, collection, batch);
+                        batch = new ArrayList<DBObject>(BATCH_SIZE);
+                    }
+                    length = in.readInt();
+                }
+                if(!batch.isEmpty()){
+                    insert(executor, pendingBatches, failure, collection, batch);
+                }
+
+                counts.put(collectionName, count);
+                collectionName = in.readUTF();
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+            if(failure.get() != null){
+                throw new IOException("Failed to insert the documents: " + failure.get().getMessage(), failure.get());
+            }
+            loaded = true;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The import has been interrupted.");
+        }
+        finally {
+            executor.shutdownNow();
+            in.close();
+
+            if(!loaded){
+                dropTemporaryCollections(executor, temporaryCollections.values());
+            }
+        }
+
+        for(Map.Entry<String, DBCollection> temporaryCollection: temporaryCollections.entrySet()){
+            if(counts.get(temporaryCollection.getKey()) == 0){
+                // no document has been inserted so the temporary collection has not been created
+                db.getCollection(temporaryCollection.getKey()).drop();
+            }
+            else {
+                temporaryCollection.getValue().rename(temporaryCollection.getKey(), true);
+            }
+        }
+
+        MongodbIndexes.ensure(db);
+        return counts;
+    }
+
+    private static void dropTemporaryCollections(final ExecutorService executor, final Collection<DBCollection> collections) {
+        try {
+            // the batches being inserted would create the collections again
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for(DBCollection collection: collections){
+            try {
+                collection.drop();
+            }
+            catch (Exception e) {
+                LOG.error("Failed to drop the temporary collection " + collection.getName(), e);
+            }
+        }
+    }
+
+    private static void insert(final ExecutorService executor, final Semaphore pendingBatches,
+                               final AtomicReference<Exception> failure, final DBCollection collection,
+                               final List<DBObject> batch) throws InterruptedException {
+        pendingBatches.acquire();
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    collection.insert(batch, WriteConcern.ACKNOWLEDGED);
+                }
+                catch (Exception e) {
+                    LOG.error("Failed to insert " + batch.size() + " documents into " + collection.getName(), e);
+                    failure.compareAndSet(null, e);
+                }
+                finally {
+                    pendingBatches.release();
+                }
+            }
+        });
+    }
+}
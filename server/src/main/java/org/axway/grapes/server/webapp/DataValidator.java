@@ -3,9 +3,11 @@ package org.axway.grapes.server.webapp;
 
 import org.axway.grapes.commons.datamodel.*;
 import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.datamodel.DbModule;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -117,6 +119,22 @@ public final class DataValidator {
         }
     }
 
+    /**
+     * Checks if the provided build info could be stored into the database
+     *
+     * @param buildInfo Map<String, String>
+     * @throws WebApplicationException if a key is not a valid field name
+     */
+    public static void validateBuildInfo(final Map<String, String> buildInfo) {
+        for(String key: buildInfo.keySet()){
+            if(!DbModule.isValidBuildInfoKey(key)){
+                throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Build info key cannot be empty, contain a dot or start with a dollar: " + key)
+                        .build());
+            }
+        }
+    }
+
     /**
      * Checks if the provided organization is valid and could be stored into the database
      *
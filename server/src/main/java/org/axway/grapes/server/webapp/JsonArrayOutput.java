@@ -0,0 +1,51 @@
+package org.axway.grapes.server.webapp;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Json Array Output
+ *
+ * <p>Streams the elements of an iterator into the response as a Json array. Each element is serialized as soon as
+ * it is read so the memory used by the response does not depend on the number of elements. The elements are
+ * serialized with the object mapper configured by Dropwizard and the cursor they are read from is closed once the
+ * response is written, even if the client disconnects.</p>
+ */
+public class JsonArrayOutput implements StreamingOutput {
+
+    private final ObjectMapper mapper;
+    private final Iterator<?> elements;
+    private final Closeable cursor;
+
+    public JsonArrayOutput(final ObjectMapper mapper, final Iterator<?> elements, final Closeable cursor) {
+        this.mapper = mapper;
+        this.elements = elements;
+        this.cursor = cursor;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException, WebApplicationException {
+        try {
+            final JsonGenerator generator = mapper.getFactory().createGenerator(output, JsonEncoding.UTF8);
+
+            generator.writeStartArray();
+            while(elements.hasNext()){
+                generator.writeObject(elements.next());
+            }
+            generator.writeEndArray();
+
+            generator.flush();
+        }
+        finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.axway.grapes.server.webapp.healthcheck;
+
+import com.mongodb.DB;
+import com.yammer.metrics.core.HealthCheck;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
+import org.axway.grapes.server.db.mongo.MongodbIndexes;
+
+import java.util.List;
+
+/**
+ * Database Indexes Check
+ *
+ * <p>Implements Metrics health checks. Thanks to it, it is possible to know via Grapes admin webapp if the indexes
+ * Grapes relies on are missing or if some indexes of the database are not used.</p>
+ */
+public class DataBaseIndexesCheck extends HealthCheck{
+
+    private final MongodbConnection connection;
+
+    public DataBaseIndexesCheck(final MongodbConnection connection) {
+        super("database-indexes");
+        this.connection = connection;
+    }
+
+    @Override
+    protected Result check() {
+        try{
+            final DB db = connection.getDb();
+
+            final List<String> missingIndexes = MongodbIndexes.getMissingIndexes(db);
+            final List<String> unusedIndexes = MongodbIndexes.getUnusedIndexes(db);
+
+            final StringBuilder sb = new StringBuilder();
+            sb.append("Missing indexes: ");
+            sb.append(missingIndexes);
+            sb.append('\n');
+            sb.append("  Unused indexes: ");
+            sb.append(unusedIndexes);
+            sb.append('\n');
+
+            if(!missingIndexes.isEmpty()){
+                return Result.unhealthy(sb.toString());
+            }
+
+            return Result.healthy(sb.toString());
+        }
+        catch (Exception e) {
+            return Result.unhealthy(e);
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.axway.grapes.server.webapp.healthcheck;
+
+import com.mongodb.MongoClientOptions;
+import com.yammer.metrics.core.HealthCheck;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
+
+/**
+ * Database Ping Check
+ *
+ * <p>Implements Metrics health checks. Thanks to it, it is possible to know via Grapes admin webapp the round-trip
+ * of a ping sent through the shared connection pool.</p>
+ */
+public class DataBasePingCheck extends HealthCheck{
+
+    private final MongodbConnection connection;
+
+    public DataBasePingCheck(final MongodbConnection connection) {
+        super("database-ping");
+        this.connection = connection;
+    }
+
+    @Override
+    protected Result check() {
+        try{
+            final long roundTrip = connection.ping();
+            final MongoClientOptions options = connection.getMongo().getMongoClientOptions();
+
+            final StringBuilder sb = new StringBuilder();
+            sb.append("Ping round-trip: " + roundTrip + " ms\n");
+            sb.append("  Pool size: " + options.getConnectionsPerHost() + '\n');
+            sb.append("  Wait queue size: " + options.getConnectionsPerHost() * options.getThreadsAllowedToBlockForConnectionMultiplier() + '\n');
+            sb.append("  Read preference: " + options.getReadPreference() + '\n');
+
+            return Result.healthy(sb.toString());
+        }
+        catch (Exception e) {
+            return Result.unhealthy(e);
+        }
+    }
+
+}
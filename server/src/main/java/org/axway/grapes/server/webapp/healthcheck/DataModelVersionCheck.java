@@ -1,13 +1,9 @@
 package org.axway.grapes.server.webapp.healthcheck;
 
-import com.mongodb.DB;
-import com.mongodb.Mongo;
-import com.mongodb.MongoClient;
-import com.mongodb.ServerAddress;
 import com.yammer.metrics.core.HealthCheck;
-import org.axway.grapes.server.config.DataBaseConfig;
 import org.axway.grapes.server.db.datamodel.DbCollections;
 import org.axway.grapes.server.db.datamodel.DbGrapesInfo;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
 import org.jongo.Jongo;
 
 /**
@@ -19,27 +15,17 @@ import org.jongo.Jongo;
  */
 public class DataModelVersionCheck extends HealthCheck{
 
-	private final DataBaseConfig config;
+	private final MongodbConnection connection;
 
-	public DataModelVersionCheck(final DataBaseConfig dataBaseConfig) {
+	public DataModelVersionCheck(final MongodbConnection connection) {
 		super("data-model-version");
-		this.config = dataBaseConfig;
+		this.connection = connection;
 	}
 
 	@Override
 	protected Result check() {
-        Mongo mongo = null;
-        
 		try{
-			final ServerAddress adress = new ServerAddress(config.getHost() , config.getPort());
-            mongo = new MongoClient(adress);
-            final DB db = mongo.getDB(config.getDatastore());
-
-            if(config.getUser() != null && config.getPwd() != null){
-                db.authenticate(config.getUser(), config.getPwd());
-            }
-
-            final Jongo jongo = new Jongo(db);
+            final Jongo jongo = connection.getJongo();
             final DbGrapesInfo info = jongo.getCollection(DbCollections.DB_GRAPES_INFO).findOne().as(DbGrapesInfo.class);
 
             if(info == null){
@@ -51,11 +37,6 @@ public class DataModelVersionCheck extends HealthCheck{
 		catch (Exception e) {
 			return Result.unhealthy(e);
 		}
-        finally{
-            if(mongo != null){
-                mongo.close();
-            }
-        }
 	}
     
 }
@@ -5,7 +5,9 @@
 package org.axway.grapes.server.webapp.resources;
 
 import com.yammer.dropwizard.views.View;
+import org.axway.grapes.commons.api.ServerAPI;
 import org.axway.grapes.commons.datamodel.Artifact;
+import org.axway.grapes.commons.datamodel.BatchResult;
 import org.axway.grapes.commons.datamodel.DataModelFactory;
 import org.axway.grapes.commons.datamodel.Scope;
 import org.axway.grapes.commons.utils.JsonUtils;
@@ -18,6 +20,7 @@ import org.axway.grapes.server.db.RepositoryHandler;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
@@ -135,6 +138,45 @@ public abstract class AbstractResource extends View {
         return modelMapper;
     }
 
+    /**
+     * Returns the number of elements of a list request, in JSON whatever the requested media type
+     *
+     * @param count long
+     * @return Response
+     */
+    protected Response getCountResponse(final long count) {
+        return Response.ok(count, MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * Returns a page of a list request, the cursor of the next page is sent in the headers if the page is full
+     *
+     * @param entity Object the page to send
+     * @param nextCursor String the cursor of the next page or null
+     * @return Response
+     */
+    protected Response getPageResponse(final Object entity, final String nextCursor) {
+        final Response.ResponseBuilder response = Response.ok(entity);
+
+        if(nextCursor != null){
+            response.header(ServerAPI.NEXT_CURSOR_HEADER, nextCursor);
+        }
+
+        return response.build();
+    }
+
+    /**
+     * Returns the result of an element of a batch that has been rejected
+     *
+     * @param id String the identifier of the element
+     * @param e WebApplicationException the error that would have been returned if the element had been posted on its own
+     * @return BatchResult
+     */
+    protected BatchResult getBatchResult(final String id, final WebApplicationException e) {
+        final Object message = e.getResponse().getEntity();
+        return DataModelFactory.createBatchResult(id, e.getResponse().getStatus(), message == null ? null : message.toString());
+    }
+
     /**
      * Return the version of the application
      * 
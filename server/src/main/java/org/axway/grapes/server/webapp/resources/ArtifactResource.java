@@ -1,19 +1,26 @@
 package org.axway.grapes.server.webapp.resources;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import com.yammer.dropwizard.auth.Auth;
 import com.yammer.dropwizard.jersey.params.BooleanParam;
 import org.axway.grapes.commons.api.ServerAPI;
 import org.axway.grapes.commons.datamodel.Artifact;
+import org.axway.grapes.commons.datamodel.BatchResult;
+import org.axway.grapes.commons.datamodel.DataModelFactory;
 import org.axway.grapes.commons.datamodel.Module;
 import org.axway.grapes.commons.datamodel.Organization;
 import org.axway.grapes.server.config.GrapesServerConfig;
 import org.axway.grapes.server.core.ArtifactHandler;
 import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.core.options.Pagination;
 import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.DbCursor;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.*;
 import org.axway.grapes.server.db.datamodel.DbCredential.AvailableRoles;
 import org.axway.grapes.server.webapp.DataValidator;
+import org.axway.grapes.server.webapp.JsonArrayOutput;
 import org.axway.grapes.server.webapp.views.*;
 import org.eclipse.jetty.http.HttpStatus;
 import org.slf4j.Logger;
@@ -41,8 +48,11 @@ public class ArtifactResource extends AbstractResource {
 
     private static final Logger LOG = LoggerFactory.getLogger(ArtifactResource.class);
 
-    public ArtifactResource(final RepositoryHandler repoHandler, final GrapesServerConfig dmConfig) {
+    private final ObjectMapper objectMapper;
+
+    public ArtifactResource(final RepositoryHandler repoHandler, final GrapesServerConfig dmConfig, final ObjectMapper objectMapper) {
         super(repoHandler, "ArtifactResourceDocumentation.ftl", dmConfig);
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -63,7 +73,50 @@ public class ArtifactResource extends AbstractResource {
         // Checks if the data is corrupted
         DataValidator.validate(artifact);
 
-        // Store the Artifact
+        storeArtifact(artifact);
+
+        return Response.ok().status(HttpStatus.CREATED_201).build();
+    }
+
+    /**
+     * Handle artifact posts when the server got a request POST <grapes_url>/artifact/batch & MIME that contains a list of artifacts.
+     * Each artifact is validated and stored on its own, the response gives the result of each one.
+     *
+     * @param credential DbCredential
+     * @param artifacts The artifacts to add to Grapes database
+     * @return Response A list of BatchResult in JSON
+     */
+    @POST
+    @Path(ServerAPI.POST_BATCH)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response postArtifacts(@Auth final DbCredential credential, final List<Artifact> artifacts){
+        if(!credential.getRoles().contains(AvailableRoles.DEPENDENCY_NOTIFIER)){
+            throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED).build());
+        }
+
+        LOG.info("Got a batch post Artifact request.");
+
+        final List<BatchResult> results = new ArrayList<BatchResult>(artifacts.size());
+        for(final Artifact artifact: artifacts){
+            try{
+                DataValidator.validate(artifact);
+                storeArtifact(artifact);
+                results.add(DataModelFactory.createBatchResult(artifact.getGavc(), HttpStatus.CREATED_201, null));
+            }
+            catch (WebApplicationException e){
+                results.add(getBatchResult(artifact.getGavc(), e));
+            }
+        }
+
+        return Response.ok(results).build();
+    }
+
+    /**
+     * Stores a valid artifact and its licenses
+     *
+     * @param artifact Artifact
+     */
+    private void storeArtifact(final Artifact artifact) {
         final ArtifactHandler artifactHandler = getArtifactHandler();
         final DbArtifact dbArtifact = getModelMapper().getDbArtifact(artifact);
         artifactHandler.store(dbArtifact);
@@ -72,8 +125,6 @@ public class ArtifactResource extends AbstractResource {
         for(String license: artifact.getLicenses()){
             artifactHandler.addLicense(dbArtifact.getGavc(), license);
         }
-
-        return Response.ok().status(HttpStatus.CREATED_201).build();
     }
 
     /**
@@ -91,11 +142,14 @@ public class ArtifactResource extends AbstractResource {
         final FiltersHolder filters = new FiltersHolder();
         filters.init(uriInfo.getQueryParameters());
 
+        if(filters.getPagination().isCountOnly()){
+            return getCountResponse(getArtifactHandler().getArtifactsCount(filters));
+        }
+
         final List<String> gavcs = getArtifactHandler().getArtifactGavcs(filters);
-        Collections.sort(gavcs);
         view.addAll(gavcs);
 
-        return Response.ok(view).build();
+        return getPageResponse(view, filters.getPagination().getNextCursor(gavcs));
     }
 
     /**
@@ -113,11 +167,14 @@ public class ArtifactResource extends AbstractResource {
         final FiltersHolder filters = new FiltersHolder();
         filters.init(uriInfo.getQueryParameters());
 
+        if(filters.getPagination().isCountOnly()){
+            return getCountResponse(getArtifactHandler().getArtifactGroupIdsCount(filters));
+        }
+
         final List<String> groupIds = getArtifactHandler().getArtifactGroupIds(filters);
-        Collections.sort(groupIds);
         view.addAll(groupIds);
 
-        return Response.ok(view).build();
+        return getPageResponse(view, filters.getPagination().getNextCursor(groupIds));
     }
 
     /**
@@ -475,13 +532,27 @@ public class ArtifactResource extends AbstractResource {
         final FiltersHolder filters = new FiltersHolder();
         filters.init(uriInfo.getQueryParameters());
 
-        final List<Artifact> artifacts = new ArrayList<Artifact>();
+        final Pagination pagination = filters.getPagination();
+        if(pagination.isCountOnly()){
+            return getCountResponse(getArtifactHandler().getArtifactsCount(filters));
+        }
+
+        final DbCursor<DbArtifact> dbArtifacts = getArtifactHandler().getArtifactsCursor(filters);
+        if(pagination.getLimit() == 0){
+            return Response.ok(new JsonArrayOutput(objectMapper, getModelMapper().getArtifacts(dbArtifacts), dbArtifacts)).build();
+        }
 
-        final List<DbArtifact> dbArtifacts = getArtifactHandler().getArtifacts(filters);
-        for(DbArtifact dbArtifact: dbArtifacts){
-            artifacts.add(getModelMapper().getArtifact(dbArtifact));
+        // the page is bounded, it is read first to send the cursor of the next page
+        final List<DbArtifact> page;
+        try {
+            page = Lists.newArrayList(dbArtifacts);
+        }
+        finally {
+            dbArtifacts.close();
         }
+        final String lastId = page.isEmpty() ? null : page.get(page.size() - 1).getGavc();
 
-        return Response.ok(artifacts).build();
+        return getPageResponse(new JsonArrayOutput(objectMapper, getModelMapper().getArtifacts(page.iterator()), dbArtifacts),
+                pagination.getNextCursor(lastId, page.size()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package org.axway.grapes.server.webapp.resources;
+
+import org.axway.grapes.commons.api.ServerAPI;
+import org.axway.grapes.server.config.GrapesServerConfig;
+import org.axway.grapes.server.core.ingestion.IngestionJob;
+import org.axway.grapes.server.core.ingestion.ModuleIngestionQueue;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Job Resource
+ *
+ * <p>This server resource provides the status of the asynchronous module posts.<br/>
+ * This resource extends DepManViews to holds its own documentation.
+ * The documentation is available in JobResourceDocumentation.ftl file.</p>
+ */
+@Path(ServerAPI.JOB_RESOURCE)
+public class JobResource extends AbstractResource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobResource.class);
+
+    private final ModuleIngestionQueue ingestionQueue;
+
+    public JobResource(final RepositoryHandler repoHandler, final GrapesServerConfig dmConfig, final ModuleIngestionQueue ingestionQueue) {
+        super(repoHandler, "JobResourceDocumentation.ftl", dmConfig);
+        this.ingestionQueue = ingestionQueue;
+    }
+
+    /**
+     * Return the status of an asynchronous module post.
+     * This method is call via GET <grapes_url>/job/<jobId>
+     *
+     * @param jobId String
+     * @return Response A job in JSON
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/{jobId}")
+    public Response get(@PathParam("jobId") final String jobId) {
+        LOG.info("Got a get job request.");
+
+        final IngestionJob job = ingestionQueue == null ? null : ingestionQueue.getJob(jobId);
+        if(job == null){
+            throw new WebApplicationException(Response.status(Response.Status.NOT_FOUND)
+                    .entity("Job " + jobId + " does not exist.")
+                    .build());
+        }
+
+        return Response.ok(job).build();
+    }
+}
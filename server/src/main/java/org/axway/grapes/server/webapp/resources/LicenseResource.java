@@ -83,10 +83,14 @@ public class LicenseResource extends AbstractResource{
 		final FiltersHolder filters = new FiltersHolder();
 		filters.init(uriInfo.getQueryParameters());
 
+        if(filters.getPagination().isCountOnly()){
+            return getCountResponse(getLicenseHandler().getLicensesNamesCount(filters));
+        }
+
         final List<String> names = getLicenseHandler().getLicensesNames(filters);
         view.addAll(names);
 
-		return Response.ok(view).build();
+		return getPageResponse(view, filters.getPagination().getNextCursor(names));
 	}
 
     /**
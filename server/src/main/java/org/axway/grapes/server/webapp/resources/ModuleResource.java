@@ -1,22 +1,32 @@
 package org.axway.grapes.server.webapp.resources;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 import com.yammer.dropwizard.auth.Auth;
+import com.yammer.dropwizard.jersey.params.BooleanParam;
+import com.yammer.dropwizard.json.ObjectMapperFactory;
 import org.axway.grapes.commons.api.ServerAPI;
-import org.axway.grapes.commons.datamodel.Artifact;
+import org.axway.grapes.commons.datamodel.BatchResult;
+import org.axway.grapes.commons.datamodel.DataModelFactory;
 import org.axway.grapes.commons.datamodel.Dependency;
 import org.axway.grapes.commons.datamodel.License;
 import org.axway.grapes.commons.datamodel.Module;
 import org.axway.grapes.server.config.GrapesServerConfig;
-import org.axway.grapes.server.core.ArtifactHandler;
+import org.axway.grapes.server.core.ingestion.IngestionJob;
+import org.axway.grapes.server.core.ingestion.ModuleIngestionQueue;
 import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.core.options.Pagination;
 import org.axway.grapes.server.core.options.filters.CorporateFilter;
 import org.axway.grapes.server.core.reports.DependencyReport;
 import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.DbCursor;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.*;
 import org.axway.grapes.server.db.datamodel.DbCredential.AvailableRoles;
 import org.axway.grapes.server.webapp.DataValidator;
+import org.axway.grapes.server.webapp.JsonArrayOutput;
 import org.axway.grapes.server.webapp.views.*;
+import org.eclipse.jetty.http.HttpHeaders;
 import org.eclipse.jetty.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +36,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import java.net.URI;
 import java.net.URL;
 import java.util.*;
 
@@ -42,21 +53,33 @@ public class ModuleResource extends AbstractResource{
 
     private static final Logger LOG = LoggerFactory.getLogger(ModuleResource.class);
 
+    // null when the asynchronous posts are not enabled
+    private final ModuleIngestionQueue ingestionQueue;
+    private final ObjectMapper objectMapper;
 
     public ModuleResource(final RepositoryHandler repoHandler, final GrapesServerConfig dmConfig) {
+        this(repoHandler, dmConfig, null, new ObjectMapperFactory().build());
+    }
+
+    public ModuleResource(final RepositoryHandler repoHandler, final GrapesServerConfig dmConfig,
+                          final ModuleIngestionQueue ingestionQueue, final ObjectMapper objectMapper) {
         super(repoHandler, "ModuleResourceDocumentation.ftl", dmConfig);
+        this.ingestionQueue = ingestionQueue;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Handle the update/addition of a module in Grapes database
+     * Handle the update/addition of a module in Grapes database.
+     * With the async query parameter, the module is queued and the response is the job that tracks its storage.
      *
      * @param credential DbCredential
+     * @param async BooleanParam
      * @param module Module
-     * @return Response
+     * @return Response 201 if the module has been stored, 202 if it has been queued, 503 if the queue is full
      */
     @POST
     @Produces(MediaType.TEXT_HTML)
-    public Response postModule(@Auth final DbCredential credential, final Module module){
+    public Response postModule(@Auth final DbCredential credential, @QueryParam(ServerAPI.ASYNC_PARAM) final BooleanParam async, final Module module){
         if(!credential.getRoles().contains(AvailableRoles.DEPENDENCY_NOTIFIER)){
             throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED).build());
         }
@@ -66,31 +89,61 @@ public class ModuleResource extends AbstractResource{
         // Checks if the data is corrupted
         DataValidator.validate(module);
 
-        // turn it into DbModel
-        final DbModule dbModule = getModelMapper().getDbModule(module);
-        final DbOrganization organization = getOrganizationHandler().getMatchingOrganization(dbModule);
-        if(organization != null){
-            dbModule.setOrganization(organization.getName());
+        if(async != null && async.get() && ingestionQueue != null){
+            final IngestionJob job = ingestionQueue.offer(module);
+
+            if(job == null){
+                LOG.warn("The module ingestion queue is full or stopped.");
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, ingestionQueue.getRetryAfter())
+                        .build();
+            }
+
+            return Response.status(Response.Status.ACCEPTED)
+                    .location(URI.create(ServerAPI.JOB_RESOURCE + "/" + job.getId()))
+                    .entity(job)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .build();
         }
 
-        // Save the module
-        getModuleHandler().store(dbModule);
+        getModuleHandler().storeModule(module);
 
-        final ArtifactHandler artifactHandler = getArtifactHandler();
+        return Response.ok().status(HttpStatus.CREATED_201).build();
+    }
 
-        // Add the artifacts
-        final Set<Artifact> artifacts = DataUtils.getAllArtifacts(module);
-        for(final Artifact artifact: artifacts){
-            artifactHandler.store(getModelMapper().getDbArtifact(artifact));
+    /**
+     * Handle the update/addition of a list of modules in Grapes database.
+     * Each module is validated and stored on its own, the response gives the result of each one.
+     *
+     * @param credential DbCredential
+     * @param modules List<Module>
+     * @return Response A list of BatchResult in JSON
+     */
+    @POST
+    @Path(ServerAPI.POST_BATCH)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response postModules(@Auth final DbCredential credential, final List<Module> modules){
+        if(!credential.getRoles().contains(AvailableRoles.DEPENDENCY_NOTIFIER)){
+            throw new WebApplicationException(Response.status(Response.Status.UNAUTHORIZED).build());
         }
 
-        // Add dependencies that does not already exist
-        for(final Dependency dep: DataUtils.getAllDependencies(module)){
-            final DbArtifact dbDependency = getModelMapper().getDbArtifact(dep.getTarget());
-            artifactHandler.storeIfNew(dbDependency);
+        LOG.info("Got a batch post Module request.");
+
+        final List<BatchResult> results = new ArrayList<BatchResult>(modules.size());
+        for(final Module module: modules){
+            final String moduleId = DbModule.generateID(module.getName(), module.getVersion());
+
+            try{
+                DataValidator.validate(module);
+                getModuleHandler().storeModule(module);
+                results.add(DataModelFactory.createBatchResult(moduleId, HttpStatus.CREATED_201, null));
+            }
+            catch (WebApplicationException e){
+                results.add(getBatchResult(moduleId, e));
+            }
         }
 
-        return Response.ok().status(HttpStatus.CREATED_201).build();
+        return Response.ok(results).build();
     }
 
     /**
@@ -109,12 +162,15 @@ public class ModuleResource extends AbstractResource{
         final FiltersHolder filters = new FiltersHolder();
         filters.init(uriInfo.getQueryParameters());
 
+        if(filters.getPagination().isCountOnly()){
+            return getCountResponse(getModuleHandler().getModuleNamesCount(filters));
+        }
+
         final ListView view = new ListView("Module names view", "name");
         final List<String> moduleNames = getModuleHandler().getModuleNames(filters);
-        Collections.sort(moduleNames);
         view.addAll(moduleNames);
 
-        return Response.ok(view).build();
+        return getPageResponse(view, filters.getPagination().getNextCursor(moduleNames));
     }
 
     @GET
@@ -151,12 +207,15 @@ public class ModuleResource extends AbstractResource{
         final FiltersHolder filters = new FiltersHolder();
         filters.init(uriInfo.getQueryParameters());
 
+        if(filters.getPagination().isCountOnly()){
+            return getCountResponse(getModuleHandler().getModuleVersionsCount(name, filters));
+        }
+
         final ListView view = new ListView("Versions of " + name, "version");
         final List<String> versions = getModuleHandler().getModuleVersions(name, filters);
-        Collections.sort(versions);
         view.addAll(versions);
 
-        return Response.ok(view).build();
+        return getPageResponse(view, filters.getPagination().getNextCursor(versions));
     }
 
     /**
@@ -247,24 +306,18 @@ public class ModuleResource extends AbstractResource{
         final String moduleId = DbModule.generateID(name, version);
         final DbModule dbModule = getModuleHandler().getModule(moduleId);
         final DbOrganization dbOrganization = getModuleHandler().getOrganization(dbModule);
-        final ArtifactHandler artifactHandler = getArtifactHandler();
         final FiltersHolder filters = new FiltersHolder();
         filters.getDecorator().setShowLicenses(false);
         filters.init(uriInfo.getQueryParameters());
-        filters.setCorporateFilter(new CorporateFilter(dbOrganization));
+        filters.setCorporateFilter(new CorporateFilter(dbOrganization, getOrganizationHandler().getOrganizationMatcher()));
 
         final AncestorsView view = new AncestorsView("Ancestor List Of " + name +" in version " + version , getLicenseHandler().getLicenses(), filters.getDecorator());
 
-        for(final String artifactId: DataUtils.getAllArtifacts(dbModule)){
-            final DbArtifact dbArtifact = artifactHandler.getArtifact(artifactId);
-            final Artifact artifact = getModelMapper().getArtifact(dbArtifact);
-
-            for(final DbModule dbAncestor: artifactHandler.getAncestors(artifactId, filters)){
-                if(!dbAncestor.getId().equals(dbModule.getId())){
-                    final Module ancestor = getModelMapper().getModule(dbAncestor);
-                    view.addAncestor(ancestor, artifact);
-                }
-            }
+        // one request for all the ancestors and one batched mapping, the dependencies are grouped by ancestor
+        final Set<String> gavcs = new HashSet<String>(DataUtils.getAllArtifacts(dbModule));
+        final List<DbModule> dbAncestors = getModuleHandler().getAncestors(dbModule, filters);
+        for(final Module ancestor: getModelMapper().getModules(dbAncestors)){
+            view.addAncestor(ancestor, gavcs);
         }
 
         return Response.ok(view).build();
@@ -392,9 +445,8 @@ public class ModuleResource extends AbstractResource{
     public Response canBePromoted(@PathParam("name") final String name, @PathParam("version") final String version){
         LOG.info("Got a is the module promotable request.");
         final String moduleId = DbModule.generateID(name,version);
-        final PromotionReportView promotionReportView = getModuleHandler().getPromotionReport(moduleId);
 
-        return Response.ok(promotionReportView.canBePromoted()).build();
+        return Response.ok(getModuleHandler().canBePromoted(moduleId)).build();
     }
 
     /**
@@ -456,6 +508,8 @@ public class ModuleResource extends AbstractResource{
     @Path("/{name}/{version}" + ServerAPI.GET_BUILD_INFO)
     public Response updateBuildInfo(@PathParam("name") final String name, @PathParam("version") final String version, final Map<String,String> buildInfo){
         LOG.info("Got a post buildInfo report request.");
+        DataValidator.validateBuildInfo(buildInfo);
+
         final String moduleId = DbModule.generateID(name,version);
         final DbModule dbModule = getModuleHandler().getModule(moduleId);
         dbModule.getBuildInfo().putAll(buildInfo);
@@ -480,15 +534,28 @@ public class ModuleResource extends AbstractResource{
         final FiltersHolder filters = new FiltersHolder();
         filters.init(uriInfo.getQueryParameters());
 
-        final List<Module> modules = new ArrayList<Module>();
-        final List<DbModule> dbModules = getModuleHandler().getModules(filters);
+        final Pagination pagination = filters.getPagination();
+        if(pagination.isCountOnly()){
+            return getCountResponse(getModuleHandler().getModulesCount(filters));
+        }
 
-        for(final DbModule dbModule: dbModules){
-            final Module module = getModelMapper().getModule(dbModule);
-            modules.add(module);
+        final DbCursor<DbModule> dbModules = getModuleHandler().getModulesCursor(filters);
+        if(pagination.getLimit() == 0){
+            return Response.ok(new JsonArrayOutput(objectMapper, getModelMapper().getModules(dbModules), dbModules)).build();
+        }
+
+        // the page is bounded, it is read first to send the cursor of the next page
+        final List<DbModule> page;
+        try {
+            page = Lists.newArrayList(dbModules);
+        }
+        finally {
+            dbModules.close();
         }
+        final String lastId = page.isEmpty() ? null : page.get(page.size() - 1).getId();
 
-        return Response.ok(modules).build();
+        return getPageResponse(new JsonArrayOutput(objectMapper, getModelMapper().getModules(page).iterator(), dbModules),
+                pagination.getNextCursor(lastId, page.size()));
     }
 
 }
@@ -0,0 +1,69 @@
+package org.axway.grapes.server.webapp.tasks;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.yammer.dropwizard.tasks.Task;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuild Latest Versions Task
+ *
+ * <p>Rebuilds the latest versions of all the artifacts from the artifacts of the database, in background.
+ * The latest versions are maintained at artifact storage/deletion, this task is needed to create them on an existing
+ * database or to repair them.
+ * To rebuild the latest versions: POST <host>:<adminPort>/tasks/rebuildLatestVersions<p>
+ */
+public class RebuildLatestVersionsTask extends Task {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RebuildLatestVersionsTask.class);
+
+    private final RepositoryHandler repoHandler;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public RebuildLatestVersionsTask(final RepositoryHandler repoHandler) {
+        super("rebuildLatestVersions");
+        this.repoHandler = repoHandler;
+    }
+
+    @Override
+    public void execute(final ImmutableMultimap<String, String> args, final PrintWriter printWriter) {
+        if(!running.compareAndSet(false, true)){
+            printWriter.println("The latest versions are already being rebuilt.");
+            return;
+        }
+
+        final Thread rebuild = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final long start = System.currentTimeMillis();
+                    repoHandler.rebuildLatestVersions();
+                    LOG.info("Latest versions rebuilt in " + (System.currentTimeMillis() - start) + " ms.");
+                }
+                catch (Exception e) {
+                    LOG.error("Failed to rebuild the latest versions.", e);
+                }
+                finally {
+                    running.set(false);
+                }
+            }
+        }, "latest-versions-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+
+        printWriter.println("The latest versions are being rebuilt in background.");
+    }
+
+    /**
+     * Checks if the latest versions are being rebuilt
+     *
+     * @return boolean
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+}
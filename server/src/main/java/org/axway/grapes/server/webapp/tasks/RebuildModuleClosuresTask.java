@@ -0,0 +1,69 @@
+package org.axway.grapes.server.webapp.tasks;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.yammer.dropwizard.tasks.Task;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuild Module Closures Task
+ *
+ * <p>Rebuilds the transitive dependency closures of all the root modules from the modules of the database, in
+ * background. The closures are maintained at module storage/deletion, this task is needed to create them on an
+ * existing database or to repair them.
+ * To rebuild the module closures: POST <host>:<adminPort>/tasks/rebuildModuleClosures<p>
+ */
+public class RebuildModuleClosuresTask extends Task {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RebuildModuleClosuresTask.class);
+
+    private final RepositoryHandler repoHandler;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public RebuildModuleClosuresTask(final RepositoryHandler repoHandler) {
+        super("rebuildModuleClosures");
+        this.repoHandler = repoHandler;
+    }
+
+    @Override
+    public void execute(final ImmutableMultimap<String, String> args, final PrintWriter printWriter) {
+        if(!running.compareAndSet(false, true)){
+            printWriter.println("The module closures are already being rebuilt.");
+            return;
+        }
+
+        final Thread rebuild = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final long start = System.currentTimeMillis();
+                    repoHandler.rebuildModuleClosures();
+                    LOG.info("Module closures rebuilt in " + (System.currentTimeMillis() - start) + " ms.");
+                }
+                catch (Exception e) {
+                    LOG.error("Failed to rebuild the module closures.", e);
+                }
+                finally {
+                    running.set(false);
+                }
+            }
+        }, "module-closures-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+
+        printWriter.println("The module closures are being rebuilt in background.");
+    }
+
+    /**
+     * Checks if the module closures are being rebuilt
+     *
+     * @return boolean
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+}
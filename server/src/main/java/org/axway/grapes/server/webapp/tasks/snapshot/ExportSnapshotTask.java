@@ -0,0 +1,49 @@
+package org.axway.grapes.server.webapp.tasks.snapshot;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.yammer.dropwizard.tasks.Task;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
+import org.axway.grapes.server.db.mongo.MongodbSnapshot;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * Export Snapshot Task
+ *
+ * <p>At runtime, this task writes the whole database into a snapshot file on the server.
+ * To export the database: POST <host>:<adminPort>/tasks/exportSnapshot?file=<path></p>
+ */
+public class ExportSnapshotTask extends Task {
+
+    public static final String FILE_PARAM = "file";
+
+    private final MongodbConnection connection;
+
+    public ExportSnapshotTask(final MongodbConnection connection) {
+        super("exportSnapshot");
+        this.connection = connection;
+    }
+
+    @Override
+    public void execute(final ImmutableMultimap<String, String> args, final PrintWriter printer) throws Exception {
+        if(args.get(FILE_PARAM).isEmpty()){
+            printer.println("ERROR: Bad request! The snapshot file is missing.");
+            return;
+        }
+
+        final File file = new File(args.get(FILE_PARAM).asList().get(0));
+        printer.println("Exporting the database into " + file.getAbsolutePath() + " ...");
+        printer.flush();
+
+        final long start = System.currentTimeMillis();
+        final Map<String, Long> counts = MongodbSnapshot.export(connection.getDb(), new FileOutputStream(file));
+
+        for(Map.Entry<String, Long> count: counts.entrySet()){
+            printer.println(count.getKey() + ": " + count.getValue() + " documents");
+        }
+        printer.println("Task performed successfully in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+}
@@ -0,0 +1,66 @@
+package org.axway.grapes.server.webapp.tasks.snapshot;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.yammer.dropwizard.tasks.Task;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
+import org.axway.grapes.server.db.mongo.MongodbSnapshot;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * Import Snapshot Task
+ *
+ * <p>At runtime, this task replaces the content of the database by a snapshot file of the server.
+ * The collections of the database are replaced once the whole snapshot has been loaded, then the data that the
+ * server keeps in memory is dropped so it is read again from the imported collections.
+ * To import a snapshot: POST <host>:<adminPort>/tasks/importSnapshot?file=<path>[&threads=<number>]</p>
+ */
+public class ImportSnapshotTask extends Task {
+
+    public static final String FILE_PARAM = "file";
+    public static final String THREADS_PARAM = "threads";
+
+    private final MongodbConnection connection;
+    private final RepositoryHandler repoHandler;
+
+    public ImportSnapshotTask(final MongodbConnection connection, final RepositoryHandler repoHandler) {
+        super("importSnapshot");
+        this.connection = connection;
+        this.repoHandler = repoHandler;
+    }
+
+    @Override
+    public void execute(final ImmutableMultimap<String, String> args, final PrintWriter printer) throws Exception {
+        if(args.get(FILE_PARAM).isEmpty()){
+            printer.println("ERROR: Bad request! The snapshot file is missing.");
+            return;
+        }
+
+        final File file = new File(args.get(FILE_PARAM).asList().get(0));
+        if(!file.isFile()){
+            printer.println("ERROR: Bad request! The snapshot file does not exist: " + file.getAbsolutePath());
+            return;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        if(!args.get(THREADS_PARAM).isEmpty()){
+            threads = Integer.parseInt(args.get(THREADS_PARAM).asList().get(0));
+        }
+
+        printer.println("Importing " + file.getAbsolutePath() + " with " + threads + " threads ...");
+        printer.flush();
+
+        final long start = System.currentTimeMillis();
+        final Map<String, Long> counts = MongodbSnapshot.restore(connection.getDb(), new FileInputStream(file), threads);
+        repoHandler.clearCaches();
+
+        for(Map.Entry<String, Long> count: counts.entrySet()){
+            printer.println(count.getKey() + ": " + count.getValue() + " documents");
+        }
+        printer.println("Task performed successfully in " + (System.currentTimeMillis() - start) + " ms.");
+    }
+}
@@ -8,6 +8,7 @@ import org.axway.grapes.server.core.options.Decorator;
 import org.axway.grapes.server.db.DataUtils;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Ancestors View
@@ -34,4 +35,20 @@ public class AncestorsView extends DependencyListView {
             }
         }
     }
+
+    /**
+     * Adds in one pass all the dependencies of an ancestor that target one of the artifacts
+     *
+     * @param ancestor Module
+     * @param gavcs Set<String> the gavcs of the targeted artifacts
+     */
+    public void addAncestor(final Module ancestor, final Set<String> gavcs) {
+        for(Dependency dependency: DataUtils.getAllDependencies(ancestor)){
+            if(gavcs.contains(dependency.getTarget().getGavc())){
+                dependency.setSourceName(ancestor.getName());
+                dependency.setSourceVersion(ancestor.getVersion());
+                addDependency(dependency);
+            }
+        }
+    }
 }
@@ -1,18 +1,17 @@
 package org.axway.grapes.server.webapp.views;
 
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.AbstractIterator;
 import com.yammer.dropwizard.views.View;
 import org.axway.grapes.commons.datamodel.DataModelFactory;
 import org.axway.grapes.commons.datamodel.Dependency;
 import org.axway.grapes.commons.datamodel.License;
 import org.axway.grapes.server.core.options.Decorator;
 import org.axway.grapes.server.webapp.views.serialization.DependencyListSerializer;
+import org.axway.grapes.server.webapp.views.utils.Row;
 import org.axway.grapes.server.webapp.views.utils.Table;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Dependency List View
@@ -20,6 +19,9 @@ import java.util.Map;
  * <p>Handles the dependency list for the web-app display. It is able to generate tables that contains custom
  * dependencies information.</p>
  *
+ * <p>The rows of the table are generated one at a time while the view is rendered, so that large dependency lists
+ * are never held in memory as a table.</p>
+ *
  * @author jdcoffre
  */
 @JsonSerialize(using=DependencyListSerializer.class)
@@ -61,8 +63,8 @@ public class DependencyListView extends View {
     // Value of the header of the column "license commentary" in the dependency table
     public static final String LICENSE_COMMENT_FIELD = "License Comment";
 
-    // The dependency list to display
-    private final List<Dependency> dependencies = new ArrayList<Dependency>();
+    // The dependency list to display, in insertion order
+    private final Set<Dependency> dependencies = new LinkedHashSet<Dependency>();
 
     // The available licenses to complete dependencies' information
     private Map<String, License> licenseDictionary = new HashMap<String, License>();
@@ -89,9 +91,7 @@ public class DependencyListView extends View {
      * @param dependency Dependency
      */
     public void addDependency(final Dependency dependency) {
-        if(!dependencies.contains(dependency)){
-            dependencies.add(dependency);
-        }
+        dependencies.add(dependency);
     }
 
     /**
@@ -108,10 +108,10 @@ public class DependencyListView extends View {
     /**
      * Get the dependencies of the view
      *
-     * @return List<Dependency>
+     * @return Collection<Dependency>
      */
-    public List<Dependency> getDependencies() {
-        return dependencies;
+    public Collection<Dependency> getDependencies() {
+        return Collections.unmodifiableSet(dependencies);
     }
 
     /**
@@ -121,26 +121,33 @@ public class DependencyListView extends View {
      */
     public Table getTable(){
         final Table table = new Table(getHeaders());
+        final Iterator<Row> rows = getTableRows();
 
-        // Create row(s) per dependency
-        for(Dependency dependency: dependencies){
-            final List<String> licenseIds = dependency.getTarget().getLicenses();
-
-            // A dependency can have many rows if it has many licenses
-            if(!licenseIds.isEmpty()){
-                for(String licenseId: dependency.getTarget().getLicenses()){
-                    final License license = getLicense(licenseId);
-                    table.addRow(getDependencyCells(dependency, license));
-                }
-            }
-            else{
-                table.addRow(getDependencyCells(dependency, DataModelFactory.createLicense("","","","","")));
-            }
+        while(rows.hasNext()){
+            table.addRow(rows.next().toArray(new String[0]));
         }
 
         return table;
     }
 
+    /**
+     * Returns the headers of the table that match the configured filters
+     *
+     * @return Row
+     */
+    public Row getTableHeaders(){
+        return new Row((Object[]) getHeaders());
+    }
+
+    /**
+     * Returns the rows of the table, generated one at a time while iterating, without the duplicated ones
+     *
+     * @return Iterator<Row>
+     */
+    public Iterator<Row> getTableRows(){
+        return new RowIterator();
+    }
+
     /**
      * Returns a licenses regarding its Id and a fake on if no license exist with such an Id
      *
@@ -262,6 +269,44 @@ public class DependencyListView extends View {
         return cells.toArray(new String[cells.size()]);
     }
 
+    /**
+     * Generates the row(s) of each dependency: a dependency has as many rows as licenses
+     */
+    private final class RowIterator extends AbstractIterator<Row> {
+        private final Iterator<Dependency> dependencyIterator = dependencies.iterator();
+        // rows are equal when their hash codes are (see Row.equals), so only the hash codes are kept
+        private final Set<Integer> returnedRows = new HashSet<Integer>();
+        private Dependency dependency;
+        private Iterator<String> licenseIds = Collections.<String>emptyList().iterator();
+
+        @Override
+        protected Row computeNext() {
+            while(true){
+                final Row row;
+
+                if(licenseIds.hasNext()){
+                    row = new Row((Object[]) getDependencyCells(dependency, getLicense(licenseIds.next())));
+                }
+                else if(dependencyIterator.hasNext()){
+                    dependency = dependencyIterator.next();
+                    licenseIds = dependency.getTarget().getLicenses().iterator();
+
+                    if(licenseIds.hasNext()){
+                        continue;
+                    }
+                    row = new Row((Object[]) getDependencyCells(dependency, DataModelFactory.createLicense("","","","","")));
+                }
+                else{
+                    return endOfData();
+                }
+
+                if(returnedRows.add(row.hashCode())){
+                    return row;
+                }
+            }
+        }
+    }
+
     private void setLicenses(final List<License> licenses) {
         licenseDictionary.clear();
         for(License license: licenses){
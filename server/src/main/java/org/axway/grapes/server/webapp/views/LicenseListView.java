@@ -4,9 +4,11 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.yammer.dropwizard.views.View;
 import org.axway.grapes.commons.datamodel.License;
 import org.axway.grapes.server.webapp.views.serialization.LicenseLisSerializer;
+import org.axway.grapes.server.webapp.views.utils.Row;
 import org.axway.grapes.server.webapp.views.utils.Table;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -65,4 +67,22 @@ public class LicenseListView extends View {
 
         return table;
     }
+
+    /**
+     * Returns the headers of the table
+     *
+     * @return Row
+     */
+    public Row getTableHeaders(){
+        return getTable().getHeaders();
+    }
+
+    /**
+     * Returns the rows of the table
+     *
+     * @return Iterator<Row>
+     */
+    public Iterator<Row> getTableRows(){
+        return getTable().getRows().iterator();
+    }
 }
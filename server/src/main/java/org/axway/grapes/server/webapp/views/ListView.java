@@ -5,8 +5,9 @@ import com.yammer.dropwizard.views.View;
 import org.axway.grapes.server.webapp.views.serialization.ListSerializer;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * List View
@@ -20,7 +21,7 @@ public class ListView extends View{
 
 	private final String title;
 	private final String itemName;
-	private final List<String> list = new ArrayList<String>();
+	private final Set<String> items = new TreeSet<String>();
 
 	public ListView(final String title, final String itemName) {
 		super("ListView.ftl");
@@ -39,8 +40,7 @@ public class ListView extends View{
 	}
 
 	public List<String> getItems() {
-		Collections.sort(list);
-		return list;
+		return new ArrayList<String>(items);
 	}
 
 	public String getItemName() {
@@ -48,9 +48,7 @@ public class ListView extends View{
 	}
 
 	public void add(final String element) {
-		if(!list.contains(element)){
-            list.add(element);
-        }
+		items.add(element);
 	}
 
 }
@@ -3,6 +3,7 @@ package org.axway.grapes.server.webapp.views.serialization;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import org.axway.grapes.commons.datamodel.Dependency;
 import org.axway.grapes.server.webapp.views.DependencyListView;
 
 import java.io.IOException;
@@ -17,7 +18,11 @@ public class DependencyListSerializer extends JsonSerializer<DependencyListView>
 
     @Override
     public void serialize(final DependencyListView dependencyListView, final JsonGenerator jsonGenerator, final SerializerProvider serializerProvider) throws IOException {
-        jsonGenerator.writeObject(dependencyListView.getDependencies());
+        jsonGenerator.writeStartArray();
+        for(Dependency dependency: dependencyListView.getDependencies()){
+            jsonGenerator.writeObject(dependency);
+        }
+        jsonGenerator.writeEndArray();
         jsonGenerator.flush();
     }
 }
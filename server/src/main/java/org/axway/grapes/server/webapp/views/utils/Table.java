@@ -1,7 +1,9 @@
 package org.axway.grapes.server.webapp.views.utils;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Table
@@ -14,6 +16,7 @@ public class Table {
 
     private final Row headers;
     private final List<Row> rows = new ArrayList<Row>();
+    private final Set<Row> addedRows = new HashSet<Row>();
 
     public Table(final String... headers){
         this.headers = new Row(headers);
@@ -31,7 +34,7 @@ public class Table {
     public void addRow(final String... cells){
         final Row row = new Row(cells);
 
-        if(!rows.contains(row)){
+        if(addedRows.add(row)){
             rows.add(row);
         }
     }
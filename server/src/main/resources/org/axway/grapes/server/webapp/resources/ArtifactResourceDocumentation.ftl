@@ -109,6 +109,14 @@
                             </li>
                         </ul>
                     </li>
+                    <li>
+                        <h3>POST /artifact/batch</h3>
+                        <ul>
+                            <li>Add/update a list of artifacts</li>
+                            <li>Expects a JSON list of artifacts in the request content</li>
+                            <li>Return status 200 with a Json list of results: the gavc of each artifact, the status it would have got if posted on its own (201 or 400) and the error message if any</li>
+                        </ul>
+                    </li>
                 </ul>
             </div>
         </section>
@@ -0,0 +1,120 @@
+<html>
+	<head>
+		<meta charset="utf-8">
+		<meta name="viewport" content="width=device-width, initial-scale=1.0">
+		<meta name="author" content="jdcoffre">
+		<meta name="description" content="Job Resource Documentation">
+		
+		<title>Job API Documentation</title>
+		
+		<!-- Bootstrap -->
+		<link href="/public/twitter-bootstrap-2.3.2/css/bootstrap.css" rel="stylesheet">
+		<link href="/public/twitter-bootstrap-2.3.2/css/bootstrap-responsive.css" rel="stylesheet">
+		<link href="/public/twitter-bootstrap-2.3.2/css/docs.css" rel="stylesheet">
+
+        <link rel="shortcut icon" type="image/x-icon" href="assets/img/grapes_small.gif"/>
+
+	</head>
+    <body>
+        <div class="row-fluid">
+            <div class="navbar navbar-inverse navbar-fixed-top">
+                <div class="navbar-inner">
+                    <div class="container">
+                        <a class="brand active" href="/">Grapes</a>
+                        <div class="nav-collapse collapse">
+                            <ul class="nav">
+                                <li class="">
+                                <a class="dropdown-toggle" data-toggle="dropdown" href="#">Documentations</a>
+                                    <ul class="dropdown-menu" role="menu" aria-labelledby="drop">
+                                        <#if getOnlineDocumentation()??>
+                                        <li><a tabindex="-1" href="${getOnlineDocumentation()}">Online Documentation</a></li>
+                                        </#if>
+                                        <li><a tabindex="-1" href="/organization">Organization API</a></li>
+                                        <li><a tabindex="-1" href="/product">Product API</a></li>
+                                        <li><a tabindex="-1" href="/module">Module API</a></li>
+                                        <li><a tabindex="-1" href="/artifact">Artifact API</a></li>
+                                        <li><a tabindex="-1" href="/license">License API</a></li>
+                                    </ul>
+                                </li>
+                                <li class="">
+                                    <a href="/sequoia">Sequoïa</a>
+                                </li>
+                                <li class="">
+                                    <a href="/webapp">Data Browser</a>
+                                </li>
+                                <#if getIssueTrackerUrl()??>
+                                <li class="">
+                                    <a href="${getIssueTrackerUrl()}">Report an issue</a>
+                                </li>
+                                </#if>
+                            </ul>
+                        </div>
+                    </div>
+                </div>
+            </div>
+		</div>
+
+        <header>
+            <div class="container" >
+                <div class="row">
+                    <h1>Job REST API Documentation</h1>
+                </div>
+            </div>
+        </header>
+
+        <div class="container">
+        <div class="row">
+        <div class="span4 bs-docs-sidebar">
+            <ul class="nav nav-list bs-docs-sidenav" data-spy="affix" data-offset-top="80">
+                <li class=""><a data-toggle="collapse" data-target="#accordion1" href="#job"><i class="icon-chevron-right"></i> Resource documentation</a></li>
+                <li class=""><a data-toggle="collapse" data-target="#accordion2" href="#job-target"><i class="icon-chevron-right"></i> Get the status of a job</a></li>
+            </ul>
+        </div>
+        <div class="span8">
+        <section id="job">
+            <a class="page-header btn-link" data-toggle="collapse" data-target="#accordion1">
+                <h2>@ /job</h2>
+            </a>
+            <div id="accordion1" class="collapse">
+                <ul>
+                    <li>
+                        <h3>GET</h3>
+                        <ul>
+                            <li>Get Job resource documentation</li>
+                            <li>Returns HTML</li>
+                        </ul>
+                    </li>
+                </ul>
+            </div>
+        </section>
+        <section id="job-target">
+            <a class="page-header btn-link" data-toggle="collapse" data-target="#accordion2">
+                <h2>@ /job/{id}</h2>
+            </a>
+            <div id="accordion2" class="collapse">
+                <ul>
+                    <li>
+                        <h3>GET</h3>
+                        <ul>
+                            <li>Get the status of an asynchronous module post (POST /module?async=true)</li>
+                            <li>Returns a Json job: id, moduleId, status (QUEUED, RUNNING, DONE or FAILED), message, submissionDate and completionDate</li>
+                            <li>Return status 200 if ok, 404 if the job does not exist or is too old to be kept</li>
+                        </ul>
+                    </li>
+                </ul>
+            </div>
+        </section>
+        </div>
+        </div>
+        </div>
+
+        <footer class="text-right" style="margin-top:20px">
+            <p>Grapes ${programVersion!?html} </p>
+        </footer>
+		
+		<!-- ==Javascript== -->
+		<script src="/public/jquery-1.9.1/jquery.js"></script>
+		<script src="/public/twitter-bootstrap-2.3.2/js/bootstrap.js"></script>
+	    
+	 </body>
+</html>
\ No newline at end of file
@@ -102,6 +102,7 @@
                                         <li>Add/update module</li>
                                         <li>Expects a JSON module in the request content</li>
                                         <li>Return status 201 if ok 400 if the Json does not suits the model</li>
+                                        <li>With the optional parameter async=true (if the asynchronous ingestion is enabled), the module is queued: return status 202 with the Json job to follow at /job/{id} or 503 with a Retry-After header if the queue is full</li>
                                         <li>Json Module example:
                                             <pre>${getModuleJsonModel()}</pre>
                                         </li>
@@ -116,6 +117,14 @@
                                         </li>
                                     </ul>
                                 </li>
+                                <li>
+                                    <h3>POST /module/batch</h3>
+                                    <ul>
+                                        <li>Add/update a list of modules</li>
+                                        <li>Expects a JSON list of modules in the request content</li>
+                                        <li>Return status 200 with a Json list of results: the id of each module, the status it would have got if posted on its own (201 or 400) and the error message if any</li>
+                                    </ul>
+                                </li>
                             </ul>
                         </div>
                     </section>
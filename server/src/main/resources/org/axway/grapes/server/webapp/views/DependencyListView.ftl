@@ -57,9 +57,8 @@
             </div>
         </div>
 
-        <#assign table = getTable()>
-        <#assign headers = table.getHeaders()>
-        <#assign rows = table.getRows()>
+        <#assign headers = getTableHeaders()>
+        <#assign rows = getTableRows()>
         <div class="container" style="">
             <div class="row-fluid" id='table_div'>
                 <table class="table table-bordered table-hover sortable">
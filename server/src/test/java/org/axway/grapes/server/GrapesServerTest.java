@@ -3,6 +3,8 @@ package org.axway.grapes.server;
 import org.axway.grapes.server.config.GrapesServerConfig;
 import org.axway.grapes.server.db.DBException;
 import org.axway.grapes.server.db.RepositoryHandler;
+import org.axway.grapes.server.db.embedded.EmbeddedStore;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
 import org.axway.grapes.server.materials.TestingRepositoryHandler;
 import org.junit.Test;
 
@@ -28,7 +30,7 @@ public class GrapesServerTest extends GrapesServer{
 	private static final String DEFAULT_ADMIN_PORT = "8073";
 
     @Override
-    public RepositoryHandler getRepositoryHandler(final GrapesServerConfig config) throws DBException, UnknownHostException {
+    public RepositoryHandler getRepositoryHandler(final GrapesServerConfig config, final MongodbConnection dbConnection, final EmbeddedStore embeddedStore) throws DBException, UnknownHostException {
         return new TestingRepositoryHandler();
     }
 
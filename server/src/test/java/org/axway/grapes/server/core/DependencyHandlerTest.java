@@ -4,13 +4,22 @@ package org.axway.grapes.server.core;
 import org.axway.grapes.commons.datamodel.Dependency;
 import org.axway.grapes.commons.datamodel.Scope;
 import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.core.reports.DependencyReport;
+import org.axway.grapes.server.db.DependencyGraphIndex;
+import org.axway.grapes.server.db.ModuleClosures;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbDependency;
 import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbModuleClosure;
+import org.axway.grapes.server.materials.TestingRepositoryHandler;
+import org.axway.grapes.server.materials.cases.TC06_ModuleWithOneArtifactWithTransitiveDependencies;
 import org.junit.Test;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static junit.framework.TestCase.assertEquals;
@@ -434,4 +443,185 @@ public class DependencyHandlerTest {
         assertEquals(dependency4.getGavc(), dependencies.get(0).getTarget().getGavc());
     }
 
+
+    @Test
+    public void getDependencyReportLevelByLevelGivesTheSameResult(){
+        final TestingRepositoryHandler repositoryHandler = new TestingRepositoryHandler();
+        repositoryHandler.loadTestCase(new TC06_ModuleWithOneArtifactWithTransitiveDependencies());
+        final String moduleId = DbModule.generateID(TC06_ModuleWithOneArtifactWithTransitiveDependencies.MODULE_NAME, TC06_ModuleWithOneArtifactWithTransitiveDependencies.MODULE_VERSION);
+
+        final FiltersHolder filters = new FiltersHolder();
+        filters.getDepthHandler().setFullRecursive(true);
+        final DependencyReport depthFirstReport = new DependencyHandler(repositoryHandler).getDependencyReport(moduleId, filters);
+
+        final FiltersHolder breadthFirstFilters = new FiltersHolder();
+        breadthFirstFilters.getDepthHandler().setFullRecursive(true);
+        breadthFirstFilters.getDepthHandler().setBreadthFirst(true);
+        final DependencyReport breadthFirstReport = new DependencyHandler(repositoryHandler).getDependencyReport(moduleId, breadthFirstFilters);
+
+        assertEquals(2, depthFirstReport.getDependencies().size());
+        assertEquals(depthFirstReport.getDependencies().size(), breadthFirstReport.getDependencies().size());
+        assertEquals(depthFirstReport.getDependencyTargets(), breadthFirstReport.getDependencyTargets());
+    }
+
+    @Test
+    public void getDependencyReportInParallelGivesTheSameResult(){
+        final TestingRepositoryHandler repositoryHandler = new TestingRepositoryHandler();
+        repositoryHandler.loadTestCase(new TC06_ModuleWithOneArtifactWithTransitiveDependencies());
+        final String moduleId = DbModule.generateID(TC06_ModuleWithOneArtifactWithTransitiveDependencies.MODULE_NAME, TC06_ModuleWithOneArtifactWithTransitiveDependencies.MODULE_VERSION);
+
+        final FiltersHolder filters = new FiltersHolder();
+        filters.getDepthHandler().setFullRecursive(true);
+        final DependencyReport depthFirstReport = new DependencyHandler(repositoryHandler).getDependencyReport(moduleId, filters);
+
+        final FiltersHolder parallelFilters = new FiltersHolder();
+        parallelFilters.getDepthHandler().setFullRecursive(true);
+        parallelFilters.getDepthHandler().setParallel(true);
+        final DependencyReport parallelReport = new DependencyHandler(repositoryHandler).getDependencyReport(moduleId, parallelFilters);
+
+        assertEquals(2, depthFirstReport.getDependencies().size());
+        assertEquals(depthFirstReport.getDependencies().size(), parallelReport.getDependencies().size());
+        assertEquals(depthFirstReport.getDependencyTargets(), parallelReport.getDependencyTargets());
+    }
+
+    @Test
+    public void getModuleDependenciesWithFullRecursiveParamWalksTheModuleClosure(){
+        final DbModule module1 = createModule("module1", "1.0.0");
+        final DbModule module2 = createModule("module2", "1.1.0");
+        final DbModule module3 = createModule("module3", "2.1.0");
+        final DbArtifact dependency1 = createArtifact("org.axway.grapes.test.module2", "dependency1", "1.1.0");
+        final DbArtifact dependency2 = createArtifact("org.axway.grapes.test.module3", "dependency2", "2.1.0");
+        final DbArtifact dependency3 = createArtifact("org.axway.grapes.test", "dependency3", "123");
+        module1.addDependency(dependency1.getGavc(), Scope.COMPILE);
+        module1.addDependency(dependency2.getGavc(), Scope.TEST);
+        module2.addDependency(dependency2.getGavc(), Scope.COMPILE);
+        module3.addDependency(dependency3.getGavc(), Scope.RUNTIME);
+        module3.addDependency(dependency1.getGavc(), Scope.COMPILE);
+
+        final RepositoryHandler repositoryHandler = mock(RepositoryHandler.class);
+        when(repositoryHandler.getModule(module1.getId())).thenReturn(module1);
+        when(repositoryHandler.getModule(module2.getId())).thenReturn(module2);
+        when(repositoryHandler.getModule(module3.getId())).thenReturn(module3);
+        when(repositoryHandler.getArtifact(dependency1.getGavc())).thenReturn(dependency1);
+        when(repositoryHandler.getArtifact(dependency2.getGavc())).thenReturn(dependency2);
+        when(repositoryHandler.getArtifact(dependency3.getGavc())).thenReturn(dependency3);
+        when(repositoryHandler.getRootModuleOf(dependency1.getGavc())).thenReturn(module2);
+        when(repositoryHandler.getRootModuleOf(dependency2.getGavc())).thenReturn(module3);
+
+        final FiltersHolder filters = new FiltersHolder();
+        filters.getScopeHandler().setScopeComp(true);
+        filters.getScopeHandler().setScopeRun(true);
+        filters.getDecorator().setShowThirdparty(true);
+        filters.getDepthHandler().setFullRecursive(true);
+
+        final List<Dependency> walked = new DependencyHandler(repositoryHandler).getModuleDependencies(module1.getId(), filters);
+        filters.getScopeHandler().setScopeRun(false);
+        final List<Dependency> walkedWithoutRuntime = new DependencyHandler(repositoryHandler).getModuleDependencies(module1.getId(), filters);
+
+        final DbModuleClosure closure = ModuleClosures.compute(module1.getId(), new DependencyGraphIndex(repositoryHandler));
+        reset(repositoryHandler);
+        when(repositoryHandler.getModule(module1.getId())).thenReturn(module1);
+        when(repositoryHandler.getModuleClosure(module1.getId())).thenReturn(closure);
+        when(repositoryHandler.getModulesById(anyCollectionOf(String.class))).thenReturn(Arrays.asList(module1, module2, module3));
+        when(repositoryHandler.getArtifactsByGavc(anyCollectionOf(String.class))).thenReturn(Arrays.asList(dependency1, dependency2, dependency3));
+
+        final List<Dependency> fromClosureWithoutRuntime = new DependencyHandler(repositoryHandler).getModuleDependencies(module1.getId(), filters);
+        filters.getScopeHandler().setScopeRun(true);
+        final List<Dependency> fromClosure = new DependencyHandler(repositoryHandler).getModuleDependencies(module1.getId(), filters);
+
+        assertEquals(4, walked.size());
+        assertEquals(toString(walked), toString(fromClosure));
+        assertEquals(3, walkedWithoutRuntime.size());
+        assertEquals(toString(walkedWithoutRuntime), toString(fromClosureWithoutRuntime));
+
+        // the reachable modules are read at once instead of walking the dependencies
+        verify(repositoryHandler, never()).getModule(module2.getId());
+        verify(repositoryHandler, never()).getRootModuleOf(anyString());
+        verify(repositoryHandler, never()).getArtifact(anyString());
+    }
+
+    @Test
+    public void getModuleDependenciesWalksTheModulesWhenTheClosureDoesNotMatchThem(){
+        final DbModule module1 = createModule("module1", "1.0.0");
+        final DbModule module2 = createModule("module2", "1.1.0");
+        final DbArtifact dependency1 = createArtifact("org.axway.grapes.test.module2", "dependency1", "1.1.0");
+        final DbArtifact dependency2 = createArtifact("org.axway.grapes.test", "dependency2", "2.1.0");
+        module1.addDependency(dependency1.getGavc(), Scope.COMPILE);
+
+        final RepositoryHandler repositoryHandler = mock(RepositoryHandler.class);
+        when(repositoryHandler.getModule(module1.getId())).thenReturn(module1);
+        when(repositoryHandler.getRootModuleOf(dependency1.getGavc())).thenReturn(module2);
+        final DbModuleClosure closure = ModuleClosures.compute(module1.getId(), new DependencyGraphIndex(repositoryHandler));
+
+        // module2 got a dependency since the closure has been computed
+        module2.addDependency(dependency2.getGavc(), Scope.COMPILE);
+        when(repositoryHandler.getModuleClosure(module1.getId())).thenReturn(closure);
+        when(repositoryHandler.getModulesById(anyCollectionOf(String.class))).thenReturn(Arrays.asList(module1, module2));
+        when(repositoryHandler.getArtifact(dependency1.getGavc())).thenReturn(dependency1);
+        when(repositoryHandler.getArtifact(dependency2.getGavc())).thenReturn(dependency2);
+
+        final FiltersHolder filters = new FiltersHolder();
+        filters.getScopeHandler().setScopeComp(true);
+        filters.getDecorator().setShowThirdparty(true);
+        filters.getDepthHandler().setFullRecursive(true);
+
+        final List<Dependency> dependencies = new DependencyHandler(repositoryHandler).getModuleDependencies(module1.getId(), filters);
+        assertEquals(2, dependencies.size());
+        assertEquals(dependency2.getGavc(), dependencies.get(1).getTarget().getGavc());
+    }
+
+    @Test
+    public void getModuleDependenciesWalksTheModulesWhenADependencyHasBeenRetargeted(){
+        final DbModule module1 = createModule("module1", "1.0.0");
+        final DbModule module2 = createModule("module2", "1.1.0");
+        final DbArtifact dependency1 = createArtifact("org.axway.grapes.test.module2", "dependency1", "1.1.0");
+        final DbArtifact dependency2 = createArtifact("org.axway.grapes.test", "dependency2", "2.1.0");
+        module1.addDependency(dependency1.getGavc(), Scope.COMPILE);
+
+        final RepositoryHandler repositoryHandler = mock(RepositoryHandler.class);
+        when(repositoryHandler.getModule(module1.getId())).thenReturn(module1);
+        when(repositoryHandler.getRootModuleOf(dependency1.getGavc())).thenReturn(module2);
+        final DbModuleClosure closure = ModuleClosures.compute(module1.getId(), new DependencyGraphIndex(repositoryHandler));
+
+        // module1 depends on another artifact since the closure has been computed, the count is the same
+        module1.setDependencies(new ArrayList<DbDependency>());
+        module1.addDependency(dependency2.getGavc(), Scope.COMPILE);
+        when(repositoryHandler.getModuleClosure(module1.getId())).thenReturn(closure);
+        when(repositoryHandler.getModulesById(anyCollectionOf(String.class))).thenReturn(Arrays.asList(module1, module2));
+        when(repositoryHandler.getArtifact(dependency2.getGavc())).thenReturn(dependency2);
+
+        final FiltersHolder filters = new FiltersHolder();
+        filters.getScopeHandler().setScopeComp(true);
+        filters.getDecorator().setShowThirdparty(true);
+        filters.getDepthHandler().setFullRecursive(true);
+
+        final List<Dependency> dependencies = new DependencyHandler(repositoryHandler).getModuleDependencies(module1.getId(), filters);
+        assertEquals(1, dependencies.size());
+        assertEquals(dependency2.getGavc(), dependencies.get(0).getTarget().getGavc());
+        verify(repositoryHandler, never()).getArtifactsByGavc(anyCollectionOf(String.class));
+    }
+
+    private DbModule createModule(final String name, final String version) {
+        final DbModule module = new DbModule();
+        module.setName(name);
+        module.setVersion(version);
+        return module;
+    }
+
+    private DbArtifact createArtifact(final String groupId, final String artifactId, final String version) {
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId(groupId);
+        artifact.setArtifactId(artifactId);
+        artifact.setVersion(version);
+        return artifact;
+    }
+
+    private List<String> toString(final List<Dependency> dependencies) {
+        final List<String> results = new ArrayList<String>();
+        for(Dependency dependency: dependencies){
+            results.add(dependency.getSourceName() + ":" + dependency.getSourceVersion() + " -> " +
+                    dependency.getTarget().getGavc() + " " + dependency.getScope());
+        }
+        return results;
+    }
 }
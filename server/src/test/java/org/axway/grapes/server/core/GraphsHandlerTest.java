@@ -160,6 +160,98 @@ public class GraphsHandlerTest {
         assertEquals(2, graph.getDependencies().size());
     }
 
+    @Test
+    public void getGraphLevelByLevelOfModuleWithOneArtifactAndThirdParty(){
+        repoHandler.loadTestCase(new TC05_ModuleWithOneArtifactAndThirdParty());
+        filters.getDepthHandler().setBreadthFirst(true);
+
+        final String moduleId = DbModule.generateID(TC05_ModuleWithOneArtifactAndThirdParty.MODULE_NAME, TC05_ModuleWithOneArtifactAndThirdParty.MODULE_VERSION);
+        AbstractGraph graph = graphHandler.getModuleGraph(moduleId);
+
+        assertNotNull(graph);
+        assertEquals(5, graph.getElements().size());
+        assertEquals(4, graph.getDependencies().size());
+    }
+
+    @Test
+    public void getGraphLevelByLevelOfModuleWithOneArtifactWithTransitiveDependencies(){
+        repoHandler.loadTestCase(new TC06_ModuleWithOneArtifactWithTransitiveDependencies());
+        filters.getDepthHandler().setBreadthFirst(true);
+
+        final String moduleId = DbModule.generateID(TC06_ModuleWithOneArtifactWithTransitiveDependencies.MODULE_NAME, TC06_ModuleWithOneArtifactWithTransitiveDependencies.MODULE_VERSION);
+        AbstractGraph graph = graphHandler.getModuleGraph(moduleId);
+
+        assertNotNull(graph);
+        assertEquals(3, graph.getElements().size());
+        assertEquals(2, graph.getDependencies().size());
+
+        filters.getDepthHandler().setFullRecursive(false);
+        graph = graphHandler.getModuleGraph(moduleId);
+
+        assertNotNull(graph);
+        assertEquals(2, graph.getElements().size());
+        assertEquals(1, graph.getDependencies().size());
+    }
+
+    @Test
+    public void getGraphLevelByLevelOfModuleWithOneArtifactWithLoopDependencies(){
+        repoHandler.loadTestCase(new TC07_ModuleWithOneArtifactWithLoopDependencies());
+        filters.getDepthHandler().setBreadthFirst(true);
+
+        final String moduleId = DbModule.generateID(TC07_ModuleWithOneArtifactWithLoopDependencies.MODULE_NAME, TC07_ModuleWithOneArtifactWithLoopDependencies.MODULE_VERSION);
+        AbstractGraph graph = graphHandler.getModuleGraph(moduleId);
+
+        assertNotNull(graph);
+        assertEquals(2, graph.getElements().size());
+        assertEquals(2, graph.getDependencies().size());
+    }
+
+    @Test
+    public void getGraphInParallelOfModuleWithOneArtifactAndThirdParty(){
+        repoHandler.loadTestCase(new TC05_ModuleWithOneArtifactAndThirdParty());
+        filters.getDepthHandler().setParallel(true);
+
+        final String moduleId = DbModule.generateID(TC05_ModuleWithOneArtifactAndThirdParty.MODULE_NAME, TC05_ModuleWithOneArtifactAndThirdParty.MODULE_VERSION);
+        AbstractGraph graph = graphHandler.getModuleGraph(moduleId);
+
+        assertNotNull(graph);
+        assertEquals(5, graph.getElements().size());
+        assertEquals(4, graph.getDependencies().size());
+    }
+
+    @Test
+    public void getGraphInParallelOfModuleWithOneArtifactWithTransitiveDependencies(){
+        repoHandler.loadTestCase(new TC06_ModuleWithOneArtifactWithTransitiveDependencies());
+        filters.getDepthHandler().setParallel(true);
+
+        final String moduleId = DbModule.generateID(TC06_ModuleWithOneArtifactWithTransitiveDependencies.MODULE_NAME, TC06_ModuleWithOneArtifactWithTransitiveDependencies.MODULE_VERSION);
+        AbstractGraph graph = graphHandler.getModuleGraph(moduleId);
+
+        assertNotNull(graph);
+        assertEquals(3, graph.getElements().size());
+        assertEquals(2, graph.getDependencies().size());
+
+        filters.getDepthHandler().setFullRecursive(false);
+        graph = graphHandler.getModuleGraph(moduleId);
+
+        assertNotNull(graph);
+        assertEquals(2, graph.getElements().size());
+        assertEquals(1, graph.getDependencies().size());
+    }
+
+    @Test
+    public void getGraphInParallelOfModuleWithOneArtifactWithLoopDependencies(){
+        repoHandler.loadTestCase(new TC07_ModuleWithOneArtifactWithLoopDependencies());
+        filters.getDepthHandler().setParallel(true);
+
+        final String moduleId = DbModule.generateID(TC07_ModuleWithOneArtifactWithLoopDependencies.MODULE_NAME, TC07_ModuleWithOneArtifactWithLoopDependencies.MODULE_VERSION);
+        AbstractGraph graph = graphHandler.getModuleGraph(moduleId);
+
+        assertNotNull(graph);
+        assertEquals(2, graph.getElements().size());
+        assertEquals(2, graph.getDependencies().size());
+    }
+
     @Test
     public void getTreeOfModuleWithOneArtifactWithoutDependency(){
         repoHandler.loadTestCase(new TC01_ModuleWithOneArtifactWithoutDependency());
@@ -3,23 +3,33 @@ package org.axway.grapes.server.core;
 
 import org.axway.grapes.commons.datamodel.Scope;
 import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.db.PromotionStatusCache;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
 import org.axway.grapes.server.db.datamodel.DbLicense;
 import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbOrganization;
+import org.axway.grapes.server.db.embedded.EmbeddedHandler;
+import org.axway.grapes.server.db.embedded.EmbeddedStore;
+import org.axway.grapes.server.webapp.views.PromotionReportView;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import javax.ws.rs.WebApplicationException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import static junit.framework.TestCase.assertEquals;
-import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.*;
 import static org.mockito.Mockito.*;
 
 public class ModuleHandlerTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void checkStoreModule(){
         final RepositoryHandler repositoryHandler = mock(RepositoryHandler.class);
@@ -264,4 +274,92 @@ public class ModuleHandlerTest {
 
         verify(repositoryHandler, times(1)).getModules(filters);
     }
+
+    @Test
+    public void sharedDependenciesAreReportedOnce() throws Exception {
+        final EmbeddedHandler repositoryHandler = spy(createDiamond());
+        final ModuleHandler handler = new ModuleHandler(repositoryHandler);
+
+        final PromotionReportView report = handler.getPromotionReport("a:1.0.0");
+
+        assertFalse(report.canBePromoted());
+        assertEquals(2, report.getUnPromotedDependencies().size());
+        assertTrue(report.getUnPromotedDependencies().containsAll(Arrays.asList("b:1.0.0", "c:1.0.0")));
+        // d is reached through b and c but, like a and b, it is read once for its report and once for its dependencies
+        verify(repositoryHandler, times(2)).getModule("a:1.0.0");
+        verify(repositoryHandler, times(2)).getModule("b:1.0.0");
+        verify(repositoryHandler, times(2)).getModule("d:1.0.0");
+    }
+
+    @Test
+    public void promotionStatusIsCachedUntilTheClosureChanges() throws Exception {
+        final EmbeddedHandler repositoryHandler = createDiamond();
+        final PromotionStatusCache cache = repositoryHandler.getPromotionStatusCache();
+        final ModuleHandler handler = new ModuleHandler(repositoryHandler);
+
+        assertFalse(handler.canBePromoted("a:1.0.0"));
+        assertEquals(Boolean.FALSE, cache.get("a:1.0.0"));
+
+        // d is in the closure of a through b and c
+        handler.promoteModule("d:1.0.0");
+        assertNull(cache.get("a:1.0.0"));
+        assertFalse(handler.canBePromoted("a:1.0.0"));
+
+        handler.promoteModule("b:1.0.0");
+        handler.promoteModule("c:1.0.0");
+        assertNull(cache.get("a:1.0.0"));
+        assertTrue(handler.canBePromoted("a:1.0.0"));
+        assertEquals(Boolean.TRUE, cache.get("a:1.0.0"));
+
+        repositoryHandler.updateDoNotUse(repositoryHandler.getArtifact("org.axway.test:b:1.0.0::jar"), true);
+        assertNull(cache.get("a:1.0.0"));
+        assertFalse(handler.canBePromoted("a:1.0.0"));
+
+        assertEquals(Boolean.FALSE, cache.get("a:1.0.0"));
+        repositoryHandler.store(repositoryHandler.getModule("a:1.0.0"));
+        assertNull(cache.get("a:1.0.0"));
+    }
+
+    /**
+     * Creates a repository where a depends on b and c which both depend on d, none of them being promoted
+     */
+    private EmbeddedHandler createDiamond() throws Exception {
+        final EmbeddedHandler repositoryHandler = new EmbeddedHandler(new EmbeddedStore(folder.newFolder()));
+
+        final DbOrganization organization = new DbOrganization();
+        organization.setName("organization");
+        organization.getCorporateGroupIdPrefixes().add("org.axway.test");
+        repositoryHandler.store(organization);
+
+        final DbModule a = createModule(repositoryHandler, "a");
+        final DbModule b = createModule(repositoryHandler, "b");
+        final DbModule c = createModule(repositoryHandler, "c");
+        final DbModule d = createModule(repositoryHandler, "d");
+        a.addDependency("org.axway.test:b:1.0.0::jar", Scope.COMPILE);
+        a.addDependency("org.axway.test:c:1.0.0::jar", Scope.COMPILE);
+        b.addDependency("org.axway.test:d:1.0.0::jar", Scope.COMPILE);
+        c.addDependency("org.axway.test:d:1.0.0::jar", Scope.COMPILE);
+
+        for(DbModule module: Arrays.asList(a, b, c, d)){
+            repositoryHandler.store(module);
+        }
+
+        return repositoryHandler;
+    }
+
+    private DbModule createModule(final RepositoryHandler repositoryHandler, final String name) {
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.test");
+        artifact.setArtifactId(name);
+        artifact.setVersion("1.0.0");
+        artifact.setExtension("jar");
+        repositoryHandler.store(artifact);
+
+        final DbModule module = new DbModule();
+        module.setName(name);
+        module.setVersion("1.0.0");
+        module.setOrganization("organization");
+        module.addArtifact(artifact);
+        return module;
+    }
 }
@@ -0,0 +1,100 @@
+package org.axway.grapes.server.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ParallelResolverTest {
+
+    @Test
+    public void resultsAreInTheOrderOfTheElements(){
+        final List<Integer> elements = new ArrayList<Integer>();
+        for(int i = 0; i < 100; i++){
+            elements.add(i);
+        }
+
+        final List<String> results = ParallelResolver.resolve(elements, new ParallelResolver.Resolution<Integer, String>() {
+            @Override
+            public String resolve(final Integer element) {
+                return String.valueOf(element * 2);
+            }
+        });
+
+        assertEquals(100, results.size());
+        for(int i = 0; i < 100; i++){
+            assertEquals(String.valueOf(i * 2), results.get(i));
+        }
+    }
+
+    @Test
+    public void elementsAreResolvedConcurrently(){
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        final List<Boolean> results = ParallelResolver.resolve(Arrays.asList("a", "b"), new ParallelResolver.Resolution<String, Boolean>() {
+            @Override
+            public Boolean resolve(final String element) {
+                latch.countDown();
+                try {
+                    // each resolution waits for the other one
+                    return latch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    return false;
+                }
+            }
+        });
+
+        assertEquals(Arrays.asList(true, true), results);
+    }
+
+    @Test
+    public void batchesAreSplitInParts(){
+        final List<Integer> keys = new ArrayList<Integer>();
+        for(int i = 0; i < 1000; i++){
+            keys.add(i);
+        }
+        final List<Integer> partSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+        final List<Integer> results = ParallelResolver.resolveBatch(keys, new ParallelResolver.Resolution<List<Integer>, List<Integer>>() {
+            @Override
+            public List<Integer> resolve(final List<Integer> part) {
+                partSizes.add(part.size());
+                return part;
+            }
+        });
+
+        assertEquals(keys, results);
+        assertEquals(ParallelResolver.THREADS, partSizes.size());
+
+        // a small batch is requested at once
+        partSizes.clear();
+        ParallelResolver.resolveBatch(keys.subList(0, 10), new ParallelResolver.Resolution<List<Integer>, List<Integer>>() {
+            @Override
+            public List<Integer> resolve(final List<Integer> part) {
+                partSizes.add(part.size());
+                return part;
+            }
+        });
+        assertEquals(Collections.singletonList(10), partSizes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resolutionExceptionsAreThrownBack(){
+        ParallelResolver.resolve(Arrays.asList("a", "b", "c"), new ParallelResolver.Resolution<String, String>() {
+            @Override
+            public String resolve(final String element) {
+                if("b".equals(element)){
+                    throw new IllegalArgumentException(element);
+                }
+                return element;
+            }
+        });
+    }
+}
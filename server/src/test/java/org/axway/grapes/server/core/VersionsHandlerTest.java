@@ -2,12 +2,15 @@ package org.axway.grapes.server.core;
 
 import org.axway.grapes.server.core.version.IncomparableException;
 import org.axway.grapes.server.core.version.NotHandledVersionException;
+import org.axway.grapes.server.core.version.Version;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbLatestVersions;
 import org.junit.Test;
 
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.mongodb.util.MyAsserts.*;
@@ -120,4 +123,40 @@ public class VersionsHandlerTest {
         String lastVersion = versionsHandler.getLastVersion(new ArrayList<String>());
         assertNull(lastVersion);
     }
+
+    @Test
+    public void lastVersionsAreComputedComparingTheVersions() throws NotHandledVersionException {
+        final DbLatestVersions latestVersions = new DbLatestVersions();
+        latestVersions.setVersions(new ArrayList<String>(Arrays.asList("1.10.0", "1.9.0", "2.0.0-SNAPSHOT")));
+        VersionsHandler.updateLastVersions(latestVersions);
+
+        assertTrue(latestVersions.isComparable());
+        assertEquals("1.10.0", latestVersions.getLastRelease());
+        assertEquals("2.0.0-SNAPSHOT", latestVersions.getLastVersion());
+        assertEquals(Version.of("1.10.0").getSortKey(), latestVersions.getLastReleaseKey());
+        assertEquals(Version.of("2.0.0-SNAPSHOT").getSortKey(), latestVersions.getLastVersionKey());
+    }
+
+    @Test
+    public void noLastReleaseWithoutRelease() {
+        final DbLatestVersions latestVersions = new DbLatestVersions();
+        latestVersions.setVersions(new ArrayList<String>(Arrays.asList("1.0.0-SNAPSHOT")));
+        VersionsHandler.updateLastVersions(latestVersions);
+
+        assertTrue(latestVersions.isComparable());
+        assertNull(latestVersions.getLastRelease());
+        assertEquals("1.0.0-SNAPSHOT", latestVersions.getLastVersion());
+    }
+
+    @Test
+    public void greatestVersionIsTheLastOneIfTheVersionsCannotBeCompared() {
+        final DbLatestVersions latestVersions = new DbLatestVersions();
+        latestVersions.setVersions(new ArrayList<String>(Arrays.asList("1.0.0", "version-b", "version-a")));
+        VersionsHandler.updateLastVersions(latestVersions);
+
+        assertFalse(latestVersions.isComparable());
+        assertNull(latestVersions.getLastRelease());
+        assertEquals("version-b", latestVersions.getLastVersion());
+        assertNull(latestVersions.getLastVersionKey());
+    }
 }
@@ -4,6 +4,7 @@
  */
 package org.axway.grapes.server.core.graphs;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.axway.grapes.commons.datamodel.Scope;
 import org.junit.Test;
 
@@ -37,4 +38,51 @@ public class ModuleGraphTest {
         assertEquals(Scope.TEST.toString(), graph.getDependencies().get(0).getType());
         
     }
+
+    @Test
+    public void duplicatedDependenciesAreIgnored(){
+        ModuleGraph graph = new ModuleGraph();
+        graph.addElement("test", "1.0.0-SNAPSHOT", true);
+        graph.addElement("test2", "1.0.0-SNAPSHOT", false);
+        graph.addDependency("test", "test2", Scope.TEST);
+        graph.addDependency("test", "test2", Scope.TEST);
+        graph.addDependency("test", "test2", Scope.COMPILE);
+        graph.addDependency("test2", "test", Scope.TEST);
+        graph.addDependency("test", "test", Scope.TEST);
+
+        assertEquals(3, graph.getDependencies().size());
+        assertEquals(Scope.COMPILE.toString(), graph.getDependencies().get(1).getType());
+        assertEquals("test2", graph.getDependencies().get(2).getSource());
+    }
+
+    @Test
+    public void elementsAreTreatedOnce(){
+        ModuleGraph graph = new ModuleGraph();
+        graph.treated("test");
+        assertTrue(graph.isTreated("test"));
+        assertEquals(0, graph.getElements().size());
+
+        graph.addElement("test", "1.0.0", true);
+        graph.addElement("test", "2.0.0", false);
+        assertEquals(1, graph.getElements().size());
+        assertEquals("1.0.0", graph.getElements().get(0).getVersion());
+        assertTrue(graph.getElements().get(0).isRoot());
+    }
+
+    @Test
+    public void checkJsonSerialization() throws Exception {
+        ModuleGraph graph = new ModuleGraph();
+        graph.addElement("test", "1.0.0", true);
+        graph.addElement("test2", null, false);
+        graph.addDependency("test", "test2", Scope.RUNTIME);
+
+        final ObjectMapper mapper = new ObjectMapper();
+        final String json = mapper.writeValueAsString(graph);
+        assertEquals("{\"elements\":[{\"value\":\"test\",\"version\":\"1.0.0\",\"root\":true}," +
+                "{\"value\":\"test2\",\"version\":null,\"root\":false}]," +
+                "\"dependencies\":[{\"source\":\"test\",\"target\":\"test2\",\"type\":\"RUNTIME\"}]}", json);
+
+        final ModuleGraph readGraph = mapper.readValue(json, ModuleGraph.class);
+        assertEquals(json, mapper.writeValueAsString(readGraph));
+    }
 }
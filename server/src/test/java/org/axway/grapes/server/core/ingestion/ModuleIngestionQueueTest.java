@@ -0,0 +1,156 @@
+package org.axway.grapes.server.core.ingestion;
+
+import org.axway.grapes.commons.datamodel.DataModelFactory;
+import org.axway.grapes.commons.datamodel.Module;
+import org.axway.grapes.server.config.IngestionConfig;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ModuleIngestionQueueTest {
+
+    @Test
+    public void queuedModulesAreMerged() throws Exception {
+        final CountDownLatch storing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final IngestionConfig config = new IngestionConfig();
+        config.setQueueSize(1);
+        config.setWorkers(1);
+        final ModuleIngestionQueue queue = new ModuleIngestionQueue(blockingRepositoryHandler(storing, release), config);
+        queue.start();
+
+        try {
+            // the worker is kept busy by another module
+            queue.offer(DataModelFactory.createModule("busy", "1.0.0"));
+            assertTrue(storing.await(5, TimeUnit.SECONDS));
+
+            final IngestionJob job1 = queue.offer(DataModelFactory.createModule("module", "1.0.0"));
+            final IngestionJob job2 = queue.offer(DataModelFactory.createModule("module", "1.0.0"));
+            assertNotNull(job1);
+            assertNotNull(job2);
+            assertNotEquals(job1.getId(), job2.getId());
+            assertEquals(1, queue.size());
+            assertEquals(job1, queue.getJob(job1.getId()));
+            assertEquals(job2, queue.getJob(job2.getId()));
+
+            // the queue is full
+            assertNull(queue.offer(DataModelFactory.createModule("other", "1.0.0")));
+            assertNull(queue.getJob("unknown"));
+        }
+        finally {
+            release.countDown();
+            queue.stop();
+        }
+    }
+
+    @Test
+    public void queuedModulesAreStoredBeforeTheQueueStops() throws Exception {
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final ModuleIngestionQueue queue = new ModuleIngestionQueue(repoHandler, new IngestionConfig());
+        queue.start();
+
+        final IngestionJob job1 = queue.offer(DataModelFactory.createModule("module", "0.9.0"));
+        final IngestionJob job2 = queue.offer(DataModelFactory.createModule("module", "1.0.0"));
+        queue.stop();
+
+        assertEquals(0, queue.size());
+        assertEquals(IngestionJob.Status.DONE, job1.getStatus());
+        assertEquals(IngestionJob.Status.DONE, job2.getStatus());
+        assertTrue(job2.getCompletionDate() >= job2.getSubmissionDate());
+        verify(repoHandler, times(2)).store(any(DbModule.class));
+    }
+
+    @Test
+    public void modulePostedWhileItIsStoredIsStoredAfterwards() throws Exception {
+        final CountDownLatch storing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RepositoryHandler repoHandler = blockingRepositoryHandler(storing, release);
+        final IngestionConfig config = new IngestionConfig();
+        config.setWorkers(2);
+        final ModuleIngestionQueue queue = new ModuleIngestionQueue(repoHandler, config);
+        queue.start();
+
+        final Module first = DataModelFactory.createModule("module", "1.0.0");
+        first.setPromoted(false);
+        final Module latest = DataModelFactory.createModule("module", "1.0.0");
+        latest.setPromoted(true);
+
+        final IngestionJob job1 = queue.offer(first);
+        assertTrue(storing.await(5, TimeUnit.SECONDS));
+        final IngestionJob job2 = queue.offer(latest);
+
+        // the other worker does not store the new post while the first one is stored
+        Thread.sleep(100);
+        assertEquals(1, queue.size());
+        assertEquals(IngestionJob.Status.QUEUED, job2.getStatus());
+
+        release.countDown();
+        queue.stop();
+
+        assertEquals(IngestionJob.Status.DONE, job1.getStatus());
+        assertEquals(IngestionJob.Status.DONE, job2.getStatus());
+        final ArgumentCaptor<DbModule> captor = ArgumentCaptor.forClass(DbModule.class);
+        verify(repoHandler, times(2)).store(captor.capture());
+        assertFalse(captor.getAllValues().get(0).isPromoted());
+        assertTrue(captor.getAllValues().get(1).isPromoted());
+    }
+
+    @Test
+    public void modulesAreRejectedWhenTheQueueIsNotRunning() throws Exception {
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final ModuleIngestionQueue queue = new ModuleIngestionQueue(repoHandler, new IngestionConfig());
+        assertNull(queue.offer(DataModelFactory.createModule("module", "1.0.0")));
+
+        queue.start();
+        queue.stop();
+        assertNull(queue.offer(DataModelFactory.createModule("module", "1.0.0")));
+        assertEquals(0, queue.size());
+        verify(repoHandler, never()).store(any(DbModule.class));
+    }
+
+    @Test
+    public void failedStorageFailsTheJob() throws Exception {
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        doThrow(new RuntimeException("database down")).when(repoHandler).store(any(DbModule.class));
+        final ModuleIngestionQueue queue = new ModuleIngestionQueue(repoHandler, new IngestionConfig());
+
+        queue.start();
+        final IngestionJob job = queue.offer(DataModelFactory.createModule("module", "1.0.0"));
+        queue.stop();
+
+        assertEquals(IngestionJob.Status.FAILED, job.getStatus());
+        assertEquals("database down", job.getMessage());
+
+        final ArgumentCaptor<DbModule> captor = ArgumentCaptor.forClass(DbModule.class);
+        verify(repoHandler).store(captor.capture());
+        assertEquals("module:1.0.0", captor.getValue().getId());
+    }
+
+    /**
+     * Creates a repository handler whose first module storage waits for the release
+     */
+    private RepositoryHandler blockingRepositoryHandler(final CountDownLatch storing, final CountDownLatch release) {
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                if(storing.getCount() > 0){
+                    storing.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        }).when(repoHandler).store(any(DbModule.class));
+        return repoHandler;
+    }
+}
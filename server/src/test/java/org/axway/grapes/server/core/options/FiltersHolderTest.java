@@ -4,14 +4,20 @@ import org.axway.grapes.commons.datamodel.Scope;
 import org.axway.grapes.server.GrapesTestUtils;
 import org.axway.grapes.server.core.options.filters.ApprovedFilter;
 import org.axway.grapes.server.core.options.filters.CorporateFilter;
+import org.axway.grapes.server.core.options.filters.LicenseIdFilter;
+import org.axway.grapes.server.core.options.filters.PromotedFilter;
 import org.axway.grapes.server.core.options.filters.ToBeValidatedFilter;
+import org.axway.grapes.server.db.OrganizationMatcher;
+import org.axway.grapes.server.db.datamodel.DbCollections;
 import org.axway.grapes.server.db.datamodel.DbDependency;
 import org.axway.grapes.server.db.datamodel.DbLicense;
 import org.axway.grapes.server.db.datamodel.DbOrganization;
 import org.junit.Test;
 
 import java.net.UnknownHostException;
+import java.util.Collections;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -68,7 +74,7 @@ public class FiltersHolderTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("corp");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        filters.setCorporateFilter(new CorporateFilter(organization));
+        filters.setCorporateFilter(new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization))));
 
         assertFalse(filters.shouldBeInReport((DbDependency) null));
         assertFalse(filters.shouldBeInReport(new DbDependency("", "", Scope.COMPILE)));
@@ -107,4 +113,53 @@ public class FiltersHolderTest {
         assertTrue(filters.getDepthHandler().shouldGoDeeper(20));
 
     }
+
+    @Test
+    public void licenseFiltersAsQuery(){
+        final FiltersHolder filters = new FiltersHolder();
+        assertTrue(filters.isLicenseQuery());
+        assertTrue(filters.getLicenseFieldsFilters().isEmpty());
+
+        filters.addFilter(new ApprovedFilter(true));
+        filters.addFilter(new LicenseIdFilter("license"));
+        assertTrue(filters.isLicenseQuery());
+        assertEquals(2, filters.getLicenseFieldsFilters().size());
+        assertEquals("license", filters.getLicenseFieldsFilters().get(DbCollections.DEFAULT_ID));
+
+        filters.addFilter(new PromotedFilter(true));
+        assertFalse(filters.isLicenseQuery());
+        assertEquals(2, filters.getLicenseFieldsFilters().size());
+    }
+
+    @Test
+    public void approvedAndToBeValidatedFiltersAreNotMergedInAQuery(){
+        final DbLicense licenseToValidate = createLicense("tovalidate", null);
+        final DbLicense licenseValidated = createLicense("validated", true);
+        final DbLicense licenseUnvalidated = createLicense("unvalidated", false);
+
+        // ?approved=true&toBeValidated=false
+        FiltersHolder filters = new FiltersHolder();
+        filters.addFilter(new ApprovedFilter(true));
+        filters.addFilter(new ToBeValidatedFilter(false));
+        assertFalse(filters.isLicenseQuery());
+        assertFalse(filters.shouldBeInReport(licenseToValidate));
+        assertTrue(filters.shouldBeInReport(licenseValidated));
+        assertFalse(filters.shouldBeInReport(licenseUnvalidated));
+
+        // ?approved=true&toBeValidated=true
+        filters = new FiltersHolder();
+        filters.addFilter(new ApprovedFilter(true));
+        filters.addFilter(new ToBeValidatedFilter(true));
+        assertFalse(filters.isLicenseQuery());
+        assertFalse(filters.shouldBeInReport(licenseToValidate));
+        assertFalse(filters.shouldBeInReport(licenseValidated));
+        assertFalse(filters.shouldBeInReport(licenseUnvalidated));
+    }
+
+    private DbLicense createLicense(final String name, final Boolean approved) {
+        final DbLicense license = new DbLicense();
+        license.setName(name);
+        license.setApproved(approved);
+        return license;
+    }
 }
@@ -0,0 +1,93 @@
+package org.axway.grapes.server.core.options;
+
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+import org.axway.grapes.commons.api.ServerAPI;
+import org.junit.Test;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PaginationTest {
+
+    @Test
+    public void notPaginatedByDefault(){
+        final Pagination pagination = new Pagination();
+        pagination.init(new MultivaluedMapImpl());
+
+        assertFalse(pagination.isPaginated());
+        assertFalse(pagination.isCountOnly());
+        assertEquals(0, pagination.getOffset());
+        assertEquals(0, pagination.getLimit());
+        assertNull(pagination.getCursor());
+        assertNull(pagination.getNextCursor("id", 10));
+    }
+
+    @Test
+    public void initFromQueryParameters(){
+        final MultivaluedMap<String, String> params = new MultivaluedMapImpl();
+        params.putSingle(ServerAPI.OFFSET_PARAM, "2");
+        params.putSingle(ServerAPI.LIMIT_PARAM, "10");
+        params.putSingle(ServerAPI.CURSOR_PARAM, Pagination.encodeCursor("org.axway:module:1.0.0::jar"));
+        params.putSingle(ServerAPI.COUNT_PARAM, "true");
+
+        final Pagination pagination = new Pagination();
+        pagination.init(params);
+
+        assertTrue(pagination.isPaginated());
+        assertTrue(pagination.isCountOnly());
+        assertEquals(2, pagination.getOffset());
+        assertEquals(10, pagination.getLimit());
+        assertEquals("org.axway:module:1.0.0::jar", pagination.getCursor());
+    }
+
+    @Test
+    public void applyOnSortedIds(){
+        final List<String> ids = Arrays.asList("a", "b", "c", "d", "e");
+
+        final Pagination pagination = new Pagination();
+        pagination.setLimit(2);
+        final List<String> firstPage = pagination.apply(ids);
+        assertEquals(Arrays.asList("a", "b"), firstPage);
+
+        final String nextCursor = pagination.getNextCursor(firstPage);
+        assertNotNull(nextCursor);
+        pagination.setCursor(Pagination.decodeCursor(nextCursor));
+        final List<String> secondPage = pagination.apply(ids);
+        assertEquals(Arrays.asList("c", "d"), secondPage);
+
+        pagination.setCursor(Pagination.decodeCursor(pagination.getNextCursor(secondPage)));
+        final List<String> lastPage = pagination.apply(ids);
+        assertEquals(Arrays.asList("e"), lastPage);
+        assertNull(pagination.getNextCursor(lastPage));
+
+        pagination.setCursor(null);
+        pagination.setOffset(3);
+        assertEquals(Arrays.asList("d", "e"), pagination.apply(ids));
+    }
+
+    @Test
+    public void badParametersAreRejected(){
+        checkBadRequest(ServerAPI.LIMIT_PARAM, "ten");
+        checkBadRequest(ServerAPI.LIMIT_PARAM, "-1");
+        checkBadRequest(ServerAPI.OFFSET_PARAM, "-5");
+        checkBadRequest(ServerAPI.CURSOR_PARAM, "#not base64#");
+    }
+
+    private void checkBadRequest(final String param, final String value) {
+        final MultivaluedMap<String, String> params = new MultivaluedMapImpl();
+        params.putSingle(param, value);
+
+        try{
+            new Pagination().init(params);
+            fail(param + "=" + value + " should be rejected");
+        }
+        catch (WebApplicationException e){
+            assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), e.getResponse().getStatus());
+        }
+    }
+}
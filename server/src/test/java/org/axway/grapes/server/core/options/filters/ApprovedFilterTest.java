@@ -3,6 +3,9 @@ package org.axway.grapes.server.core.options.filters;
 import org.axway.grapes.server.db.datamodel.DbLicense;
 import org.junit.Test;
 
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -37,4 +40,12 @@ public class ApprovedFilterTest {
         assertFalse(filter.filter(toBeValidatedLicense));
     }
 
+    @Test
+    public void licenseQuery(){
+        final ApprovedFilter filter = new ApprovedFilter(true);
+        final Map<String, Object> fields = filter.licenseFilterFields();
+
+        assertEquals(1, fields.size());
+        assertEquals(true, fields.get(DbLicense.APPROVED_DB_FIELD));
+    }
 }
@@ -1,12 +1,15 @@
 package org.axway.grapes.server.core.options.filters;
 
 import org.axway.grapes.server.GrapesTestUtils;
+import org.axway.grapes.server.db.OrganizationMatcher;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
 import org.axway.grapes.server.db.datamodel.DbDependency;
 import org.axway.grapes.server.db.datamodel.DbModule;
 import org.axway.grapes.server.db.datamodel.DbOrganization;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 
 import static junit.framework.TestCase.*;
@@ -18,7 +21,7 @@ public class CorporateFilterTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
 
         final DbModule module = new DbModule();
@@ -34,7 +37,7 @@ public class CorporateFilterTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
 
         final DbModule module = new DbModule();
@@ -50,7 +53,7 @@ public class CorporateFilterTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
 
         final DbModule module = new DbModule();
@@ -67,7 +70,7 @@ public class CorporateFilterTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
 
         final DbModule module = new DbModule();
@@ -84,7 +87,7 @@ public class CorporateFilterTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
 
         final DbArtifact artifact = new DbArtifact();
@@ -99,7 +102,7 @@ public class CorporateFilterTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
 
         final DbArtifact artifact = new DbArtifact();
@@ -115,7 +118,7 @@ public class CorporateFilterTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
         final DbDependency dependency = new DbDependency();
         dependency.setTarget("com.company.all:test:1.0.0::");
@@ -129,7 +132,7 @@ public class CorporateFilterTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
         final DbDependency dependency = new DbDependency();
         dependency.setTarget(GrapesTestUtils.CORPORATE_GROUPID_4TEST + ":test:1.0.0::");
@@ -137,13 +140,35 @@ public class CorporateFilterTest {
         assertTrue(filter.filter(dependency));
     }
 
+    @Test
+    public void checkFilterClassifiesWithTheLongestPrefix(){
+        final DbOrganization organization = new DbOrganization();
+        organization.setName("testOrganization");
+        organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
+        final DbOrganization subOrganization = new DbOrganization();
+        subOrganization.setName("subOrganization");
+        subOrganization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST + ".sub");
+        final OrganizationMatcher matcher = new OrganizationMatcher(Arrays.asList(organization, subOrganization));
+        final CorporateFilter filter = new CorporateFilter(organization, matcher);
+        final CorporateFilter subFilter = new CorporateFilter(subOrganization, matcher);
+
+        final DbDependency dependency = new DbDependency();
+        dependency.setTarget(GrapesTestUtils.CORPORATE_GROUPID_4TEST + ".sub:test:1.0.0::");
+        assertFalse(filter.filter(dependency));
+        assertTrue(subFilter.filter(dependency));
+
+        dependency.setTarget(GrapesTestUtils.CORPORATE_GROUPID_4TEST + ".other:test:1.0.0::");
+        assertTrue(filter.filter(dependency));
+        assertFalse(subFilter.filter(dependency));
+    }
+
     @Test
     public void checkMongoRegExpGenerationForArtifacts(){
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
         organization.getCorporateGroupIdPrefixes().add("my.corporate.gid");
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
         Map<String, Object> params = filter.artifactFilterFields();
         assertNotNull(params);
@@ -159,7 +184,7 @@ public class CorporateFilterTest {
         final DbOrganization organization = new DbOrganization();
         organization.setName("testOrganization");
         organization.getCorporateGroupIdPrefixes().add(GrapesTestUtils.CORPORATE_GROUPID_4TEST);
-        final CorporateFilter filter = new CorporateFilter(organization);
+        final CorporateFilter filter = new CorporateFilter(organization, new OrganizationMatcher(Collections.singletonList(organization)));
 
         Map<String, Object> params = filter.moduleFilterFields();
         assertNotNull(params);
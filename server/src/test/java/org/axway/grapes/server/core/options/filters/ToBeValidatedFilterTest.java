@@ -1,9 +1,14 @@
 package org.axway.grapes.server.core.options.filters;
 
 import org.axway.grapes.server.db.datamodel.DbLicense;
+import org.axway.grapes.server.db.mongo.JongoUtils;
 import org.junit.Test;
 
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class ToBeValidatedFilterTest {
@@ -36,4 +41,15 @@ public class ToBeValidatedFilterTest {
         assertTrue(filter.filter(unvalidatedLicense));
     }
 
+    @Test
+    public void licenseQuery(){
+        ToBeValidatedFilter filter = new ToBeValidatedFilter(true);
+        Map<String, Object> fields = filter.licenseFilterFields();
+        assertTrue(fields.containsKey(DbLicense.APPROVED_DB_FIELD));
+        assertNull(fields.get(DbLicense.APPROVED_DB_FIELD));
+
+        filter = new ToBeValidatedFilter(false);
+        fields = filter.licenseFilterFields();
+        assertEquals("{approved: {$ne: null}}", JongoUtils.generateQuery(fields));
+    }
 }
@@ -11,6 +11,7 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class DependencyReportViewTest {
 
@@ -37,4 +38,39 @@ public class DependencyReportViewTest {
         assertEquals("1.0.0", version);
     }
 
+    @Test
+    public void dependenciesAreIndexedByTargetAndSorted(){
+        final Artifact target1 = DataModelFactory.createArtifact("groupId", "b-artifact", "1.0.0", "", "", "jar");
+        final Artifact target2 = DataModelFactory.createArtifact("groupId", "a-artifact", "2.0.0", "", "", "jar");
+
+        final DependencyReport view = new DependencyReport("test");
+        view.addDependency(createDependency(target1, Scope.COMPILE, "source-z"), "1.0.0");
+        view.addDependency(createDependency(target1, Scope.TEST, "source-a"), "1.0.0");
+        view.addDependency(createDependency(target2, Scope.COMPILE, "source-m"), "2.0.0");
+        view.addDependency(createDependency(target1, Scope.TEST, "source-a"), "1.0.0");
+
+        assertEquals(3, view.getDependencies().size());
+
+        final List<Artifact> targets = view.getDependencyTargets();
+        assertEquals(2, targets.size());
+        assertEquals(target2, targets.get(0));
+        assertEquals(target1, targets.get(1));
+
+        assertEquals(2, view.getNbEntry(target1));
+        final List<Dependency> sources = view.getDependencies(target1, "1.0.0");
+        assertEquals("source-a", sources.get(0).getSourceName());
+        assertEquals("source-z", sources.get(1).getSourceName());
+        assertTrue(view.getDependencies(target1, "9.9.9").isEmpty());
+
+        view.addDependency(createDependency(target1, Scope.COMPILE, "source-b"), "1.0.0");
+        assertEquals("source-b", view.getDependencies(target1, "1.0.0").get(1).getSourceName());
+        assertEquals(3, view.getNbEntry(target1));
+    }
+
+    private Dependency createDependency(final Artifact target, final Scope scope, final String sourceName) {
+        final Dependency dependency = DataModelFactory.createDependency(target, scope);
+        dependency.setSourceName(sourceName);
+        dependency.setSourceVersion("1.0");
+        return dependency;
+    }
 }
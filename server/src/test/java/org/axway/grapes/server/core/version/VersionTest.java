@@ -2,6 +2,11 @@ package org.axway.grapes.server.core.version;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class VersionTest {
@@ -186,6 +191,59 @@ public class VersionTest {
 		assertEquals(1, version4.compare(version3));	
 	}
 	
+	@Test
+	public void parsedVersionsAreShared() throws NotHandledVersionException{
+		assertSame(Version.of("1.0.0-1"), Version.of("1.0.0-1"));
+		assertNotSame(Version.of("1.0.0-1"), Version.of("1.0.0-2"));
+		assertEquals("1.0.0-1", Version.of("1.0.0-1").toString());
+	}
+	
+	@Test
+	public void sortVersions() throws NotHandledVersionException{
+		final List<Version> versions = new ArrayList<Version>();
+		for(String version: Arrays.asList("1.0.0-1-SNAPSHOT", "2.0.0-1", "1.0.0-SNAPSHOT", "1.0.0-2", "1.0.0-1-4", "0.12.1-1", "1.0.0-1")){
+			versions.add(Version.of(version));
+		}
+		
+		Collections.sort(versions);
+		
+		assertEquals("[0.12.1-1, 1.0.0-1, 1.0.0-2, 1.0.0-SNAPSHOT, 2.0.0-1, 1.0.0-1-4, 1.0.0-1-SNAPSHOT]", versions.toString());
+	}
+	
+	@Test
+	public void sortKeysFollowTheNaturalOrdering() throws NotHandledVersionException{
+		final List<Version> versions = new ArrayList<Version>();
+		for(String version: Arrays.asList("1.0.0-1-SNAPSHOT", "2.0.0-1", "1.0.0-SNAPSHOT", "1.0.0-2", "1.0.0-1-4", "0.12.1-1",
+				"1.0.0-1", "1.0.0", "1.0", "1.0.0.1", "10.0.0", "1.0.0-1-10", "1.0.0-SNAPSHOT-1")){
+			versions.add(Version.of(version));
+		}
+
+		for(Version version1: versions){
+			for(Version version2: versions){
+				assertEquals(version1 + " " + version2, Integer.signum(version1.compareTo(version2)),
+						Integer.signum(version1.getSortKey().compareTo(version2.getSortKey())));
+			}
+		}
+		assertTrue(Version.of("1.0.0-1-4").getSortKey().startsWith("1"));
+		assertTrue(Version.of("1.0.0-1").getSortKey().startsWith("0"));
+	}
+
+	@Test
+	public void cannotCompareBranchSnapshotsWithoutBranchId() throws NotHandledVersionException {
+		Version version1 = new Version("1.0.0-SNAPSHOT-1");
+		Version version2 = new Version("1.0.0-2-SNAPSHOT");
+		
+		IncomparableException exception = null;
+		
+		try {
+			version1.compare(version2);
+		} catch (IncomparableException e) {
+			exception = e;
+		}
+		
+		assertNotNull(exception);
+	}
+	
 	@Test
 	public void versionsNotHandled(){
 		NotHandledVersionException exception = null;
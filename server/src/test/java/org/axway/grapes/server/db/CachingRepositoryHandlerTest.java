@@ -0,0 +1,435 @@
+package org.axway.grapes.server.db;
+
+import com.google.common.base.Ticker;
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.MetricName;
+import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbLicense;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbOrganization;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.*;
+
+public class CachingRepositoryHandlerTest {
+
+    @Test
+    public void moduleIsReadOnceUntilItIsStored(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModule(module.getId())).thenReturn(module);
+
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+        assertEquals(module.getId(), cachingHandler.getModule(module.getId()).getId());
+        assertEquals(module.getId(), cachingHandler.getModule(module.getId()).getId());
+        verify(repoHandler, times(1)).getModule(module.getId());
+        assertEquals(1, cachingHandler.getModuleCache().stats().hitCount());
+
+        cachingHandler.store(module);
+        verify(repoHandler).store(module);
+        assertEquals(module.getId(), cachingHandler.getModule(module.getId()).getId());
+        verify(repoHandler, times(2)).getModule(module.getId());
+
+        cachingHandler.promoteModule(module);
+        assertEquals(module.getId(), cachingHandler.getModule(module.getId()).getId());
+        verify(repoHandler, times(3)).getModule(module.getId());
+
+        cachingHandler.deleteModule(module.getId());
+        assertEquals(module.getId(), cachingHandler.getModule(module.getId()).getId());
+        verify(repoHandler, times(4)).getModule(module.getId());
+    }
+
+    @Test
+    public void allTheCachesAreDroppedAfterAnExternalUpdate(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModule(module.getId())).thenReturn(module);
+
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+        cachingHandler.getModule(module.getId());
+        cachingHandler.getLicense("license");
+
+        cachingHandler.clearCaches();
+        verify(repoHandler).clearCaches();
+        assertEquals(0, cachingHandler.getModuleCache().size());
+        assertEquals(0, cachingHandler.getLicenseCache().size());
+
+        cachingHandler.getModule(module.getId());
+        verify(repoHandler, times(2)).getModule(module.getId());
+    }
+
+    @Test
+    public void missingEntitiesAreCached(){
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        assertNull(cachingHandler.getArtifact("doesNotExist"));
+        assertNull(cachingHandler.getArtifact("doesNotExist"));
+        assertNull(cachingHandler.getLicense("doesNotExist"));
+        assertNull(cachingHandler.getLicense("doesNotExist"));
+
+        verify(repoHandler, times(1)).getArtifact("doesNotExist");
+        verify(repoHandler, times(1)).getLicense("doesNotExist");
+    }
+
+    @Test
+    public void rootModuleIsInvalidatedWhenANewModuleProducesTheArtifact(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final String gavc = module.getArtifacts().get(0);
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+        assertNull(cachingHandler.getRootModuleOf(gavc));
+        assertNull(cachingHandler.getRootModuleOf(gavc));
+        verify(repoHandler, times(1)).getRootModuleOf(gavc);
+
+        cachingHandler.store(module);
+        when(repoHandler.getRootModuleOf(gavc)).thenReturn(module);
+        assertEquals(module.getId(), cachingHandler.getRootModuleOf(gavc).getId());
+        assertEquals(module.getId(), cachingHandler.getRootModuleOf(gavc).getId());
+        verify(repoHandler, times(2)).getRootModuleOf(gavc);
+
+        cachingHandler.promoteModule(module);
+        assertEquals(module.getId(), cachingHandler.getRootModuleOf(gavc).getId());
+        verify(repoHandler, times(3)).getRootModuleOf(gavc);
+    }
+
+    @Test
+    public void artifactUpdatesInvalidateTheArtifact(){
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.grapes.test");
+        artifact.setArtifactId("artifact");
+        artifact.setVersion("1.0.0");
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getArtifact(artifact.getGavc())).thenReturn(artifact);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        cachingHandler.getArtifact(artifact.getGavc());
+        cachingHandler.updateDoNotUse(artifact, true);
+        cachingHandler.getArtifact(artifact.getGavc());
+        cachingHandler.updateProvider(artifact, "provider");
+        cachingHandler.getArtifact(artifact.getGavc());
+        cachingHandler.addLicenseToArtifact(artifact, "license");
+        cachingHandler.getArtifact(artifact.getGavc());
+        cachingHandler.getArtifact(artifact.getGavc());
+
+        verify(repoHandler, times(4)).getArtifact(artifact.getGavc());
+    }
+
+    @Test
+    public void artifactBatchesOnlyRequestTheArtifactsThatAreNotCached(){
+        final DbArtifact artifact1 = new DbArtifact();
+        artifact1.setGroupId("org.axway.grapes.test");
+        artifact1.setArtifactId("artifact1");
+        artifact1.setVersion("1.0.0");
+        final DbArtifact artifact2 = new DbArtifact();
+        artifact2.setGroupId("org.axway.grapes.test");
+        artifact2.setArtifactId("artifact2");
+        artifact2.setVersion("1.0.0");
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getArtifact(artifact1.getGavc())).thenReturn(artifact1);
+        when(repoHandler.getArtifactsByGavc(anyCollectionOf(String.class))).thenReturn(Collections.singletonList(artifact2));
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        cachingHandler.getArtifact(artifact1.getGavc());
+        final List<DbArtifact> artifacts = cachingHandler.getArtifactsByGavc(Arrays.asList(artifact1.getGavc(), artifact2.getGavc()));
+        assertEquals(2, artifacts.size());
+        assertEquals(new HashSet<String>(Arrays.asList(artifact1.getGavc(), artifact2.getGavc())),
+                new HashSet<String>(Arrays.asList(artifacts.get(0).getGavc(), artifacts.get(1).getGavc())));
+
+        verify(repoHandler).getArtifactsByGavc(Collections.singleton(artifact2.getGavc()));
+        assertEquals(artifact2.getGavc(), cachingHandler.getArtifact(artifact2.getGavc()).getGavc());
+        verify(repoHandler, never()).getArtifact(artifact2.getGavc());
+    }
+
+    @Test
+    public void missingArtifactsAreInvalidatedWhenTheyAreCreated(){
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.grapes.test");
+        artifact.setArtifactId("dependency");
+        artifact.setVersion("1.0.0");
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        assertNull(cachingHandler.getArtifact(artifact.getGavc()));
+        cachingHandler.storeIfNew(Collections.singletonList(artifact));
+        verify(repoHandler).storeIfNew(Collections.singletonList(artifact));
+
+        when(repoHandler.getArtifact(artifact.getGavc())).thenReturn(artifact);
+        assertEquals(artifact.getGavc(), cachingHandler.getArtifact(artifact.getGavc()).getGavc());
+        verify(repoHandler, times(2)).getArtifact(artifact.getGavc());
+    }
+
+    @Test
+    public void organizationUpdatesInvalidateTheImpactedModules(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final DbModule otherModule = createModule("other", "1.0.0", "other");
+        otherModule.getArtifacts().set(0, "com.other:other:1.0.0::jar");
+        final DbOrganization organization = new DbOrganization();
+        organization.setName("organization");
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModule(module.getId())).thenReturn(module);
+        when(repoHandler.getModule(otherModule.getId())).thenReturn(otherModule);
+        when(repoHandler.getOrganization(organization.getName())).thenReturn(organization);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        cachingHandler.getModule(module.getId());
+        cachingHandler.getModule(otherModule.getId());
+        cachingHandler.addModulesOrganization("org.axway", organization);
+        cachingHandler.getModule(module.getId());
+        cachingHandler.getModule(otherModule.getId());
+
+        verify(repoHandler, times(2)).getModule(module.getId());
+        verify(repoHandler, times(1)).getModule(otherModule.getId());
+
+        cachingHandler.getOrganization(organization.getName());
+        cachingHandler.store(organization);
+        cachingHandler.getOrganization(organization.getName());
+        verify(repoHandler, times(2)).getOrganization(organization.getName());
+    }
+
+    @Test
+    public void licenseUpdatesInvalidateTheLicense(){
+        final DbLicense license = new DbLicense();
+        license.setName("license");
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getLicense(license.getName())).thenReturn(license);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        cachingHandler.getLicense(license.getName());
+        cachingHandler.approveLicense(license, true);
+        cachingHandler.getLicense(license.getName());
+        cachingHandler.deleteLicense(license.getName());
+        cachingHandler.getLicense(license.getName());
+
+        verify(repoHandler, times(3)).getLicense(license.getName());
+    }
+
+    @Test
+    public void cacheIsBounded(){
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 2);
+
+        cachingHandler.getLicense("license1");
+        cachingHandler.getLicense("license2");
+        cachingHandler.getLicense("license3");
+
+        assertEquals(2, cachingHandler.getLicenseCache().size());
+        assertEquals(1, cachingHandler.getLicenseCache().stats().evictionCount());
+    }
+
+    @Test
+    public void cachedEntitiesAreNotModifiedByTheCallers(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModule(module.getId())).thenReturn(module);
+        when(repoHandler.getModulesById(anyCollectionOf(String.class))).thenReturn(Collections.singletonList(module));
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        cachingHandler.getModule(module.getId()).setPromoted(true);
+        cachingHandler.getModulesById(Collections.singleton(module.getId())).get(0).setOrganization("organization");
+
+        final DbModule cached = cachingHandler.getModule(module.getId());
+        assertFalse(cached.isPromoted());
+        assertEquals(module.getArtifacts(), cached.getArtifacts());
+        assertFalse("organization".equals(cached.getOrganization()));
+        verify(repoHandler, times(1)).getModule(module.getId());
+    }
+
+    @Test
+    public void moduleReadDuringAWriteIsNotCached(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        // the module is stored by another request while it is read
+        when(repoHandler.getModule(module.getId())).thenAnswer(new Answer<DbModule>() {
+            @Override
+            public DbModule answer(final InvocationOnMock invocation) {
+                cachingHandler.store(module);
+                return module;
+            }
+        });
+        assertEquals(module.getId(), cachingHandler.getModule(module.getId()).getId());
+        assertNull(cachingHandler.getModuleCache().getIfPresent(module.getId()));
+
+        doReturn(module).when(repoHandler).getModule(module.getId());
+        cachingHandler.getModule(module.getId());
+        cachingHandler.getModule(module.getId());
+        verify(repoHandler, times(2)).getModule(module.getId());
+    }
+
+    @Test
+    public void modulesReadInABatchDuringAWriteAreNotCached(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final DbModule otherModule = createModule("other", "1.0.0", "other");
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        when(repoHandler.getModulesById(anyCollectionOf(String.class))).thenAnswer(new Answer<List<DbModule>>() {
+            @Override
+            public List<DbModule> answer(final InvocationOnMock invocation) {
+                cachingHandler.promoteModule(module);
+                return Arrays.asList(module, otherModule);
+            }
+        });
+        assertEquals(2, cachingHandler.getModulesById(Arrays.asList(module.getId(), otherModule.getId())).size());
+
+        assertNull(cachingHandler.getModuleCache().getIfPresent(module.getId()));
+        assertNotNull(cachingHandler.getModuleCache().getIfPresent(otherModule.getId()));
+    }
+
+    @Test
+    public void modulesReadDuringAnOrganizationUpdateAreNotCached(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final DbOrganization organization = new DbOrganization();
+        organization.setName("organization");
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        when(repoHandler.getModule(module.getId())).thenAnswer(new Answer<DbModule>() {
+            @Override
+            public DbModule answer(final InvocationOnMock invocation) {
+                cachingHandler.addModulesOrganization("org.axway", organization);
+                return module;
+            }
+        });
+        cachingHandler.getModule(module.getId());
+        assertNull(cachingHandler.getModuleCache().getIfPresent(module.getId()));
+    }
+
+    @Test
+    public void entriesExpire(){
+        final AtomicLong time = new AtomicLong(0);
+        final Ticker ticker = new Ticker() {
+            @Override
+            public long read() {
+                return time.get();
+            }
+        };
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10, 60, ticker);
+
+        cachingHandler.getLicense("license");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        cachingHandler.getLicense("license");
+        verify(repoHandler, times(1)).getLicense("license");
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        cachingHandler.getLicense("license");
+        verify(repoHandler, times(2)).getLicense("license");
+    }
+
+    @Test
+    public void cachedCollectionsAreCopied(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        module.addSubmodule(createModule("submodule", "1.0.0", "subartifact"));
+        module.getBuildInfo().put("key", "value");
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.grapes.test");
+        artifact.setArtifactId("artifact");
+        artifact.setVersion("1.0.0");
+        artifact.addLicense("license");
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModule(module.getId())).thenReturn(module);
+        when(repoHandler.getArtifact(artifact.getGavc())).thenReturn(artifact);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        final DbModule moduleCopy = cachingHandler.getModule(module.getId());
+        moduleCopy.getArtifacts().clear();
+        moduleCopy.getBuildInfo().clear();
+        moduleCopy.getSubmodules().get(0).getArtifacts().clear();
+        cachingHandler.getArtifact(artifact.getGavc()).removeLicense("license");
+
+        final DbModule cachedModule = cachingHandler.getModule(module.getId());
+        assertEquals(module.getId(), cachedModule.getId());
+        assertEquals(1, cachedModule.getArtifacts().size());
+        assertEquals("value", cachedModule.getBuildInfo().get("key"));
+        assertEquals(1, cachedModule.getSubmodules().get(0).getArtifacts().size());
+
+        final DbArtifact cachedArtifact = cachingHandler.getArtifact(artifact.getGavc());
+        assertEquals(artifact.getGavc(), cachedArtifact.getGavc());
+        assertEquals(Collections.singletonList("license"), cachedArtifact.getLicenses());
+        verify(repoHandler, times(1)).getModule(module.getId());
+        verify(repoHandler, times(1)).getArtifact(artifact.getGavc());
+    }
+
+    @Test
+    public void storedModuleIsNotModified(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        cachingHandler.store(module);
+        verify(repoHandler).store(module);
+        assertTrue(module.getHas().isEmpty());
+    }
+
+    @Test
+    public void rootModulesAreInvalidatedWithTheirModule(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final DbModule otherModule = createModule("other", "1.0.0", "other");
+        final String gavc = module.getArtifacts().get(0);
+        final String otherGavc = otherModule.getArtifacts().get(0);
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getRootModuleOf(gavc)).thenReturn(module);
+        when(repoHandler.getRootModuleOf(otherGavc)).thenReturn(otherModule);
+        final CachingRepositoryHandler cachingHandler = new CachingRepositoryHandler(repoHandler, 10);
+
+        cachingHandler.getRootModuleOf(gavc);
+        cachingHandler.getRootModuleOf(otherGavc);
+        cachingHandler.deleteModule(module.getId());
+
+        assertNull(cachingHandler.getRootModuleCache().getIfPresent(gavc));
+        assertNotNull(cachingHandler.getRootModuleCache().getIfPresent(otherGavc));
+    }
+
+    @Test
+    public void metricsAreRegisteredForEachInstance(){
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final CachingRepositoryHandler first = new CachingRepositoryHandler(repoHandler, 10);
+        final CachingRepositoryHandler second = new CachingRepositoryHandler(repoHandler, 10);
+        first.getLicense("license");
+        first.getLicense("license");
+
+        assertEquals(1L, getGauge(first, "license-cache-hits").value());
+        assertEquals(0L, getGauge(second, "license-cache-hits").value());
+    }
+
+    private Gauge<?> getGauge(final CachingRepositoryHandler cachingHandler, final String name) {
+        return (Gauge<?>) Metrics.defaultRegistry().allMetrics()
+                .get(new MetricName(CachingRepositoryHandler.class, name, cachingHandler.getMetricsScope()));
+    }
+
+    private DbModule createModule(final String name, final String version, final String artifactId) {
+        final DbModule module = new DbModule();
+        module.setName(name);
+        module.setVersion(version);
+
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.grapes.test");
+        artifact.setArtifactId(artifactId);
+        artifact.setVersion("1.0.0");
+        module.addArtifact(artifact);
+
+        return module;
+    }
+}
@@ -0,0 +1,257 @@
+package org.axway.grapes.server.db;
+
+import org.axway.grapes.commons.datamodel.Scope;
+import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DependencyGraphIndexTest {
+
+    @Test
+    public void checkIndexLoad(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final DbModule submodule = createModule("submodule", "1.0.0", "subArtifact");
+        submodule.setSubmodule(true);
+        submodule.addDependency("org.axway.grapes.test:dependency:1.0.0::jar", Scope.COMPILE);
+        module.addSubmodule(submodule);
+        module.updateHasAndUse();
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModulesCursor(any(FiltersHolder.class))).thenReturn(DbCursor.of(Collections.singletonList(module)));
+
+        final DependencyGraphIndex index = new DependencyGraphIndex(repoHandler);
+        assertFalse(index.isLoaded());
+        index.load();
+        assertTrue(index.isLoaded());
+
+        final String subArtifactGavc = getGavc("subArtifact");
+        assertEquals(module.getId(), index.getRootModuleOf(subArtifactGavc).getId());
+        assertEquals(submodule.getId(), index.getModuleOf(subArtifactGavc).getId());
+        assertEquals(module.getId(), index.getModuleOf(getGavc("artifact")).getId());
+        assertNull(index.getRootModuleOf("doesNotExist"));
+
+        assertEquals(1, DataUtils.getAllDbDependencies(index.getModule(module.getId())).size());
+        assertEquals(1, index.getAncestorIds("org.axway.grapes.test:dependency:1.0.0::jar").size());
+        assertTrue(index.getAncestorIds("org.axway.grapes.test:dependency:1.0.0::jar").contains(module.getId()));
+
+        verify(repoHandler, never()).getRootModuleOf(anyString());
+        verify(repoHandler, never()).getModuleOf(anyString());
+    }
+
+    @Test
+    public void checkIndexUpdates(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        module.updateHasAndUse();
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModulesCursor(any(FiltersHolder.class))).thenReturn(DbCursor.of(Collections.<DbModule>emptyList()));
+        final DependencyGraphIndex index = new DependencyGraphIndex(repoHandler);
+        index.load();
+
+        final String gavc = getGavc("artifact");
+        assertNull(index.getRootModuleOf(gavc));
+
+        index.add(module);
+        assertEquals(module.getId(), index.getRootModuleOf(gavc).getId());
+        assertFalse(index.getModule(module.getId()).isPromoted());
+
+        index.promote(module.getId());
+        assertTrue(index.getModule(module.getId()).isPromoted());
+
+        index.remove(module.getId());
+        assertNull(index.getRootModuleOf(gavc));
+        assertNull(index.getModule(module.getId()));
+    }
+
+    @Test
+    public void removingAModuleKeepsTheEntriesOfTheOtherModules(){
+        final String dependency = "org.axway.grapes.test:dependency:1.0.0::jar";
+        final DbModule module1 = createModule("module1", "1.0.0", "artifact1");
+        final DbModule module2 = createModule("module2", "1.0.0", "artifact2");
+        module1.addDependency(dependency, Scope.COMPILE);
+        module2.addDependency(dependency, Scope.COMPILE);
+        module1.updateHasAndUse();
+        module2.updateHasAndUse();
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModulesCursor(any(FiltersHolder.class))).thenReturn(DbCursor.of(Arrays.asList(module1, module2)));
+        final DependencyGraphIndex index = new DependencyGraphIndex(repoHandler);
+        index.load();
+
+        index.remove(module1.getId());
+        assertEquals(Collections.singleton(module2.getId()), index.getAncestorIds(dependency));
+        assertNull(index.getRootModuleOf(getGavc("artifact1")));
+        assertNull(index.getModuleOf(getGavc("artifact1")));
+        assertEquals(module2.getId(), index.getRootModuleOf(getGavc("artifact2")).getId());
+        assertEquals(module2.getId(), index.getModuleOf(getGavc("artifact2")).getId());
+
+        index.remove(module2.getId());
+        assertTrue(index.getAncestorIds(dependency).isEmpty());
+    }
+
+    @Test
+    public void modulesUpdatedDuringTheLoadAreNotIndexedAgain(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        module.updateHasAndUse();
+        final DbModule storedModule = createModule("module", "1.0.0", "artifact");
+        storedModule.addDependency("org.axway.grapes.test:dependency:1.0.0::jar", Scope.COMPILE);
+        storedModule.updateHasAndUse();
+        final DbModule deletedModule = createModule("deleted", "1.0.0", "deletedArtifact");
+        deletedModule.updateHasAndUse();
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        final DependencyGraphIndex index = new DependencyGraphIndex(repoHandler);
+        // the modules are updated after the cursor has read them
+        when(repoHandler.getModulesCursor(any(FiltersHolder.class))).thenAnswer(new Answer<DbCursor<DbModule>>() {
+            @Override
+            public DbCursor<DbModule> answer(final InvocationOnMock invocation) {
+                index.update(storedModule);
+                index.remove(deletedModule.getId());
+                index.promote(module.getId());
+                return DbCursor.of(Arrays.asList(module, deletedModule));
+            }
+        });
+
+        // nothing is updated before the load
+        index.update(storedModule);
+        assertFalse(index.isLoaded());
+
+        index.load();
+        assertTrue(index.isLoaded());
+        assertEquals(1, index.getModule(module.getId()).getDependencies().size());
+        assertTrue(index.getModule(module.getId()).isPromoted());
+        assertNull(index.getModule(deletedModule.getId()));
+    }
+
+    @Test
+    public void indexIsLoadedInBackground(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        module.updateHasAndUse();
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModulesCursor(any(FiltersHolder.class))).thenReturn(DbCursor.of(Collections.singletonList(module)));
+        final DependencyGraphIndex index = new DependencyGraphIndex(repoHandler);
+
+        index.loadInBackground();
+        // the load started in background is awaited
+        index.load();
+        assertTrue(index.isLoaded());
+        assertEquals(module.getId(), index.getRootModuleOf(getGavc("artifact")).getId());
+        verify(repoHandler, times(1)).getModulesCursor(any(FiltersHolder.class));
+    }
+
+    @Test
+    public void readThroughModeQueriesTheDatabaseOnlyOnce(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final String gavc = getGavc("artifact");
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getRootModuleOf(gavc)).thenReturn(module);
+
+        final DependencyGraphIndex index = DependencyGraphIndex.of(repoHandler);
+        assertFalse(index.isLoaded());
+
+        assertEquals(module.getId(), index.getRootModuleOf(gavc).getId());
+        assertEquals(module.getId(), index.getRootModuleOf(gavc).getId());
+        assertNull(index.getRootModuleOf("doesNotExist"));
+        assertNull(index.getRootModuleOf("doesNotExist"));
+
+        verify(repoHandler, times(1)).getRootModuleOf(gavc);
+        verify(repoHandler, times(1)).getRootModuleOf("doesNotExist");
+    }
+
+    @Test
+    public void entriesReadThroughAreUpdatedAfterAFailedLoad(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        module.updateHasAndUse();
+        final String dependency = "org.axway.grapes.test:dependency:1.0.0::jar";
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModulesCursor(any(FiltersHolder.class))).thenThrow(new RuntimeException("database down"));
+        when(repoHandler.getModule(module.getId())).thenReturn(module);
+        final DependencyGraphIndex index = new DependencyGraphIndex(repoHandler);
+
+        try {
+            index.load();
+            fail("The load should have failed.");
+        }
+        catch (RuntimeException e) {
+            assertEquals("database down", e.getMessage());
+        }
+        assertFalse(index.isLoaded());
+
+        assertTrue(DataUtils.getAllDbDependencies(index.getModule(module.getId())).isEmpty());
+
+        final DbModule storedModule = createModule("module", "1.0.0", "newArtifact");
+        storedModule.addDependency(dependency, Scope.COMPILE);
+        storedModule.updateHasAndUse();
+        index.update(storedModule);
+
+        assertEquals(1, DataUtils.getAllDbDependencies(index.getModule(module.getId())).size());
+        assertEquals(module.getId(), index.getRootModuleOf(getGavc("newArtifact")).getId());
+        verify(repoHandler, times(1)).getModule(module.getId());
+
+        index.remove(module.getId());
+        when(repoHandler.getModule(module.getId())).thenReturn(null);
+        assertNull(index.getModule(module.getId()));
+    }
+
+    @Test
+    public void submodulesReadThroughAreRemovedWithTheirRootModule(){
+        final DbModule module = createModule("module", "1.0.0", "artifact");
+        final DbModule submodule = createModule("submodule", "1.0.0", "subArtifact");
+        submodule.setSubmodule(true);
+        module.addSubmodule(submodule);
+        module.updateHasAndUse();
+        final String subArtifactGavc = getGavc("subArtifact");
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getRootModuleOf(subArtifactGavc)).thenReturn(module);
+        final DependencyGraphIndex index = new DependencyGraphIndex(repoHandler);
+
+        assertEquals(submodule.getId(), index.getModuleOf(subArtifactGavc).getId());
+        assertEquals(submodule.getId(), index.getModuleOf(subArtifactGavc).getId());
+        verify(repoHandler, times(1)).getRootModuleOf(subArtifactGavc);
+
+        // the new version of the module does not hold the submodule anymore
+        final DbModule storedModule = createModule("module", "1.0.0", "artifact");
+        storedModule.updateHasAndUse();
+        index.update(storedModule);
+
+        assertNull(index.getModule(submodule.getId()));
+        verify(repoHandler, never()).getModuleOf(anyString());
+    }
+
+    private DbModule createModule(final String name, final String version, final String artifactId) {
+        final DbModule module = new DbModule();
+        module.setName(name);
+        module.setVersion(version);
+
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.grapes.test");
+        artifact.setArtifactId(artifactId);
+        artifact.setVersion("1.0.0");
+        module.addArtifact(artifact);
+
+        return module;
+    }
+
+    private String getGavc(final String artifactId) {
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.grapes.test");
+        artifact.setArtifactId(artifactId);
+        artifact.setVersion("1.0.0");
+        return artifact.getGavc();
+    }
+}
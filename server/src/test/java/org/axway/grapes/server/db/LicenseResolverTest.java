@@ -0,0 +1,78 @@
+package org.axway.grapes.server.db;
+
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Counter;
+import org.axway.grapes.server.db.datamodel.DbLicense;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class LicenseResolverTest {
+
+    @Test
+    public void licenseIdsAreResolvedWithTheRegexpOrTheName(){
+        final DbLicense apache = createLicense("Apache-2.0", "Apache.*2.*");
+        final DbLicense gpl = createLicense("GPL", null);
+        final LicenseResolver resolver = new LicenseResolver(Arrays.asList(apache, gpl));
+
+        assertEquals(apache, resolver.resolve("Apache License, Version 2.0"));
+        assertEquals(gpl, resolver.resolve("GPL"));
+        assertNull(resolver.resolve("GPLv3"));
+        assertEquals(2, resolver.getLicenses().size());
+    }
+
+    @Test
+    public void resolutionsAreKept(){
+        final Counter hits = Metrics.newCounter(LicenseResolver.class, "resolution-hits");
+        final Counter misses = Metrics.newCounter(LicenseResolver.class, "resolution-misses");
+        final LicenseResolver resolver = new LicenseResolver(Collections.singletonList(createLicense("Apache-2.0", "Apache.*")));
+
+        final long initialHits = hits.count();
+        final long initialMisses = misses.count();
+
+        resolver.resolve("Apache");
+        resolver.resolve("Apache");
+        resolver.resolve("Unknown");
+        resolver.resolve("Unknown");
+
+        assertEquals(2, hits.count() - initialHits);
+        assertEquals(2, misses.count() - initialMisses);
+    }
+
+    @Test
+    public void wrongPatternsAreIgnored(){
+        final DbLicense wrong = createLicense("Wrong", "x^[");
+        final DbLicense right = createLicense("Right", "x.*");
+        final LicenseResolver resolver = new LicenseResolver(Arrays.asList(wrong, right));
+
+        assertEquals(right, resolver.resolve("x^["));
+        assertNull(resolver.resolve("Wrong"));
+    }
+
+    @Test
+    public void theResolverOfTheRepositoryHandlerIsUsedIfAny(){
+        final LicenseResolver resolver = new LicenseResolver(Collections.<DbLicense>emptyList());
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getLicenseResolver()).thenReturn(resolver);
+
+        assertSame(resolver, LicenseResolver.of(repoHandler));
+        verify(repoHandler, never()).getAllLicenses();
+
+        final RepositoryHandler otherRepoHandler = mock(RepositoryHandler.class);
+        when(otherRepoHandler.getAllLicenses()).thenReturn(Collections.singletonList(createLicense("GPL", null)));
+
+        assertEquals("GPL", LicenseResolver.of(otherRepoHandler).resolve("GPL").getName());
+        verify(otherRepoHandler, times(1)).getAllLicenses();
+    }
+
+    private DbLicense createLicense(final String name, final String regexp) {
+        final DbLicense license = new DbLicense();
+        license.setName(name);
+        license.setRegexp(regexp);
+        return license;
+    }
+}
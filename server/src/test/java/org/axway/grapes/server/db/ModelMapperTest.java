@@ -4,10 +4,19 @@ package org.axway.grapes.server.db;
 import org.axway.grapes.commons.datamodel.*;
 import org.axway.grapes.server.db.datamodel.*;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
 
 public class ModelMapperTest {
 
@@ -239,6 +248,85 @@ public class ModelMapperTest {
 
     }
 
+    @Test
+    public void getModulesRetrievesTheArtifactsAtOnce(){
+        final DbArtifact dbArtifact = new DbArtifact();
+        dbArtifact.setGroupId("com.axway.root");
+        dbArtifact.setArtifactId("artifact1");
+        dbArtifact.setVersion("1.0.0-SNAPSHOT");
+
+        final DbArtifact dbThirdParty = new DbArtifact();
+        dbThirdParty.setGroupId("org.apache");
+        dbThirdParty.setArtifactId("all");
+        dbThirdParty.setVersion("6.8.0-5426");
+
+        final DbModule dbModule1 = new DbModule();
+        dbModule1.setName("module1");
+        dbModule1.setVersion("1.0.0-SNAPSHOT");
+        dbModule1.addArtifact(dbArtifact);
+        dbModule1.addDependency(dbThirdParty.getGavc(), Scope.COMPILE);
+
+        final DbModule dbModule2 = new DbModule();
+        dbModule2.setName("module2");
+        dbModule2.setVersion("1.0.0-SNAPSHOT");
+        dbModule2.addDependency(dbThirdParty.getGavc(), Scope.TEST);
+        dbModule2.addDependency("org.unknown:unknown:1.0.0::jar", Scope.TEST);
+
+        final RepositoryHandler repositoryHandler = mock(RepositoryHandler.class);
+        when(repositoryHandler.getArtifactsByGavc(anyCollectionOf(String.class))).thenReturn(Arrays.asList(dbArtifact, dbThirdParty));
+
+        final ModelMapper modelMapper = new ModelMapper(repositoryHandler);
+        final List<Module> modules = modelMapper.getModules(Arrays.asList(dbModule1, dbModule2));
+
+        assertEquals(2, modules.size());
+        assertEquals(dbModule1.getName(), modules.get(0).getName());
+        assertEquals(1, modules.get(0).getArtifacts().size());
+        assertEquals(dbArtifact.getGavc(), modules.get(0).getArtifacts().iterator().next().getGavc());
+        assertEquals(1, modules.get(0).getDependencies().size());
+        assertEquals(dbModule2.getName(), modules.get(1).getName());
+        assertEquals(2, modules.get(1).getDependencies().size());
+
+        verify(repositoryHandler, times(1)).getArtifactsByGavc(anyCollectionOf(String.class));
+        verify(repositoryHandler, times(1)).getArtifact(anyString());
+    }
+
+    @Test
+    public void streamModulesByBatches(){
+        final List<DbModule> dbModules = new ArrayList<DbModule>();
+        for(int i = 0; i < 250; i++){
+            final DbModule dbModule = new DbModule();
+            dbModule.setName("module" + i);
+            dbModule.setVersion("1.0.0");
+            dbModule.addArtifact(DataUtils.createDbArtifact("com.test:artifact" + i + ":1.0.0::jar"));
+            dbModules.add(dbModule);
+        }
+
+        final RepositoryHandler repositoryHandler = mock(RepositoryHandler.class);
+        when(repositoryHandler.getArtifactsByGavc(anyCollectionOf(String.class))).thenAnswer(new Answer<List<DbArtifact>>() {
+            @Override
+            public List<DbArtifact> answer(final InvocationOnMock invocation) {
+                final List<DbArtifact> dbArtifacts = new ArrayList<DbArtifact>();
+                for(Object gavc: (Collection<?>) invocation.getArguments()[0]){
+                    dbArtifacts.add(DataUtils.createDbArtifact((String) gavc));
+                }
+                return dbArtifacts;
+            }
+        });
+
+        final ModelMapper modelMapper = new ModelMapper(repositoryHandler);
+        final Iterator<Module> modules = modelMapper.getModules(dbModules.iterator());
+        verify(repositoryHandler, never()).getArtifactsByGavc(anyCollectionOf(String.class));
+
+        int count = 0;
+        while(modules.hasNext()){
+            assertEquals("module" + count, modules.next().getName());
+            count++;
+        }
+
+        assertEquals(250, count);
+        verify(repositoryHandler, times(3)).getArtifactsByGavc(anyCollectionOf(String.class));
+    }
+
     @Test
     public void getDbOrganizationFromOrganization(){
         final Organization organization = DataModelFactory.createOrganization("test");
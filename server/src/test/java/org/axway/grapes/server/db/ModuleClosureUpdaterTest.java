@@ -0,0 +1,81 @@
+package org.axway.grapes.server.db;
+
+import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbModuleClosure;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ModuleClosureUpdaterTest {
+
+    @Test
+    public void closuresAreUpdatedInBackground() throws InterruptedException {
+        final DbModule module = createModule("module");
+        final RepositoryHandler repoHandler = mockRepositoryHandler(module);
+        final ModuleClosureUpdater.ClosureStore closureStore = mock(ModuleClosureUpdater.ClosureStore.class);
+
+        final ModuleClosureUpdater updater = new ModuleClosureUpdater(repoHandler, closureStore);
+        // the closures may have been left stale before the start
+        assertFalse(updater.isUpToDate());
+        updater.rebuild(10);
+        assertTrue(updater.isUpToDate());
+
+        updater.update(null, module);
+        verify(closureStore, timeout(5000)).store(any(DbModuleClosure.class));
+        awaitUpdates(updater);
+        assertTrue(updater.isUpToDate());
+    }
+
+    @Test
+    public void closuresAreNotServedAfterAFailureUntilTheyAreRebuilt() throws InterruptedException {
+        final DbModule module = createModule("module");
+        final RepositoryHandler repoHandler = mockRepositoryHandler(module);
+        final ModuleClosureUpdater.ClosureStore closureStore = mock(ModuleClosureUpdater.ClosureStore.class);
+        doThrow(new RuntimeException("failure")).when(closureStore).store(any(DbModuleClosure.class));
+
+        final ModuleClosureUpdater updater = new ModuleClosureUpdater(repoHandler, closureStore);
+        updater.rebuild(10);
+        updater.update(null, module);
+        verify(closureStore, timeout(5000)).store(any(DbModuleClosure.class));
+        Thread.sleep(50);
+        assertFalse(updater.isUpToDate());
+
+        updater.rebuild(10);
+        verify(closureStore, times(2)).clear();
+        assertTrue(updater.isUpToDate());
+    }
+
+    private void awaitUpdates(final ModuleClosureUpdater updater) throws InterruptedException {
+        for(int i = 0; i < 500 && !updater.isUpToDate(); i++){
+            Thread.sleep(10);
+        }
+    }
+
+    private RepositoryHandler mockRepositoryHandler(final DbModule module) {
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModule(module.getId())).thenReturn(module);
+        when(repoHandler.getModulesCursor(any(FiltersHolder.class))).thenReturn(DbCursor.of(Collections.singletonList(module)));
+        return repoHandler;
+    }
+
+    private DbModule createModule(final String name) {
+        final DbModule module = new DbModule();
+        module.setName(name);
+        module.setVersion("1.0.0");
+
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.grapes.test");
+        artifact.setArtifactId(name);
+        artifact.setVersion("1.0.0");
+        module.addArtifact(artifact);
+        module.updateHasAndUse();
+
+        return module;
+    }
+}
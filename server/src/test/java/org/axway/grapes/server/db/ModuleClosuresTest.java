@@ -0,0 +1,118 @@
+package org.axway.grapes.server.db;
+
+import org.axway.grapes.commons.datamodel.Scope;
+import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbModuleClosure;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ModuleClosuresTest {
+
+    @Test
+    public void closureHoldsTheReachableModulesAndArtifacts(){
+        final DependencyGraphIndex index = createDiamond();
+
+        final DbModuleClosure closure = ModuleClosures.compute("a:1.0.0", index);
+        assertEquals("a:1.0.0", closure.getModuleId());
+        assertEquals(Arrays.asList("a:1.0.0", "b:1.0.0", "c:1.0.0", "d:1.0.0"), closure.getModules());
+
+        // d is reached through b and c but it is in the closure once
+        assertEquals(Arrays.asList(1, 2), closure.getTargets().get(0));
+        assertEquals(Collections.singletonList(3), closure.getTargets().get(1));
+        assertEquals(Collections.singletonList(3), closure.getTargets().get(2));
+        // the third party library is not produced by any module
+        assertEquals(Collections.singletonList(-1), closure.getTargets().get(3));
+
+        assertNull(ModuleClosures.compute("doesNotExist:1.0.0", index));
+    }
+
+    @Test
+    public void onlyTheAncestorClosuresAreUpdated(){
+        final DependencyGraphIndex index = createDiamond();
+        final DbModule d = createModule("d");
+        d.updateHasAndUse();
+
+        final Map<String, DbModuleClosure> closures = ModuleClosures.update(d, d, index);
+        assertEquals(new HashSet<String>(Arrays.asList("a:1.0.0", "b:1.0.0", "c:1.0.0", "d:1.0.0")), closures.keySet());
+        assertEquals(Collections.singletonList("d:1.0.0"), closures.get("d:1.0.0").getModules());
+        assertEquals(4, closures.get("a:1.0.0").getModules().size());
+
+        // no module depends on a
+        final DbModule a = createModule("a");
+        a.updateHasAndUse();
+        assertEquals(Collections.singleton("a:1.0.0"), ModuleClosures.update(a, a, index).keySet());
+    }
+
+    @Test
+    public void closureOfADeletedModuleIsNull(){
+        final DependencyGraphIndex index = createDiamond();
+        final DbModule d = createModule("d");
+        d.updateHasAndUse();
+        index.remove(d.getId());
+
+        final Map<String, DbModuleClosure> closures = ModuleClosures.update(d, null, index);
+        assertTrue(closures.containsKey("d:1.0.0"));
+        assertNull(closures.get("d:1.0.0"));
+        assertEquals(1, closures.get("b:1.0.0").getModules().size());
+        assertEquals(Collections.singletonList(-1), closures.get("b:1.0.0").getTargets().get(0));
+        assertEquals(3, closures.get("a:1.0.0").getModules().size());
+    }
+
+    /**
+     * Indexes a repository where a depends on b and c which both depend on d, e depending on nothing
+     */
+    private DependencyGraphIndex createDiamond() {
+        final DbModule a = createModule("a");
+        final DbModule b = createModule("b");
+        final DbModule c = createModule("c");
+        final DbModule d = createModule("d");
+        final DbModule e = createModule("e");
+        a.addDependency(getGavc("b"), Scope.COMPILE);
+        a.addDependency(getGavc("c"), Scope.COMPILE);
+        b.addDependency(getGavc("d"), Scope.COMPILE);
+        c.addDependency(getGavc("d"), Scope.TEST);
+        d.addDependency("org.apache:lib:1.0.0::jar", Scope.RUNTIME);
+        for(DbModule module: Arrays.asList(a, b, c, d, e)){
+            module.updateHasAndUse();
+        }
+
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getModulesCursor(any(FiltersHolder.class))).thenReturn(DbCursor.of(Arrays.asList(a, b, c, d, e)));
+        final DependencyGraphIndex index = new DependencyGraphIndex(repoHandler);
+        index.load();
+
+        return index;
+    }
+
+    private DbModule createModule(final String name) {
+        final DbModule module = new DbModule();
+        module.setName(name);
+        module.setVersion("1.0.0");
+
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.grapes.test");
+        artifact.setArtifactId(name);
+        artifact.setVersion("1.0.0");
+        module.addArtifact(artifact);
+
+        return module;
+    }
+
+    private String getGavc(final String artifactId) {
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.grapes.test");
+        artifact.setArtifactId(artifactId);
+        artifact.setVersion("1.0.0");
+        return artifact.getGavc();
+    }
+}
@@ -0,0 +1,70 @@
+package org.axway.grapes.server.db;
+
+import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.axway.grapes.server.db.datamodel.DbOrganization;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class OrganizationMatcherTest {
+
+    @Test
+    public void gavcsAreMatchedWithTheLongestPrefix(){
+        final DbOrganization axway = createOrganization("axway", "org.axway", "com.axway.");
+        final DbOrganization grapes = createOrganization("grapes", "org.axway.grapes");
+        final OrganizationMatcher matcher = new OrganizationMatcher(Arrays.asList(axway, grapes));
+
+        assertEquals(axway, matcher.getOrganization("org.axway.other:artifact:1.0.0::jar"));
+        assertEquals(axway, matcher.getOrganization("com.axway.other:artifact:1.0.0::jar"));
+        assertEquals(grapes, matcher.getOrganization("org.axway.grapes:artifact:1.0.0::jar"));
+        assertNull(matcher.getOrganization("com.axway:artifact:1.0.0::jar"));
+        assertNull(matcher.getOrganization("org.apache:artifact:1.0.0::jar"));
+        assertNull(matcher.getOrganization("org"));
+    }
+
+    @Test
+    public void modulesAreMatchedWithTheirFirstArtifact(){
+        final OrganizationMatcher matcher = new OrganizationMatcher(
+                Collections.singletonList(createOrganization("axway", "org.axway")));
+
+        final DbModule module = new DbModule();
+        module.setName("module");
+        module.setVersion("1.0.0");
+        assertNull(matcher.getOrganization(module));
+
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("org.axway.test");
+        artifact.setArtifactId("artifact");
+        artifact.setVersion("1.0.0");
+        module.addArtifact(artifact);
+        assertEquals("axway", matcher.getOrganization(module).getName());
+    }
+
+    @Test
+    public void theMatcherOfTheRepositoryHandlerIsUsedIfAny(){
+        final OrganizationMatcher matcher = new OrganizationMatcher(Collections.<DbOrganization>emptyList());
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getOrganizationMatcher()).thenReturn(matcher);
+
+        assertSame(matcher, OrganizationMatcher.of(repoHandler));
+        verify(repoHandler, never()).getAllOrganizations();
+
+        final RepositoryHandler otherRepoHandler = mock(RepositoryHandler.class);
+        when(otherRepoHandler.getAllOrganizations()).thenReturn(Collections.singletonList(createOrganization("axway", "org.axway")));
+
+        assertEquals("axway", OrganizationMatcher.of(otherRepoHandler).getOrganization("org.axway:artifact:1.0.0::jar").getName());
+        verify(otherRepoHandler, times(1)).getAllOrganizations();
+    }
+
+    private DbOrganization createOrganization(final String name, final String... prefixes) {
+        final DbOrganization organization = new DbOrganization();
+        organization.setName(name);
+        organization.getCorporateGroupIdPrefixes().addAll(Arrays.asList(prefixes));
+        return organization;
+    }
+}
@@ -0,0 +1,111 @@
+package org.axway.grapes.server.db;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class PromotionStatusCacheTest {
+
+    @Test
+    public void statusesAreDroppedWhenTheirClosureChanges(){
+        final PromotionStatusCache cache = new PromotionStatusCache();
+        put(cache, "a:1.0.0", true, Collections.singletonList("b:1.0.0"), Collections.singletonList("org.axway:b:1.0.0::jar"));
+        put(cache, "c:1.0.0", false, Collections.<String>emptyList(), Collections.singletonList("org.axway:d:1.0.0::jar"));
+        assertEquals(Boolean.TRUE, cache.get("a:1.0.0"));
+        assertEquals(Boolean.FALSE, cache.get("c:1.0.0"));
+
+        cache.invalidateModule("b:1.0.0");
+        assertNull(cache.get("a:1.0.0"));
+        assertEquals(Boolean.FALSE, cache.get("c:1.0.0"));
+
+        cache.invalidateArtifact("org.axway:b:1.0.0::jar");
+        assertEquals(Boolean.FALSE, cache.get("c:1.0.0"));
+
+        cache.invalidateModule("c:1.0.0");
+        assertNull(cache.get("c:1.0.0"));
+    }
+
+    @Test
+    public void statusesAreDroppedWhenAnArtifactOfTheirClosureChanges(){
+        final PromotionStatusCache cache = new PromotionStatusCache();
+        put(cache, "a:1.0.0", true, Collections.<String>emptyList(), Collections.singletonList("org.axway:b:1.0.0::jar"));
+
+        cache.invalidateArtifact("org.axway:b:1.0.0::jar");
+        assertNull(cache.get("a:1.0.0"));
+    }
+
+    @Test
+    public void statusesComputedBeforeAnInvalidationOfTheirClosureAreNotKept(){
+        final PromotionStatusCache cache = new PromotionStatusCache();
+        final long start = cache.begin();
+
+        cache.invalidateArtifact("org.axway:b:1.0.0::jar");
+        cache.put("a:1.0.0", true, Collections.<String>emptyList(), Collections.singletonList("org.axway:b:1.0.0::jar"), start);
+        cache.end(start);
+        assertNull(cache.get("a:1.0.0"));
+
+        put(cache, "a:1.0.0", true, Collections.<String>emptyList(), Collections.singletonList("org.axway:b:1.0.0::jar"));
+        assertEquals(Boolean.TRUE, cache.get("a:1.0.0"));
+
+        cache.clear();
+        assertNull(cache.get("a:1.0.0"));
+    }
+
+    @Test
+    public void invalidationsOutsideTheClosureDoNotDiscardTheStatus(){
+        final PromotionStatusCache cache = new PromotionStatusCache();
+        final long start = cache.begin();
+
+        cache.invalidateModule("other:1.0.0");
+        cache.invalidateArtifact("org.axway:other:1.0.0::jar");
+        cache.put("a:1.0.0", true, Collections.singletonList("b:1.0.0"), Collections.singletonList("org.axway:b:1.0.0::jar"), start);
+        cache.end(start);
+        assertEquals(Boolean.TRUE, cache.get("a:1.0.0"));
+    }
+
+    @Test
+    public void statusesComputedBeforeAClearAreNotKept(){
+        final PromotionStatusCache cache = new PromotionStatusCache();
+        final long start = cache.begin();
+
+        cache.clear();
+        cache.put("a:1.0.0", true, Collections.<String>emptyList(), Collections.<String>emptyList(), start);
+        cache.end(start);
+        assertNull(cache.get("a:1.0.0"));
+    }
+
+    @Test
+    public void invalidationsAreOnlyTrackedForTheComputationsInProgress(){
+        final PromotionStatusCache cache = new PromotionStatusCache();
+        final long first = cache.begin();
+        cache.invalidateModule("b:1.0.0");
+        final long second = cache.begin();
+        cache.end(first);
+
+        // the invalidation is older than the remaining computation
+        cache.put("a:1.0.0", true, Collections.singletonList("b:1.0.0"), Collections.<String>emptyList(), second);
+        cache.end(second);
+        assertEquals(Boolean.TRUE, cache.get("a:1.0.0"));
+    }
+
+    @Test
+    public void theCacheOfTheRepositoryHandlerIsShared(){
+        final PromotionStatusCache cache = new PromotionStatusCache();
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        when(repoHandler.getPromotionStatusCache()).thenReturn(cache);
+
+        assertSame(cache, PromotionStatusCache.of(repoHandler));
+        assertNotNull(PromotionStatusCache.of(mock(RepositoryHandler.class)));
+    }
+
+    private void put(final PromotionStatusCache cache, final String moduleId, final boolean canBePromoted,
+                     final List<String> moduleIds, final List<String> gavcs) {
+        final long start = cache.begin();
+        cache.put(moduleId, canBePromoted, moduleIds, gavcs, start);
+        cache.end(start);
+    }
+}
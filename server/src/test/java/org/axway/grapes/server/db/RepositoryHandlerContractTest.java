@@ -0,0 +1,297 @@
+package org.axway.grapes.server.db;
+
+import com.sun.jersey.api.NotFoundException;
+import org.axway.grapes.commons.datamodel.Scope;
+import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.core.options.filters.ApprovedFilter;
+import org.axway.grapes.server.core.options.filters.CorporateFilter;
+import org.axway.grapes.server.core.options.filters.GroupIdFilter;
+import org.axway.grapes.server.core.options.filters.ToBeValidatedFilter;
+import org.axway.grapes.server.db.datamodel.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the behavior shared by all the repository handlers, run against each of them
+ */
+public abstract class RepositoryHandlerContractTest {
+
+    protected RepositoryHandler handler;
+
+    /**
+     * Creates a handler on an empty repository
+     *
+     * @return RepositoryHandler
+     * @throws Exception if the repository cannot be opened
+     */
+    protected abstract RepositoryHandler createRepositoryHandler() throws Exception;
+
+    @Before
+    public void setUp() throws Exception {
+        handler = createRepositoryHandler();
+    }
+
+    @Test
+    public void artifactStorageMergesTheLicenses() {
+        final DbArtifact artifact = createArtifact("org.axway.test", "artifact", "1.0.0");
+        artifact.addLicense("license1");
+        handler.store(artifact);
+
+        final DbArtifact update = createArtifact("org.axway.test", "artifact", "1.0.0");
+        update.addLicense("license2");
+        handler.store(update);
+        handler.updateProvider(update, "provider");
+
+        final DbArtifact stored = handler.getArtifact(artifact.getGavc());
+        assertEquals(Arrays.asList("license1", "license2"), stored.getLicenses());
+        assertEquals("provider", stored.getProvider());
+
+        handler.storeIfNew(Arrays.asList(createArtifact("org.axway.test", "artifact", "1.0.0"), createArtifact("org.axway.test", "other", "1.0.0")));
+        assertEquals(2, handler.getArtifactsByGavc(Arrays.asList(artifact.getGavc(), "org.axway.test:other:1.0.0::jar")).size());
+        assertEquals(2, handler.getArtifact(artifact.getGavc()).getLicenses().size());
+    }
+
+    @Test
+    public void moduleStorageMergesTheBuildInfo() {
+        final DbModule module = createModule("module", "1.0.0", "org.axway.test", "artifact");
+        module.setBuildInfo(Collections.singletonMap("key1", "value1"));
+        handler.store(module);
+
+        module.setBuildInfo(Collections.singletonMap("key2", "value2"));
+        handler.store(module);
+
+        final Map<String, String> buildInfo = handler.getModule(module.getId()).getBuildInfo();
+        assertEquals("value1", buildInfo.get("key1"));
+        assertEquals("value2", buildInfo.get("key2"));
+    }
+
+    @Test
+    public void concurrentModuleStoragesMergeTheBuildInfo() throws Exception {
+        final DbModule module = createModule("module", "1.0.0", "org.axway.test", "artifact");
+        handler.store(module);
+
+        final int storages = 20;
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+        try {
+            for(int i = 0; i < storages; i++){
+                final String key = "key" + i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        final DbModule update = createModule("module", "1.0.0", "org.axway.test", "artifact");
+                        update.setBuildInfo(Collections.singletonMap(key, "value"));
+                        start.await();
+                        handler.store(update);
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for(Future<?> future: futures){
+                future.get(10, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        final Map<String, String> buildInfo = handler.getModule(module.getId()).getBuildInfo();
+        assertEquals(storages, buildInfo.size());
+        for(int i = 0; i < storages; i++){
+            assertEquals("value", buildInfo.get("key" + i));
+        }
+    }
+
+    @Test
+    public void artifactsAreFilteredAndPaginated() {
+        handler.store(createArtifact("org.axway.test", "artifact1", "1.0.0"));
+        handler.store(createArtifact("org.axway.test", "artifact1", "2.0.0"));
+        handler.store(createArtifact("org.axway.test", "artifact2", "1.0.0"));
+        handler.store(createArtifact("com.other", "artifact3", "1.0.0"));
+
+        final FiltersHolder groupFilter = new FiltersHolder();
+        groupFilter.addFilter(new GroupIdFilter("org.axway.test"));
+        assertEquals(3, handler.getArtifactsCount(groupFilter));
+        assertEquals(3, handler.getArtifacts(groupFilter).size());
+
+        final FiltersHolder corporateFilter = new FiltersHolder();
+        final DbOrganization organization = createOrganization("organization", "org.axway");
+        handler.store(organization);
+        corporateFilter.addFilter(new CorporateFilter(organization, OrganizationMatcher.of(handler)));
+        assertEquals(3, handler.getGavcs(corporateFilter).size());
+
+        final FiltersHolder page = new FiltersHolder();
+        page.getPagination().setLimit(2);
+        assertEquals(Arrays.asList("com.other:artifact3:1.0.0::jar", "org.axway.test:artifact1:1.0.0::jar"), handler.getGavcs(page));
+        page.getPagination().setCursor("org.axway.test:artifact1:1.0.0::jar");
+        assertEquals(Arrays.asList("org.axway.test:artifact1:2.0.0::jar", "org.axway.test:artifact2:1.0.0::jar"), handler.getGavcs(page));
+
+        assertEquals(Arrays.asList("com.other", "org.axway.test"), handler.getGroupIds(new FiltersHolder()));
+        assertEquals(2, handler.getGroupIdsCount(new FiltersHolder()));
+        assertEquals(2, handler.getArtifactVersions(createArtifact("org.axway.test", "artifact1", "3.0.0")).size());
+    }
+
+    @Test
+    public void licensesAreFiltered() {
+        handler.store(createLicense("approved", true));
+        handler.store(createLicense("rejected", false));
+        handler.store(createLicense("toValidate", null));
+
+        final FiltersHolder approved = new FiltersHolder();
+        approved.addFilter(new ApprovedFilter(true));
+        assertEquals(Collections.singletonList("approved"), handler.getLicenseNames(approved));
+
+        final FiltersHolder toBeValidated = new FiltersHolder();
+        toBeValidated.addFilter(new ToBeValidatedFilter(false));
+        assertEquals(Arrays.asList("approved", "rejected"), handler.getLicenseNames(toBeValidated));
+        assertEquals(2, handler.getLicenseNamesCount(toBeValidated));
+
+        final FiltersHolder notValidated = new FiltersHolder();
+        notValidated.addFilter(new ToBeValidatedFilter(true));
+        assertEquals(Collections.singletonList("toValidate"), handler.getLicenseNames(notValidated));
+
+        handler.approveLicense(handler.getLicense("toValidate"), true);
+        assertEquals(Arrays.asList("approved", "toValidate"), handler.getLicenseNames(approved));
+    }
+
+    @Test
+    public void modulesAreFoundThroughTheIndexes() {
+        final DbModule module1 = createModule("module", "1.0.0", "org.axway.test", "artifact1");
+        module1.addDependency("org.axway.test:dependency:1.0.0::jar", Scope.COMPILE);
+        final DbModule module2 = createModule("module", "2.0.0", "org.axway.test", "artifact2");
+        module2.addDependency("org.axway.test:dependency:1.0.0::jar", Scope.COMPILE);
+        final DbModule module3 = createModule("other", "1.0.0", "com.other", "artifact3");
+        handler.store(module1);
+        handler.store(module2);
+        handler.store(module3);
+
+        assertEquals(module1.getId(), handler.getRootModuleOf("org.axway.test:artifact1:1.0.0::jar").getId());
+        assertNull(handler.getRootModuleOf("org.axway.test:unknown:1.0.0::jar"));
+        assertEquals(2, handler.getRootModulesOf(Arrays.asList("org.axway.test:artifact1:1.0.0::jar", "com.other:artifact3:1.0.0::jar")).size());
+        assertEquals(2, handler.getAncestors(createArtifact("org.axway.test", "dependency", "1.0.0"), new FiltersHolder()).size());
+        assertEquals(2, handler.getAncestors(Arrays.asList("org.axway.test:dependency:1.0.0::jar", "org.axway.test:artifact1:1.0.0::jar"), new FiltersHolder()).size());
+
+        assertEquals(Arrays.asList("module", "other"), handler.getModuleNames(new FiltersHolder()));
+        assertEquals(2, handler.getModuleNamesCount(new FiltersHolder()));
+        assertEquals(Arrays.asList("1.0.0", "2.0.0"), handler.getModuleVersions("module", new FiltersHolder()));
+        assertEquals(3, handler.getModulesCount(new FiltersHolder()));
+
+        handler.promoteModule(module1);
+        assertTrue(handler.getModule(module1.getId()).isPromoted());
+
+        handler.deleteModule(module2.getId());
+        assertEquals(Collections.singletonList("1.0.0"), handler.getModuleVersions("module", new FiltersHolder()));
+        assertEquals(1, handler.getAncestors(createArtifact("org.axway.test", "dependency", "1.0.0"), new FiltersHolder()).size());
+    }
+
+    @Test
+    public void organizationIsSetOnTheCorporateModules() {
+        final DbOrganization organization = createOrganization("organization", "org.axway");
+        handler.store(organization);
+        handler.store(createModule("module", "1.0.0", "org.axway.test", "artifact"));
+        handler.store(createModule("other", "1.0.0", "com.other", "artifact"));
+
+        handler.addModulesOrganization("org.axway", organization);
+        assertEquals("organization", handler.getModule("module:1.0.0").getOrganization());
+        assertFalse("organization".equals(handler.getModule("other:1.0.0").getOrganization()));
+
+        assertEquals(Collections.singletonList("organization"), handler.getOrganizationNames());
+
+        handler.removeModulesOrganization(organization);
+        assertEquals("", handler.getModule("module:1.0.0").getOrganization());
+    }
+
+    @Test
+    public void licenseResolverIsCreatedAgainWhenTheLicensesChange() {
+        handler.store(createLicense("license", null));
+        assertEquals("license", handler.getLicenseResolver().resolve("license").getName());
+        assertSame(handler.getLicenseResolver(), handler.getLicenseResolver());
+
+        handler.store(createLicense("other", null));
+        assertEquals("other", handler.getLicenseResolver().resolve("other").getName());
+
+        handler.deleteLicense("license");
+        assertNull(handler.getLicenseResolver().resolve("license"));
+    }
+
+    @Test
+    public void organizationMatcherIsCompiledAgainWhenTheOrganizationsChange() {
+        final DbOrganization organization = createOrganization("organization", "org.axway");
+        handler.store(organization);
+        assertEquals("organization", handler.getOrganizationMatcher().getOrganization("org.axway.test:artifact:1.0.0::jar").getName());
+        assertSame(handler.getOrganizationMatcher(), handler.getOrganizationMatcher());
+
+        organization.getCorporateGroupIdPrefixes().add("com.other");
+        handler.store(organization);
+        assertEquals("organization", handler.getOrganizationMatcher().getOrganization("com.other:artifact:1.0.0::jar").getName());
+
+        handler.deleteOrganization(organization.getName());
+        assertNull(handler.getOrganizationMatcher().getOrganization("org.axway.test:artifact:1.0.0::jar"));
+    }
+
+    @Test
+    public void latestVersionsAreMaintainedAtArtifactStorage() {
+        final DbArtifact artifact = createArtifact("org.axway.test", "artifact", "1.0.0");
+        handler.store(artifact);
+        handler.storeIfNew(Arrays.asList(
+                createArtifact("org.axway.test", "artifact", "1.1.0-SNAPSHOT"),
+                createArtifact("org.axway.test", "artifact", "1.0.1"),
+                createArtifact("org.axway.test", "other", "2.0.0")));
+
+        DbLatestVersions latestVersions = handler.getLatestVersions(artifact);
+        assertEquals(3, latestVersions.getVersions().size());
+        assertEquals("1.0.1", latestVersions.getLastRelease());
+        assertEquals("1.1.0-SNAPSHOT", latestVersions.getLastVersion());
+        assertTrue(latestVersions.isComparable());
+
+        handler.deleteArtifact("org.axway.test:artifact:1.0.1::jar");
+        latestVersions = handler.getLatestVersions(artifact);
+        assertEquals(2, latestVersions.getVersions().size());
+        assertEquals("1.0.0", latestVersions.getLastRelease());
+
+        assertEquals("2.0.0", handler.getLatestVersions(createArtifact("org.axway.test", "other", "")).getLastVersion());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void deletingAMissingArtifactFails() {
+        handler.deleteArtifact("org.axway.test:missing:1.0.0::jar");
+    }
+
+    protected DbArtifact createArtifact(final String groupId, final String artifactId, final String version) {
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId(groupId);
+        artifact.setArtifactId(artifactId);
+        artifact.setVersion(version);
+        artifact.setExtension("jar");
+        return artifact;
+    }
+
+    protected DbModule createModule(final String name, final String version, final String groupId, final String artifactId) {
+        final DbModule module = new DbModule();
+        module.setName(name);
+        module.setVersion(version);
+        module.addArtifact(createArtifact(groupId, artifactId, version));
+        return module;
+    }
+
+    protected DbLicense createLicense(final String name, final Boolean approved) {
+        final DbLicense license = new DbLicense();
+        license.setName(name);
+        license.setApproved(approved);
+        return license;
+    }
+
+    protected DbOrganization createOrganization(final String name, final String corporateGroupId) {
+        final DbOrganization organization = new DbOrganization();
+        organization.setName(name);
+        organization.getCorporateGroupIdPrefixes().add(corporateGroupId);
+        return organization;
+    }
+}
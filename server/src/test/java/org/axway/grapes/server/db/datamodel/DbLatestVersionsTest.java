@@ -0,0 +1,20 @@
+package org.axway.grapes.server.db.datamodel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DbLatestVersionsTest {
+
+    @Test
+    public void checkIdGeneration() {
+        final DbArtifact artifact = new DbArtifact();
+        artifact.setGroupId("com.axway.test");
+        artifact.setArtifactId("UidTest");
+        artifact.setVersion("1.0.0-SNAPSHOT");
+        artifact.setClassifier("win");
+        artifact.setExtension("jar");
+
+        assertEquals("com.axway.test:UidTest:win:jar", DbLatestVersions.generateID(artifact));
+    }
+}
@@ -0,0 +1,139 @@
+package org.axway.grapes.server.db.embedded;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.axway.grapes.commons.datamodel.Scope;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.axway.grapes.server.db.RepositoryHandlerContractTest;
+import org.axway.grapes.server.db.datamodel.*;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class EmbeddedHandlerTest extends RepositoryHandlerContractTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EmbeddedStore store;
+
+    @Override
+    protected RepositoryHandler createRepositoryHandler() throws Exception {
+        store = new EmbeddedStore(new File(folder.getRoot(), "db"));
+        return new EmbeddedHandler(store);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    public void dataIsKeptWhenTheHandlerIsReopened() throws Exception {
+        final DbModule module = createModule("module", "1.0.0", "org.axway.test", "artifact");
+        handler.store(module);
+        handler.store(createArtifact("org.axway.test", "artifact", "1.0.0"));
+        handler.store(createLicense("license", true));
+
+        final DbCredential credential = new DbCredential();
+        credential.setUser("user");
+        credential.setPassword("password");
+        handler.store(credential);
+        handler.addUserRole("user", DbCredential.AvailableRoles.DATA_UPDATER);
+
+        store.close();
+        handler = createRepositoryHandler();
+
+        final DbModule reloaded = handler.getModule(module.getId());
+        assertNotNull(reloaded);
+        assertEquals(module.getName(), reloaded.getName());
+        assertEquals(module.getArtifacts(), reloaded.getArtifacts());
+        assertNotNull(handler.getArtifact("org.axway.test:artifact:1.0.0::jar"));
+        assertTrue(handler.getLicense("license").isApproved());
+        assertTrue(handler.getCredential("user").getRoles().contains(DbCredential.AvailableRoles.DATA_UPDATER));
+    }
+
+    @Test
+    public void latestVersionsAreRebuiltFromTheArtifacts() {
+        final DbArtifact artifact = createArtifact("org.axway.test", "artifact", "1.0.0");
+        handler.store(artifact);
+        handler.store(createArtifact("org.axway.test", "artifact", "2.0.0"));
+        store.remove(DbCollections.DB_LATEST_VERSIONS, DbLatestVersions.generateID(artifact));
+        assertNull(handler.getLatestVersions(artifact));
+
+        handler.rebuildLatestVersions();
+        assertEquals("2.0.0", handler.getLatestVersions(artifact).getLastRelease());
+        assertEquals(2, handler.getLatestVersions(artifact).getVersions().size());
+    }
+
+    @Test
+    public void moduleClosuresAreMaintainedAtModuleStorage() throws InterruptedException {
+        final DbModule module = createModule("module", "1.0.0", "org.axway.test", "artifact");
+        module.addDependency("org.axway.test:dependency:1.0.0::jar", Scope.COMPILE);
+        handler.store(module);
+
+        // the closures are only served once they have been rebuilt since the start
+        assertNull(handler.getModuleClosure(module.getId()));
+        handler.rebuildModuleClosures();
+
+        DbModuleClosure closure = awaitModuleClosure(module.getId());
+        assertEquals(Collections.singletonList(module.getId()), closure.getModules());
+        assertEquals(Collections.singletonList(-1), closure.getTargets().get(0));
+
+        // the closure of the ancestor is updated when its dependency is stored
+        final DbModule dependency = createModule("dependency", "1.0.0", "org.axway.test", "dependency");
+        dependency.addDependency("org.apache:lib:1.0.0::jar", Scope.RUNTIME);
+        handler.store(dependency);
+
+        closure = awaitModuleClosure(module.getId());
+        assertEquals(Arrays.asList(module.getId(), dependency.getId()), closure.getModules());
+        assertEquals(Collections.singletonList(1), closure.getTargets().get(0));
+        assertEquals(Collections.singletonList(-1), closure.getTargets().get(1));
+
+        handler.deleteModule(dependency.getId());
+        assertEquals(1, awaitModuleClosure(module.getId()).getModules().size());
+        assertNull(handler.getModuleClosure(dependency.getId()));
+
+        store.remove(DbCollections.DB_MODULE_CLOSURES, module.getId());
+        assertNull(handler.getModuleClosure(module.getId()));
+        handler.rebuildModuleClosures();
+        assertEquals(1, handler.getModuleClosure(module.getId()).getModules().size());
+    }
+
+    /**
+     * Waits for the closure of a module: the closures are not served while they are updated in background
+     */
+    private DbModuleClosure awaitModuleClosure(final String moduleId) throws InterruptedException {
+        for(int i = 0; i < 500; i++){
+            final DbModuleClosure closure = handler.getModuleClosure(moduleId);
+            if(closure != null){
+                return closure;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("The closure of " + moduleId + " has not been updated.");
+    }
+
+    @Test
+    public void nullMatchesMissingFieldsButNotEmptyLists() {
+        final DBObject document = new BasicDBObject("list", new BasicDBList()).append("value", null);
+
+        assertTrue(EmbeddedHandler.matches(document, Collections.<String, Object>singletonMap("missing", null)));
+        assertTrue(EmbeddedHandler.matches(document, Collections.<String, Object>singletonMap("value", null)));
+        assertFalse(EmbeddedHandler.matches(document, Collections.<String, Object>singletonMap("list", null)));
+
+        final BasicDBList listWithNull = new BasicDBList();
+        listWithNull.add(null);
+        document.put("list", listWithNull);
+        assertTrue(EmbeddedHandler.matches(document, Collections.<String, Object>singletonMap("list", null)));
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.axway.grapes.server.db.embedded;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.axway.grapes.server.db.DBException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class EmbeddedStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void documentsAreReloadedFromTheLog() throws Exception {
+        EmbeddedStore store = openStore();
+        store.put("collection", "b", createDocument("b", "value1", "tag1", "tag2"));
+        store.put("collection", "a", createDocument("a", "value2", "tag2"));
+        store.put("collection", "c", createDocument("c", "value3"));
+        store.remove("collection", "c");
+        store.close();
+
+        store = openStore();
+        assertEquals(2, store.size());
+        assertEquals(Arrays.asList("a", "b"), store.getIds("collection"));
+        assertEquals("value1", store.get("collection", "b").get("field"));
+        assertNull(store.get("collection", "c"));
+        assertEquals(Arrays.asList("a", "b"), store.getIds("collection", "tags", "tag2"));
+        assertEquals(Collections.singletonList("b"), store.getIds("collection", "tags", "tag1"));
+    }
+
+    @Test
+    public void indexesFollowTheUpdates() throws Exception {
+        final EmbeddedStore store = openStore();
+        store.put("collection", "a", createDocument("a", "value", "tag1"));
+        store.put("collection", "a", createDocument("a", "value", "tag2"));
+
+        assertTrue(store.getIds("collection", "tags", "tag1").isEmpty());
+        assertEquals(Collections.singletonList("a"), store.getIds("collection", "tags", "tag2"));
+        assertEquals(Collections.<Object>singleton("tag2"), store.getIndexedValues("collection", "tags"));
+
+        store.remove("collection", "a");
+        assertTrue(store.getIndexedValues("collection", "tags").isEmpty());
+    }
+
+    @Test
+    public void returnedDocumentsAreCopies() throws Exception {
+        final EmbeddedStore store = openStore();
+        store.put("collection", "a", createDocument("a", "value", "tag"));
+
+        final DBObject document = store.get("collection", "a");
+        document.put("field", "modified");
+        ((BasicDBList) document.get("tags")).add("other");
+
+        assertEquals("value", store.get("collection", "a").get("field"));
+        assertEquals(1, ((BasicDBList) store.get("collection", "a").get("tags")).size());
+    }
+
+    @Test
+    public void putIfAbsentKeepsTheExistingDocument() throws Exception {
+        final EmbeddedStore store = openStore();
+        assertTrue(store.putIfAbsent("collection", "a", createDocument("a", "value1")));
+        assertFalse(store.putIfAbsent("collection", "a", createDocument("a", "value2")));
+
+        assertEquals("value1", store.get("collection", "a").get("field"));
+    }
+
+    @Test
+    public void logIsCompactedWhenItIsOpened() throws Exception {
+        EmbeddedStore store = openStore();
+        for(int i = 0; i < 10; i++){
+            store.put("collection", "a", createDocument("a", "value" + i));
+        }
+        assertEquals(10, store.getRecords());
+        store.close();
+
+        store = openStore();
+        assertEquals(1, store.getRecords());
+        assertEquals("value9", store.get("collection", "a").get("field"));
+        store.close();
+
+        store = openStore();
+        assertEquals(1, store.getRecords());
+        assertEquals("value9", store.get("collection", "a").get("field"));
+    }
+
+    @Test
+    public void partiallyWrittenRecordIsIgnored() throws Exception {
+        EmbeddedStore store = openStore();
+        store.put("collection", "a", createDocument("a", "value"));
+        store.close();
+
+        Files.append("{ \"c\" : \"collection\" , \"id\" : \"b\" , \"doc\" : { \"_id\" :", store.getLogFile(), Charsets.UTF_8);
+
+        store = openStore();
+        assertEquals(Collections.singletonList("a"), store.getIds("collection"));
+        store.put("collection", "c", createDocument("c", "value"));
+        store.close();
+
+        store = openStore();
+        assertEquals(Arrays.asList("a", "c"), store.getIds("collection"));
+    }
+
+    @Test
+    public void logIsLockedWhileTheStoreIsOpened() throws Exception {
+        final EmbeddedStore store = openStore();
+        store.put("collection", "a", createDocument("a", "value"));
+
+        try {
+            openStore();
+            fail("The log should be locked.");
+        }
+        catch (DBException e) {
+            assertTrue(e.getMessage().contains(EmbeddedStore.LOG_FILE));
+        }
+
+        store.stop();
+        assertEquals("value", openStore().get("collection", "a").get("field"));
+    }
+
+    @Test
+    public void logIsRestoredIfItsReplacementHasBeenInterrupted() throws Exception {
+        EmbeddedStore store = openStore();
+        store.put("collection", "a", createDocument("a", "value"));
+        store.close();
+
+        // the server stopped after moving the log away but before moving the compacted log
+        assertTrue(store.getLogFile().renameTo(new File(store.getLogFile().getParentFile(), EmbeddedStore.LOG_FILE + ".old")));
+
+        store = openStore();
+        assertEquals("value", store.get("collection", "a").get("field"));
+    }
+
+    private EmbeddedStore openStore() throws Exception {
+        final EmbeddedStore store = new EmbeddedStore(new File(folder.getRoot(), "db"));
+        store.addIndex("collection", "tags");
+        store.open();
+        return store;
+    }
+
+    private DBObject createDocument(final String id, final String value, final String... tags) {
+        final BasicDBList tagList = new BasicDBList();
+        tagList.addAll(Arrays.asList(tags));
+
+        return new BasicDBObject("_id", id)
+                .append("field", value)
+                .append("tags", tagList);
+    }
+}
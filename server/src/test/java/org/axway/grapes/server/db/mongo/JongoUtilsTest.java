@@ -21,6 +21,14 @@ public class JongoUtilsTest {
 		assertEquals("{key1: true}", JongoUtils.generateQuery("key1", true));
 		assertEquals("{key2: 'value2', key1: 'value1'}", JongoUtils.generateQuery(params));
 	}
-	
 
-}
\ No newline at end of file
+	@Test
+	public void generateJongoSubQuery(){
+		Map<String, Object> subQuery = new HashMap<String, Object>();
+		subQuery.put("$ne", null);
+
+		assertEquals("{key1: null}", JongoUtils.generateQuery("key1", null));
+		assertEquals("{key1: {$ne: null}}", JongoUtils.generateQuery("key1", subQuery));
+	}
+
+}
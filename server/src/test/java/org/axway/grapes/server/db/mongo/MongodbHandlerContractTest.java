@@ -0,0 +1,68 @@
+package org.axway.grapes.server.db.mongo;
+
+import org.axway.grapes.server.config.DataBaseConfig;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.axway.grapes.server.db.RepositoryHandlerContractTest;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the repository handler contract against a mongodb server listening on localhost, skipped if there is none.
+ * The test database is dropped after each test.
+ */
+public class MongodbHandlerContractTest extends RepositoryHandlerContractTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MongodbHandlerContractTest.class);
+
+    private static final String TEST_DATASTORE = "grapes-contract-test";
+
+    private MongodbConnection connection;
+
+    @BeforeClass
+    public static void checkServer() throws Exception {
+        final MongodbConnection connection = new MongodbConnection(createConfig());
+        boolean available = true;
+        try {
+            connection.ping();
+        }
+        catch (Exception e) {
+            LOG.info("No mongodb server available on localhost, the contract is not checked against mongodb.");
+            available = false;
+        }
+        finally {
+            connection.stop();
+        }
+
+        Assume.assumeTrue(available);
+    }
+
+    @Override
+    protected RepositoryHandler createRepositoryHandler() throws Exception {
+        connection = new MongodbConnection(createConfig());
+        connection.getDb().dropDatabase();
+        return new MongodbHandler(connection);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if(connection != null){
+            connection.getDb().dropDatabase();
+            connection.stop();
+        }
+    }
+
+    private static DataBaseConfig createConfig() {
+        final DataBaseConfig config = mock(DataBaseConfig.class);
+        when(config.getHost()).thenReturn("localhost");
+        when(config.getPort()).thenReturn(27017);
+        when(config.getDatastore()).thenReturn(TEST_DATASTORE);
+        when(config.getConnectTimeout()).thenReturn(1000);
+        return config;
+    }
+}
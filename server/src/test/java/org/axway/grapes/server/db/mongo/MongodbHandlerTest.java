@@ -0,0 +1,21 @@
+package org.axway.grapes.server.db.mongo;
+
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MongodbHandlerTest {
+
+    @Test
+    public void prefixPatternMatchesTheRegexCharactersLiterally(){
+        final Pattern pattern = MongodbHandler.getPrefixPattern("org.axway+(test)");
+
+        assertTrue(pattern.matcher("org.axway+(test):artifact:1.0.0::jar").find());
+        assertFalse(pattern.matcher("orgXaxway+(test):artifact:1.0.0::jar").find());
+        assertFalse(pattern.matcher("org.axwayy(test):artifact:1.0.0::jar").find());
+        assertFalse(pattern.matcher("com.org.axway+(test):artifact:1.0.0::jar").find());
+    }
+}
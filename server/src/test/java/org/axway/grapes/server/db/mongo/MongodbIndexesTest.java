@@ -0,0 +1,76 @@
+package org.axway.grapes.server.db.mongo;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.CommandResult;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import org.axway.grapes.server.db.datamodel.DbArtifact;
+import org.axway.grapes.server.db.datamodel.DbCollections;
+import org.axway.grapes.server.db.datamodel.DbModule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class MongodbIndexesTest {
+
+    @Test
+    public void checkDeclaredIndexes(){
+        final Map<String, List<DBObject>> indexes = MongodbIndexes.getDeclaredIndexes();
+
+        final List<String> moduleFields = getFirstFields(indexes.get(DbCollections.DB_MODULES));
+        assertTrue(moduleFields.contains(DbModule.HAS_DB_FIELD));
+        assertTrue(moduleFields.contains(DbModule.USE_DB_FIELD));
+        assertTrue(moduleFields.contains(DbModule.NAME_DB_FIELD));
+
+        final List<String> artifactFields = getFirstFields(indexes.get(DbCollections.DB_ARTIFACTS));
+        assertTrue(artifactFields.contains(DbArtifact.GROUPID_DB_FIELD));
+        assertTrue(artifactFields.contains(DbArtifact.LICENCES_DB_FIELD));
+    }
+
+    @Test
+    public void createdIndexesAreBuiltInTheBackgroundAndNotReportedAsUnused(){
+        final DB db = mock(DB.class);
+        final DBCollection modules = mock(DBCollection.class);
+        final DBCollection artifacts = mock(DBCollection.class);
+        final List<DBObject> defaultIndex = Collections.<DBObject>singletonList(new BasicDBObject("name", "_id_")
+                .append("key", new BasicDBObject("_id", 1)));
+        when(db.getCollection(DbCollections.DB_MODULES)).thenReturn(modules);
+        when(db.getCollection(DbCollections.DB_ARTIFACTS)).thenReturn(artifacts);
+        when(modules.getIndexInfo()).thenReturn(defaultIndex);
+        when(artifacts.getIndexInfo()).thenReturn(defaultIndex);
+
+        MongodbIndexes.ensure(db);
+
+        final DBObject hasKeys = new BasicDBObject(DbModule.HAS_DB_FIELD, 1);
+        verify(modules).ensureIndex(hasKeys, new BasicDBObject("background", true));
+        verify(modules, never()).ensureIndex(hasKeys);
+
+        // the stats of the created index start at its creation: it has not been accessed yet
+        final CommandResult result = mock(CommandResult.class);
+        when(result.ok()).thenReturn(true);
+        when(result.get("cursor")).thenReturn(new BasicDBObject("firstBatch", Collections.singletonList(
+                new BasicDBObject("name", DBCollection.genIndexName(hasKeys))
+                        .append("accesses", new BasicDBObject("ops", 0L)))));
+        when(db.command(any(DBObject.class))).thenReturn(result);
+
+        final List<String> unused = MongodbIndexes.getUnusedIndexes(db);
+        assertFalse(unused.contains(DbCollections.DB_MODULES + " " + DBCollection.genIndexName(hasKeys)));
+    }
+
+    private List<String> getFirstFields(final List<DBObject> indexes) {
+        final List<String> fields = new ArrayList<String>();
+        for(DBObject keys: indexes){
+            fields.add(keys.keySet().iterator().next());
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,236 @@
+package org.axway.grapes.server.db.mongo;
+
+import com.mongodb.*;
+import org.axway.grapes.server.db.datamodel.DbCollections;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class MongodbSnapshotTest {
+
+    @Test
+    public void snapshotRoundTrip() throws IOException {
+        final List<DBObject> artifacts = new ArrayList<DBObject>();
+        for(int i = 0; i < 2500; i++){
+            artifacts.add(new BasicDBObject(DbCollections.DEFAULT_ID, "org.axway:artifact" + i + ":1.0.0::jar")
+                    .append("licenses", Arrays.asList("license")));
+        }
+        final List<DBObject> licenses = Collections.<DBObject>singletonList(
+                new BasicDBObject(DbCollections.DEFAULT_ID, "license").append("approved", true));
+
+        final DB source = mock(DB.class);
+        for(String collection: MongodbSnapshot.COLLECTIONS){
+            final DBCollection dbCollection = mock(DBCollection.class);
+            final List<DBObject> documents;
+            if(DbCollections.DB_ARTIFACTS.equals(collection)){
+                documents = artifacts;
+            }
+            else if(DbCollections.DB_LICENSES.equals(collection)){
+                documents = licenses;
+            }
+            else {
+                documents = Collections.emptyList();
+            }
+            final DBCursor cursor = mockCursor(documents);
+            when(dbCollection.find()).thenReturn(cursor);
+            when(source.getCollection(collection)).thenReturn(dbCollection);
+        }
+
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        final Map<String, Long> exported = MongodbSnapshot.export(source, snapshot);
+        assertEquals(Long.valueOf(2500), exported.get(DbCollections.DB_ARTIFACTS));
+        assertEquals(Long.valueOf(1), exported.get(DbCollections.DB_LICENSES));
+        assertEquals(Long.valueOf(0), exported.get(DbCollections.DB_MODULES));
+
+        final DB target = mock(DB.class);
+        final Map<String, DBCollection> targetCollections = new HashMap<String, DBCollection>();
+        final Map<String, DBCollection> temporaryCollections = new HashMap<String, DBCollection>();
+        final List<DBObject> insertedArtifacts = Collections.synchronizedList(new ArrayList<DBObject>());
+        final List<DBObject> insertedLicenses = Collections.synchronizedList(new ArrayList<DBObject>());
+        for(String collection: MongodbSnapshot.COLLECTIONS){
+            final DBCollection temporaryCollection = mock(DBCollection.class);
+            if(DbCollections.DB_ARTIFACTS.equals(collection)){
+                when(temporaryCollection.insert(anyListOf(DBObject.class), any(WriteConcern.class))).thenAnswer(new Collect(insertedArtifacts));
+            }
+            if(DbCollections.DB_LICENSES.equals(collection)){
+                when(temporaryCollection.insert(anyListOf(DBObject.class), any(WriteConcern.class))).thenAnswer(new Collect(insertedLicenses));
+            }
+            mockCollections(target, collection, targetCollections, temporaryCollections, temporaryCollection);
+        }
+
+        final Map<String, Long> imported = MongodbSnapshot.restore(target, new ByteArrayInputStream(snapshot.toByteArray()), 4);
+        assertEquals(exported, imported);
+
+        // the documents are inserted by batches into a temporary collection that replaces the collection at the end
+        final DBCollection artifactCollection = targetCollections.get(DbCollections.DB_ARTIFACTS);
+        final DBCollection temporaryArtifactCollection = temporaryCollections.get(DbCollections.DB_ARTIFACTS);
+        verify(temporaryArtifactCollection, times(3)).insert(anyListOf(DBObject.class), any(WriteConcern.class));
+        verify(temporaryArtifactCollection).rename(DbCollections.DB_ARTIFACTS, true);
+        verify(artifactCollection, never()).insert(anyListOf(DBObject.class), any(WriteConcern.class));
+
+        // the collections that are empty in the snapshot are dropped
+        verify(temporaryCollections.get(DbCollections.DB_MODULES), never()).insert(anyListOf(DBObject.class), any(WriteConcern.class));
+        verify(temporaryCollections.get(DbCollections.DB_MODULES), never()).rename(anyString(), anyBoolean());
+        verify(targetCollections.get(DbCollections.DB_MODULES)).drop();
+
+        assertEquals(2500, insertedArtifacts.size());
+        final Set<Object> ids = new HashSet<Object>();
+        for(DBObject artifact: insertedArtifacts){
+            ids.add(artifact.get(DbCollections.DEFAULT_ID));
+        }
+        assertEquals(2500, ids.size());
+        assertEquals(Arrays.asList("license"), insertedArtifacts.get(0).get("licenses"));
+        assertEquals(licenses, insertedLicenses);
+
+        // the indexes are created at the end of the import
+        verify(artifactCollection, atLeastOnce()).ensureIndex(any(DBObject.class), eq((DBObject) new BasicDBObject("background", true)));
+    }
+
+    @Test
+    public void databaseIsLeftUntouchedWhenABatchFails() throws IOException {
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        MongodbSnapshot.export(createSource(3), snapshot);
+
+        final DB target = mock(DB.class);
+        final Map<String, DBCollection> targetCollections = new HashMap<String, DBCollection>();
+        final Map<String, DBCollection> temporaryCollections = new HashMap<String, DBCollection>();
+        for(String collection: MongodbSnapshot.COLLECTIONS){
+            final DBCollection temporaryCollection = mock(DBCollection.class);
+            when(temporaryCollection.insert(anyListOf(DBObject.class), any(WriteConcern.class))).thenThrow(new MongoException("failure"));
+            mockCollections(target, collection, targetCollections, temporaryCollections, temporaryCollection);
+        }
+
+        try {
+            MongodbSnapshot.restore(target, new ByteArrayInputStream(snapshot.toByteArray()), 2);
+            fail("The import should have failed.");
+        }
+        catch (IOException e) {
+            assertNotNull(e.getCause());
+        }
+
+        for(String collection: MongodbSnapshot.COLLECTIONS){
+            verifyZeroInteractions(targetCollections.get(collection));
+            verify(temporaryCollections.get(collection), never()).rename(anyString(), anyBoolean());
+        }
+        // the temporary collections are dropped before and after the failed import
+        verify(temporaryCollections.get(DbCollections.DB_ARTIFACTS), times(2)).drop();
+    }
+
+    @Test
+    public void databaseIsLeftUntouchedWhenTheSnapshotIsTruncated() throws IOException {
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        MongodbSnapshot.export(createSource(3), snapshot);
+
+        // the end of the compressed stream is removed
+        final byte[] truncated = Arrays.copyOf(snapshot.toByteArray(), snapshot.size() - 20);
+
+        final DB target = mock(DB.class);
+        final Map<String, DBCollection> targetCollections = new HashMap<String, DBCollection>();
+        final Map<String, DBCollection> temporaryCollections = new HashMap<String, DBCollection>();
+        for(String collection: MongodbSnapshot.COLLECTIONS){
+            mockCollections(target, collection, targetCollections, temporaryCollections, mock(DBCollection.class));
+        }
+
+        try {
+            MongodbSnapshot.restore(target, new ByteArrayInputStream(truncated), 2);
+            fail("The import should have failed.");
+        }
+        catch (IOException e) {
+            // expected
+        }
+
+        for(String collection: MongodbSnapshot.COLLECTIONS){
+            verifyZeroInteractions(targetCollections.get(collection));
+            verify(temporaryCollections.get(collection), never()).rename(anyString(), anyBoolean());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFilesAreRejected() throws IOException {
+        final ByteArrayOutputStream file = new ByteArrayOutputStream();
+        final GZIPOutputStream out = new GZIPOutputStream(file);
+        out.write("not a snapshot".getBytes());
+        out.close();
+
+        MongodbSnapshot.restore(mock(DB.class), new ByteArrayInputStream(file.toByteArray()), 1);
+    }
+
+    /**
+     * Creates a database whose artifact collection contains artifacts, the other collections being empty
+     */
+    private DB createSource(final int artifactCount) {
+        final List<DBObject> artifacts = new ArrayList<DBObject>();
+        for(int i = 0; i < artifactCount; i++){
+            artifacts.add(new BasicDBObject(DbCollections.DEFAULT_ID, "org.axway:artifact" + i + ":1.0.0::jar"));
+        }
+
+        final DB source = mock(DB.class);
+        for(String collection: MongodbSnapshot.COLLECTIONS){
+            final DBCollection dbCollection = mock(DBCollection.class);
+            final DBCursor cursor = mockCursor(DbCollections.DB_ARTIFACTS.equals(collection) ?
+                    artifacts : Collections.<DBObject>emptyList());
+            when(dbCollection.find()).thenReturn(cursor);
+            when(source.getCollection(collection)).thenReturn(dbCollection);
+        }
+
+        return source;
+    }
+
+    private void mockCollections(final DB target, final String collection, final Map<String, DBCollection> targetCollections,
+                                 final Map<String, DBCollection> temporaryCollections, final DBCollection temporaryCollection) {
+        final DBCollection dbCollection = mock(DBCollection.class);
+        when(target.getCollection(collection)).thenReturn(dbCollection);
+        when(target.getCollection(collection + ".import")).thenReturn(temporaryCollection);
+        when(temporaryCollection.getName()).thenReturn(collection + ".import");
+        targetCollections.put(collection, dbCollection);
+        temporaryCollections.put(collection, temporaryCollection);
+    }
+
+    private DBCursor mockCursor(final List<DBObject> documents) {
+        final Iterator<DBObject> iterator = documents.iterator();
+        final DBCursor cursor = mock(DBCursor.class);
+
+        when(cursor.hasNext()).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                return iterator.hasNext();
+            }
+        });
+        when(cursor.next()).thenAnswer(new Answer<DBObject>() {
+            @Override
+            public DBObject answer(final InvocationOnMock invocation) {
+                return iterator.next();
+            }
+        });
+
+        return cursor;
+    }
+
+    private static class Collect implements Answer<WriteResult> {
+        private final List<DBObject> documents;
+
+        Collect(final List<DBObject> documents) {
+            this.documents = documents;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public WriteResult answer(final InvocationOnMock invocation) {
+            documents.addAll((List<DBObject>) invocation.getArguments()[0]);
+            return null;
+        }
+    }
+}
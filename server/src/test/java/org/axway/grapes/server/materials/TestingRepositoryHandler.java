@@ -3,11 +3,18 @@ package org.axway.grapes.server.materials;
 import org.axway.grapes.server.GrapesTestUtils;
 import org.axway.grapes.server.core.options.FiltersHolder;
 import org.axway.grapes.server.db.DataUtils;
+import org.axway.grapes.server.db.DbCursor;
+import org.axway.grapes.server.db.DependencyGraphIndex;
+import org.axway.grapes.server.db.LicenseResolver;
+import org.axway.grapes.server.db.OrganizationMatcher;
+import org.axway.grapes.server.db.PromotionStatusCache;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.*;
 import org.axway.grapes.server.materials.cases.DependencyCase;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -94,6 +101,16 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         return null;  //To change body of implemented methods use File | Settings | File Templates.
     }
 
+    @Override
+    public DbCursor<DbArtifact> getArtifactsCursor(final FiltersHolder filters) {
+        return DbCursor.of(Collections.<DbArtifact>emptyList());
+    }
+
+    @Override
+    public long getArtifactsCount(final FiltersHolder filters) {
+        return 0;
+    }
+
     @Override
     public void addLicenseToArtifact(DbArtifact artifact, String licenseId) {
         //To change body of implemented methods use File | Settings | File Templates.
@@ -114,6 +131,15 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         artifacts.add(dbArtifact);
     }
 
+    @Override
+    public void storeIfNew(final Collection<DbArtifact> dbArtifacts) {
+        for(DbArtifact dbArtifact: dbArtifacts){
+            if(getArtifact(dbArtifact.getGavc()) == null){
+                artifacts.add(dbArtifact);
+            }
+        }
+    }
+
     @Override
     public List<String> getGavcs(final FiltersHolder filters) {
         return null;  //To change body of implemented methods use File | Settings | File Templates.
@@ -124,6 +150,11 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         return null;  //To change body of implemented methods use File | Settings | File Templates.
     }
 
+    @Override
+    public long getGroupIdsCount(final FiltersHolder filters) {
+        return 0;
+    }
+
     @Override
     public List<String> getArtifactVersions(final DbArtifact artifact) {
         return null;  //To change body of implemented methods use File | Settings | File Templates.
@@ -140,6 +171,17 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         return null;
     }
 
+    @Override
+    public List<DbArtifact> getArtifactsByGavc(final Collection<String> gavcs) {
+        final List<DbArtifact> results = new ArrayList<DbArtifact>();
+        for(DbArtifact artifact: artifacts){
+            if(gavcs.contains(artifact.getGavc())){
+                results.add(artifact);
+            }
+        }
+        return results;
+    }
+
     @Override
     public void deleteArtifact(final String gavc) {
         //To change body of implemented methods use File | Settings | File Templates.
@@ -165,6 +207,18 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         return null;  //To change body of implemented methods use File | Settings | File Templates.
     }
 
+    @Override
+    public List<DbModule> getAncestors(final Collection<String> gavcs, final FiltersHolder filters) {
+        final List<DbModule> results = new ArrayList<DbModule>();
+        for(DbModule module: modules){
+            module.updateHasAndUse();
+            if(!Collections.disjoint(module.getUses(), gavcs)){
+                results.add(module);
+            }
+        }
+        return results;
+    }
+
     @Override
     public void store(final DbModule dbModule) {
         dbModule.updateHasAndUse();
@@ -176,6 +230,11 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         return null;  //To change body of implemented methods use File | Settings | File Templates.
     }
 
+    @Override
+    public long getModuleNamesCount(final FiltersHolder filters) {
+        return 0;
+    }
+
     @Override
     public List<String> getModuleVersions(final String name, final FiltersHolder filters) {
         return null;  //To change body of implemented methods use File | Settings | File Templates.
@@ -192,11 +251,32 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         return null;
     }
 
+    @Override
+    public List<DbModule> getModulesById(final Collection<String> moduleIds) {
+        final List<DbModule> results = new ArrayList<DbModule>();
+        for(DbModule module: modules){
+            if(moduleIds.contains(module.getId())){
+                results.add(module);
+            }
+        }
+        return results;
+    }
+
     @Override
     public List<DbModule> getModules(FiltersHolder filters) {
         return null;  //To change body of implemented methods use File | Settings | File Templates.
     }
 
+    @Override
+    public DbCursor<DbModule> getModulesCursor(final FiltersHolder filters) {
+        return DbCursor.of(Collections.<DbModule>emptyList());
+    }
+
+    @Override
+    public long getModulesCount(final FiltersHolder filters) {
+        return 0;
+    }
+
     @Override
     public void deleteModule(final String moduleId) {
         //To change body of implemented methods use File | Settings | File Templates.
@@ -207,6 +287,16 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         //To change body of implemented methods use File | Settings | File Templates.
     }
 
+    @Override
+    public DbModuleClosure getModuleClosure(final String moduleId) {
+        return null;
+    }
+
+    @Override
+    public void rebuildModuleClosures() {
+        // Not implemented
+    }
+
     @Override
     public DbModule getRootModuleOf(final String gavc) {
         for(DbModule module: modules){
@@ -218,6 +308,18 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         return null;
     }
 
+    @Override
+    public List<DbModule> getRootModulesOf(final Collection<String> gavcs) {
+        final List<DbModule> results = new ArrayList<DbModule>();
+        for(DbModule module: modules){
+            module.updateHasAndUse();
+            if(!Collections.disjoint(module.getHas(), gavcs)){
+                results.add(module);
+            }
+        }
+        return results;
+    }
+
     @Override
     public DbModule getModuleOf(final String gavc) {
         for(DbModule module: modules){
@@ -234,6 +336,41 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         return null;
     }
 
+    @Override
+    public DependencyGraphIndex getGraphIndex() {
+        return null;
+    }
+
+    @Override
+    public OrganizationMatcher getOrganizationMatcher() {
+        return null;
+    }
+
+    @Override
+    public LicenseResolver getLicenseResolver() {
+        return null;
+    }
+
+    @Override
+    public PromotionStatusCache getPromotionStatusCache() {
+        return null;
+    }
+
+    @Override
+    public void clearCaches() {
+        // Not implemented
+    }
+
+    @Override
+    public DbLatestVersions getLatestVersions(final DbArtifact artifact) {
+        return null;
+    }
+
+    @Override
+    public void rebuildLatestVersions() {
+        // Not implemented
+    }
+
     @Override
     public List<String> getOrganizationNames() {
         List<String> names = new ArrayList<String>();
@@ -319,6 +456,11 @@ public class TestingRepositoryHandler implements RepositoryHandler {
         return names;
     }
 
+    @Override
+    public long getLicenseNamesCount(final FiltersHolder filters) {
+        return 0;
+    }
+
     public List<DbModule> getTargetedModules(final List<DbDependency> dependencies) {
         final List<String> treatedModuleId = new ArrayList<String>();
         final List<DbModule> axModuleDeps = new ArrayList<DbModule>();
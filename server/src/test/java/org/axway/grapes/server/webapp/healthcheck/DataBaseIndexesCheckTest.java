@@ -0,0 +1,33 @@
+package org.axway.grapes.server.webapp.healthcheck;
+
+import com.yammer.metrics.core.HealthCheck.Result;
+import org.axway.grapes.server.config.DataBaseConfig;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
+import org.junit.Test;
+
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class DataBaseIndexesCheckTest {
+    
+    @Test
+	public void checkUnhealthy() throws UnknownHostException {
+		DataBaseConfig dataBaseConfig = mock(DataBaseConfig.class);
+		when(dataBaseConfig.getHost()).thenReturn("localhost");
+		when(dataBaseConfig.getPort()).thenReturn(8074);
+		
+		DataBaseIndexesCheck dbCheck = new DataBaseIndexesCheck(new MongodbConnection(dataBaseConfig));
+		Result result = dbCheck.check();
+		
+		assertNotNull(result);
+		assertFalse(result.isHealthy());
+		
+	}
+    
+}
@@ -2,8 +2,11 @@ package org.axway.grapes.server.webapp.healthcheck;
 
 import com.yammer.metrics.core.HealthCheck.Result;
 import org.axway.grapes.server.config.DataBaseConfig;
+import org.axway.grapes.server.db.mongo.MongodbConnection;
 import org.junit.Test;
 
+import java.net.UnknownHostException;
+
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.mock;
@@ -16,12 +19,12 @@ import static org.mockito.Mockito.when;
 public class DataModelVersionCheckTest {
     
     @Test
-	public void checkUnhealthy() {
+	public void checkUnhealthy() throws UnknownHostException {
 		DataBaseConfig dataBaseConfig = mock(DataBaseConfig.class);
 		when(dataBaseConfig.getHost()).thenReturn("localhost");
 		when(dataBaseConfig.getPort()).thenReturn(8074);
 
-        DataModelVersionCheck dbCheck = new DataModelVersionCheck(dataBaseConfig);
+        DataModelVersionCheck dbCheck = new DataModelVersionCheck(new MongodbConnection(dataBaseConfig));
 		Result result = dbCheck.check();
 		
 		assertNotNull(result);
@@ -13,6 +13,8 @@ import org.axway.grapes.commons.datamodel.*;
 import org.axway.grapes.server.GrapesTestUtils;
 import org.axway.grapes.server.config.GrapesServerConfig;
 import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.core.options.Pagination;
+import org.axway.grapes.server.db.DbCursor;
 import org.axway.grapes.server.db.ModelMapper;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.*;
@@ -21,8 +23,12 @@ import org.eclipse.jetty.http.HttpStatus;
 import org.junit.Test;
 
 import javax.ws.rs.core.MediaType;
+import java.io.Closeable;
+import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -37,7 +43,7 @@ public class ArtifactResourceTest extends ResourceTest {
     @Override
     protected void setUpResources() throws Exception {
         repositoryHandler = GrapesTestUtils.getRepoHandlerMock();
-        ArtifactResource resource = new ArtifactResource(repositoryHandler, mock(GrapesServerConfig.class));
+        ArtifactResource resource = new ArtifactResource(repositoryHandler, mock(GrapesServerConfig.class), getObjectMapperFactory().build());
         addProvider(new BasicAuthProvider<DbCredential>(new GrapesAuthenticator(repositoryHandler), "test auth"));
         addProvider(ViewMessageBodyWriter.class);
         addResource(resource);
@@ -65,6 +71,27 @@ public class ArtifactResourceTest extends ResourceTest {
         assertEquals(HttpStatus.CREATED_201, response.getStatus());
     }
 
+    @Test
+    public void postArtifacts() throws AuthenticationException, UnknownHostException {
+        final Artifact artifact = DataModelFactory.createArtifact("groupId", "artifactId", "version", "classifier", "type", "extension");
+        final Artifact malFormed = DataModelFactory.createArtifact("groupId", null, null, null, null, null);
+
+        client().addFilter(new HTTPBasicAuthFilter(GrapesTestUtils.USER_4TEST, GrapesTestUtils.PASSWORD_4TEST));
+        final WebResource resource = client().resource("/" + ServerAPI.ARTIFACT_RESOURCE + ServerAPI.POST_BATCH);
+        final ClientResponse response = resource.type(MediaType.APPLICATION_JSON)
+                .post(ClientResponse.class, Arrays.asList(artifact, malFormed));
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+
+        final List<BatchResult> results = response.getEntity(new GenericType<List<BatchResult>>(){});
+        assertEquals(2, results.size());
+        assertEquals(artifact.getGavc(), results.get(0).getId());
+        assertEquals(HttpStatus.CREATED_201, results.get(0).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST_400, results.get(1).getStatus());
+
+        verify(repositoryHandler, times(1)).store((DbArtifact) anyObject());
+    }
+
     @Test
     public void postMalFormedArtifact() throws AuthenticationException, UnknownHostException {
         client().addFilter(new HTTPBasicAuthFilter(GrapesTestUtils.USER_4TEST, GrapesTestUtils.PASSWORD_4TEST));
@@ -188,6 +215,93 @@ public class ArtifactResourceTest extends ResourceTest {
         assertEquals("groupId1", results.get(0));
     }
 
+    @Test
+    public void getPageOfGavcs(){
+        final List<String> gavcs = new ArrayList<String>();
+        gavcs.add("gavc1");
+        gavcs.add("gavc2");
+        when(repositoryHandler.getGavcs((FiltersHolder) anyObject())).thenReturn(gavcs);
+
+        WebResource resource = client().resource("/" + ServerAPI.ARTIFACT_RESOURCE + ServerAPI.GET_GAVCS)
+                .queryParam(ServerAPI.LIMIT_PARAM, "2");
+        ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals(Pagination.encodeCursor("gavc2"), response.getHeaders().getFirst(ServerAPI.NEXT_CURSOR_HEADER));
+        assertEquals(2, response.getEntity(new GenericType<List<String>>(){}).size());
+
+        resource = client().resource("/" + ServerAPI.ARTIFACT_RESOURCE + ServerAPI.GET_GAVCS)
+                .queryParam(ServerAPI.LIMIT_PARAM, "3");
+        response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertNull(response.getHeaders().getFirst(ServerAPI.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void countGavcs(){
+        when(repositoryHandler.getArtifactsCount((FiltersHolder) anyObject())).thenReturn(42L);
+
+        WebResource resource = client().resource("/" + ServerAPI.ARTIFACT_RESOURCE + ServerAPI.GET_GAVCS)
+                .queryParam(ServerAPI.COUNT_PARAM, "true");
+        ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals(Long.valueOf(42), response.getEntity(Long.class));
+        verify(repositoryHandler, never()).getGavcs((FiltersHolder) anyObject());
+    }
+
+    @Test
+    public void badPaginationParameters(){
+        WebResource resource = client().resource("/" + ServerAPI.ARTIFACT_RESOURCE + ServerAPI.GET_ALL)
+                .queryParam(ServerAPI.LIMIT_PARAM, "-1");
+        ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+        assertNotNull(response);
+        assertEquals(HttpStatus.BAD_REQUEST_400, response.getStatus());
+    }
+
+    @Test
+    public void getAllArtifacts(){
+        final List<DbArtifact> dbArtifacts = new ArrayList<DbArtifact>();
+        for(int i = 0; i < 3; i++){
+            final DbArtifact dbArtifact = new DbArtifact();
+            dbArtifact.setGroupId("groupId");
+            dbArtifact.setArtifactId("artifact" + i);
+            dbArtifact.setVersion("1.0.0");
+            dbArtifacts.add(dbArtifact);
+        }
+        when(repositoryHandler.getArtifactsCursor((FiltersHolder) anyObject())).thenReturn(DbCursor.of(dbArtifacts));
+
+        final WebResource resource = client().resource("/" + ServerAPI.ARTIFACT_RESOURCE + ServerAPI.GET_ALL);
+        final ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+
+        final List<Artifact> results = response.getEntity(new GenericType<List<Artifact>>(){});
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertEquals("artifact0", results.get(0).getArtifactId());
+        assertEquals("artifact2", results.get(2).getArtifactId());
+        verify(repositoryHandler, never()).getArtifacts((FiltersHolder) anyObject());
+    }
+
+    @Test
+    public void getAllArtifactsClosesTheCursor() throws IOException {
+        final DbArtifact dbArtifact = new DbArtifact();
+        dbArtifact.setGroupId("groupId");
+        dbArtifact.setArtifactId("artifactId");
+        dbArtifact.setVersion("1.0.0");
+        final Closeable dbCursor = mock(Closeable.class);
+        when(repositoryHandler.getArtifactsCursor((FiltersHolder) anyObject()))
+                .thenReturn(new DbCursor<DbArtifact>(Collections.singletonList(dbArtifact).iterator(), dbCursor));
+
+        final WebResource resource = client().resource("/" + ServerAPI.ARTIFACT_RESOURCE + ServerAPI.GET_ALL);
+        final ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals(1, response.getEntity(new GenericType<List<Artifact>>(){}).size());
+        verify(dbCursor).close();
+    }
+
     @Test
     public void getAnArtifact() throws UnknownHostException{
         final DbArtifact dbArtifact = new DbArtifact();
@@ -0,0 +1,71 @@
+package org.axway.grapes.server.webapp.resources;
+
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.GenericType;
+import com.sun.jersey.api.client.WebResource;
+import com.yammer.dropwizard.testing.ResourceTest;
+import com.yammer.dropwizard.views.ViewMessageBodyWriter;
+import org.axway.grapes.commons.api.ServerAPI;
+import org.axway.grapes.commons.datamodel.DataModelFactory;
+import org.axway.grapes.server.config.GrapesServerConfig;
+import org.axway.grapes.server.config.IngestionConfig;
+import org.axway.grapes.server.core.ingestion.IngestionJob;
+import org.axway.grapes.server.core.ingestion.ModuleIngestionQueue;
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.Test;
+
+import javax.ws.rs.core.MediaType;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+
+public class JobResourceTest extends ResourceTest {
+
+    private ModuleIngestionQueue ingestionQueue;
+
+    @Override
+    protected void setUpResources() throws Exception {
+        final RepositoryHandler repositoryHandler = mock(RepositoryHandler.class);
+        ingestionQueue = new ModuleIngestionQueue(repositoryHandler, new IngestionConfig());
+
+        addProvider(ViewMessageBodyWriter.class);
+        addResource(new JobResource(repositoryHandler, mock(GrapesServerConfig.class), ingestionQueue));
+    }
+
+    @Test
+    public void getDocumentation(){
+        final WebResource resource = client().resource("/" + ServerAPI.JOB_RESOURCE);
+        final ClientResponse response = resource.type(MediaType.TEXT_HTML).get(ClientResponse.class);
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+    }
+
+    @Test
+    public void getJob() throws Exception {
+        ingestionQueue.start();
+        final IngestionJob job = ingestionQueue.offer(DataModelFactory.createModule("module", "1.0.0"));
+        ingestionQueue.stop();
+
+        final WebResource resource = client().resource("/" + ServerAPI.JOB_RESOURCE + "/" + job.getId());
+        final ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+
+        final Map<String, Object> receivedJob = response.getEntity(new GenericType<Map<String, Object>>(){});
+        assertEquals(job.getId(), receivedJob.get("id"));
+        assertEquals("module:1.0.0", receivedJob.get("moduleId"));
+        assertEquals(IngestionJob.Status.DONE.name(), receivedJob.get("status"));
+    }
+
+    @Test
+    public void getUnknownJob(){
+        final WebResource resource = client().resource("/" + ServerAPI.JOB_RESOURCE + "/unknown");
+        final ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+        assertNotNull(response);
+        assertEquals(HttpStatus.NOT_FOUND_404, response.getStatus());
+    }
+}
@@ -13,7 +13,11 @@ import org.axway.grapes.commons.api.ServerAPI;
 import org.axway.grapes.commons.datamodel.*;
 import org.axway.grapes.server.GrapesTestUtils;
 import org.axway.grapes.server.config.GrapesServerConfig;
+import org.axway.grapes.server.config.IngestionConfig;
+import org.axway.grapes.server.core.ingestion.IngestionJob;
+import org.axway.grapes.server.core.ingestion.ModuleIngestionQueue;
 import org.axway.grapes.server.core.options.FiltersHolder;
+import org.axway.grapes.server.db.DbCursor;
 import org.axway.grapes.server.db.RepositoryHandler;
 import org.axway.grapes.server.db.datamodel.DbArtifact;
 import org.axway.grapes.server.db.datamodel.DbCredential;
@@ -23,13 +27,19 @@ import org.axway.grapes.server.webapp.auth.GrapesAuthenticator;
 import org.eclipse.jetty.http.HttpStatus;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import javax.ws.rs.core.MediaType;
 import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
@@ -40,13 +50,20 @@ import static org.mockito.Mockito.*;
 public class ModuleResourceTest extends ResourceTest {
 
     private RepositoryHandler repositoryHandler;
+    private ModuleIngestionQueue ingestionQueue;
 
     @Override
     protected void setUpResources() throws Exception {
         repositoryHandler = GrapesTestUtils.getRepoHandlerMock();
         final GrapesServerConfig config =mock(GrapesServerConfig.class);
-        
-        final ModuleResource resource = new ModuleResource(repositoryHandler, config);
+
+        // the queue is started by the tests that post asynchronously
+        final IngestionConfig ingestionConfig = new IngestionConfig();
+        ingestionConfig.setQueueSize(1);
+        ingestionConfig.setWorkers(1);
+        ingestionQueue = new ModuleIngestionQueue(repositoryHandler, ingestionConfig);
+
+        final ModuleResource resource = new ModuleResource(repositoryHandler, config, ingestionQueue, getObjectMapperFactory().build());
         addProvider(new BasicAuthProvider<DbCredential>(new GrapesAuthenticator(repositoryHandler), "test auth"));
         addProvider(ViewMessageBodyWriter.class);
         addResource(resource);
@@ -80,6 +97,109 @@ public class ModuleResourceTest extends ResourceTest {
         assertEquals(GrapesTestUtils.ORGANIZATION_NAME_4TEST, captor.getValue().getOrganization());
     }
 
+    @Test
+    public void postModuleAsynchronously() throws Exception {
+        final Module module = DataModelFactory.createModule("module", "1.0.0-SNAPSHOT");
+
+        // the worker is kept busy by another module: the posted modules stay in the queue
+        final CountDownLatch storing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                storing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(repositoryHandler).store((DbModule) anyObject());
+
+        client().addFilter(new HTTPBasicAuthFilter(GrapesTestUtils.USER_4TEST, GrapesTestUtils.PASSWORD_4TEST));
+        final WebResource resource = client().resource("/" + ServerAPI.MODULE_RESOURCE)
+                .queryParam(ServerAPI.ASYNC_PARAM, "true");
+
+        // the queue rejects the modules while it is not running
+        ClientResponse response = resource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, module);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE_503, response.getStatus());
+
+        ingestionQueue.start();
+        try {
+            response = resource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, DataModelFactory.createModule("busy", "1.0.0"));
+            assertEquals(HttpStatus.ACCEPTED_202, response.getStatus());
+            assertTrue(storing.await(5, TimeUnit.SECONDS));
+            postQueuedModule(resource, module);
+        }
+        finally {
+            release.countDown();
+            ingestionQueue.stop();
+        }
+        verify(repositoryHandler, times(2)).store((DbModule) anyObject());
+    }
+
+    private void postQueuedModule(final WebResource resource, final Module module) {
+        ClientResponse response = resource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, module);
+        assertNotNull(response);
+        assertEquals(HttpStatus.ACCEPTED_202, response.getStatus());
+
+        final Map<String, Object> job = response.getEntity(new GenericType<Map<String, Object>>(){});
+        assertEquals("module:1.0.0-SNAPSHOT", job.get("moduleId"));
+        assertEquals(IngestionJob.Status.QUEUED.name(), job.get("status"));
+        assertTrue(response.getLocation().getPath().endsWith(ServerAPI.JOB_RESOURCE + "/" + job.get("id")));
+        assertNotNull(ingestionQueue.getJob((String) job.get("id")));
+        assertEquals(1, ingestionQueue.size());
+        verify(repositoryHandler, times(1)).store((DbModule) anyObject());
+
+        // a new post of a queued module is merged with the queued one
+        response = resource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, module);
+        assertEquals(HttpStatus.ACCEPTED_202, response.getStatus());
+        assertEquals(1, ingestionQueue.size());
+
+        // the queue is full
+        response = resource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, DataModelFactory.createModule("other", "1.0.0"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE_503, response.getStatus());
+        assertEquals("30", response.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    public void postModules() throws UnknownHostException, AuthenticationException {
+        final Module module = DataModelFactory.createModule("module", "1.0.0-SNAPSHOT");
+        final Artifact artifact = DataModelFactory.createArtifact(GrapesTestUtils.CORPORATE_GROUPID_4TEST, "artifactId", "version", "classifier", "type", "extension");
+        final Artifact dependency = DataModelFactory.createArtifact(GrapesTestUtils.CORPORATE_GROUPID_4TEST, "dependency", "version", "classifier", "type", "extension");
+        module.addArtifact(artifact);
+        module.addDependency(DataModelFactory.createDependency(dependency, Scope.COMPILE));
+
+        client().addFilter(new HTTPBasicAuthFilter(GrapesTestUtils.USER_4TEST, GrapesTestUtils.PASSWORD_4TEST));
+        final WebResource resource = client().resource("/" + ServerAPI.MODULE_RESOURCE + ServerAPI.POST_BATCH);
+        final ClientResponse response = resource.type(MediaType.APPLICATION_JSON)
+                .post(ClientResponse.class, Arrays.asList(module, DataModelFactory.createModule(null, "1.0.0")));
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+
+        final List<BatchResult> results = response.getEntity(new GenericType<List<BatchResult>>(){});
+        assertEquals(2, results.size());
+        assertEquals("module:1.0.0-SNAPSHOT", results.get(0).getId());
+        assertEquals(HttpStatus.CREATED_201, results.get(0).getStatus());
+        assertNull(results.get(0).getMessage());
+        assertEquals(HttpStatus.BAD_REQUEST_400, results.get(1).getStatus());
+        assertNotNull(results.get(1).getMessage());
+
+        verify(repositoryHandler, times(1)).store((DbModule) anyObject());
+        verify(repositoryHandler, times(1)).store((DbArtifact) anyObject());
+
+        final ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(repositoryHandler, times(1)).storeIfNew(captor.capture());
+        assertEquals(1, captor.getValue().size());
+    }
+
+    @Test
+    public void postModulesWithWrongCredentials() throws UnknownHostException, AuthenticationException {
+        client().addFilter(new HTTPBasicAuthFilter(GrapesTestUtils.WRONG_USER_4TEST, GrapesTestUtils.WRONG_PASSWORD_4TEST));
+        final WebResource resource = client().resource("/" + ServerAPI.MODULE_RESOURCE + ServerAPI.POST_BATCH);
+        final ClientResponse response = resource.type(MediaType.APPLICATION_JSON)
+                .post(ClientResponse.class, Arrays.asList(DataModelFactory.createModule("module", "1.0.0")));
+        assertNotNull(response);
+        assertEquals(HttpStatus.UNAUTHORIZED_401, response.getStatus());
+    }
+
     @Test
     public void postMalFormedModule() throws UnknownHostException, AuthenticationException {
         client().addFilter(new HTTPBasicAuthFilter(GrapesTestUtils.USER_4TEST, GrapesTestUtils.PASSWORD_4TEST));
@@ -157,7 +277,7 @@ public class ModuleResourceTest extends ResourceTest {
         final DbModule dbModule  = new DbModule();
         dbModule.setName("moduleTest");
         dbModule.setVersion("1.0.0");
-        when(repositoryHandler.getModules((FiltersHolder) anyObject())).thenReturn(Collections.singletonList(dbModule));
+        when(repositoryHandler.getModulesCursor((FiltersHolder) anyObject())).thenReturn(DbCursor.of(Collections.singletonList(dbModule)));
 
         final WebResource resource = client().resource("/" + ServerAPI.MODULE_RESOURCE + ServerAPI.GET_ALL);
         final ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
@@ -236,7 +356,7 @@ public class ModuleResourceTest extends ResourceTest {
         ancestor.setName("ancestor");
         ancestor.setVersion("1");
         ancestor.addDependency(dbArtifact.getGavc(), Scope.PROVIDED);
-        when(repositoryHandler.getAncestors(eq(dbArtifact), (FiltersHolder) anyObject())).thenReturn(Collections.singletonList(ancestor));
+        when(repositoryHandler.getAncestors(eq(Collections.singletonList(dbArtifact.getGavc())), (FiltersHolder) anyObject())).thenReturn(Arrays.asList(ancestor, dbModule));
 
         final WebResource resource = client().resource("/" + ServerAPI.MODULE_RESOURCE + "/" + dbModule.getName() + "/" + dbModule.getVersion()+ ServerAPI.GET_ANCESTORS);
         final ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
@@ -442,6 +562,18 @@ public class ModuleResourceTest extends ResourceTest {
         assertEquals("what a test!", gotModule.getBuildInfo().get("test"));
     }
 
+    @Test
+    public void postBuildInfoWithAnInvalidKey(){
+        final Map<String, String> buildInfo = new HashMap<String, String>();
+        buildInfo.put("java.version", "1.6");
+
+        final WebResource resource = client().resource("/" + ServerAPI.MODULE_RESOURCE + "/moduleTest/1.0.0" + ServerAPI.GET_BUILD_INFO);
+        final ClientResponse response = resource.type(MediaType.APPLICATION_JSON).post(ClientResponse.class, buildInfo);
+        assertNotNull(response);
+        assertEquals(HttpStatus.BAD_REQUEST_400, response.getStatus());
+        verify(repositoryHandler, never()).store(any(DbModule.class));
+    }
+
     @Test
     public void postBuildInfoOnModuleThatDoesNotExist(){
         final WebResource resource = client().resource("/" + ServerAPI.MODULE_RESOURCE + "/doesNotExist/doesNotExist" + ServerAPI.GET_BUILD_INFO);
@@ -0,0 +1,47 @@
+package org.axway.grapes.server.webapp.tasks;
+
+import org.axway.grapes.server.db.RepositoryHandler;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.PrintWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class RebuildModuleClosuresTaskTest {
+
+    @Test
+    public void rebuildInBackground() throws Exception {
+        final CountDownLatch rebuilding = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RepositoryHandler repoHandler = mock(RepositoryHandler.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                rebuilding.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(repoHandler).rebuildModuleClosures();
+
+        final RebuildModuleClosuresTask task = new RebuildModuleClosuresTask(repoHandler);
+        task.execute(null, mock(PrintWriter.class));
+        assertTrue(rebuilding.await(5, TimeUnit.SECONDS));
+        assertTrue(task.isRunning());
+
+        // a single rebuild at a time
+        task.execute(null, mock(PrintWriter.class));
+        release.countDown();
+
+        verify(repoHandler, timeout(5000).times(1)).rebuildModuleClosures();
+        for(int i = 0; i < 50 && task.isRunning(); i++){
+            Thread.sleep(100);
+        }
+        assertFalse(task.isRunning());
+    }
+}
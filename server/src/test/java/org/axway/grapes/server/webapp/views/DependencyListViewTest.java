@@ -9,8 +9,10 @@ import org.axway.grapes.server.webapp.views.utils.Table;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.Iterator;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertNotNull;
 
 public class DependencyListViewTest {
@@ -234,4 +236,39 @@ public class DependencyListViewTest {
 
     }
 
+    @Test
+    public void rowsAreGeneratedOneAtATimeWithoutDuplicates(){
+        final Decorator decorator = new Decorator();
+        decorator.setShowSources(false);
+        decorator.setShowSourcesVersion(false);
+        decorator.setShowTargets(true);
+        decorator.setShowTargetsDownloadUrl(false);
+        decorator.setShowTargetsSize(false);
+        decorator.setShowScopes(false);
+        decorator.setShowLicenses(false);
+        decorator.setShowLicensesComment(false);
+        decorator.setShowLicensesLongName(false);
+        decorator.setShowLicensesUrl(false);
+
+        final DependencyListView depList = new DependencyListView("test", Collections.EMPTY_LIST, decorator);
+        final Artifact artifact = DataModelFactory.createArtifact("com.my.company", "test", "1", null, "jar", "jar");
+        final Artifact other = DataModelFactory.createArtifact("com.my.company", "other", "1", null, "jar", "jar");
+        artifact.addLicense("license1");
+        artifact.addLicense("license2");
+
+        final Dependency dependency = DataModelFactory.createDependency(artifact, Scope.COMPILE);
+        dependency.setSourceName("module1");
+        final Dependency otherSource = DataModelFactory.createDependency(artifact, Scope.COMPILE);
+        otherSource.setSourceName("module2");
+        depList.addAll(Lists.newArrayList(dependency, dependency, otherSource, DataModelFactory.createDependency(other, Scope.TEST)));
+
+        assertEquals(3, depList.getDependencies().size());
+        assertEquals(Lists.newArrayList(DependencyListView.TARGET_FIELD), depList.getTableHeaders());
+
+        final Iterator<Row> rows = depList.getTableRows();
+        assertEquals(artifact.getGavc(), rows.next().get(0));
+        assertEquals(other.getGavc(), rows.next().get(0));
+        assertFalse(rows.hasNext());
+        assertEquals(2, depList.getTable().size());
+    }
 }
@@ -10,6 +10,7 @@ import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import org.axway.grapes.commons.api.ServerAPI;
 import org.axway.grapes.commons.datamodel.*;
 import org.axway.grapes.utils.data.model.ArtifactList;
+import org.axway.grapes.utils.data.model.ResultPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -180,6 +181,20 @@ public class GrapesClient {
         }
     }
 
+    /**
+     * Post a list of modules to the server in a single request
+     *
+     * @param modules
+     * @param user
+     * @param password
+     * @return List<BatchResult> the result of the storage of each module
+     * @throws GrapesCommunicationException
+     * @throws javax.naming.AuthenticationException
+     */
+    public List<BatchResult> postModules(final List<Module> modules, final String user, final String password) throws GrapesCommunicationException, AuthenticationException {
+        return postBatch(RequestUtils.moduleBatchPath(), modules, user, password, "Failed to POST modules");
+    }
+
     /**
      * Delete a module from Grapes server
      *
@@ -361,6 +376,20 @@ public class GrapesClient {
         }
     }
 
+    /**
+     * Post a list of artifacts to the Grapes server in a single request
+     *
+     * @param artifacts
+     * @param user
+     * @param password
+     * @return List<BatchResult> the result of the storage of each artifact
+     * @throws GrapesCommunicationException
+     * @throws javax.naming.AuthenticationException
+     */
+    public List<BatchResult> postArtifacts(final List<Artifact> artifacts, final String user, final String password) throws GrapesCommunicationException, AuthenticationException {
+        return postBatch(RequestUtils.artifactBatchPath(), artifacts, user, password, "Failed to POST artifacts");
+    }
+
     /**
      * Delete an artifact in the Grapes server
      *
@@ -736,4 +765,220 @@ public class GrapesClient {
         return response.getEntity(new GenericType<List<String>>(){});
 
     }
+
+    /**
+     * Returns a page of the gavcs regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @param limit int the maximum number of gavcs, 0 for no limit
+     * @param cursor String the cursor returned with the previous page, null for the first page
+     * @return ResultPage<String>
+     * @throws GrapesCommunicationException
+     */
+    public ResultPage<String> getGavcs(final Map<String, String> filters, final int limit, final String cursor) throws GrapesCommunicationException {
+        return getPage(RequestUtils.getGavcsPath(), filters, limit, cursor, new GenericType<List<String>>(){}, "Failed to get gavcs");
+    }
+
+    /**
+     * Returns the number of gavcs regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @return long
+     * @throws GrapesCommunicationException
+     */
+    public long getGavcsCount(final Map<String, String> filters) throws GrapesCommunicationException {
+        return getCount(RequestUtils.getGavcsPath(), filters, "Failed to count gavcs");
+    }
+
+    /**
+     * Returns a page of the groupIds regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @param limit int the maximum number of groupIds, 0 for no limit
+     * @param cursor String the cursor returned with the previous page, null for the first page
+     * @return ResultPage<String>
+     * @throws GrapesCommunicationException
+     */
+    public ResultPage<String> getGroupIds(final Map<String, String> filters, final int limit, final String cursor) throws GrapesCommunicationException {
+        return getPage(RequestUtils.getGroupIdsPath(), filters, limit, cursor, new GenericType<List<String>>(){}, "Failed to get groupIds");
+    }
+
+    /**
+     * Returns the number of groupIds regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @return long
+     * @throws GrapesCommunicationException
+     */
+    public long getGroupIdsCount(final Map<String, String> filters) throws GrapesCommunicationException {
+        return getCount(RequestUtils.getGroupIdsPath(), filters, "Failed to count groupIds");
+    }
+
+    /**
+     * Returns a page of the module names regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @param limit int the maximum number of names, 0 for no limit
+     * @param cursor String the cursor returned with the previous page, null for the first page
+     * @return ResultPage<String>
+     * @throws GrapesCommunicationException
+     */
+    public ResultPage<String> getModuleNames(final Map<String, String> filters, final int limit, final String cursor) throws GrapesCommunicationException {
+        return getPage(RequestUtils.getModuleNamesPath(), filters, limit, cursor, new GenericType<List<String>>(){}, "Failed to get module names");
+    }
+
+    /**
+     * Returns the number of module names regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @return long
+     * @throws GrapesCommunicationException
+     */
+    public long getModuleNamesCount(final Map<String, String> filters) throws GrapesCommunicationException {
+        return getCount(RequestUtils.getModuleNamesPath(), filters, "Failed to count module names");
+    }
+
+    /**
+     * Returns a page of the license names regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @param limit int the maximum number of names, 0 for no limit
+     * @param cursor String the cursor returned with the previous page, null for the first page
+     * @return ResultPage<String>
+     * @throws GrapesCommunicationException
+     */
+    public ResultPage<String> getLicenseNames(final Map<String, String> filters, final int limit, final String cursor) throws GrapesCommunicationException {
+        return getPage(RequestUtils.getLicenseNamesPath(), filters, limit, cursor, new GenericType<List<String>>(){}, "Failed to get license names");
+    }
+
+    /**
+     * Returns the number of license names regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @return long
+     * @throws GrapesCommunicationException
+     */
+    public long getLicenseNamesCount(final Map<String, String> filters) throws GrapesCommunicationException {
+        return getCount(RequestUtils.getLicenseNamesPath(), filters, "Failed to count license names");
+    }
+
+    /**
+     * Returns a page of the modules regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @param limit int the maximum number of modules, 0 for no limit
+     * @param cursor String the cursor returned with the previous page, null for the first page
+     * @return ResultPage<Module>
+     * @throws GrapesCommunicationException
+     */
+    public ResultPage<Module> getModules(final Map<String, String> filters, final int limit, final String cursor) throws GrapesCommunicationException {
+        return getPage(RequestUtils.getAllModulesPath(), filters, limit, cursor, new GenericType<List<Module>>(){}, "Failed to get filtered modules");
+    }
+
+    /**
+     * Returns the number of modules regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @return long
+     * @throws GrapesCommunicationException
+     */
+    public long getModulesCount(final Map<String, String> filters) throws GrapesCommunicationException {
+        return getCount(RequestUtils.getAllModulesPath(), filters, "Failed to count modules");
+    }
+
+    /**
+     * Returns a page of the artifacts regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @param limit int the maximum number of artifacts, 0 for no limit
+     * @param cursor String the cursor returned with the previous page, null for the first page
+     * @return ResultPage<Artifact>
+     * @throws GrapesCommunicationException
+     */
+    public ResultPage<Artifact> getArtifacts(final Map<String, String> filters, final int limit, final String cursor) throws GrapesCommunicationException {
+        return getPage(RequestUtils.getArtifactsPath(), filters, limit, cursor, new GenericType<List<Artifact>>(){}, "Failed to get artifacts");
+    }
+
+    /**
+     * Returns the number of artifacts regarding the filters
+     *
+     * @param filters Map<String, String>
+     * @return long
+     * @throws GrapesCommunicationException
+     */
+    public long getArtifactsCount(final Map<String, String> filters) throws GrapesCommunicationException {
+        return getCount(RequestUtils.getArtifactsPath(), filters, "Failed to count artifacts");
+    }
+
+    private List<BatchResult> postBatch(final String path, final List<?> elements, final String user, final String password,
+                                        final String message) throws GrapesCommunicationException, AuthenticationException {
+        final Client client = getClient(user, password);
+        final WebResource resource = client.resource(serverURL).path(path);
+        final ClientResponse response = resource.type(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .post(ClientResponse.class, elements);
+
+        if(ClientResponse.Status.OK.getStatusCode() != response.getStatus()){
+            client.destroy();
+            LOG.error(message + ". Http status: " + response.getStatus());
+            throw new GrapesCommunicationException(message, response.getStatus());
+        }
+
+        final List<BatchResult> results = response.getEntity(new GenericType<List<BatchResult>>(){});
+        client.destroy();
+
+        return results;
+    }
+
+    private <T> ResultPage<T> getPage(final String path, final Map<String, String> filters, final int limit, final String cursor,
+                                      final GenericType<List<T>> type, final String message) throws GrapesCommunicationException {
+        final Client client = getClient();
+        WebResource resource = getFilteredResource(client, path, filters);
+        if(limit > 0){
+            resource = resource.queryParam(ServerAPI.LIMIT_PARAM, String.valueOf(limit));
+        }
+        if(cursor != null){
+            resource = resource.queryParam(ServerAPI.CURSOR_PARAM, cursor);
+        }
+
+        final ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+
+        if(ClientResponse.Status.OK.getStatusCode() != response.getStatus()){
+            client.destroy();
+            LOG.error(message + ". Http status: " + response.getStatus());
+            throw new GrapesCommunicationException(message, response.getStatus());
+        }
+
+        final ResultPage<T> page = new ResultPage<T>(response.getEntity(type),
+                response.getHeaders().getFirst(ServerAPI.NEXT_CURSOR_HEADER));
+        client.destroy();
+
+        return page;
+    }
+
+    private long getCount(final String path, final Map<String, String> filters, final String message) throws GrapesCommunicationException {
+        final Client client = getClient();
+        final WebResource resource = getFilteredResource(client, path, filters)
+                .queryParam(ServerAPI.COUNT_PARAM, "true");
+        final ClientResponse response = resource.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+
+        if(ClientResponse.Status.OK.getStatusCode() != response.getStatus()){
+            client.destroy();
+            LOG.error(message + ". Http status: " + response.getStatus());
+            throw new GrapesCommunicationException(message, response.getStatus());
+        }
+
+        final Long count = response.getEntity(Long.class);
+        client.destroy();
+
+        return count;
+    }
+
+    private WebResource getFilteredResource(final Client client, final String path, final Map<String, String> filters) {
+        WebResource resource = client.resource(serverURL).path(path);
+        for(Map.Entry<String,String> queryParam: filters.entrySet()){
+            resource = resource.queryParam(queryParam.getKey(), queryParam.getValue());
+        }
+        return resource;
+    }
 }
@@ -27,6 +27,20 @@ public final class RequestUtils {
         return path.toString();
     }
 
+    public static String moduleBatchPath() {
+        final StringBuilder path = new StringBuilder();
+        path.append(moduleResourcePath());
+        path.append(ServerAPI.POST_BATCH);
+        return path.toString();
+    }
+
+    public static String artifactBatchPath() {
+        final StringBuilder path = new StringBuilder();
+        path.append(artifactResourcePath());
+        path.append(ServerAPI.POST_BATCH);
+        return path.toString();
+    }
+
     public static String licenseResourcePath() {
         final StringBuilder path = new StringBuilder();
         path.append(ServerAPI.LICENSE_RESOURCE);
@@ -203,4 +217,35 @@ public final class RequestUtils {
         return path.toString();
     }
 
+    public static String getGavcsPath() {
+        final StringBuilder path = new StringBuilder();
+        path.append(artifactResourcePath());
+        path.append(ServerAPI.GET_GAVCS);
+
+        return path.toString();
+    }
+
+    public static String getGroupIdsPath() {
+        final StringBuilder path = new StringBuilder();
+        path.append(artifactResourcePath());
+        path.append(ServerAPI.GET_GROUPIDS);
+
+        return path.toString();
+    }
+
+    public static String getModuleNamesPath() {
+        final StringBuilder path = new StringBuilder();
+        path.append(moduleResourcePath());
+        path.append(ServerAPI.GET_NAMES);
+
+        return path.toString();
+    }
+
+    public static String getLicenseNamesPath() {
+        final StringBuilder path = new StringBuilder();
+        path.append(licenseResourcePath());
+        path.append(ServerAPI.GET_NAMES);
+
+        return path.toString();
+    }
 }
@@ -0,0 +1,36 @@
+package org.axway.grapes.utils.data.model;
+
+import java.util.List;
+
+/**
+ * Result Page
+ *
+ * <p>Page of a list returned by a Grapes server with the cursor to send to get the next page.</p>
+ */
+public class ResultPage<T> {
+
+    private final List<T> elements;
+    private final String nextCursor;
+
+    public ResultPage(final List<T> elements, final String nextCursor) {
+        this.elements = elements;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getElements() {
+        return elements;
+    }
+
+    /**
+     * Returns the cursor of the next page or null if this page is the last one
+     *
+     * @return String
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
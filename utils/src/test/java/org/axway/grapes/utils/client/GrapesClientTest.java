@@ -6,6 +6,7 @@ import com.sun.jersey.api.client.ClientResponse.Status;
 import org.axway.grapes.commons.api.ServerAPI;
 import org.axway.grapes.commons.datamodel.*;
 import org.axway.grapes.commons.utils.JsonUtils;
+import org.axway.grapes.utils.data.model.ResultPage;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -1264,4 +1265,79 @@ public class GrapesClientTest {
 
         assertNotNull(exception);
     }
+
+    @Test
+    public void getPageOfGavcs() throws IOException, GrapesCommunicationException {
+        final List<String> gavcs = Lists.newArrayList("org.axway:a:1.0.0::jar", "org.axway:b:1.0.0::jar");
+
+        stubFor(get(urlEqualTo("/" + ServerAPI.ARTIFACT_RESOURCE + ServerAPI.GET_GAVCS + "?" + ServerAPI.LIMIT_PARAM + "=2&" + ServerAPI.CURSOR_PARAM + "=first"))
+                .willReturn(aResponse()
+                        .withStatus(Status.OK.getStatusCode())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+                        .withHeader(ServerAPI.NEXT_CURSOR_HEADER, "next")
+                        .withBody(JsonUtils.serialize(gavcs))));
+
+        final ResultPage<String> page = client.getGavcs(Collections.<String, String>emptyMap(), 2, "first");
+
+        assertNotNull(page);
+        assertEquals(gavcs, page.getElements());
+        assertTrue(page.hasNext());
+        assertEquals("next", page.getNextCursor());
+    }
+
+    @Test
+    public void countModules() throws IOException, GrapesCommunicationException {
+        stubFor(get(urlEqualTo("/" + ServerAPI.MODULE_RESOURCE + ServerAPI.GET_ALL + "?" + ServerAPI.COUNT_PARAM + "=true"))
+                .willReturn(aResponse()
+                        .withStatus(Status.OK.getStatusCode())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+                        .withBody("12")));
+
+        assertEquals(12, client.getModulesCount(Collections.<String, String>emptyMap()));
+    }
+
+    @Test
+    public void postModules() throws IOException, AuthenticationException, GrapesCommunicationException {
+        final List<Module> modules = Lists.newArrayList(
+                DataModelFactory.createModule("module1", "1.0.0"),
+                DataModelFactory.createModule(null, "1.0.0"));
+        final List<BatchResult> results = Lists.newArrayList(
+                DataModelFactory.createBatchResult("module1:1.0.0", Status.CREATED.getStatusCode(), null),
+                DataModelFactory.createBatchResult("null:1.0.0", Status.BAD_REQUEST.getStatusCode(), "Module name should not be null!"));
+
+        stubFor(post(urlEqualTo("/" + ServerAPI.MODULE_RESOURCE + ServerAPI.POST_BATCH))
+                .withRequestBody(equalTo(JsonUtils.serialize(modules)))
+                .willReturn(aResponse()
+                        .withStatus(Status.OK.getStatusCode())
+                        .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON)
+                        .withBody(JsonUtils.serialize(results))));
+
+        final List<BatchResult> gotResults = client.postModules(modules, "user", "password");
+
+        assertNotNull(gotResults);
+        assertEquals(2, gotResults.size());
+        assertEquals(Status.CREATED.getStatusCode(), gotResults.get(0).getStatus());
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), gotResults.get(1).getStatus());
+        assertEquals("Module name should not be null!", gotResults.get(1).getMessage());
+    }
+
+    @Test
+    public void postArtifactsFailure() throws IOException, AuthenticationException {
+        final List<Artifact> artifacts = Lists.newArrayList(
+                DataModelFactory.createArtifact("com.axway.test", "artifact", "1.0.0", null, "jar", "jar"));
+
+        stubFor(post(urlEqualTo("/" + ServerAPI.ARTIFACT_RESOURCE + ServerAPI.POST_BATCH))
+                .willReturn(aResponse()
+                        .withStatus(Status.UNAUTHORIZED.getStatusCode())));
+
+        GrapesCommunicationException exception = null;
+        try {
+            client.postArtifacts(artifacts, "user", "wrongPassword");
+        } catch (GrapesCommunicationException e) {
+            exception = e;
+        }
+
+        assertNotNull(exception);
+        assertEquals(Status.UNAUTHORIZED.getStatusCode(), exception.getHttpStatus());
+    }
 }